@@ -24,6 +24,7 @@ public class Constants {
     public static final String APP_PROPERTY_EXECUTION_SERVICE_USER = "executionServiceUser";
     public static final String APP_PROPERTY_EXECUTION_SERVICE_HOSTS = "executionServiceHost";
     public static final String APP_PROPERTY_EXECUTION_SERVICE_USE_COMPRESSION = "executionServiceUseCompression";
+    public static final String APP_PROPERTY_EXECUTION_SERVICE_MAX_SESSIONS = "executionServiceMaxSessions";
     public static final String APP_PROPERTY_EXECUTION_SERVICE_AUTH_METHOD = "executionServiceAuth";
     public static final String APP_PROPERTY_EXECUTION_SERVICE_AUTH_PWD = "executionServicePasswd";
     public static final String APP_PROPERTY_EXECUTION_SERVICE_STORE_PWD = "executionServiceStorePassword";
@@ -74,6 +74,81 @@ enum FeatureToggles {
     // TODO Make this the default in version 4
     FailOnAutoFilenames(false),
 
+    /**
+     * Cache file status queries (existence, type, access rights) and file owners on remote file systems for up to 10
+     * minutes. Paths that are changed through Roddy are invalidated. Off by default, because files that are created
+     * or removed by other processes, e.g. by the jobs of a run, are only seen after the cache entry expired.
+     */
+    UseFileStatusCache(false),
+
+    /**
+     * Execute commands of the SSHExecutionService in long-lived remote shells instead of a new SSH session per command.
+     * The number of shells per connection adapts to the load and is limited by executionServiceMaxSessions.
+     *
+     * Off by default, until it is validated on more clusters. Commands are then run differently than with a new exec
+     * channel:
+     * - A command is passed to eval in a subshell of a non-login, non-interactive "bash -s" instead of being executed
+     *   by the login shell of the user. The shell is started once, so changes of the remote profile or environment
+     *   during the run are not seen.
+     * - The command is quoted once more for eval. Commands with unbalanced quotes fail instead of being interpreted.
+     * - Stdin of the command is /dev/null and stderr is only returned after the command finished.
+     * - A long-running command blocks its shell. Other commands use further shells up to the session limit.
+     */
+    UseSSHCommandChannels(false, true),
+
+    /**
+     * Collect the output directories of new files per execution context and create them in batches right before the
+     * next job is submitted, instead of creating the directory of each file when its filename is resolved. Writes of
+     * the FileSystemAccessProvider, that get the execution context, create the directories before they write into them.
+     * Code that writes into an output directory without the context has to call
+     * ExecutionContext.createRequestedDirectoriesFor() first.
+     */
+    BatchOutputDirectoryCreation(true),
+
+    /**
+     * Keep the preloaded information of configuration files (names, types, imports, analyses) in an index in the
+     * Roddy settings directory. Unchanged configuration files are then only parsed, if they are really loaded.
+     */
+    UsePreloadedConfigurationIndex(true),
+
+    /**
+     * Keep converted configuration files (e.g. Bash), parsed configuration files and successful XSD validations of
+     * configuration files in a cache in the Roddy settings directory, so unchanged files are not converted, parsed and
+     * validated again in later calls. Least recently used entries are evicted.
+     */
+    UseConfigurationFileCache(true),
+
+    /**
+     * Keep the results of the plugin directory scan (plugin type, jar file, buildinfo) in a catalog in the Roddy
+     * settings directory. Plugin directories, which were not modified since, are then not checked again.
+     */
+    UsePluginCatalog(true, true),
+
+    /**
+     * Keep the byte code of synthetic file classes in a cache in the Roddy settings directory, so they are only
+     * compiled, if they were not used before.
+     */
+    UseSyntheticClassCache(true),
+
+    /**
+     * Write the values of the context configuration once into a shared parameter file in the execution directory.
+     * The parameter files of the jobs source it and only contain the job parameters and the values depending on them.
+     */
+    SharedContextParameterFile(false),
+
+    /**
+     * Keep read metadata tables in a binary cache in ~/.roddy/caches/metadataTables. The cache is keyed by the MD5 of
+     * the table file, so a changed table is read again. The entries are copies of the tables, so only the 8 most
+     * recently used entries are kept. Off by default, because the tables may contain sensitive sample data.
+     */
+    UseMetadataTableCache(false),
+
+    /**
+     * Only keep the records of the datasets selected on the command line, when the metadata table is read. The dataset
+     * patterns are matched against the dataset column, so leave this off, if input directories are named differently.
+     */
+    FilterMetadataTableByDatasets(false),
+
     /**
      * Fail, if e.g. upon (test)rerun the first dry run QUERY_STATUS failed.
      */
@@ -90,6 +90,12 @@ public class Roddy {
     private static int repeatJobSubmissionAmount = -1;
     private static int repeatJobSubmissionWait = 10;
 
+    /**
+     * The number of datasets (execution contexts) which are processed concurrently by the analysis.
+     * Set with --parallelContexts=n. The default of 1 keeps the sequential processing.
+     */
+    private static int parallelContextCount = 1;
+
     /**
      * Enable this, if you want Roddy to keep track only of the current users jobs. This is automatically enabled
      * for command line and disabled for GUI
@@ -138,6 +144,10 @@ public class Roddy {
         return repeatJobSubmissionWait <= 1 ? 2 : repeatJobSubmissionWait;
     }
 
+    public static int getParallelContextCount() {
+        return parallelContextCount <= 1 ? 1 : parallelContextCount;
+    }
+
     public static boolean isTrackingOfUserJobsEnabled() {
         return trackUserJobsOnly;
     }
@@ -239,12 +249,44 @@ public class Roddy {
     private static long t1 = 0;
     private static long t2 = 0;
 
+    /**
+     * The durations of the startup phases in nanoseconds, in the order in which they were first measured.
+     */
+    private static final Map<String, Long> startupPhaseDurations = new LinkedHashMap<>();
+
     private static void time(String info) {
         t2 = System.nanoTime();
-        if (info != null) logger.postSometimesInfo(RoddyIOHelperMethods.printTimingInfo(info, t1, t2));
+        if (info != null) {
+            logger.postSometimesInfo(RoddyIOHelperMethods.printTimingInfo(info, t1, t2));
+            addStartupPhaseDuration(info, t2 - t1);
+        }
         t1 = t2;
     }
 
+    /**
+     * Add the duration of a phase to the startup timing report. Durations of phases with the same name are summed up.
+     * Phases can be measured within other phases (e.g. the plugin scan within the start of the mode), their durations
+     * are then contained in both.
+     */
+    public static void addStartupPhaseDuration(String phase, long nanos) {
+        synchronized (startupPhaseDurations) {
+            startupPhaseDurations.merge(phase, nanos, Long::sum);
+        }
+    }
+
+    public static String getStartupTimingReport() {
+        synchronized (startupPhaseDurations) {
+            int width = 0;
+            for (String phase : startupPhaseDurations.keySet())
+                width = Math.max(width, phase.length());
+            StringBuilder report = new StringBuilder("Startup timing report:");
+            for (Map.Entry<String, Long> entry : startupPhaseDurations.entrySet())
+                report.append(String.format("%n\t%-" + width + "s %8d ms", entry.getKey(),
+                        entry.getValue() / 1000000));
+            return report.toString();
+        }
+    }
+
 
     private static void startup(String[] args) {
 
@@ -295,6 +337,7 @@ public class Roddy {
         time("initserv");
         start(clc);
         time("parsemode");
+        logger.postSometimesInfo(getStartupTimingReport());
         performCLIExit(clc.startupMode);
 
         time("exit");
@@ -417,6 +460,10 @@ public class Roddy {
                             repeatJobSubmissionWait = RoddyConversionHelperMethods.toInt(options.get(1));
                     }
 
+                    if (startupOption == (RoddyStartupOptions.parallelContexts)) {
+                        parallelContextCount = RoddyConversionHelperMethods.toInt(clc.getOptionValue(startupOption), 1);
+                    }
+
                     if (startupOption == (RoddyStartupOptions.autoSubmit)) {
                         autosubmitMode = true;
                         if (clc.getOptionValue(startupOption) != null)
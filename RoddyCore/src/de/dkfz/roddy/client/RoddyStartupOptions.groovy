@@ -52,6 +52,11 @@ enum RoddyStartupOptions {
     trackOnlyStartedJobs(),
     resubmitJobOnError(),
     autoSubmit(),
+    /**
+     * Process up to n datasets concurrently in run, rerun, testrun and testrerun. The default of 1 processes one
+     * dataset after the other.
+     */
+    parallelContexts(true),
     run(true),
     dontRun(true),
     cvalues(true),
@@ -407,7 +407,7 @@ class RoddyCLIClient {
             if (commandLineCall.isOptionSet(RoddyStartupOptions.extendedList)) {
                 for (ExecutionContext executionContext in executionContexts) {
 
-                    def cvalues = executionContext.analysis.configuration.configurationValues
+                    def cvalues = executionContext.configuration.configurationValues
                     cvalues.allValues.each {
                         String id, ConfigurationValue cvalue ->
                             def inheritanceList = cvalues.getInheritanceList(id)
@@ -425,7 +425,7 @@ class RoddyCLIClient {
             } else {
                 for (ExecutionContext executionContext in executionContexts) {
 
-                    def cvalues = executionContext.analysis.configuration.configurationValues
+                    def cvalues = executionContext.configuration.configurationValues
                     cvalues.allValues.each {
                         String id, ConfigurationValue cvalue ->
                             try {
@@ -443,7 +443,7 @@ class RoddyCLIClient {
         } else {
             for (executionContext in executionContexts) {
                 System.out.println(ConfigurationConverter.
-                        convertAutomatically(executionContext, executionContext.analysis.configuration))
+                        convertAutomatically(executionContext, executionContext.configuration))
             }
         }
     }
@@ -8,9 +8,9 @@ package de.dkfz.roddy.config;
 
 import de.dkfz.roddy.config.loader.ConfigurationFactory;
 import de.dkfz.roddy.config.loader.ConfigurationLoadError;
+import de.dkfz.roddy.config.loader.ConfigurationNode;
 import de.dkfz.roddy.config.validation.ConfigurationValidationError;
 import de.dkfz.roddy.core.ExecutionContext;
-import groovy.util.slurpersupport.NodeChild;
 
 import java.io.File;
 import java.util.List;
@@ -30,9 +30,9 @@ public class AnalysisConfigurationProxy extends AnalysisConfiguration {
     private final String analysisCfg;
     private final String usePluginAttribute;
     private final String killswitchesAttribute;
-    private NodeChild analysisNode;
+    private ConfigurationNode analysisNode;
 
-    public AnalysisConfigurationProxy(AnalysisConfiguration parentConfiguration, String analysisID, String analysisCfg, String usePluginAttribute, String killswitchesAttribute, NodeChild analysisNode) {
+    public AnalysisConfigurationProxy(AnalysisConfiguration parentConfiguration, String analysisID, String analysisCfg, String usePluginAttribute, String killswitchesAttribute, ConfigurationNode analysisNode) {
         super(null, null, null, null, null, null, null);
         this.usePluginAttribute = usePluginAttribute;
         this.killswitchesAttribute = killswitchesAttribute;
@@ -82,7 +82,7 @@ public class AnalysisConfigurationProxy extends AnalysisConfiguration {
         return killswitchesAttribute;
     }
 
-    public NodeChild getAnalysisNode() {
+    public ConfigurationNode getAnalysisNode() {
         return analysisNode;
     }
 
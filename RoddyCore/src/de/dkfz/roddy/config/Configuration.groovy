@@ -21,7 +21,6 @@ import de.dkfz.roddy.core.RuntimeService
 import de.dkfz.roddy.plugins.LibrariesFactory
 import de.dkfz.roddy.plugins.PluginInfo
 import de.dkfz.roddy.tools.LoggerWrapper
-import de.dkfz.roddy.tools.RoddyIOHelperMethods
 import groovy.transform.CompileStatic
 import org.apache.commons.io.filefilter.WildcardFileFilter
 
@@ -113,6 +112,16 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
     private RecursiveOverridableMapContainer<String, FilenamePattern, Configuration> filenamePatterns =
             new RecursiveOverridableMapContainer<>(this, "filenamePatterns")
 
+    /**
+     * Rebuilt on access, if the filename patterns of this configuration or its parents changed.
+     */
+    private volatile FilenamePatternIndex filenamePatternIndex
+
+    /**
+     * Rebuilt on access, if the tools of this configuration or its parents or the loaded plugins changed.
+     */
+    private volatile ToolPathIndex toolPathIndex
+
     Configuration() {
         preloadedConfiguration = null
     }
@@ -173,7 +182,8 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
     }
 
     void removeFilenamePatternsRecursively() {
-        this.filenamePatterns = new RecursiveOverridableMapContainer<>(this, "filenamePatterns")
+        // Clear instead of replacing the container, so that flattened views of child containers see the change.
+        this.filenamePatterns.map.clear()
         for (Configuration parent : parents) {
             parent.removeFilenamePatternsRecursively()
         }
@@ -183,6 +193,20 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
         filenamePatterns
     }
 
+    /**
+     * Get the index of the filename patterns of this configuration and its parents. The index is immutable, so
+     * concurrent callers might build it twice, but never see a partial index.
+     */
+    FilenamePatternIndex getFilenamePatternIndex() {
+        long version = filenamePatterns.valueModificationCount + filenamePatterns.inheritedModificationCount
+        FilenamePatternIndex index = filenamePatternIndex
+        if (index == null || index.version != version) {
+            index = new FilenamePatternIndex(filenamePatterns.allValuesAsList, version)
+            filenamePatternIndex = index
+        }
+        return index
+    }
+
     RecursiveOverridableMapContainer<String, ToolEntry, Configuration> getTools() {
         tools
     }
@@ -305,6 +329,7 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
     void setParent(Configuration c) {
         parents.clear()
         parents.add(c)
+        notifyParentsChanged()
     }
 
     /**
@@ -315,8 +340,16 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
      */
     void addParent(Configuration p) {
         if (p == null) return
-        if (!parents.contains(p))
+        if (!parents.contains(p)) {
             parents.add(p)
+            notifyParentsChanged()
+        }
+    }
+
+    private void notifyParentsChanged() {
+        for (RecursiveOverridableMapContainer container :
+                [configurationValues, configurationValueBundles, tools, enumerations, filenamePatterns])
+            container.parentsChanged()
     }
 
     Map<String, Configuration> getSubConfigurations() {
@@ -358,54 +391,66 @@ class Configuration implements ContainerParent<Configuration>, ConfigurationIssu
         return null;
     }
 
-    File getSourceToolPath(String tool) throws ConfigurationError {
+    private ToolPathIndex getToolPathIndex() {
+        long version = tools.valueModificationCount + tools.inheritedModificationCount
         List<PluginInfo> pluginInfos = LibrariesFactory.instance.loadedPlugins
-        LinkedHashMap<String, File> availableBasePaths = [:]
-        for (PluginInfo pluginInfo : pluginInfos) {
-            availableBasePaths.putAll(pluginInfo.toolsDirectories)
+        ToolPathIndex index = toolPathIndex
+        if (index == null || !index.isValidFor(version, pluginInfos)) {
+            index = new ToolPathIndex(version, pluginInfos)
+            toolPathIndex = index
         }
+        return index
+    }
 
-        ToolEntry te = null
+    private ToolEntry getToolEntry(String tool) throws ConfigurationError {
         try {
-            te = tools.getValue(tool)
+            return tools.getValue(tool)
         } catch (ConfigurationError e) {
             throw new ConfigurationError('Unknown tool ID', tool, e)
         }
-        if (te.basePathId.length() > 0 && !availableBasePaths.containsKey(te.basePathId)) {
+    }
+
+    File getSourceToolPath(String tool) throws ConfigurationError {
+        ToolPathIndex index = getToolPathIndex()
+        File sourceToolPath = index.getSourcePath(tool)
+        if (sourceToolPath != null)
+            return sourceToolPath
+
+        ToolEntry te = getToolEntry(tool)
+        if (te.basePathId.length() > 0 && !index.hasBasePath(te.basePathId)) {
             throw new ConfigurationError('Base path for tool is not configured', tool)
         }
-        File bPath = availableBasePaths.get(te.basePathId)
-
-        LinkedHashMap<String, String> localPath = [:]
-        localPath.put(ConfigurationConstants.CVALUE_PLACEHOLDER_EXECUTION_DIRECTORY, '.')
-        return new File(bPath.absolutePath, te.path)
+        File bPath = index.getBasePath(te.basePathId)
+        sourceToolPath = new File(bPath.absolutePath, te.path)
+        index.putSourcePath(tool, sourceToolPath)
+        return sourceToolPath
     }
 
     /**
      * The actual path to the copy of the tool on the execution host (which can be local or remote).
      */
     File getProcessingToolPath(ExecutionContext context, String tool) throws ConfigurationError {
-        ToolEntry te
-        try {
-            te = tools.getValue(tool);
-        } catch (ConfigurationError e) {
-            throw new ConfigurationError("Unknown tool ID", tool, e)
+        ToolPathIndex index = getToolPathIndex()
+        Path relativeToolPath = index.getRelativeProcessingPath(tool)
+        if (relativeToolPath == null) {
+            ToolEntry te = getToolEntry(tool)
+            relativeToolPath = Paths.get(RuntimeService.DIRNAME_ANALYSIS_TOOLS, te.basePathId, te.path)
+            index.putRelativeProcessingPath(tool, relativeToolPath)
         }
-        Path toolPath = Paths.get(
-                context.executionDirectory.toString(),
-                RuntimeService.DIRNAME_ANALYSIS_TOOLS,
-                te.basePathId,
-                te.path)
-        return toolPath.toFile()
+        return Paths.get(context.executionDirectory.toString()).resolve(relativeToolPath).toFile()
     }
 
+    /**
+     * The MD5 of the source of the tool. It is cached as long as the tool file does not change, see
+     * ToolFingerprintCache.
+     */
     @NotNull String getProcessingToolMD5(String tool) throws ConfigurationError {
         if (tool == null || tool == '') {
             logger.warning('Tool id not correctly specified for md5 query.');
             throw new ConfigurationError('Tool ID not correctly specified for md5 query', tool)
         }
         File sourceToolPath = getSourceToolPath(tool)
-        String result = RoddyIOHelperMethods.getMD5OfFile(sourceToolPath)
+        String result = ToolFingerprintCache.instance.getMD5(sourceToolPath)
         if (result == null || result.length() == 0) {
             logger.severe("Could not calculate MD5 of tool '$tool' at path '$sourceToolPath'")
             throw new ConfigurationError("Could not calculate MD5 of tool '$tool' at path '$sourceToolPath'", tool)
@@ -76,6 +76,11 @@ class ConfigurationValue implements RecursiveOverridableMapContainer.Identifiabl
      */
     final DefaultValidator validator = new DefaultValidator(null)
 
+    /**
+     * The keys referenced in the value. Lazily parsed, because the value is immutable.
+     */
+    private List<String> containedKeys
+
     ConfigurationValue(String id, String value) {
         this(null, id, value, null)
     }
@@ -151,6 +156,7 @@ class ConfigurationValue implements RecursiveOverridableMapContainer.Identifiabl
         this.tags << "ELEVATED"
         this.validator = parent.validator // Do not revalidate, this is much too expensive for many values
         this.valid = parent.valid
+        this.containedKeys = parent.containedKeys
     }
 
 
@@ -235,8 +241,11 @@ class ConfigurationValue implements RecursiveOverridableMapContainer.Identifiabl
         return temp
     }
 
-    private ExecutionContext _toFileExecutionContext
-    private File _toFileCache
+    /**
+     * The context and the file of the last toFile(context) call. Both are stored together, because elevated values are
+     * shared between threads.
+     */
+    private volatile Tuple2<ExecutionContext, File> _toFileCache
 
     /**
      * Converts this configuration value to a path and fills in data set and analysis specific settings.
@@ -246,41 +255,45 @@ class ConfigurationValue implements RecursiveOverridableMapContainer.Identifiabl
      *   As we are mostly working with elevated configuration values (context configurations),
      *   it is the uppermost configuration.
      * - The second configuration is the configuration for the analysis. If the value is evaluated,
-     *   the analysis configuration might already have been used.
+     *   the analysis configuration might already have been used. For toFile(context), it is the configuration of
+     *   the context, which contains the values set for the context.
      * - The third configuration replaces identifiers for pid/dataset and is directly taken from the dataset
      *
      */
     File toFile(Analysis analysis, DataSet dataSet = null) throws ConfigurationError {
+        return new File(evaluateValueFor(analysis?.configuration, dataSet))
+    }
+
+    private String evaluateValueFor(Configuration analysisConfiguration, DataSet dataSet) throws ConfigurationError {
         String temp = ConfigurationValueHelper.evaluateValue(id, value ?: "", configuration)
 
-        if (analysis) temp = ConfigurationValueHelper.evaluateValue(id, temp, analysis.configuration)
+        if (analysisConfiguration) temp = ConfigurationValueHelper.evaluateValue(id, temp, analysisConfiguration)
         if (dataSet) temp = ConfigurationValueHelper.evaluateValue(id, temp, dataSet.configuration)
 
-        return new File(temp)
+        return temp
     }
 
     File toFile(ExecutionContext context) {
-        if (context != _toFileExecutionContext) {
-            _toFileExecutionContext = context
-            _toFileCache = null
-        }
-        if (_toFileCache != null) {
-            return _toFileCache
+        Tuple2<ExecutionContext, File> cached = _toFileCache
+        if (cached != null && cached.first == context) {
+            return cached.second
         }
 
         if (context == null) {
-            _toFileCache = new File(value)
-            return _toFileCache
+            File file = new File(value)
+            _toFileCache = new Tuple2<ExecutionContext, File>(context, file)
+            return file
         }
         try {
-            String temp = toFile(context.analysis, context.dataSet).path
+            String temp = evaluateValueFor(context.configuration, context.dataSet)
             if (value.startsWith("\${DIR_BUNDLED_FILES}") || value.startsWith("\${DIR_RODDY}")) {
                 temp = Roddy.getApplicationDirectory().absolutePath +
                         FileSystemAccessProvider.instance.pathSeparator +
                         temp
             }
-            _toFileCache = new File(temp)
-            return _toFileCache
+            File file = new File(temp)
+            _toFileCache = new Tuple2<ExecutionContext, File>(context, file)
+            return file
         } catch (Exception ex) {
             return null
         }
@@ -448,6 +461,15 @@ class ConfigurationValue implements RecursiveOverridableMapContainer.Identifiabl
         this.value
     }
 
+    /**
+     * @return the keys of the values referenced as '${key}' in the (unevaluated) value.
+     */
+    List<String> getContainedKeys() {
+        if (containedKeys == null)
+            containedKeys = Collections.unmodifiableList(ConfigurationValueHelper.getContainedKeys(value))
+        return containedKeys
+    }
+
     String getEvaluatedValue() {
         ConfigurationValueHelper.evaluateValue(id, value, configuration)
     }
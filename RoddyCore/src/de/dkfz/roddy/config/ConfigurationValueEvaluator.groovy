@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import de.dkfz.roddy.config.loader.ConfigurationLoadError
+import groovy.transform.CompileStatic
+
+/**
+ * Evaluates value references of the form '${key}' against the values of a single configuration and memoizes the
+ * evaluated values per key.
+ *
+ * For each evaluated key, the evaluator remembers the keys it references, also if they are not (yet) defined. The
+ * reverse edges of this reference graph are used to invalidate only the affected keys, if a value of the
+ * configuration is added, overridden or removed. Changes in the parent configurations invalidate all memoized values.
+ *
+ * Configurations with a single parent, like job configurations, reuse the values evaluated by the parent, if none of
+ * the keys on which the value depends is defined locally.
+ *
+ * Cyclic references are detected with the set of keys that are currently evaluated.
+ */
+@CompileStatic
+class ConfigurationValueEvaluator {
+
+    private final RecursiveOverridableMapContainerForConfigurationValues container
+
+    /**
+     * Evaluated values by key. Only keys that are defined in the configuration are memoized.
+     */
+    private final Map<String, String> evaluatedValues = new HashMap<>()
+
+    /**
+     * For each memoized key, all keys its value depends on, directly or indirectly.
+     */
+    private final Map<String, Set<String>> dependenciesByKey = new HashMap<>()
+
+    /**
+     * For each key, the memoized keys whose values depend on it.
+     */
+    private final Map<String, Set<String>> referencingKeys = new HashMap<>()
+
+    /**
+     * The keys that are currently evaluated. A reference to one of these keys is a cycle.
+     */
+    private final Set<String> keysInEvaluation = new LinkedHashSet<>()
+
+    private long inheritedModificationCount = -1
+
+    ConfigurationValueEvaluator(RecursiveOverridableMapContainerForConfigurationValues container) {
+        this.container = container
+    }
+
+    private Configuration getConfiguration() {
+        container.containerParent
+    }
+
+    /**
+     * Replace all references to values of the configuration in value. References to undefined values are kept.
+     *
+     * @param valueID   The key of the value. Only used for error messages.
+     * @param value     The value in which references are replaced.
+     * @throws ConfigurationError if there are cyclic references
+     */
+    synchronized String evaluate(String valueID, String value) {
+        checkInheritedValues()
+        keysInEvaluation.clear()
+        return replaceReferences(valueID, value, ConfigurationValueHelper.getContainedKeys(value))
+    }
+
+    private String replaceReferences(String valueID, String value, List<String> containedKeys) {
+        for (String key : containedKeys) {
+            if (keysInEvaluation.contains(key))
+                throw cyclicDependency(valueID)
+        }
+        String result = value
+        for (String key : containedKeys) {
+            String evaluated = evaluateKey(key)
+            if (evaluated != null)
+                result = result.replace("\${$key}", evaluated)
+        }
+        return result
+    }
+
+    /**
+     * @return the memoized or newly evaluated value for the key or null, if the key is not defined.
+     */
+    private String evaluateKey(String key) {
+        String evaluated = evaluatedValues.get(key)
+        if (evaluated != null)
+            return evaluated
+
+        ConfigurationValue referencedValue = container.findUnevaluatedValue(key)
+        if (referencedValue == null)
+            return null
+
+        if (!container.map.containsKey(key) && reuseParentValue(key))
+            return evaluatedValues.get(key)
+
+        keysInEvaluation.add(key)
+        try {
+            List<String> containedKeys = referencedValue.getContainedKeys()
+            evaluated = replaceReferences(referencedValue.id, referencedValue.value, containedKeys)
+            Set<String> dependencies = new HashSet<>(containedKeys)
+            for (String referencedKey : containedKeys) {
+                Set<String> indirectDependencies = dependenciesByKey.get(referencedKey)
+                if (indirectDependencies != null)
+                    dependencies.addAll(indirectDependencies)
+            }
+            memoize(key, evaluated, dependencies)
+            return evaluated
+        } finally {
+            keysInEvaluation.remove(key)
+        }
+    }
+
+    private void memoize(String key, String evaluated, Set<String> dependencies) {
+        evaluatedValues.put(key, evaluated)
+        dependenciesByKey.put(key, dependencies)
+        for (String dependency : dependencies) {
+            Set<String> keys = referencingKeys.get(dependency)
+            if (keys == null) {
+                keys = new HashSet<String>()
+                referencingKeys.put(dependency, keys)
+            }
+            keys.add(key)
+        }
+    }
+
+    /**
+     * Take the value evaluated by the single parent configuration, if the value does not depend on any local value.
+     *
+     * @return true, if the parent's value was memoized.
+     */
+    private boolean reuseParentValue(String key) {
+        List<Configuration> parents = configuration.parents
+        if (parents.size() != 1)
+            return false
+        ConfigurationValueEvaluator parentEvaluator = parents[0].configurationValues.evaluator
+        Tuple2<String, Set<String>> fromParent = parentEvaluator.evaluateKeyWithDependencies(key)
+        if (fromParent == null)
+            return false
+        Set<String> localKeys = container.map.keySet()
+        for (String dependency : fromParent.second) {
+            if (localKeys.contains(dependency))
+                return false
+        }
+        memoize(key, fromParent.first, fromParent.second)
+        return true
+    }
+
+    /**
+     * @return the evaluated value for the key and all keys the value depends on, or null if the key is not defined.
+     */
+    synchronized Tuple2<String, Set<String>> evaluateKeyWithDependencies(String key) {
+        checkInheritedValues()
+        String evaluated = evaluateKey(key)
+        if (evaluated == null)
+            return null
+        return new Tuple2<String, Set<String>>(evaluated, dependenciesByKey.get(key))
+    }
+
+    private ConfigurationError cyclicDependency(String valueID) {
+        def badConf =
+                configuration.preloadedConfiguration != null ?
+                        configuration.preloadedConfiguration.file :
+                        configuration.ID
+        ConfigurationError exc =
+                new ConfigurationError("Cyclic dependency found for cvalue '${valueID}' in file '${badConf}'",
+                                       configuration, 'Cyclic dependency', null)
+        configuration.addLoadError(new ConfigurationLoadError(configuration, 'cValues', exc.message, exc))
+        return exc
+    }
+
+    private void checkInheritedValues() {
+        long count = container.inheritedModificationCount
+        if (count != inheritedModificationCount) {
+            evaluatedValues.clear()
+            dependenciesByKey.clear()
+            referencingKeys.clear()
+            inheritedModificationCount = count
+        }
+    }
+
+    /**
+     * Forget the evaluated value of the key and of all keys that reference it, directly or indirectly.
+     *
+     * @param key   The changed key or null, if all values changed.
+     */
+    synchronized void invalidate(String key) {
+        if (key == null) {
+            evaluatedValues.clear()
+            dependenciesByKey.clear()
+            referencingKeys.clear()
+            return
+        }
+        Deque<String> queue = new ArrayDeque<>()
+        queue.add(key)
+        Set<String> seen = new HashSet<>()
+        while (!queue.isEmpty()) {
+            String next = queue.poll()
+            if (!seen.add(next))
+                continue
+            evaluatedValues.remove(next)
+            dependenciesByKey.remove(next)
+            Set<String> keys = referencingKeys.remove(next)
+            if (keys != null)
+                queue.addAll(keys)
+        }
+    }
+
+    synchronized int getNumberOfEvaluatedValues() {
+        return evaluatedValues.size()
+    }
+}
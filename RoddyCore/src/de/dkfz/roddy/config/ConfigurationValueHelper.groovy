@@ -6,7 +6,6 @@
 
 package de.dkfz.roddy.config
 
-import de.dkfz.roddy.config.loader.ConfigurationLoadError
 import groovy.transform.CompileStatic
 
 import java.util.regex.Matcher
@@ -23,7 +22,7 @@ class ConfigurationValueHelper {
      *
      * TODO Change this to '[$][{][a-zA-Z_][a-zA-Z_0-9]*[}]'. This changing is compatibility-breaking.
      * */
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile('[$][{][a-zA-Z0-9_]*[}]')
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile('[$][{]([a-zA-Z0-9_]*)[}]')
 
     /**
      * Note this is public.
@@ -35,10 +34,8 @@ class ConfigurationValueHelper {
         List<String> containedKeys = [] as LinkedList
 
         Matcher m = VARIABLE_PATTERN.matcher(value)
-        // Findall is not available in standard java, so I use groovy here.
-        for (String s : m.findAll()) {
-            String vName = s.replaceAll('[\${}]', '')
-            containedKeys.add(vName)
+        while (m.find()) {
+            containedKeys.add(m.group(1))
         }
 
         return containedKeys
@@ -50,13 +47,14 @@ class ConfigurationValueHelper {
      *
      *  Essentially this implements a templating mechanism that takes its values from a Configuration. The
      *  configuration represents a tree and `evaluateValue` is called recursively on the configuration values in the
-     *  tree to fill in all non-blacklisted variable references. The evaluation follows the normal rules for value
+     *  tree to fill in all variable references. The evaluation follows the normal rules for value
      *  evaluation in configuration trees, with configurations of different priorities (e.g. CLI configuration has
      *  highest priority).
      *
-     *  Note that the loading errors of the Configuration may get updated AND a ConfigurationError may get thrown, if a
-     *  valueID that is directly queried or that occurs during the recursive evaluation is in the blacklist or if there
-     *  is a cyclic dependency.
+     *  The evaluated values of referenced keys are memoized per configuration by its ConfigurationValueEvaluator.
+     *
+     *  Note that the loading errors of the Configuration may get updated AND a ConfigurationError may get thrown, if
+     *  there is a cyclic dependency between the values that occur during the recursive evaluation.
      *
      * @param key             key of the value itself
      * @param value           the current value itself in which the replacements should take place
@@ -64,46 +62,9 @@ class ConfigurationValueHelper {
      * @return
      */
     static String evaluateValue(String key, String value, Configuration configuration) {
-        evaluateValueImpl(key, value, configuration, [])
-    }
-
-    /**
-     *  Do the actual evaluation of keys. The first parameter is a blacklist of keys that have already been
-     *  evaluated before. If a key re-occurs this means there is a cyclic dependency.
-     *
-     * @param blackList       values not to be replaced
-     */
-    private static String evaluateValueImpl(String valueID,
-                                            String initialValue,
-                                            Configuration configuration,
-                                            List<String> blackList) {
-        String result = initialValue
-        if (configuration != null) {
-            List<String> containedKeys = getContainedKeys(result)
-            if (blackList.intersect(containedKeys as Iterable<String>)) {
-                def badConf =
-                        configuration.preloadedConfiguration != null ?
-                                configuration.preloadedConfiguration.file :
-                                configuration.ID
-                ConfigurationError exc =
-                        new ConfigurationError("Cyclic dependency found for cvalue '${valueID}' in file '${badConf}'",
-                                               configuration, 'Cyclic dependency', null)
-                configuration.addLoadError(new ConfigurationLoadError(configuration, 'cValues', exc.message, exc))
-                throw exc
-            }
-            def configurationValues = configuration.configurationValues
-            for (String vName : containedKeys) {
-                if (configurationValues.hasValue(vName)) {
-                    ConfigurationValue referencedValue = configurationValues[vName] as ConfigurationValue
-                    result = result.replace("\${$vName}",
-                                            evaluateValueImpl(referencedValue.id,
-                                                              referencedValue.value,
-                                                              referencedValue.configuration,
-                                                              blackList + [vName]))
-                }
-            }
-        }
-        return result
+        if (configuration == null)
+            return value
+        return configuration.configurationValues.evaluator.evaluate(key, value)
     }
 
 }
@@ -28,6 +28,29 @@ public class ContextConfiguration extends AnalysisConfiguration {
         addParent(applicationSpecificConfiguration);
     }
 
+    /**
+     * Creates a layer for a single execution context on top of the configuration of an analysis. Values, which are set
+     * for the context like its execution directory, are stored in the layer. So contexts, which are processed in
+     * parallel, do not overwrite each other's values.
+     */
+    public ContextConfiguration(AnalysisConfiguration configuration) {
+        super(configuration.getPreloadedConfiguration(), configuration.getWorkflowClass(), configuration.getRuntimeServiceClass(), configuration, configuration.getListOfUsedTools(), configuration.getUsedToolFolders(), configuration.getCleanupScript());
+        if (configuration instanceof ContextConfiguration) {
+            ContextConfiguration parent = (ContextConfiguration) configuration;
+            this.analysisConfiguration = parent.analysisConfiguration;
+            this.projectConfiguration = parent.projectConfiguration;
+            this.applicationSpecificConfiguration = parent.applicationSpecificConfiguration;
+        } else {
+            this.analysisConfiguration = configuration;
+            this.projectConfiguration = null;
+            this.applicationSpecificConfiguration = null;
+        }
+        setNativeToolID(configuration.getNativeToolID());
+        setJobManagerFactory(configuration.getTargetJobManagerClass());
+        setBrawlWorkflow(configuration.getBrawlWorkflow());
+        setBrawlBaseWorkflow(configuration.getBrawlBaseWorkflow());
+    }
+
     public AnalysisConfiguration getAnalysisConfiguration() {
         return analysisConfiguration;
     }
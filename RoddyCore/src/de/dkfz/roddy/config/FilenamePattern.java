@@ -41,6 +41,11 @@ public abstract class FilenamePattern implements RecursiveOverridableMapContaine
     protected boolean acceptsFileArrays;
     protected int enforcedArraySize;
 
+    /**
+     * The pattern parsed into literal text and placeholders. Compiled on first use.
+     */
+    private volatile FilenamePatternTemplate template;
+
     public FilenamePattern(Class<BaseFile> cls, String pattern, String selectionTag) {
         this.cls = cls;
         this.pattern = pattern;
@@ -280,9 +285,10 @@ public abstract class FilenamePattern implements RecursiveOverridableMapContaine
 
             //PID / Dataset id and filestage
             FileStageSettings fs = baseFile.getFileStage();
-            src = src.replace(String.format("${fileStageID[%d]}", i), fs.getIDString());
-            src = src.replace(String.format("${pid[%d]}", i), baseFile.getDataSet().toString()); // TODO: Move to plugin.
-            src = src.replace(String.format("${dataSet[%d]}", i), baseFile.getDataSet().toString());
+            String index = "[" + i + "]}";
+            src = src.replace("${fileStageID" + index, fs.getIDString());
+            src = src.replace("${pid" + index, baseFile.getDataSet().toString()); // TODO: Move to plugin.
+            src = src.replace("${dataSet" + index, baseFile.getDataSet().toString());
             src = fs.fillStringContentWithArrayValues(i, src);
         }
         return src;
@@ -300,13 +306,42 @@ public abstract class FilenamePattern implements RecursiveOverridableMapContaine
         return apply(new BaseFile[]{baseFile});
     }
 
+    FilenamePatternTemplate getTemplate() {
+        FilenamePatternTemplate current = template;
+        if (current == null) {
+            current = FilenamePatternTemplate.compile(pattern);
+            template = current;
+        }
+        return current;
+    }
+
     /**
      * Applies this pattern to several filenames. Only derivedFrom is supported as dependency!
+     * <p>
+     * The compiled template of the pattern is used, if it can render the filename. Otherwise, the pattern is applied
+     * step by step. If the template fails with an error, the pattern is always applied step by step afterwards.
      *
      * @param baseFiles
      * @return
      */
     public String apply(BaseFile[] baseFiles) {
+        FilenamePatternTemplate current = getTemplate();
+        try {
+            String result = current.render(this, baseFiles);
+            if (result != null)
+                return result;
+        } catch (Exception e) {
+            logger.rare("Could not render filename pattern " + pattern + " from its compiled template, it is applied step by step from now on: " + e);
+            template = FilenamePatternTemplate.NOT_COMPILED;
+        }
+        return applyStepByStep(baseFiles);
+    }
+
+    /**
+     * Applies this pattern by replacing one kind of placeholders after the other. Inserted values are subject to the
+     * later replacements.
+     */
+    String applyStepByStep(BaseFile[] baseFiles) {
 
         String temp = pattern;
         try {
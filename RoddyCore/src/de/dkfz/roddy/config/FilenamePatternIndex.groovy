@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import groovy.transform.CompileStatic
+
+/**
+ * The filename patterns of a configuration, grouped by the keys that BaseFile.getFilename() compares:
+ *
+ * - file class and dependency
+ * - file class, dependency and selection tag (onMethod, derivedFrom, FileStage)
+ * - file class, selection tag and tool ID (onTool)
+ * - file class and parameter ID (onScriptParameter; the selection tag might be matched weakly)
+ * - file class and selection tag, then the names of the called class and method (onMethod), for the stack trace lookup
+ *
+ * The lists keep the order of Configuration.filenamePatterns.allValuesAsList, so the first (or last) match in a list
+ * is the same as in the complete list. The index is built once per version of the filename patterns of a
+ * configuration and never changed afterwards. The returned lists must not be modified.
+ */
+@CompileStatic
+class FilenamePatternIndex {
+
+    private static final LinkedList<FilenamePattern> NO_PATTERNS = new LinkedList<FilenamePattern>()
+
+    /**
+     * The sum of the modification counts of the filename pattern containers, for which the index was built.
+     */
+    final long version
+
+    private final List<FilenamePattern> allPatterns
+
+    private final Map<List<Object>, LinkedList<FilenamePattern>> patterns = new HashMap<List<Object>, LinkedList<FilenamePattern>>()
+
+    private final Map<List<Object>, Map<String, Map<String, OnMethodFilenamePattern>>> onMethodPatterns =
+            new HashMap<List<Object>, Map<String, Map<String, OnMethodFilenamePattern>>>()
+
+    FilenamePatternIndex(List<FilenamePattern> allPatterns, long version) {
+        this.version = version
+        this.allPatterns = Collections.unmodifiableList(new ArrayList<FilenamePattern>(allPatterns))
+        for (FilenamePattern fp : allPatterns) {
+            FilenamePatternDependency dependency = fp.filenamePatternDependency
+            add(key(fp.cls, dependency), fp)
+            switch (dependency) {
+                case FilenamePatternDependency.onTool:
+                    add(key(fp.cls, dependency, fp.selectionTag, ((OnToolFilenamePattern) fp).toolID), fp)
+                    break
+                case FilenamePatternDependency.onScriptParameter:
+                    add(key(fp.cls, dependency, ((OnScriptParameterFilenamePattern) fp).parameterID), fp)
+                    break
+                default:
+                    add(key(fp.cls, dependency, fp.selectionTag), fp)
+            }
+        }
+        for (Map.Entry<List<Object>, LinkedList<FilenamePattern>> entry : patterns.entrySet()) {
+            if (entry.key.size() == 3 && entry.key[1] == FilenamePatternDependency.onMethod)
+                onMethodPatterns.put(entry.key, byCalledMethod(entry.value))
+        }
+    }
+
+    /**
+     * Groups onMethod patterns by the names of the called class and method. For each method only the first pattern is
+     * kept, because a stack frame is always matched by the first pattern in configuration order.
+     */
+    static Map<String, Map<String, OnMethodFilenamePattern>> byCalledMethod(Collection<FilenamePattern> onMethodPatterns) {
+        Map<String, Map<String, OnMethodFilenamePattern>> byClass = new HashMap<String, Map<String, OnMethodFilenamePattern>>()
+        for (FilenamePattern _fp : onMethodPatterns) {
+            OnMethodFilenamePattern fp = (OnMethodFilenamePattern) _fp
+            Map<String, OnMethodFilenamePattern> byMethod = byClass.get(fp.calledMethodsClass.name)
+            if (byMethod == null) {
+                byMethod = new HashMap<String, OnMethodFilenamePattern>()
+                byClass.put(fp.calledMethodsClass.name, byMethod)
+            }
+            if (!byMethod.containsKey(fp.calledMethodsName.name))
+                byMethod.put(fp.calledMethodsName.name, fp)
+        }
+        return byClass
+    }
+
+    private static List<Object> key(Object... parts) {
+        return Arrays.asList(parts)
+    }
+
+    private void add(List<Object> key, FilenamePattern fp) {
+        LinkedList<FilenamePattern> list = patterns.get(key)
+        if (list == null) {
+            list = new LinkedList<FilenamePattern>()
+            patterns.put(key, list)
+        }
+        list.add(fp)
+    }
+
+    private LinkedList<FilenamePattern> get(List<Object> key) {
+        LinkedList<FilenamePattern> list = patterns.get(key)
+        return list != null ? list : NO_PATTERNS
+    }
+
+    List<FilenamePattern> getAllPatterns() {
+        return allPatterns
+    }
+
+    /**
+     * All patterns for files of the class with the dependency.
+     */
+    LinkedList<FilenamePattern> getPatterns(Class cls, FilenamePatternDependency dependency) {
+        return get(key(cls, dependency))
+    }
+
+    /**
+     * onMethod, derivedFrom and FileStage patterns for files of the class with the selection tag.
+     */
+    LinkedList<FilenamePattern> getPatterns(Class cls, FilenamePatternDependency dependency, String selectionTag) {
+        return get(key(cls, dependency, selectionTag))
+    }
+
+    /**
+     * onMethod patterns for files of the class with the selection tag, by the names of the called class and method.
+     */
+    Map<String, Map<String, OnMethodFilenamePattern>> getOnMethodPatternsByCalledMethod(Class cls, String selectionTag) {
+        Map<String, Map<String, OnMethodFilenamePattern>> byClass = onMethodPatterns.get(key(cls, FilenamePatternDependency.onMethod, selectionTag))
+        return byClass != null ? byClass : Collections.<String, Map<String, OnMethodFilenamePattern>> emptyMap()
+    }
+
+    LinkedList<FilenamePattern> getOnToolPatterns(Class cls, String selectionTag, String toolID) {
+        return get(key(cls, FilenamePatternDependency.onTool, selectionTag, toolID))
+    }
+
+    LinkedList<FilenamePattern> getOnScriptParameterPatterns(Class cls, String parameterID) {
+        return get(key(cls, FilenamePatternDependency.onScriptParameter, parameterID))
+    }
+
+    boolean hasPatterns(Class cls) {
+        for (FilenamePatternDependency dependency : FilenamePatternDependency.values()) {
+            if (!getPatterns(cls, dependency).isEmpty())
+                return true
+        }
+        return false
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config;
+
+import static de.dkfz.roddy.config.ConfigurationConstants.CVALUE_TYPE_PATH;
+
+import de.dkfz.roddy.Roddy;
+import de.dkfz.roddy.config.FilenamePatternHelper.Command;
+import de.dkfz.roddy.config.FilenamePatternHelper.CommandAttribute;
+import de.dkfz.roddy.core.ExecutionContext;
+import de.dkfz.roddy.knowledge.files.BaseFile;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A filename pattern, parsed once into literal text and typed placeholders.
+ * <p>
+ * render() replaces the placeholders of FilenamePattern.fillValuesFromSourceFile(), fillFileGroupIndex(),
+ * fillDirectories() and fillConfigurationVariables() in a single pass over the segments. The remaining steps
+ * (file stage settings, data set and array values) are applied to the result like before.
+ * <p>
+ * The step by step application in FilenamePattern rescans the whole string after each replacement, so inserted values
+ * are subject to later replacements. Patterns and values for which this could make a difference are not rendered:
+ * compile() marks a pattern as not compiled and render() returns null. The caller then applies the pattern step by
+ * step. This is the case for
+ * - unclosed placeholders, "###" (used for unresolved variables) and "OutputDirectory" outside of a whole path
+ * segment placeholder in the pattern,
+ * - ${cvalue} placeholders without name, more than one distinct ${sourcefileProperty} or ${sourcefileAtomicPrefix}
+ * placeholder, or ${sourcefileAtomicPrefix} without delimiter,
+ * - inserted values that contain "${" or "###", and values inserted before the output directories are resolved that
+ * contain "OutputDirectory",
+ * - unresolvable ${cvalue} placeholders and missing source files.
+ * If render() fails with an error, FilenamePattern replaces the template with NOT_COMPILED.
+ */
+class FilenamePatternTemplate {
+
+    private static final String OUTPUT_DIRECTORY = "OutputDirectory";
+
+    private static final String BLACKLIST_MARKER = "###";
+
+    private enum Kind {
+        LITERAL,
+        SOURCEFILE,
+        SOURCEFILE_ATOMIC,
+        SOURCEFILE_PROPERTY,
+        SOURCEFILE_ATOMIC_PREFIX,
+        SOURCEPATH,
+        FGINDEX,
+        OUTPUT_ANALYSIS_BASE_DIRECTORY,
+        OUTPUT_DIRECTORY,
+        CVALUE,
+        VARIABLE
+    }
+
+    private static final class Segment {
+
+        final Kind kind;
+
+        /**
+         * The literal text or the full placeholder.
+         */
+        final String text;
+
+        /**
+         * The accessor name, delimiter, configuration value name or variable name.
+         */
+        final String name;
+
+        final String defaultValue;
+
+        final ConcurrentMap<Class<?>, MethodHandle> accessors;
+
+        Segment(Kind kind, String text, String name, String defaultValue) {
+            this.kind = kind;
+            this.text = text;
+            this.name = name;
+            this.defaultValue = defaultValue;
+            this.accessors = kind == Kind.SOURCEFILE_PROPERTY ? new ConcurrentHashMap<>() : null;
+        }
+
+        /**
+         * Call the property getter of the source file. The method handle is looked up once per file class.
+         */
+        Object invokeAccessor(BaseFile sourceFile) throws Exception {
+            MethodHandle handle = accessors.get(sourceFile.getClass());
+            if (handle == null) {
+                handle = MethodHandles.publicLookup().unreflect(sourceFile.getClass().getMethod(name));
+                accessors.putIfAbsent(sourceFile.getClass(), handle);
+            }
+            try {
+                return handle.invoke(sourceFile);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+    }
+
+    static final FilenamePatternTemplate NOT_COMPILED = new FilenamePatternTemplate(null, 0);
+
+    private final List<Segment> segments;
+
+    private final int literalLength;
+
+    private FilenamePatternTemplate(List<Segment> segments, int literalLength) {
+        this.segments = segments;
+        this.literalLength = literalLength;
+    }
+
+    static FilenamePatternTemplate compile(String pattern) {
+        try {
+            return compileOrFail(pattern);
+        } catch (RuntimeException ex) {
+            return NOT_COMPILED;
+        }
+    }
+
+    private static FilenamePatternTemplate compileOrFail(String pattern) {
+        if (pattern == null || pattern.contains(BLACKLIST_MARKER))
+            return NOT_COMPILED;
+
+        List<Segment> segments = new ArrayList<>();
+        int literalLength = 0;
+        String sourcefileProperty = null;
+        String sourcefileAtomicPrefix = null;
+        int position = 0;
+        while (position < pattern.length()) {
+            int start = pattern.indexOf("${", position);
+            String literal = pattern.substring(position, start < 0 ? pattern.length() : start);
+            if (literal.contains(OUTPUT_DIRECTORY))
+                return NOT_COMPILED;
+            if (!literal.isEmpty()) {
+                segments.add(new Segment(Kind.LITERAL, literal, null, null));
+                literalLength += literal.length();
+            }
+            if (start < 0)
+                break;
+
+            int end = pattern.indexOf('}', start);
+            if (end < 0)
+                return NOT_COMPILED;
+            String placeholder = pattern.substring(start, end + 1);
+            position = end + 1;
+
+            if (placeholder.equals("${sourcefile}")) {
+                segments.add(new Segment(Kind.SOURCEFILE, placeholder, null, null));
+            } else if (placeholder.equals("${sourcefileAtomic}")) {
+                segments.add(new Segment(Kind.SOURCEFILE_ATOMIC, placeholder, null, null));
+            } else if (placeholder.equals("${sourcepath}")) {
+                segments.add(new Segment(Kind.SOURCEPATH, placeholder, null, null));
+            } else if (placeholder.equals("${fgindex}")) {
+                segments.add(new Segment(Kind.FGINDEX, placeholder, "fgindex", null));
+            } else if (placeholder.equals("${outputAnalysisBaseDirectory}")) {
+                segments.add(new Segment(Kind.OUTPUT_ANALYSIS_BASE_DIRECTORY, placeholder, null, null));
+            } else if (placeholder.startsWith(FilenamePattern.PLACEHOLDER_SOURCEFILE_PROPERTY)) {
+                // Only the first property placeholder is replaced by fillValuesFromSourceFile()
+                if (sourcefileProperty != null && !sourcefileProperty.equals(placeholder))
+                    return NOT_COMPILED;
+                sourcefileProperty = placeholder;
+                Command command = FilenamePatternHelper.extractCommand(FilenamePattern.PLACEHOLDER_SOURCEFILE_PROPERTY, placeholder);
+                String pName = command.attributes.keySet().toArray()[0].toString();
+                String accessorName = "get" + pName.substring(0, 1).toUpperCase() + pName.substring(1);
+                segments.add(new Segment(Kind.SOURCEFILE_PROPERTY, placeholder, accessorName, null));
+            } else if (placeholder.startsWith(FilenamePattern.PLACEHOLDER_SOURCEFILE_ATOMIC_PREFIX)) {
+                if (sourcefileAtomicPrefix != null && !sourcefileAtomicPrefix.equals(placeholder))
+                    return NOT_COMPILED;
+                sourcefileAtomicPrefix = placeholder;
+                CommandAttribute delimiter = FilenamePatternHelper.extractCommand(
+                        FilenamePattern.PLACEHOLDER_SOURCEFILE_ATOMIC_PREFIX, placeholder).attributes.get("delimiter");
+                if (delimiter == null)
+                    return NOT_COMPILED;
+                segments.add(new Segment(Kind.SOURCEFILE_ATOMIC_PREFIX, placeholder, delimiter.value, null));
+            } else if (placeholder.contains(OUTPUT_DIRECTORY)) {
+                // fillDirectories() resolves whole path segments, which contain "OutputDirectory".
+                boolean segmentStart = start == 0 || pattern.charAt(start - 1) == File.separatorChar;
+                boolean segmentEnd = end + 1 == pattern.length() || pattern.charAt(end + 1) == File.separatorChar;
+                if (!segmentStart || !segmentEnd || placeholder.startsWith(FilenamePattern.PLACEHOLDER_CVALUE))
+                    return NOT_COMPILED;
+                segments.add(new Segment(Kind.OUTPUT_DIRECTORY, placeholder,
+                        placeholder.substring(2, placeholder.length() - 1), null));
+            } else if (placeholder.startsWith(FilenamePattern.PLACEHOLDER_CVALUE)) {
+                Command command = FilenamePatternHelper.extractCommand(FilenamePattern.PLACEHOLDER_CVALUE, placeholder);
+                CommandAttribute name = command.attributes.get("name");
+                CommandAttribute defaultValue = command.attributes.get(FilenamePattern.DEFAULT_SELECTIONTAG);
+                if (name == null)
+                    return NOT_COMPILED;
+                segments.add(new Segment(Kind.CVALUE, placeholder, name.value,
+                        defaultValue != null ? defaultValue.value : null));
+            } else {
+                segments.add(new Segment(Kind.VARIABLE, placeholder, new Command(placeholder, null).rawName, null));
+            }
+        }
+        return new FilenamePatternTemplate(Collections.unmodifiableList(segments), literalLength);
+    }
+
+    boolean isCompiled() {
+        return segments != null;
+    }
+
+    /**
+     * @return The filename or null, if the pattern needs to be applied step by step.
+     */
+    String render(FilenamePattern filenamePattern, BaseFile[] baseFiles) throws Exception {
+        if (!isCompiled())
+            return null;
+
+        BaseFile baseFile = baseFiles[0];
+        // Like fillValuesFromSourceFile(), fail for source files without a path, also if the path is not used.
+        BaseFile sourceFile = filenamePattern.getSourceFile(baseFiles);
+        File sourcepath = sourceFile != null ? sourceFile.getPath() : null;
+        if (sourceFile != null && sourcepath == null)
+            return null;
+        ExecutionContext context = baseFile.getExecutionContext();
+        RecursiveOverridableMapContainerForConfigurationValues configurationValues =
+                baseFile.getConfiguration().getConfigurationValues();
+
+        StringBuilder result = new StringBuilder(literalLength + 32 * segments.size());
+        for (Segment segment : segments) {
+            String value;
+            boolean beforeDirectories = true;
+            switch (segment.kind) {
+                case LITERAL:
+                    result.append(segment.text);
+                    continue;
+                case SOURCEFILE:
+                    if (sourcepath == null) return null;
+                    value = sourcepath.getAbsolutePath();
+                    break;
+                case SOURCEFILE_ATOMIC:
+                    if (sourcepath == null) return null;
+                    value = sourcepath.getName();
+                    break;
+                case SOURCEFILE_PROPERTY:
+                    if (sourcepath == null) return null;
+                    value = segment.invokeAccessor(sourceFile).toString();
+                    break;
+                case SOURCEFILE_ATOMIC_PREFIX:
+                    if (sourcepath == null) return null;
+                    String sourcename = sourcepath.getName();
+                    value = sourcename.substring(0, sourcename.lastIndexOf(segment.name));
+                    break;
+                case SOURCEPATH:
+                    if (sourcepath == null) return null;
+                    value = sourcepath.getParent();
+                    break;
+                case FGINDEX:
+                    if (baseFile.hasIndexInFileGroup()) {
+                        value = baseFile.getIdxInFileGroup();
+                    } else {
+                        value = resolveVariable(configurationValues, segment);
+                        beforeDirectories = false;
+                    }
+                    break;
+                case OUTPUT_ANALYSIS_BASE_DIRECTORY:
+                    value = context.getOutputDirectory().getAbsolutePath();
+                    break;
+                case OUTPUT_DIRECTORY:
+                    ConfigurationValue cval = context.getConfiguration().getConfigurationValues().get(segment.name);
+                    value = cval.getType().equals(CVALUE_TYPE_PATH) ? cval.toFile(context).getAbsolutePath() : cval.toString();
+                    value = value.replace(Roddy.getApplicationDirectory().getAbsolutePath() + "/", "");
+                    break;
+                case CVALUE:
+                    ConfigurationValue cv;
+                    if (segment.defaultValue != null)
+                        cv = configurationValues.get(segment.name, segment.defaultValue);
+                    else if (configurationValues.hasValue(segment.name))
+                        cv = configurationValues.get(segment.name, null);
+                    else
+                        cv = null;
+                    if (cv == null)
+                        return null;
+                    value = cv.toString();
+                    beforeDirectories = false;
+                    break;
+                default:
+                    value = resolveVariable(configurationValues, segment);
+                    beforeDirectories = false;
+            }
+            if (value == null)
+                return null;
+            if (value != segment.text) {
+                if (value.contains("${") || value.contains(BLACKLIST_MARKER))
+                    return null;
+                if (beforeDirectories && value.contains(OUTPUT_DIRECTORY))
+                    return null;
+            }
+            result.append(value);
+        }
+
+        String temp = filenamePattern.fillVariablesFromSourceFileValues(baseFile, result.toString());
+        return filenamePattern.fillVariablesFromSourceFileArrayValues(baseFiles, temp);
+    }
+
+    /**
+     * Variables, which are no configuration values, are left for the file stage settings and the data set.
+     */
+    private static String resolveVariable(RecursiveOverridableMapContainerForConfigurationValues configurationValues,
+                                          Segment segment) {
+        if (configurationValues.hasValue(segment.name))
+            return configurationValues.get(segment.name).toString();
+        return segment.text;
+    }
+}
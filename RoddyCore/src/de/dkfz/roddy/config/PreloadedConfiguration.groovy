@@ -6,18 +6,23 @@
 
 package de.dkfz.roddy.config
 
+import de.dkfz.roddy.config.loader.ConfigurationFactory
+import de.dkfz.roddy.config.loader.ConfigurationNode
 import groovy.transform.CompileStatic
-import groovy.util.slurpersupport.NodeChild
 
 /**
  * This class serves as an intermediate parsing result of the XML towards the final Configuration object.
  *
- * The ConfigurationFactory reads in all XMLs (directly using the Groovy XML slurper), only extracts the configuration dependencies (such as
+ * The ConfigurationFactory reads in all XMLs (with a streaming StAX reader), only extracts the configuration dependencies (such as
  * analyses and imports), such that only the minimal amount of parsing has to be done. From the parsed information the
  * PreloadedConfiguration is produced. All preloaded configuration objects are stored as value in an map and indexed by their 'id' field.
  *
  * As soon as it is know, which configurations are required, these Configurations objects are produced using the information in the preloaded
  * configuration and the remaining XMLs.
+ *
+ * Preloaded configurations can also be restored from the PreloadedConfigurationIndex without reading the XML. The node
+ * of such a configuration is only loaded, when it is first requested. Subconfigurations get it from the node of their
+ * parent. The text is not kept, it is read from the file again, if it is needed (e.g. for the XML validation).
  */
 @CompileStatic
 class PreloadedConfiguration {
@@ -26,12 +31,19 @@ class PreloadedConfiguration {
     public final String name
     public final String description
     public final String className
-    public final NodeChild configurationNode
+    private ConfigurationNode configurationNode
     public final String imports
     public final File file
-    public final String text
+    private String text
     public final String id
 
+    /**
+     * Loads the node of a lazily loaded top level configuration.
+     */
+    private final Closure<ConfigurationNode> source
+
+    private final boolean loadedLazily
+
     private File readmeFile
 
     private final List<PreloadedConfiguration> subConf
@@ -39,7 +51,7 @@ class PreloadedConfiguration {
     public final ResourceSetSize usedresourcessize
 
     PreloadedConfiguration(PreloadedConfiguration parent, Configuration.ConfigurationType type, String name, String description,
-                           String className, NodeChild configurationNode, String imports, ResourceSetSize usedresourcessize,
+                           String className, ConfigurationNode configurationNode, String imports, ResourceSetSize usedresourcessize,
                            List<String> analyses, List<PreloadedConfiguration> subContent, File file, String text) {
         this(parent, type, name, description, className, configurationNode, imports, subContent,
                 file, text, usedresourcessize)
@@ -47,10 +59,35 @@ class PreloadedConfiguration {
             this.analyses.addAll(analyses)
     }
 
+    /**
+     * Create a configuration, whose node is loaded on first use. For top level configurations, the source is called to
+     * load it. Subconfigurations (source == null) take it from their parent.
+     */
+    PreloadedConfiguration(PreloadedConfiguration parent, Configuration.ConfigurationType type, String name, String description,
+                           String className, String imports, ResourceSetSize usedresourcessize,
+                           List<String> analyses, List<PreloadedConfiguration> subContent, File file,
+                           Closure<ConfigurationNode> source) {
+        this(parent, type, name, description, className, null, imports, subContent, file, null, usedresourcessize,
+                source, true)
+        if (analyses != null)
+            this.analyses.addAll(analyses)
+    }
+
     PreloadedConfiguration(PreloadedConfiguration parent, Configuration.ConfigurationType type, String name, String description,
-                           String className, NodeChild configurationNode, String imports,
+                           String className, ConfigurationNode configurationNode, String imports,
                            List<PreloadedConfiguration> subContent, File file, String text,
                            ResourceSetSize usedresourcessize = null) {
+        this(parent, type, name, description, className, configurationNode, imports, subContent, file, text,
+                usedresourcessize, null, false)
+    }
+
+    private PreloadedConfiguration(PreloadedConfiguration parent, Configuration.ConfigurationType type, String name,
+                                   String description, String className, ConfigurationNode configurationNode, String imports,
+                                   List<PreloadedConfiguration> subContent, File file, String text,
+                                   ResourceSetSize usedresourcessize, Closure<ConfigurationNode> source,
+                                   boolean loadedLazily) {
+        this.source = source
+        this.loadedLazily = loadedLazily
         this.type = type
         this.name = name
         this.className = className
@@ -79,6 +116,26 @@ class PreloadedConfiguration {
         this.text = text
     }
 
+    synchronized ConfigurationNode getConfigurationNode() {
+        if (loadedLazily && configurationNode == null)
+            configurationNode = source != null ? source.call() : parent.loadSubConfiguration(this)
+        return configurationNode
+    }
+
+    /**
+     * @return the text of the configuration file. Lazily loaded configurations read it from the file again.
+     */
+    String getText() {
+        if (text == null && loadedLazily && file != null)
+            return ConfigurationFactory.loadAndPreprocessTextFromFile(file)
+        return text
+    }
+
+    private ConfigurationNode loadSubConfiguration(PreloadedConfiguration subConfiguration) {
+        int index = subConf.indexOf(subConfiguration)
+        return getConfigurationNode().children("subconfigurations", "configuration")[index]
+    }
+
     /**
      * Returns a shallow copy of the list of analysesByID.
      * Each analysis has an id (like a name for a project) and the configuration name on which it is based.
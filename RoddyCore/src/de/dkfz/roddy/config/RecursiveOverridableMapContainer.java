@@ -9,10 +9,17 @@ package de.dkfz.roddy.config;
 import de.dkfz.roddy.tools.RoddyConversionHelperMethods;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Helps configurations to store overridable versions of configuration values and other things
@@ -24,9 +31,25 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
     }
 
     /**
-     * A list of values in this container's configuration
+     * A list of values in this container's configuration. Changes to the map, also via getMap(), are reported to
+     * valueChanged().
      */
-    protected final Map<K, V> values = new LinkedHashMap<>();
+    protected final Map<K, V> values = new ObservedLinkedHashMap();
+
+    /**
+     * Counts the changes of values in this container.
+     */
+    private final AtomicLong valueModificationCount = new AtomicLong(0);
+
+    /**
+     * Counts the changes of the list of parents of the container parent.
+     */
+    private final AtomicLong parentsModificationCount = new AtomicLong(0);
+
+    /**
+     * The flattened view of this container and its parents. Rebuilt on access, if its version is outdated.
+     */
+    private volatile Snapshot snapshot;
 
     private final P containerParent;
 
@@ -66,9 +89,10 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
      * @return a map of value keys and evaluated values
      */
     public Map<K, V> getAllValues() {
+        Snapshot current = getSnapshot();
         Map<K, V> elevatedValues = new LinkedHashMap<>();
-        for (V value : getAllUnevaluatedValues().values()) {
-            elevatedValues.put((K) value.getID(), temporarilyElevateValue(value));
+        for (K key : current.valuesByID.keySet()) {
+            elevatedValues.put(key, current.getElevatedValue(key));
         }
         return elevatedValues;
     }
@@ -80,14 +104,12 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
         return new LinkedList<>(getAllValues().values());
     }
 
+    /**
+     * @return an unmodifiable map of all values of this container and its parents, with a local value overriding
+     * the parents' values and later parents overriding earlier ones.
+     */
     protected Map<K, V> getAllUnevaluatedValues() {
-        Map<K, V> allValues = new LinkedHashMap<>();
-        for (P parent : (List<P>) containerParent.getParents()) {
-            allValues.putAll(parent.getContainer(id).getAllUnevaluatedValues());
-        }
-
-        allValues.putAll(values);
-        return allValues;
+        return getSnapshot().values;
     }
 
     public List<V> getInheritanceList(K valueID) throws ConfigurationError {
@@ -110,7 +132,191 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
     }
 
     public boolean hasValue(K id) {
-        return getListOfAllValueKeys().contains(id);
+        return getSnapshot().values.containsKey(id);
+    }
+
+    /**
+     * Find the unevaluated value with the highest priority for the id in this container or its parents. Like
+     * getAllUnevaluatedValues(), a local value overrides the parents' values and later parents override earlier ones.
+     *
+     * @return the value or null, if there is no value for the id
+     */
+    public @Nullable V findUnevaluatedValue(K id) {
+        return getSnapshot().values.get(id);
+    }
+
+    /**
+     * @return the number of changes of values in this container.
+     */
+    public long getValueModificationCount() {
+        return valueModificationCount.get();
+    }
+
+    /**
+     * @return the number of changes of the parents and of all values in the parent containers, recursively. The
+     * value changes, whenever a value that this container inherits might have changed.
+     */
+    public long getInheritedModificationCount() {
+        long count = parentsModificationCount.get();
+        for (RecursiveOverridableMapContainer container : getSnapshot().containers) {
+            if (container != this)
+                count += container.getModificationCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of changes of values in this container and of the list of parents of the container parent.
+     */
+    private long getModificationCount() {
+        return valueModificationCount.get() + parentsModificationCount.get();
+    }
+
+    /**
+     * Get the flattened view of this container and its parents. The view is rebuilt, if this container, one of its
+     * parent containers or one of the lists of parents changed since it was built.
+     */
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.version == versionOf(current.containers))
+            return current;
+
+        // The version is taken before the values are collected, so a concurrent change leads to another rebuild.
+        List<RecursiveOverridableMapContainer<K, V, P>> parentContainers = new ArrayList<>();
+        Set<RecursiveOverridableMapContainer> containers = Collections.newSetFromMap(new IdentityHashMap<>());
+        containers.add(this);
+        for (P parent : (List<P>) containerParent.getParents()) {
+            RecursiveOverridableMapContainer<K, V, P> parentContainer = parent.getContainer(id);
+            parentContainers.add(parentContainer);
+            containers.addAll(Arrays.asList(parentContainer.getSnapshot().containers));
+        }
+        RecursiveOverridableMapContainer[] containerArray = containers.toArray(new RecursiveOverridableMapContainer[0]);
+        long version = versionOf(containerArray);
+
+        Map<K, V> allValues = new LinkedHashMap<>();
+        for (RecursiveOverridableMapContainer<K, V, P> parentContainer : parentContainers)
+            allValues.putAll(parentContainer.getAllUnevaluatedValues());
+        allValues.putAll(values);
+
+        current = new Snapshot(containerArray, version, allValues);
+        snapshot = current;
+        return current;
+    }
+
+    private static long versionOf(RecursiveOverridableMapContainer[] containers) {
+        long version = 0;
+        for (RecursiveOverridableMapContainer container : containers)
+            version += container.getModificationCount();
+        return version;
+    }
+
+    /**
+     * An immutable, flattened view of the values of a container and its parents. Elevated values are created
+     * lazily and then reused.
+     */
+    private final class Snapshot {
+
+        /**
+         * This container and all (distinct) containers in the parent chain. The sum of their modification counts is
+         * the version of the snapshot.
+         */
+        final RecursiveOverridableMapContainer[] containers;
+
+        final long version;
+
+        /**
+         * The values by map key with the precedence of getAllUnevaluatedValues().
+         */
+        final Map<K, V> values;
+
+        /**
+         * The same values by their ID, as they are returned by getAllValues().
+         */
+        final Map<K, V> valuesByID = new LinkedHashMap<>();
+
+        private final Map<K, V> elevatedValues = new ConcurrentHashMap<>();
+
+        Snapshot(RecursiveOverridableMapContainer[] containers, long version, Map<K, V> values) {
+            this.containers = containers;
+            this.version = version;
+            this.values = Collections.unmodifiableMap(values);
+            for (V value : values.values())
+                valuesByID.put((K) value.getID(), value);
+        }
+
+        @Nullable V getElevatedValue(K id) {
+            if (id == null)
+                return null;
+            V elevated = elevatedValues.get(id);
+            if (elevated == null) {
+                V value = valuesByID.get(id);
+                if (value == null)
+                    return null;
+                elevated = temporarilyElevateValue(value);
+                V previous = elevatedValues.putIfAbsent(id, elevated);
+                if (previous != null)
+                    elevated = previous;
+            }
+            return elevated;
+        }
+    }
+
+    /**
+     * Called by the container parent, if its list of parents changed.
+     */
+    public void parentsChanged() {
+        parentsModificationCount.incrementAndGet();
+    }
+
+    /**
+     * Called for every change of the local values.
+     *
+     * @param key the changed key or null, if all values were removed.
+     */
+    protected void valueChanged(@Nullable K key) {
+        valueModificationCount.incrementAndGet();
+    }
+
+    /**
+     * Reports all changes to valueChanged(). Bulk operations are mapped to the single value operations.
+     */
+    private class ObservedLinkedHashMap extends LinkedHashMap<K, V> {
+
+        @Override
+        public V put(K key, V value) {
+            V previous = super.put(key, value);
+            valueChanged(key);
+            return previous;
+        }
+
+        @Override
+        public void putAll(Map<? extends K, ? extends V> map) {
+            for (Map.Entry<? extends K, ? extends V> entry : map.entrySet())
+                put(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            V previous = get(key);
+            if (previous == null)
+                previous = put(key, value);
+            return previous;
+        }
+
+        @Override
+        public V remove(Object key) {
+            boolean contained = containsKey(key);
+            V previous = super.remove(key);
+            if (contained)
+                valueChanged((K) key);
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            valueChanged(null);
+        }
     }
 
     /**
@@ -147,11 +353,7 @@ public class RecursiveOverridableMapContainer<K, V extends RecursiveOverridableM
      * @return
      */
     protected @Nullable V _getValueUnchecked(K id) {
-        V cval = getAllValues().get(id);
-        if(!values.containsKey(id))
-            return temporarilyElevateValue(cval);
-
-        return cval;
+        return getSnapshot().getElevatedValue(id);
     }
 
     /**
@@ -26,11 +26,26 @@ public class RecursiveOverridableMapContainerForConfigurationValues
             LoggerWrapper.getLogger(RecursiveOverridableMapContainerForConfigurationValues.class.getSimpleName());
 
 
+    private final ConfigurationValueEvaluator evaluator = new ConfigurationValueEvaluator(this);
+
     RecursiveOverridableMapContainerForConfigurationValues(@NotNull Configuration parent,
                                                            @NotNull String id) {
         super(parent, id);
     }
 
+    /**
+     * The evaluator memoizes the evaluated values of this container's configuration.
+     */
+    public @NotNull ConfigurationValueEvaluator getEvaluator() {
+        return evaluator;
+    }
+
+    @Override
+    protected void valueChanged(@Nullable String key) {
+        super.valueChanged(key);
+        evaluator.invalidate(key);
+    }
+
     public @NotNull ConfigurationValue get(@NotNull String id,
                                            @NotNull String defaultValue) {
         try {
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import de.dkfz.roddy.tools.LoggerWrapper
+import de.dkfz.roddy.tools.ParallelTasks
+import de.dkfz.roddy.tools.RoddyIOHelperMethods
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * The MD5 sums of the source files of tools. Every job references its tool and the wrapper script with their MD5, so
+ * without the cache both files were read and hashed for every job.
+ *
+ * An MD5 is reused as long as the size and the modification time of the file are unchanged. The cache is shared by all
+ * execution contexts of the Roddy process.
+ */
+@CompileStatic
+class ToolFingerprintCache {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(ToolFingerprintCache.class.simpleName)
+
+    private static final ToolFingerprintCache instance = new ToolFingerprintCache()
+
+    private static class Fingerprint {
+        final long size
+        final long lastModified
+        final String md5
+
+        Fingerprint(long size, long lastModified, String md5) {
+            this.size = size
+            this.lastModified = lastModified
+            this.md5 = md5
+        }
+    }
+
+    private final Map<String, Fingerprint> fingerprints = new ConcurrentHashMap<String, Fingerprint>()
+
+    private final AtomicInteger hashedFiles = new AtomicInteger(0)
+
+    static ToolFingerprintCache getInstance() {
+        return instance
+    }
+
+    /**
+     * @return the number of files that were read and hashed.
+     */
+    int getHashedFiles() {
+        return hashedFiles.get()
+    }
+
+    /**
+     * @return the MD5 of the file like RoddyIOHelperMethods.getMD5OfFile(), or the cached MD5, if the file did not
+     * change since it was hashed.
+     */
+    String getMD5(File file) {
+        String path = file.absolutePath
+        long size = file.length()
+        long lastModified = file.lastModified()
+        Fingerprint fingerprint = fingerprints.get(path)
+        if (fingerprint != null && fingerprint.size == size && fingerprint.lastModified == lastModified)
+            return fingerprint.md5
+
+        String md5 = RoddyIOHelperMethods.getMD5OfFile(file)
+        hashedFiles.incrementAndGet()
+        if (md5)
+            fingerprints.put(path, new Fingerprint(size, lastModified, md5))
+        return md5
+    }
+
+    /**
+     * Hash the files with a bounded pool of threads, so that later calls of getMD5() do not need to read them. Files
+     * that cannot be hashed are skipped; the error is reported, when the MD5 is requested.
+     */
+    void hashAll(Collection<File> files) {
+        List<File> regularFiles = files.findAll { File file -> file.isFile() }.unique() as List<File>
+        try {
+            ParallelTasks.collect(regularFiles, "roddy-tool-hasher-%d", { File file ->
+                getMD5(file)
+            } as ParallelTasks.Task<File, String>)
+        } catch (Exception ex) {
+            logger.warning("Could not hash all tools in advance: ${ex.message}")
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import de.dkfz.roddy.plugins.PluginInfo
+import groovy.transform.CompileStatic
+
+import java.nio.file.Path
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * The tool directories of the loaded plugins by their base path ID, and the source paths and the paths relative to
+ * the execution directory of the tools of a configuration. Without the index, the tool directories of all loaded
+ * plugins were collected for every requested tool path.
+ *
+ * The index is built for a version of the tools of a configuration and for a list of loaded plugins. The paths of the
+ * tools are added on first use.
+ */
+@CompileStatic
+class ToolPathIndex {
+
+    /**
+     * The sum of the modification counts of the tool containers, for which the index was built.
+     */
+    final long version
+
+    private final List<PluginInfo> plugins
+
+    private final int pluginCount
+
+    private final Map<String, File> basePaths = new LinkedHashMap<String, File>()
+
+    private final Map<String, File> sourcePaths = new ConcurrentHashMap<String, File>()
+
+    private final Map<String, Path> relativeProcessingPaths = new ConcurrentHashMap<String, Path>()
+
+    ToolPathIndex(long version, List<PluginInfo> plugins) {
+        this.version = version
+        this.plugins = plugins
+        this.pluginCount = plugins.size()
+        for (PluginInfo pluginInfo : plugins) {
+            basePaths.putAll(pluginInfo.toolsDirectories)
+        }
+    }
+
+    /**
+     * @return true, if the index was built for the version of the tools and for the list of loaded plugins.
+     */
+    boolean isValidFor(long version, List<PluginInfo> plugins) {
+        return this.version == version && this.plugins.is(plugins) && pluginCount == plugins.size()
+    }
+
+    boolean hasBasePath(String basePathId) {
+        return basePaths.containsKey(basePathId)
+    }
+
+    File getBasePath(String basePathId) {
+        return basePaths.get(basePathId)
+    }
+
+    File getSourcePath(String tool) {
+        return sourcePaths.get(tool)
+    }
+
+    void putSourcePath(String tool, File path) {
+        sourcePaths.put(tool, path)
+    }
+
+    Path getRelativeProcessingPath(String tool) {
+        return relativeProcessingPaths.get(tool)
+    }
+
+    void putRelativeProcessingPath(String tool, Path path) {
+        relativeProcessingPaths.put(tool, path)
+    }
+}
@@ -38,13 +38,31 @@ class BashConverter extends ConfigurationConverter {
 
     @Override
     String convert(ExecutionContext context, Configuration _cfg) {
-        Configuration cfg = new Configuration(null, _cfg)
+        Configuration cfg = createConfigurationWithToolPaths(context, _cfg)
 
-        cfg.configurationValues.addAll(cfg.tools.allValuesAsList.collect {
-            ToolEntry te ->
-                new ConfigurationValue(createVariableName("TOOL_", te.getID()),
-                        cfg.getProcessingToolPath(context, te.getID()).absolutePath)
-        })
+        StringBuilder text = createNewDocumentStringBuilder(context, cfg)
+
+        text << appendConfigurationValues(context, cfg)
+
+        text << appendConfigurationValueBundles(context, cfg)
+
+        text << appendDebugVariables(cfg)
+
+        text << appendPathVariables()
+
+        text << separator << ""
+
+        return text.toString()
+
+    }
+
+    /**
+     * Convert the configuration of an execution context to the shared parameter file of the context. The file contains
+     * the header, all configuration values including the tool paths, and the bundles. The parameter files of the jobs
+     * source it, see convertJobConfiguration().
+     */
+    String convertContextConfiguration(ExecutionContext context, Configuration contextConfiguration) {
+        Configuration cfg = createConfigurationWithToolPaths(context, contextConfiguration)
 
         StringBuilder text = createNewDocumentStringBuilder(context, cfg)
 
@@ -52,6 +70,45 @@ class BashConverter extends ConfigurationConverter {
 
         text << appendConfigurationValueBundles(context, cfg)
 
+        text << separator << ""
+
+        return text.toString()
+    }
+
+    /**
+     * Convert a job configuration (the job parameters on top of the context configuration) to a parameter file, which
+     * sources the shared parameter file of the context. Afterwards, only the job parameters and the values that
+     * reference them are declared, in the same order as in the file created by convert(). Redeclared variables are
+     * unset first, so attributes from the shared file (e.g. integer) do not apply to the new values. The debug and
+     * path variables follow like in convert().
+     *
+     * @return null, if the job parameters override values used for the header of the shared file. The job needs a
+     *         complete parameter file then.
+     */
+    String convertJobConfiguration(ExecutionContext context, Configuration jobConfiguration, File contextParameterFile) {
+        Set<String> changedIDs = new HashSet<String>(jobConfiguration.configurationValues.map.keySet())
+        if (changedIDs.contains(ConfigurationConstants.CVALUE_PROCESS_OPTIONS_SETUSERGROUP) ||
+                changedIDs.contains(ConfigurationConstants.CVALUE_PROCESS_OPTIONS_SETUSERMASK))
+            return null
+
+        Configuration cfg = createConfigurationWithToolPaths(context, jobConfiguration)
+
+        StringBuilder text = new StringBuilder()
+        text << "#!/bin/bash" << separator
+        text << "source " << new BashCommandSet().singleQuote(contextParameterFile.absolutePath) << separator
+
+        Map<String, ConfigurationValue> listOfSortedValues = getConfigurationValuesSortedByDependencies(cfg)
+        for (ConfigurationValue cv : listOfSortedValues.values()) {
+            if (isValidationRule(cv))
+                continue
+            if (!changedIDs.contains(cv.id) && !cv.containedKeys.any { String key -> changedIDs.contains(key) })
+                continue
+            changedIDs << cv.id
+            if (!isComment(cv))
+                text << "unset -v " << cv.id << separator
+            text << convertConfigurationValue(cv, context) << separator
+        }
+
         text << appendDebugVariables(cfg)
 
         text << appendPathVariables()
@@ -59,7 +116,17 @@ class BashConverter extends ConfigurationConverter {
         text << separator << ""
 
         return text.toString()
+    }
+
+    private static Configuration createConfigurationWithToolPaths(ExecutionContext context, Configuration _cfg) {
+        Configuration cfg = new Configuration(null, _cfg)
 
+        cfg.configurationValues.addAll(cfg.tools.allValuesAsList.collect {
+            ToolEntry te ->
+                new ConfigurationValue(createVariableName("TOOL_", te.getID()),
+                        cfg.getProcessingToolPath(context, te.getID()).absolutePath)
+        })
+        return cfg
     }
 
     StringBuilder createNewDocumentStringBuilder(ExecutionContext context, Configuration cfg) {
@@ -82,7 +149,7 @@ class BashConverter extends ConfigurationConverter {
 
     StringBuilder appendConfigurationValues(ExecutionContext context, Configuration cfg) {
         StringBuilder text = new StringBuilder()
-        Map<String, ConfigurationValue> listOfSortedValues = getConfigurationValuesSortedByDependencies(cfg.configurationValues.allValuesAsList)
+        Map<String, ConfigurationValue> listOfSortedValues = getConfigurationValuesSortedByDependencies(cfg)
         for (ConfigurationValue cv : listOfSortedValues.values()) {
             boolean isValidationRule = cv.id.contains("cfgValidationRule")
 
@@ -186,43 +253,20 @@ class BashConverter extends ConfigurationConverter {
      * Note, that values are not sorted by their id! They are initially sorted by load order and this will be kept as far as it is possible.
      *
      * Values with unresolved dependencies (i.e. variables that are not declared in the configuration tree) are put at the end.
+     *
+     * The values are sorted topologically in linear time, see ConfigurationValueDependencyOrder.
      */
     Tuple2<Map<String, ConfigurationValue>, Map<String, ConfigurationValue>> getConfigurationValuesSortedByDependenciesAndUnresolvable(List<ConfigurationValue> values) {
+        return ConfigurationValueDependencyOrder.sort(values)
+    }
 
-        Map<String, ConfigurationValue> listOfUnsortedValues = values.collectEntries { [it.id, it] }
-        Map<String, ConfigurationValue> listOfSortedValues = new LinkedHashMap<String, ConfigurationValue>()
-
-        // Would have like to do this with a simple do .. while loop, but Groovy does not know that yet.
-        boolean listOfSortedValuesChanged = true
-        while (listOfSortedValuesChanged) {
-            Map<String, ConfigurationValue> foundValues = [:]
-
-            for (ConfigurationValue cv in listOfUnsortedValues.values().findAll { !isValidationRule(it) && !isComment(it) }) {
-
-                List<String> dependenciesToOtherValues = ConfigurationValueHelper.getContainedKeys(cv.value)
-
-                // Check, how many dependencies to other values are set and find out for each dependency, if
-                // it was resolved in a former loop run or if it is a blacklisted value.
-                int noOfDependencies = dependenciesToOtherValues.size()
-                int resolvedOrBlacklistedCount = dependenciesToOtherValues.findAll { listOfSortedValues.containsKey(it) }.size()
-
-                // Continue, if the value cannot be resolved fully and at least one dependency is left.
-                if (noOfDependencies - resolvedOrBlacklistedCount > 0)
-                    continue
-
-                // Otherwise, put the value to the list of found values and to the list of already "sorted" values.
-                foundValues[cv.id] = cv
-                listOfSortedValues[cv.id] = cv
-            }
-
-            // Remove any found value from the list of unsorted / not found values.
-            // Remove the values as a block, the list is used in the loop before and should not be touched during the loop
-            listOfUnsortedValues -= foundValues
-            listOfSortedValuesChanged = foundValues.values().size() > 0
-        }
-
-        // Finally put the leftover values to the end of the list. and return this.
-        return new Tuple2<>(listOfSortedValues, listOfUnsortedValues)
+    /**
+     * Like getConfigurationValuesSortedByDependencies(List), for all configuration values of the configuration. The
+     * order is cached, see ConfigurationValueDependencyOrder.
+     */
+    Map<String, ConfigurationValue> getConfigurationValuesSortedByDependencies(Configuration cfg) {
+        def tuple = ConfigurationValueDependencyOrder.sort(cfg)
+        return tuple.first + tuple.second
     }
 
     static boolean isComment(ConfigurationValue cv) {
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.converters
+
+import de.dkfz.roddy.config.Configuration
+import de.dkfz.roddy.config.ConfigurationValue
+import de.dkfz.roddy.config.RecursiveOverridableMapContainerForConfigurationValues
+import groovy.transform.CompileStatic
+
+/**
+ * The order in which BashConverter declares configuration values, so that values are declared after the values they
+ * reference.
+ *
+ * The order is computed with a topological sort (Kahn's algorithm) over the references between the values. The
+ * former implementation resolved the values in repeated passes over the unresolved values in load order. Each value
+ * now gets the number of the pass in which it would have been resolved, and the values are ordered by this pass and
+ * their load order, so the result is unchanged. Values referencing undeclared values, comments or validation rules and
+ * values in reference cycles are unresolvable. They keep their load order.
+ *
+ * The orders of configurations are cached with the version of their configuration values. The order of a
+ * configuration with a single parent is derived from the order of the parent: only the values that differ from the
+ * parent's values and the values referencing them are sorted again. Job configurations only add a few values to the
+ * configuration of their context, so their conversion does not need to sort all values again.
+ */
+@CompileStatic
+class ConfigurationValueDependencyOrder {
+
+    private static final Map<Configuration, ConfigurationValueDependencyOrder> cachedOrders =
+            Collections.synchronizedMap(new WeakHashMap<Configuration, ConfigurationValueDependencyOrder>())
+
+    private final long version
+
+    private final String[] ids
+
+    private final String[] rawValues
+
+    private final List<String>[] keys
+
+    /**
+     * Comments and validation rules, which are never resolved.
+     */
+    private final boolean[] excluded
+
+    private final Map<String, Integer> indices
+
+    /**
+     * The pass in which a value is resolved, starting with 1, or 0 for unresolvable values.
+     */
+    private final int[] passes
+
+    /**
+     * The indices of the resolvable values, sorted by pass and load order.
+     */
+    private final int[] resolvable
+
+    /**
+     * The indices of the unresolvable values in load order.
+     */
+    private final int[] unresolvable
+
+    /**
+     * The indices of the values referencing a key, including keys of undeclared values. Only built, if the order is
+     * used as base of another order.
+     */
+    private Map<String, List<Integer>> dependents
+
+    private ConfigurationValueDependencyOrder(List<ConfigurationValue> values, long version,
+                                              ConfigurationValueDependencyOrder base) {
+        int n = values.size()
+        this.version = version
+        ids = new String[n]
+        rawValues = new String[n]
+        keys = new List[n]
+        excluded = new boolean[n]
+        indices = new HashMap<String, Integer>(n * 2)
+        passes = new int[n]
+        int i = 0
+        for (ConfigurationValue cv : values) {
+            ids[i] = cv.id
+            rawValues[i] = cv.value
+            keys[i] = cv.containedKeys
+            excluded[i] = BashConverter.isValidationRule(cv) || BashConverter.isComment(cv)
+            indices[cv.id] = i
+            i++
+        }
+
+        if (base != null && !startsWithValuesOf(base))
+            base = null
+        boolean[] affected = base != null ? base.findAffected(this) : allAffected(n)
+        if (base != null)
+            System.arraycopy(base.passes, 0, passes, 0, base.passes.length)
+        resolve(affected)
+
+        List<Integer> resolvableAffected = []
+        List<Integer> unresolvableAffected = []
+        for (int j = 0; j < n; j++) {
+            if (affected[j])
+                (passes[j] > 0 ? resolvableAffected : unresolvableAffected) << j
+        }
+        resolvable = merge(base?.resolvable, affected, sortByPass(resolvableAffected))
+        unresolvable = merge(base?.unresolvable, affected, unresolvableAffected)
+    }
+
+    /**
+     * @return the configuration values sorted by their dependencies and the unresolvable values, like
+     * BashConverter.getConfigurationValuesSortedByDependenciesAndUnresolvable().
+     */
+    static Tuple2<Map<String, ConfigurationValue>, Map<String, ConfigurationValue>> sort(List<ConfigurationValue> values) {
+        Map<String, ConfigurationValue> distinctValues = new LinkedHashMap<String, ConfigurationValue>()
+        for (ConfigurationValue cv : values)
+            distinctValues[cv.id] = cv
+        List<ConfigurationValue> distinctList = new ArrayList<ConfigurationValue>(distinctValues.values())
+        return new ConfigurationValueDependencyOrder(distinctList, 0, null).toMaps(distinctList)
+    }
+
+    /**
+     * Like sort(List), for all configuration values of the configuration, but with a cached order.
+     */
+    static Tuple2<Map<String, ConfigurationValue>, Map<String, ConfigurationValue>> sort(Configuration configuration) {
+        List<ConfigurationValue> values = new ArrayList<ConfigurationValue>(configuration.configurationValues.allValuesAsList)
+        return get(configuration, values).toMaps(values)
+    }
+
+    /**
+     * Get the cached order of the configuration or compute it for the given values of the configuration.
+     */
+    private static ConfigurationValueDependencyOrder get(Configuration configuration, List<ConfigurationValue> values) {
+        RecursiveOverridableMapContainerForConfigurationValues container = configuration.configurationValues
+        long version = container.valueModificationCount + container.inheritedModificationCount
+        ConfigurationValueDependencyOrder order = cachedOrders.get(configuration)
+        if (order != null && order.version == version)
+            return order
+
+        ConfigurationValueDependencyOrder base = null
+        if (configuration.parents.size() == 1) {
+            Configuration parent = configuration.parents[0]
+            base = get(parent, new ArrayList<ConfigurationValue>(parent.configurationValues.allValuesAsList))
+        }
+        order = new ConfigurationValueDependencyOrder(values, version, base)
+        cachedOrders.put(configuration, order)
+        return order
+    }
+
+    private static boolean[] allAffected(int n) {
+        boolean[] affected = new boolean[n]
+        Arrays.fill(affected, true)
+        return affected
+    }
+
+    /**
+     * @return true, if the values of this order start with the values of the base order in the same order. Then the
+     * indices of the base order are valid for this order.
+     */
+    private boolean startsWithValuesOf(ConfigurationValueDependencyOrder base) {
+        if (ids.length < base.ids.length)
+            return false
+        for (int i = 0; i < base.ids.length; i++) {
+            if (ids[i] != base.ids[i])
+                return false
+        }
+        return true
+    }
+
+    /**
+     * @return the values of the other order that are new or changed compared to this order and the values
+     * referencing them.
+     */
+    private boolean[] findAffected(ConfigurationValueDependencyOrder other) {
+        boolean[] affected = new boolean[other.ids.length]
+        Deque<Integer> queue = new ArrayDeque<Integer>()
+        for (int i = 0; i < other.ids.length; i++) {
+            if (i >= ids.length || other.rawValues[i] != rawValues[i]) {
+                affected[i] = true
+                queue << i
+            }
+        }
+        Map<String, List<Integer>> dependents = getDependents()
+        while (!queue.isEmpty()) {
+            for (Integer dependent : dependents.get(other.ids[queue.poll()]) ?: []) {
+                if (!affected[dependent]) {
+                    affected[dependent] = true
+                    queue << dependent
+                }
+            }
+        }
+        return affected
+    }
+
+    private synchronized Map<String, List<Integer>> getDependents() {
+        if (dependents == null) {
+            Map<String, List<Integer>> map = new HashMap<String, List<Integer>>()
+            for (int i = 0; i < ids.length; i++) {
+                for (String key : keys[i]) {
+                    List<Integer> list = map.get(key)
+                    if (list == null) {
+                        list = new ArrayList<Integer>(2)
+                        map.put(key, list)
+                    }
+                    list << i
+                }
+            }
+            dependents = map
+        }
+        return dependents
+    }
+
+    /**
+     * Compute the passes of the affected values. The passes of the other values must be set.
+     */
+    private void resolve(boolean[] affected) {
+        int[] pendingDependencies = new int[ids.length]
+        boolean[] unresolvableValue = new boolean[ids.length]
+        Map<Integer, List<Integer>> waitingValues = new HashMap<Integer, List<Integer>>()
+        Deque<Integer> ready = new ArrayDeque<Integer>()
+
+        for (int i = 0; i < ids.length; i++) {
+            if (!affected[i])
+                continue
+            passes[i] = 0
+            unresolvableValue[i] = excluded[i]
+            for (String key : keys[i]) {
+                Integer dependency = indices.get(key)
+                if (dependency == null) {
+                    unresolvableValue[i] = true
+                } else if (affected[dependency]) {
+                    pendingDependencies[i]++
+                    List<Integer> waiting = waitingValues.get(dependency)
+                    if (waiting == null) {
+                        waiting = new ArrayList<Integer>(2)
+                        waitingValues.put(dependency, waiting)
+                    }
+                    waiting << i
+                } else if (passes[dependency] == 0) {
+                    unresolvableValue[i] = true
+                }
+            }
+            if (pendingDependencies[i] == 0)
+                ready << i
+        }
+
+        // Values in reference cycles never get ready and stay unresolvable.
+        while (!ready.isEmpty()) {
+            int i = ready.poll()
+            passes[i] = unresolvableValue[i] ? 0 : computePass(i)
+            for (Integer waiting : waitingValues.get(i) ?: []) {
+                if (--pendingDependencies[waiting] == 0)
+                    ready << waiting
+            }
+        }
+    }
+
+    /**
+     * A value is resolved in the first pass after the passes of its dependencies, or in the same pass, if the
+     * dependency comes first in load order.
+     */
+    private int computePass(int i) {
+        int pass = 1
+        for (String key : keys[i]) {
+            int dependency = indices.get(key)
+            int dependencyPass = passes[dependency]
+            if (dependencyPass == 0)
+                return 0
+            pass = Math.max(pass, dependency < i ? dependencyPass : dependencyPass + 1)
+        }
+        return pass
+    }
+
+    /**
+     * Stable counting sort of value indices in load order by their pass.
+     */
+    private List<Integer> sortByPass(List<Integer> indicesInLoadOrder) {
+        int maximumPass = 0
+        for (int i : indicesInLoadOrder)
+            maximumPass = Math.max(maximumPass, passes[i])
+        int[] start = new int[maximumPass + 2]
+        for (int i : indicesInLoadOrder)
+            start[passes[i] + 1]++
+        for (int pass = 1; pass < start.length; pass++)
+            start[pass] += start[pass - 1]
+        Integer[] sorted = new Integer[indicesInLoadOrder.size()]
+        for (int i : indicesInLoadOrder)
+            sorted[start[passes[i]]++] = i
+        return Arrays.asList(sorted)
+    }
+
+    /**
+     * Merge the unaffected values of a sorted list of the base order with the sorted affected values. Both are sorted
+     * by pass and load order.
+     */
+    private int[] merge(int[] baseIndices, boolean[] affected, List<Integer> affectedIndices) {
+        List<Integer> result = new ArrayList<Integer>((baseIndices != null ? baseIndices.length : 0) + affectedIndices.size())
+        int next = 0
+        if (baseIndices != null) {
+            for (int i : baseIndices) {
+                if (affected[i])
+                    continue
+                while (next < affectedIndices.size() && isBefore(affectedIndices[next], i))
+                    result << affectedIndices[next++]
+                result << i
+            }
+        }
+        while (next < affectedIndices.size())
+            result << affectedIndices[next++]
+        return result as int[]
+    }
+
+    private boolean isBefore(int i, int j) {
+        return passes[i] < passes[j] || (passes[i] == passes[j] && i < j)
+    }
+
+    private Tuple2<Map<String, ConfigurationValue>, Map<String, ConfigurationValue>> toMaps(List<ConfigurationValue> values) {
+        Map<String, ConfigurationValue> resolvableValues = new LinkedHashMap<String, ConfigurationValue>()
+        for (int i : resolvable)
+            resolvableValues[ids[i]] = values[i]
+        Map<String, ConfigurationValue> unresolvableValues = new LinkedHashMap<String, ConfigurationValue>()
+        for (int i : unresolvable)
+            unresolvableValues[ids[i]] = values[i]
+        return new Tuple2<Map<String, ConfigurationValue>, Map<String, ConfigurationValue>>(resolvableValues, unresolvableValues)
+    }
+}
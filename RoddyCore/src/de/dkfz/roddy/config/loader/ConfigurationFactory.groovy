@@ -7,6 +7,7 @@
 package de.dkfz.roddy.config.loader
 
 import de.dkfz.roddy.Constants
+import de.dkfz.roddy.FeatureToggles
 import de.dkfz.roddy.Roddy
 import de.dkfz.roddy.StringConstants
 import de.dkfz.roddy.client.RoddyStartupOptions
@@ -26,24 +27,22 @@ import de.dkfz.roddy.plugins.LibrariesFactory
 import de.dkfz.roddy.plugins.PluginInfo
 import de.dkfz.roddy.plugins.SyntheticPluginInfo
 import de.dkfz.roddy.tools.LoggerWrapper
-import de.dkfz.roddy.tools.RoddyConversionHelperMethods
+import de.dkfz.roddy.tools.ParallelTasks
 import de.dkfz.roddy.tools.RoddyIOHelperMethods
+import de.dkfz.roddy.tools.Tuple2
 import de.dkfz.roddy.tools.Tuple3
 import groovy.transform.CompileStatic
-import groovy.transform.TypeCheckingMode
-import groovy.util.slurpersupport.NodeChild
-import groovy.util.slurpersupport.NodeChildren
-import groovy.xml.StreamingMarkupBuilder
-import groovy.xml.XmlUtil
 import org.apache.commons.io.filefilter.WildcardFileFilter
-import org.xml.sax.SAXParseException
 
 import java.lang.reflect.Field
 import java.lang.reflect.Method
 import java.lang.reflect.Modifier
 import java.text.ParseException
+import java.util.concurrent.TimeUnit
 import java.util.logging.Level
 
+import javax.xml.stream.XMLStreamException
+
 import static de.dkfz.roddy.StringConstants.*
 import static de.dkfz.roddy.config.ConfigurationConstants.CVALUE_TYPE_PATH
 import static de.dkfz.roddy.config.ConfigurationConstants.CVALUE_TYPE_STRING
@@ -79,6 +78,8 @@ class ConfigurationFactory {
 
     private Map<ConfigurationType, Map<String, PreloadedConfiguration>> availableConfigurationsByTypeAndID = [:]
 
+    private final PreloadedConfigurationIndex preloadedConfigurationIndex
+
 
     @Deprecated // substitute by a version that returns the singleton
     static void initialize(List<File> configurationDirectories = null) {
@@ -97,10 +98,64 @@ class ConfigurationFactory {
 
         this.configurationDirectories.addAll(configurationDirectories)
 
+        preloadedConfigurationIndex = Roddy.getFeatureToggleValue(FeatureToggles.UsePreloadedConfigurationIndex)
+                ? new PreloadedConfigurationIndex(getPreloadedConfigurationIndexFile())
+                : null
+
         loadAvailableProjectConfigurationFiles()
     }
 
+    static File getPreloadedConfigurationIndexFile() {
+        return new File(new File(Roddy.getSettingsDirectory(), "caches"), PreloadedConfigurationIndex.INDEX_FILE_NAME)
+    }
+
+    /**
+     * Write the index of preloaded configurations and report, how many files were preloaded from the index.
+     */
+    private void savePreloadedConfigurationIndex(String what, int numberOfFiles, long startNanos) {
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+        long usedHeap = (Runtime.runtime.totalMemory() - Runtime.runtime.freeMemory()) >> 20
+        Roddy.addStartupPhaseDuration("preload ${what} configurations".toString(), System.nanoTime() - startNanos)
+        if (preloadedConfigurationIndex == null) {
+            logger.postSometimesInfo("Preloaded ${numberOfFiles} ${what} configuration files in ${duration} ms, " +
+                    "${usedHeap} MB heap used.")
+            return
+        }
+        logger.postSometimesInfo("Preloaded ${numberOfFiles} ${what} configuration files in ${duration} ms, " +
+                "${usedHeap} MB heap used (${preloadedConfigurationIndex.hits} unchanged files in total taken from " +
+                "the index).")
+        preloadedConfigurationIndex.save()
+    }
+
+    /**
+     * Preload the informational content of all files with a bounded pool of threads. The results (or the exceptions)
+     * are returned in the order of the files, so the callers can process them one after the other like before, and
+     * errors like duplicate ids are reported in the same way for each call. Parsing needs the processors, so there
+     * are not more threads than processors.
+     */
+    private List<Tuple2<PreloadedConfiguration, Exception>> preloadInParallel(List<File> files) {
+        int maximumThreads = Math.min(ParallelTasks.MAXIMUM_THREADS, Runtime.runtime.availableProcessors())
+        return ParallelTasks.collect(files, maximumThreads, "roddy-configuration-preloader-%d", { File file ->
+            preloadOrCatch(file)
+        } as ParallelTasks.Task<File, Tuple2<PreloadedConfiguration, Exception>>)
+    }
+
+    private Tuple2<PreloadedConfiguration, Exception> preloadOrCatch(File file) {
+        try {
+            return new Tuple2<PreloadedConfiguration, Exception>(loadInformationalConfigurationContent(file), null)
+        } catch (Exception ex) {
+            return new Tuple2<PreloadedConfiguration, Exception>(null, ex)
+        }
+    }
+
+    private static PreloadedConfiguration getOrThrow(Tuple2<PreloadedConfiguration, Exception> result) {
+        if (result.y != null)
+            throw result.y
+        return result.x
+    }
+
     private void loadAvailableProjectConfigurationFiles() {
+        long startNanos = System.nanoTime()
         List<File> allFiles = []
         configurationDirectories.parallelStream().each {
             File baseDir ->
@@ -115,6 +170,9 @@ class ConfigurationFactory {
                 File[] files = baseDir.listFiles((FileFilter) new WildcardFileFilter(["*.xml", "*.sh", "*.yml"]))
                 if (files == null) {
                     logger.info("No configuration files found in path ${baseDir.getAbsolutePath()}")
+                } else {
+                    // Keep the order independent of the file system, e.g. for the report of duplicate ids.
+                    Arrays.sort(files)
                 }
                 for (File f in files) {
                     synchronized (allFiles) {
@@ -126,9 +184,11 @@ class ConfigurationFactory {
 
         Map<String, List<String>> pathsForCfgs = [:]
         List<String> duplicateConfigurationIDs = []
-        for (File file in allFiles) {
+        List<Tuple2<PreloadedConfiguration, Exception>> preloaded = preloadInParallel(allFiles)
+        for (int i = 0; i < allFiles.size(); i++) {
+            File file = allFiles[i]
             try {
-                def icc = loadInformationalConfigurationContent(file)
+                def icc = getOrThrow(preloaded[i])
 
                 pathsForCfgs.get(icc.name, []) << icc.file.absolutePath
                 if (availableConfigurations.containsKey(icc.name)) {
@@ -165,9 +225,11 @@ class ConfigurationFactory {
 
             throw new ConfigurationLoaderException(messageForDuplicates.toString())
         }
+        savePreloadedConfigurationIndex("project", allFiles.size(), startNanos)
     }
 
     void loadAvailableAnalysisConfigurationFiles() {
+        long startNanos = System.nanoTime()
         List<File> allFiles = []
         Map<File, PluginInfo> pluginsByFile = [:]
         for (PluginInfo pi in LibrariesFactory.getInstance().getLoadedPlugins()) {
@@ -178,9 +240,11 @@ class ConfigurationFactory {
             }
         }
 
-        for (File file in allFiles) {
+        List<Tuple2<PreloadedConfiguration, Exception>> preloaded = preloadInParallel(allFiles)
+        for (int i = 0; i < allFiles.size(); i++) {
+            File file = allFiles[i]
             try {
-                def icc = loadInformationalConfigurationContent(file)
+                def icc = getOrThrow(preloaded[i])
 
                 File readmeFile = RoddyIOHelperMethods.
                         assembleLocalPath(pluginsByFile[file].directory, "README." + icc.id + ".md")
@@ -212,6 +276,7 @@ class ConfigurationFactory {
                 throw ex
             }
         }
+        savePreloadedConfigurationIndex("analysis", allFiles.size(), startNanos)
     }
 
     Map<String, PreloadedConfiguration> getAllAvailableConfigurations() {
@@ -250,7 +315,9 @@ class ConfigurationFactory {
             return file.text
 
         if (file.name.endsWith(".sh")) // Easy Bash importer
-            return loadAndPreprocessBashFile(file)
+            return ConfigurationFileCache.enabled
+                    ? ConfigurationFileCache.instance.getConvertedText(file, { loadAndPreprocessBashFile(file) })
+                    : loadAndPreprocessBashFile(file)
 
         if (file.name.endsWith(".groovy") || file.name.endsWith(".brawl"))
             return loadAndPreprocessBrawlFile(file)
@@ -287,99 +354,82 @@ class ConfigurationFactory {
      * Basic info contains i.e. the name, description, subconfigs and the type of a configuration.
      * @see PreloadedConfiguration
      *
+     * If the file is unchanged since it was last stored in the PreloadedConfigurationIndex, the information is taken
+     * from the index. Otherwise it is read with the streaming PreloadedConfigurationReader. In both cases, no XML tree
+     * is built and the text is not kept. Both are only loaded, when the configuration is loaded.
+     *
      * @param file The config file.
      * @return An object containing basic information about a configuration OR null, if the no preloaded config could
      *         be loaded.
      */
     PreloadedConfiguration loadInformationalConfigurationContent(File file) {
+        Closure<ConfigurationNode> parser = {
+            return parseConfigurationText(file, loadAndPreprocessTextFromFile(file))
+        }
+        Closure<ConfigurationNode> source = {
+            if (!ConfigurationFileCache.enabled)
+                return parser.call()
+            return ConfigurationFileCache.instance.getNode(file, PreloadedConfigurationIndex.getContentMD5(file), parser)
+        }
+
+        String md5 = null
+        if (preloadedConfigurationIndex != null) {
+            md5 = PreloadedConfigurationIndex.getContentMD5(file)
+            PreloadedConfigurationIndex.Record record = preloadedConfigurationIndex.get(file, md5)
+            if (record != null)
+                return _preloadConfiguration(file, record, null, source)
+        }
+
         String text = loadAndPreprocessTextFromFile(file)
         if (!text) {
             throw new ParseException(
                     "Could not identify file '${file.absolutePath}' as a Roddy configuration file." as String, 0)
         }
 
-        NodeChild xml
+        PreloadedConfigurationIndex.Record record
         try {
-            xml = (NodeChild) new XmlSlurper().parseText(text)
-        } catch (SAXParseException ex) {
+            record = PreloadedConfigurationReader.read(text)
+        } catch (XMLStreamException ex) {
             throw new ConfigurationLoaderException(
-                    "Project configuration file ${file} could not be loaded, see message(s) above.");
+                    "Project configuration file ${file} could not be loaded: ${ex.message}")
+        }
+        if (preloadedConfigurationIndex != null)
+            preloadedConfigurationIndex.put(file, md5, record)
+        return _preloadConfiguration(file, record, null, source)
+    }
+
+    private static ConfigurationNode parseConfigurationText(File file, String text) {
+        try {
+            return ConfigurationNodeReader.read(text)
+        } catch (XMLStreamException ex) {
+            throw new ConfigurationLoaderException(
+                    "Project configuration file ${file} could not be loaded: ${ex.message}")
         }
-        return _preloadConfiguration(file, text, xml, null)
     }
 
     /**
-     * Loads a basic / informational part of each available configurationNode file.
-     * Recursive helper method.
-     * @param configurationNode
-     * @return
+     * Creates the preloaded configuration and its subconfigurations from a record. The configuration node is only
+     * loaded from the source (or for subconfigurations from the parent), when the configuration is loaded.
      */
-    @CompileStatic(TypeCheckingMode.SKIP)
     private PreloadedConfiguration _preloadConfiguration(File file,
-                                                         String text,
-                                                         NodeChild configurationNode,
-                                                         PreloadedConfiguration parent) {
-        NodeChild.metaClass.extract = { String id, String defaultValue ->
-            extractAttributeText((NodeChild) delegate, id, defaultValue)
-        }
+                                                         PreloadedConfigurationIndex.Record record,
+                                                         PreloadedConfiguration parent,
+                                                         Closure<ConfigurationNode> source) {
         List<PreloadedConfiguration> subConf = []
-        PreloadedConfiguration icc
-
-        ConfigurationType type = extractAttributeText(
-                configurationNode,
-                "configurationType",
-                parent != null
-                        ? parent.type.name().toUpperCase()
-                        : ConfigurationType.OTHER.name()).toUpperCase() as ConfigurationType
-        String cls = extractAttributeText(configurationNode, "class", Project.class.name)
-        String name = extractAttributeText(configurationNode, "name")
-        String description = extractAttributeText(configurationNode, "description")
-        String imports = extractAttributeText(configurationNode, "imports")
-
-        if (type == ConfigurationType.PROJECT) {
-            List<String> analyses = []
-
-            NodeChildren san = configurationNode.availableAnalyses
-            if (!Boolean.parseBoolean(extractAttributeText(
-                    configurationNode,
-                    XMLTAG_ATTRIBUTE_INHERITANALYSES, FALSE))) {
-                analyses = _loadPreloadedConfigurationAnalyses(san)
-            } else {
-                analyses = parent.getListOfAnalyses()
-            }
-            ResourceSetSize setSize = ResourceSetSize.valueOf(
-                    extractAttributeText(configurationNode, "usedresourcessize", "l"))
-            icc = new PreloadedConfiguration(
-                    parent, type, name, description, cls, configurationNode, imports, setSize,
-                    analyses, subConf, file, text)
-        } else {
-            icc = new PreloadedConfiguration(
-                    parent, type, name, description, cls, configurationNode, imports,
-                    subConf, file, text)
-        }
+        ConfigurationType type = ConfigurationType.valueOf(record.type)
+        ResourceSetSize setSize = record.usedresourcessize != null ? ResourceSetSize.valueOf(record.usedresourcessize) : null
 
-        for (subConfiguration in configurationNode.subconfigurations.configuration) {
-            subConf << _preloadConfiguration(file, text, subConfiguration as NodeChild, icc)
+        PreloadedConfiguration icc = new PreloadedConfiguration(
+                parent, type, record.name, record.description, record.className, record.imports, setSize,
+                record.analyses, subConf, file, source)
+
+        for (PreloadedConfigurationIndex.Record subRecord : record.subRecords) {
+            subConf << _preloadConfiguration(file, subRecord, icc, null)
         }
 
         return icc
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    private List<String> _loadPreloadedConfigurationAnalyses(NodeChildren analyses) {
-        List<String> listOfanalyses = []
-        for (analysis in analyses.analysis) {
-            String id = analysis.@id.text()
-            String configuration = analysis.@configuration.text()
-            String useplugin = extractAttributeText(analysis, "useplugin", "")
-            String killswitches = extractAttributeText(analysis, "killswitches", "")
-            String idStr = "${id}::${configuration}::useplugin=${useplugin}::killswitches=${killswitches}".toString()
-
-            listOfanalyses << idStr
-        }
-        return listOfanalyses
-    }
-
     Configuration getConfiguration(String usedConfiguration) {
         PreloadedConfiguration icc = availableConfigurations[usedConfiguration]
 
@@ -449,7 +499,7 @@ class ConfigurationFactory {
      */
     private Configuration _loadConfiguration(PreloadedConfiguration icc) {
         Configuration parentConfig = icc.parent != null ? loadConfiguration(icc.parent) : null
-        NodeChild configurationNode = icc.configurationNode
+        ConfigurationNode configurationNode = icc.configurationNode
         Configuration config = null
 
         //If the configurationNode is a project or a variant then it is allowed to import analysis configurations.
@@ -501,13 +551,12 @@ class ConfigurationFactory {
      * Create a configuration object which depends on the information taken out of the configuration xml file.
      *
      * @param icc The informational object for a configuration (file)
-     * @param configurationNode The xml node read in by an xml slurper
+     * @param configurationNode The root node of the configuration
      * @param parentConfig A (optionally) available parent configuration.
      * @return A new configuration object
      */
-    @CompileStatic(TypeCheckingMode.SKIP)
     private Configuration createConfigurationObject(PreloadedConfiguration icc,
-                                                    NodeChild configurationNode,
+                                                    ConfigurationNode configurationNode,
                                                     Configuration parentConfig) {
         Configuration config
         if (icc.type >= ConfigurationType.PROJECT) {
@@ -517,7 +566,7 @@ class ConfigurationFactory {
             boolean inheritAnalyses = Boolean.parseBoolean(extractAttributeText(
                     configurationNode, XMLTAG_ATTRIBUTE_INHERITANALYSES, "false"))
             if (!inheritAnalyses) {
-                availableAnalyses.putAll(_loadAnalyses(configurationNode.availableAnalyses as NodeChildren))
+                availableAnalyses.putAll(_loadAnalyses(configurationNode.children("availableAnalyses")))
             } else {
                 if (parentConfig instanceof ProjectConfiguration) {
                     ProjectConfiguration pcParent = (ProjectConfiguration) parentConfig
@@ -566,65 +615,60 @@ class ConfigurationFactory {
         return config
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    private void readValueBundles(NodeChild configurationNode, Configuration config) {
+    private void readValueBundles(ConfigurationNode configurationNode, Configuration config) {
         Map<String, ConfigurationValueBundle> cvBundles = config.getConfigurationValueBundles().getMap()
 
-        for (NodeChild cbundle in configurationNode.configurationvalues.configurationValueBundle) {
+        for (ConfigurationNode cbundle in configurationNode.children("configurationvalues", "configurationValueBundle")) {
             Map<String, ConfigurationValue> bundleValues = new LinkedHashMap<String, ConfigurationValue>()
-            for (cvalue in cbundle.cvalue) {
-                ConfigurationValue _cvalue = readConfigurationValue(cvalue as NodeChild, config)
+            for (ConfigurationNode cvalue in cbundle.children("cvalue")) {
+                ConfigurationValue _cvalue = readConfigurationValue(cvalue, config)
                 bundleValues[_cvalue.id] = _cvalue
             }
-            String cBundleID = cbundle.@name.text() as String
+            String cBundleID = cbundle.attribute("name")
             cvBundles[cBundleID] = new ConfigurationValueBundle(cBundleID, bundleValues)
         }
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    private static Map<String, FilenamePattern> readFilenamePatterns(NodeChild configurationNode) {
+    private static Map<String, FilenamePattern> readFilenamePatterns(ConfigurationNode configurationNode) {
         Map<String, FilenamePattern> filenamePatterns = [:]
 
-        for (NodeChild filenames in configurationNode.filenames) {
+        for (ConfigurationNode filenames in configurationNode.children("filenames")) {
             String pkg = extractAttributeText(filenames, "package", SyntheticPluginInfo.SYNTHETIC_PACKAGE)
             String filestagesbase = extractAttributeText(filenames, "filestagesbase", null)
 
-            for (NodeChild filename in filenames.filename) {
+            for (ConfigurationNode filename in filenames.children("filename")) {
                 try {
                     FilenamePattern fp = null
-                    if (filename.attributes().get("derivedFrom") != null) {
+                    if (filename.hasAttribute("derivedFrom")) {
                         fp = readDerivedFromFilenamePattern(pkg, filename)
-                    } else if (filename.attributes().get("fileStage") != null) {
+                    } else if (filename.hasAttribute("fileStage")) {
                         fp = readFileStageFilenamePattern(pkg, filestagesbase, filename)
-                    } else if (filename.attributes().get("onTool") != null) {
+                    } else if (filename.hasAttribute("onTool")) {
                         fp = readOnToolFilenamePattern(pkg, filename)
-                    } else if (filename.attributes().get("onMethod") != null) {
+                    } else if (filename.hasAttribute("onMethod")) {
                         fp = readOnMethodFilenamePattern(pkg, filename)
-                    } else if (filename.attributes().get("onScriptParameter") != null) {
+                    } else if (filename.hasAttribute("onScriptParameter")) {
                         fp = readOnScriptParameterFilenamePattern(pkg, filename)
                     }
                     if (fp == null) {
                         throw new RuntimeException("filename pattern is not valid: ")
                     }
                     if (filenamePatterns.containsKey(fp.getID())) {
-                        logger.severe("Duplicate filename pattern: " +
-                                (new StreamingMarkupBuilder().bindNode(filename) as String))
+                        logger.severe("Duplicate filename pattern: " + filename.toXML())
                     }
                     filenamePatterns.put(fp.getID(), fp)
                 } catch (Exception ex) {
-                    logger.severe("Warning during filename pattern processing: ${ex.message}: " +
-                            (new StreamingMarkupBuilder().bindNode(filename) as String))
+                    logger.severe("Warning during filename pattern processing: ${ex.message}: " + filename.toXML())
                 }
             }
         }
         return filenamePatterns
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    static FilenamePattern readDerivedFromFilenamePattern(String pkg, NodeChild filename) {
-        String classSimpleName = filename.@class.text()
-        String fnDerivedFrom = filename.@derivedFrom.text()
-        String pattern = filename.@pattern.text()
+    static FilenamePattern readDerivedFromFilenamePattern(String pkg, ConfigurationNode filename) {
+        String classSimpleName = filename.attribute("class")
+        String fnDerivedFrom = filename.attribute("derivedFrom")
+        String pattern = filename.attribute("pattern")
         String selectionTag = extractSelectionTag(filename)
 
         Tuple3<Class, Boolean, Integer> parentClassResult = loadPatternClass(pkg, fnDerivedFrom)
@@ -689,12 +733,11 @@ class ConfigurationFactory {
         }
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    static FilenamePattern readOnMethodFilenamePattern(String pkg, NodeChild filename) {
-        String methodName = filename.@onMethod.text()
-        String pattern = filename.@pattern.text()
+    static FilenamePattern readOnMethodFilenamePattern(String pkg, ConfigurationNode filename) {
+        String methodName = filename.attribute("onMethod")
+        String pattern = filename.attribute("pattern")
         String selectionTag = extractSelectionTag(filename)
-        Class<FileObject> _cls = loadPatternClass(pkg, filename.@class.text(), BaseFile).x
+        Class _cls = loadPatternClass(pkg, filename.attribute("class"), BaseFile).x
         Class<FileObject> calledClass = _cls
         if (methodName.contains(".")) { // Different class as source class!
             String[] stuff = methodName.split(SPLIT_STOP)
@@ -707,17 +750,16 @@ class ConfigurationFactory {
                         "Could not find class for onMethod matching: '${e.message}", null as String, e)
             }
         }
-        Method method = lastMethodOfName(calledClass, methodName).orElseThrow {
-                    new ConfigurationError("Found class '${calledClass.getCanonicalName()}' matching on method " +
-                            "pattern, but it does not have requested method '$methodName'", null as String)
-        }
-        new OnMethodFilenamePattern(_cls, calledClass, method, pattern, selectionTag)
+        Optional<Method> method = lastMethodOfName(calledClass, methodName)
+        if (!method.isPresent())
+            throw new ConfigurationError("Found class '${calledClass.getCanonicalName()}' matching on method " +
+                    "pattern, but it does not have requested method '$methodName'", null as String)
+        return new OnMethodFilenamePattern(_cls, calledClass, method.get(), pattern, selectionTag)
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    static FilenamePattern readOnScriptParameterFilenamePattern(String pkg, NodeChild filename) {
-        String scriptParameter = filename.@onScriptParameter.text()
-        String pattern = filename.@pattern.text()
+    static FilenamePattern readOnScriptParameterFilenamePattern(String pkg, ConfigurationNode filename) {
+        String scriptParameter = filename.attribute("onScriptParameter")
+        String pattern = filename.attribute("pattern")
         String selectionTag = extractSelectionTag(filename)
         String toolName, parameterName
         String[] splitResult = scriptParameter.trim().split(":")
@@ -739,31 +781,28 @@ class ConfigurationFactory {
         } else {
             throw new RuntimeException("Too many colons: ${scriptParameter}")
         }
-        if (filename.@class == "") {
-            throw new RuntimeException("Missing 'class' attribute for onScriptParameter in: " +
-                    groovy.xml.XmlUtil.serialize(filename))
+        if (!filename.attribute("class")) {
+            throw new RuntimeException("Missing 'class' attribute for onScriptParameter in: " + filename.toXML())
         }
-        Class<FileObject> _cls = loadPatternClass(pkg, filename.@class.text(), BaseFile).x
+        Class _cls = loadPatternClass(pkg, filename.attribute("class"), BaseFile).x
 
         FilenamePattern fp = new OnScriptParameterFilenamePattern(_cls, toolName, parameterName, pattern, selectionTag)
         return fp
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    static FilenamePattern readOnToolFilenamePattern(String pkg, NodeChild filename) {
-        Class<FileObject> _cls = loadPatternClass(pkg, filename.@class.text(), BaseFile).x
-        String scriptName = filename.@onTool.text()
-        String pattern = filename.@pattern.text()
+    static FilenamePattern readOnToolFilenamePattern(String pkg, ConfigurationNode filename) {
+        Class _cls = loadPatternClass(pkg, filename.attribute("class"), BaseFile).x
+        String scriptName = filename.attribute("onTool")
+        String pattern = filename.attribute("pattern")
         String selectionTag = extractSelectionTag(filename)
         FilenamePattern fp = new OnToolFilenamePattern(_cls, scriptName, pattern, selectionTag)
         return fp
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    static FilenamePattern readFileStageFilenamePattern(String pkg, String filestagesbase, NodeChild filename) {
-        Class<FileObject> _cls = loadPatternClass(pkg, filename.@class.text(), BaseFile).x
-        String fileStage = filename.@fileStage.text()
-        String pattern = filename.@pattern.text()
+    static FilenamePattern readFileStageFilenamePattern(String pkg, String filestagesbase, ConfigurationNode filename) {
+        Class _cls = loadPatternClass(pkg, filename.attribute("class"), BaseFile).x
+        String fileStage = filename.attribute("fileStage")
+        String pattern = filename.attribute("pattern")
         String selectionTag = extractSelectionTag(filename)
         FileStage fs = null
 
@@ -792,32 +831,23 @@ class ConfigurationFactory {
                 throw new RuntimeException("A filestage must be either a new object or a static field of a class.")
             fs = (FileStage) f.get(null)
         } else {
-            fs = LibrariesFactory.getInstance().loadClass(filestagesbase + "." + fileStage)
+            fs = (FileStage) LibrariesFactory.getInstance().loadClass(filestagesbase + "." + fileStage).newInstance()
         }
 
         FilenamePattern fp = new FileStageFilenamePattern(_cls, fs, pattern, selectionTag)
         return fp
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    boolean readProcessingTools(NodeChild configurationNode, Configuration config) {
+    boolean readProcessingTools(ConfigurationNode configurationNode, Configuration config) {
         Map<String, ToolEntry> toolEntries = config.getTools().getMap()
         boolean hasErrors = false
-        for (NodeChild tool in configurationNode.processingTools.tool) {
-            String toolID = tool.@name.text()
+        for (ConfigurationNode tool in configurationNode.children("processingTools", "tool")) {
+            String toolID = tool.attribute("name")
             logger.postRareInfo("Processing tool ${toolID}")
-            def toolReader = new ProcessingToolReader(tool, config)
-            def toolEntry = toolReader.readProcessingTool()
+            ProcessingToolReader toolReader = new ProcessingToolReader(tool, config)
+            ToolEntry toolEntry = toolReader.readProcessingTool()
             if (toolReader.hasErrors()) {
-                String xml
-                try {
-                    xml = ERROR_PRINTOUT_XML_LINEPREFIX + XmlUtil.serialize(new StreamingMarkupBuilder().bind { it ->
-                        it.faulty tool
-                    }.toString()).readLines()[1..-2].join("\n" + ERROR_PRINTOUT_XML_LINEPREFIX)
-
-                } catch (Exception ex) {
-                    xml = "Cannot display xml code for tool node."
-                }
+                String xml = ERROR_PRINTOUT_XML_LINEPREFIX + tool.toXMLLines().join("\n" + ERROR_PRINTOUT_XML_LINEPREFIX)
                 config.addLoadError(new ConfigurationLoadError(
                         config,
                         "ConfigurationFactory - " +
@@ -832,21 +862,19 @@ class ConfigurationFactory {
         return !hasErrors
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    private void readEnums(Configuration config, NodeChild configurationNode) {
+    private void readEnums(Configuration config, ConfigurationNode configurationNode) {
 
         Map<String, Enumeration> enumerations = config.getEnumerations().getMap()
 
-        for (enumeration in configurationNode.enumerations.enum) {
-            String eName = enumeration.@name.text()
-            enumeration.attributes().get("description")
+        for (ConfigurationNode enumeration in configurationNode.children("enumerations", "enum")) {
+            String eName = enumeration.attribute("name")
             String eDescription = extractAttributeText(enumeration, "description")
             String extendStr = extractAttributeText(enumeration, "extends")
             //TODO Enumeration extend
             List<EnumerationValue> values = []
-            for (value in enumeration.value) {
-                String vID = value.@id.text()
-                String valueTag = value.@valueTag.text()
+            for (ConfigurationNode value in enumeration.children("value")) {
+                String vID = value.attribute("id")
+                String valueTag = value.attribute("valueTag")
                 String vDescription = extractAttributeText(value, "description")
                 values << new EnumerationValue(vID, vDescription, valueTag)
             }
@@ -859,25 +887,29 @@ class ConfigurationFactory {
                 config.getEnumerations().add(e)
             }
         } catch (NullPointerException ex) {
-            logger.severe("Configuration ${icc.id} null pointer")
+            logger.severe("Configuration ${config.getID()} null pointer")
         }
     }
 
-    @CompileStatic(TypeCheckingMode.SKIP)
-    private Map<String, AnalysisConfiguration> _loadAnalyses(NodeChildren nAnalyses,
+    /**
+     * @param analysesNodes The availableAnalyses or subanalyses nodes, which contain the analysis nodes.
+     */
+    private Map<String, AnalysisConfiguration> _loadAnalyses(List<ConfigurationNode> analysesNodes,
                                                              AnalysisConfiguration parentConfiguration = null) {
         Map<String, AnalysisConfiguration> availableAnalyses = [:]
-        for (NodeChild analysis in nAnalyses.analysis) {
-            String analysisID = extractAttributeText((NodeChild) analysis, "id")
-            String analysisCfg = extractAttributeText((NodeChild) analysis, "configuration")
-            String usePluginAttribute = extractAttributeText((NodeChild) analysis, "useplugin")
-            String killSwitchesAttribute = extractAttributeText((NodeChild) analysis, "killswitches")
-            AnalysisConfiguration ac = new AnalysisConfigurationProxy(parentConfiguration, analysisID, analysisCfg, usePluginAttribute, killSwitchesAttribute, analysis)
-            availableAnalyses[analysisID] = ac
-
-            _loadAnalyses(analysis.subanalyses, ac).each {
-                String k, AnalysisConfiguration subConfig ->
-                    availableAnalyses[analysisID + "-" + k] = subConfig
+        for (ConfigurationNode analysesNode in analysesNodes) {
+            for (ConfigurationNode analysis in analysesNode.children("analysis")) {
+                String analysisID = extractAttributeText(analysis, "id")
+                String analysisCfg = extractAttributeText(analysis, "configuration")
+                String usePluginAttribute = extractAttributeText(analysis, "useplugin")
+                String killSwitchesAttribute = extractAttributeText(analysis, "killswitches")
+                AnalysisConfiguration ac = new AnalysisConfigurationProxy(parentConfiguration, analysisID, analysisCfg, usePluginAttribute, killSwitchesAttribute, analysis)
+                availableAnalyses[analysisID] = ac
+
+                _loadAnalyses(analysis.children("subanalyses"), ac).each {
+                    String k, AnalysisConfiguration subConfig ->
+                        availableAnalyses[analysisID + "-" + k] = subConfig
+                }
             }
         }
         return availableAnalyses
@@ -895,7 +927,7 @@ class ConfigurationFactory {
 
         // See if there are configurationvalues for the projects analysis entry which override the analysis
         // configuration values.
-        NodeChild analysis = proxy.getAnalysisNode()
+        ConfigurationNode analysis = proxy.getAnalysisNode()
         readConfigurationValues(analysis, ac)
         return ac
     }
@@ -905,10 +937,9 @@ class ConfigurationFactory {
      * @param configurationNode
      * @param config
      */
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    void readConfigurationValues(NodeChild configurationNode, Configuration config) {
+    void readConfigurationValues(ConfigurationNode configurationNode, Configuration config) {
         Map<String, ConfigurationValue> configurationValues = config.getConfigurationValues().getMap()
-        for (NodeChild cvalueNode in configurationNode.configurationvalues.cvalue) {
+        for (ConfigurationNode cvalueNode in configurationNode.children("configurationvalues", "cvalue")) {
             //TODO Code deduplication! Also in readCVBundle.
             ConfigurationValue cvalue = readConfigurationValue(cvalueNode, config)
             if (!Roddy.getCommandLineCall().isOptionSet(RoddyStartupOptions.ignoreCValueDuplicates) &&
@@ -924,11 +955,11 @@ class ConfigurationFactory {
         }
     }
 
-    static void addFormattedErrorToConfig(String message, String id, NodeChild child, Configuration config) {
+    static void addFormattedErrorToConfig(String message, String id, ConfigurationNode child, Configuration config) {
         config.addLoadError(new ConfigurationLoadError(
                 config,
                 id,
-                message + ([""] + RoddyConversionHelperMethods.toFormattedXML(child)).
+                message + ([""] + (child != null ? child.toXMLLines() : [] as List<String>)).
                         join("\n" + ERROR_PRINTOUT_XML_LINEPREFIX),
                 null))
     }
@@ -938,19 +969,18 @@ class ConfigurationFactory {
      * @param configurationNode
      * @param config
      */
-    @CompileStatic(TypeCheckingMode.SKIP)
-    private ConfigurationValue readConfigurationValue(NodeChild cvalueNode, Configuration config) {
-        String key = cvalueNode.@name.text()
-        String value = cvalueNode.@value.text()
+    private ConfigurationValue readConfigurationValue(ConfigurationNode cvalueNode, Configuration config) {
+        String key = cvalueNode.attribute("name")
+        String value = cvalueNode.attribute("value")
         String type = extractAttributeText(cvalueNode, "type", CVALUE_TYPE_STRING)
-        List<String> tags = extractAttributeText(cvalueNode, "tags", null)?.split(StringConstants.COMMA)
+        List<String> tags = extractAttributeText(cvalueNode, "tags", null)?.split(StringConstants.COMMA)?.toList()
 
-        if (!cvalueNode.attributes().containsKey("name"))
+        if (!cvalueNode.hasAttribute("name"))
             addFormattedErrorToConfig(
                     "The key attribute must be set for a cvalue entry.", "cvalues",
                     cvalueNode,
                     config)
-        if (!cvalueNode.attributes().containsKey("value"))
+        if (!cvalueNode.hasAttribute("value"))
             addFormattedErrorToConfig(
                     "The value attribute must be set for a cvalue entry.", "cvalues",
                     cvalueNode,
@@ -966,19 +996,11 @@ class ConfigurationFactory {
     }
 
 
-    static String extractAttributeText(NodeChild node, String id, String defaultText = "") {
-        try {
-            if (node.attributes().get(id) != null) {
-                return node.attributes().get(id).toString()
-            }
-        } catch (Exception ex) {
-            logger.severe("" + ex)
-            throw new ConfigurationLoadError(null, id, "Attribute '${id}' not defined in node ${node.name()}", ex)
-        }
-        return defaultText
+    static String extractAttributeText(ConfigurationNode node, String id, String defaultText = "") {
+        return node.attribute(id, defaultText)
     }
 
-    static String extractSelectionTag(NodeChild node) {
+    static String extractSelectionTag(ConfigurationNode node) {
         extractAttributeText(node, "selectionTag",
                 extractAttributeText(node, "selectiontag",
                         extractAttributeText(node, "fnpatternselectiontag",
@@ -986,14 +1008,6 @@ class ConfigurationFactory {
     }
 
 
-    static String extractAttributeText(NodeChildren nodeChildren, String id, String defaultText = "") {
-        String name = nodeChildren.name()
-        Object o = nodeChildren.parent().children().find { NodeChild child -> child.name() == name }
-        if (o instanceof NodeChild)
-            return extractAttributeText((NodeChild) o, id, defaultText)
-        return defaultText
-    }
-
     ProjectConfiguration getProjectConfiguration(String s) {
         return getConfiguration(s) as ProjectConfiguration
     }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.loader
+
+import de.dkfz.roddy.Constants
+import de.dkfz.roddy.FeatureToggles
+import de.dkfz.roddy.Roddy
+import de.dkfz.roddy.tools.AtomicFiles
+import de.dkfz.roddy.tools.LoggerWrapper
+import groovy.transform.CompileStatic
+
+import java.security.MessageDigest
+
+/**
+ * A local cache for the results of the preprocessing steps of configuration files, which Roddy would otherwise repeat
+ * in every call:
+ *
+ * - the XML text of configuration files that are converted from other formats (e.g. Bash)
+ * - the parsed configuration nodes of configuration files
+ * - successful XSD validations of configuration files
+ *
+ * The entries are files named by the MD5 of all inputs (path and content of the configuration file, and the schema
+ * for validations). Changed inputs therefore just lead to new entries. The cache directory is specific to the Roddy
+ * version, because the converters, the parser and the schemas belong to it. Plugin versions do not change these
+ * results, so they are not part of the keys. Entries are written to temporary files and moved into place, so
+ * concurrent Roddy calls never read incomplete entries.
+ *
+ * Used entries are touched. When more than maxEntries entries exist after a write, the least recently used entries
+ * are deleted.
+ */
+@CompileStatic
+class ConfigurationFileCache {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(ConfigurationFileCache.class.simpleName)
+
+    static final int MAXIMUM_ENTRIES = 1000
+
+    private static ConfigurationFileCache instance
+
+    private final File directory
+
+    private final int maxEntries
+
+    ConfigurationFileCache(File directory, int maxEntries = MAXIMUM_ENTRIES) {
+        this.directory = directory
+        this.maxEntries = maxEntries
+    }
+
+    static boolean isEnabled() {
+        return Roddy.getFeatureToggleValue(FeatureToggles.UseConfigurationFileCache)
+    }
+
+    static synchronized ConfigurationFileCache getInstance() {
+        if (instance == null)
+            instance = new ConfigurationFileCache(new File(new File(new File(Roddy.getSettingsDirectory(), "caches"),
+                    "configurations"), Constants.APP_CURRENT_VERSION_STRING))
+        return instance
+    }
+
+    private static String md5(String... parts) {
+        MessageDigest digest = MessageDigest.getInstance("MD5")
+        for (String part : parts) {
+            digest.update(part.getBytes("UTF-8"))
+            digest.update((byte) 0)
+        }
+        return digest.digest().encodeHex().toString()
+    }
+
+    /**
+     * Get the converted XML text of a configuration file. The converter is only called, if the file (path and
+     * content) was not converted before.
+     */
+    String getConvertedText(File file, Closure<String> converter) {
+        File entry = new File(directory, md5(file.absolutePath, file.getText("UTF-8")) + ".xml")
+        if (entry.isFile()) {
+            try {
+                String text = entry.getText("UTF-8")
+                touch(entry)
+                return text
+            } catch (IOException ex) {
+                logger.warning("Could not read cached conversion of '${file}': ${ex.message}")
+            }
+        }
+        String text = converter.call()
+        if (text)
+            write(entry, text.getBytes("UTF-8"))
+        return text
+    }
+
+    /**
+     * Get the parsed configuration node of a configuration file. The parser is only called, if the file (path and
+     * content) was not parsed before.
+     *
+     * @param contentMD5 The MD5 of the content of the file, see PreloadedConfigurationIndex.getContentMD5()
+     */
+    ConfigurationNode getNode(File file, String contentMD5, Closure<ConfigurationNode> parser) {
+        File entry = new File(directory, md5(file.absolutePath, contentMD5) + ".node")
+        if (entry.isFile()) {
+            try {
+                ConfigurationNode node = entry.withDataInputStream { DataInputStream input ->
+                    ConfigurationNode.read(input)
+                }
+                touch(entry)
+                return node
+            } catch (IOException ex) {
+                logger.warning("Could not read cached configuration node of '${file}': ${ex.message}")
+            }
+        }
+        ConfigurationNode node = parser.call()
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+        DataOutputStream output = new DataOutputStream(bytes)
+        node.write(output)
+        output.flush()
+        write(entry, bytes.toByteArray())
+        return node
+    }
+
+    /**
+     * @return true, if the configuration file (path and content) was successfully validated against the schema before.
+     */
+    boolean isValidated(File file, String schema) {
+        if (file == null || !file.isFile() || schema == null)
+            return false
+        File entry = getValidationEntry(file, schema)
+        if (!entry.isFile())
+            return false
+        touch(entry)
+        return true
+    }
+
+    void setValidated(File file, String schema) {
+        write(getValidationEntry(file, schema), new byte[0])
+    }
+
+    private File getValidationEntry(File file, String schema) {
+        return new File(directory,
+                md5(file.absolutePath, PreloadedConfigurationIndex.getContentMD5(file), schema) + ".valid")
+    }
+
+    /**
+     * Marks the entry as used, for the least recently used eviction.
+     */
+    private static void touch(File entry) {
+        entry.setLastModified(System.currentTimeMillis())
+    }
+
+    private void write(File entry, byte[] content) {
+        try {
+            AtomicFiles.write(entry, content)
+        } catch (IOException ex) {
+            logger.warning("Could not write configuration cache entry '${entry}': ${ex.message}")
+        }
+        removeOldEntries()
+    }
+
+    /**
+     * Deletes the least recently used entries, if there are more than maxEntries. Other Roddy calls may evict at the
+     * same time, so entries that are already gone are ignored.
+     */
+    private void removeOldEntries() {
+        File[] entries = directory.listFiles({ File f -> !f.name.endsWith(".tmp") } as FileFilter)
+        if (entries == null || entries.length <= maxEntries)
+            return
+        Map<File, Long> lastModified = [:]
+        for (File entry : entries)
+            lastModified[entry] = entry.lastModified()
+        List<File> sorted = entries.toList().sort { File a, File b -> lastModified[a] <=> lastModified[b] }
+        for (File entry : sorted.subList(0, entries.length - maxEntries))
+            entry.delete()
+    }
+}
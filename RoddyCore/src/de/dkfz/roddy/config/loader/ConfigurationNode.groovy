@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.loader
+
+import groovy.transform.CompileStatic
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * An element of a configuration file, as read by the ConfigurationNodeReader: the name, the attributes in document
+ * order, the child elements and the text. Comments, processing instructions and namespaces are not kept.
+ *
+ * The accessors follow the GPath expressions, which the loaders used on XmlSlurper trees before:
+ *
+ * - attribute(id) is node.@id.text(), so missing attributes are returned as "".
+ * - children(name) is node.name, children(name, childName) is node.name.childName.
+ * - text() is node.text(), the text of the element and of all descendants. Like XmlSlurper, text sections that only
+ *   consist of whitespace are dropped.
+ *
+ * Nodes can be written to and read from a compact binary form, which the ConfigurationFileCache uses to store parsed
+ * configuration files.
+ */
+@CompileStatic
+class ConfigurationNode {
+
+    final String name
+
+    private final Map<String, String> attributes
+
+    private final List<ConfigurationNode> children
+
+    private final String ownText
+
+    /**
+     * Texts and children in document order, only for elements with both (which are rare in configuration files).
+     */
+    private final List<Object> mixedContent
+
+    ConfigurationNode(String name, Map<String, String> attributes, List<ConfigurationNode> children, String ownText,
+                      List<Object> mixedContent = null) {
+        this.name = name
+        this.attributes = attributes
+        this.children = children
+        this.ownText = ownText
+        this.mixedContent = mixedContent
+    }
+
+    Map<String, String> getAttributes() {
+        return Collections.unmodifiableMap(attributes)
+    }
+
+    boolean hasAttribute(String id) {
+        return attributes.containsKey(id)
+    }
+
+    /**
+     * @return the value of the attribute or "", if it is not set.
+     */
+    String attribute(String id) {
+        String value = attributes.get(id)
+        return value != null ? value : ""
+    }
+
+    /**
+     * @return the value of the attribute (also if it is empty) or the default text, if it is not set.
+     */
+    String attribute(String id, String defaultText) {
+        return attributes.containsKey(id) ? attributes.get(id) : defaultText
+    }
+
+    List<ConfigurationNode> getChildren() {
+        return Collections.unmodifiableList(children)
+    }
+
+    List<ConfigurationNode> children(String name) {
+        List<ConfigurationNode> result = []
+        for (ConfigurationNode child : children) {
+            if (child.name == name)
+                result << child
+        }
+        return result
+    }
+
+    /**
+     * @return the children named childName of all children named name.
+     */
+    List<ConfigurationNode> children(String name, String childName) {
+        List<ConfigurationNode> result = []
+        for (ConfigurationNode child : children(name))
+            result.addAll(child.children(childName))
+        return result
+    }
+
+    /**
+     * @return the first child with the name or null.
+     */
+    ConfigurationNode child(String name) {
+        for (ConfigurationNode child : children) {
+            if (child.name == name)
+                return child
+        }
+        return null
+    }
+
+    String text() {
+        if (children.isEmpty())
+            return ownText ?: ""
+        StringBuilder builder = new StringBuilder()
+        appendText(builder)
+        return builder.toString()
+    }
+
+    private void appendText(StringBuilder builder) {
+        if (mixedContent != null) {
+            for (Object content : mixedContent) {
+                if (content instanceof ConfigurationNode)
+                    ((ConfigurationNode) content).appendText(builder)
+                else
+                    builder.append((String) content)
+            }
+        } else {
+            if (ownText)
+                builder.append(ownText)
+            for (ConfigurationNode child : children)
+                child.appendText(builder)
+        }
+    }
+
+    /**
+     * The element as indented XML, e.g. for error messages. Text is only shown for elements without children.
+     */
+    List<String> toXMLLines() {
+        List<String> lines = []
+        appendXMLLines(lines, "")
+        return lines
+    }
+
+    String toXML() {
+        return toXMLLines().join("\n")
+    }
+
+    private void appendXMLLines(List<String> lines, String indent) {
+        StringBuilder start = new StringBuilder(indent).append("<").append(name)
+        for (Map.Entry<String, String> attribute : attributes.entrySet())
+            start.append(" ").append(attribute.key).append("=\"").append(escape(attribute.value)).append("\"")
+        if (children.isEmpty() && !ownText) {
+            lines << start.append("/>").toString()
+        } else if (children.isEmpty()) {
+            lines << start.append(">").append(escape(ownText.trim())).append("</").append(name).append(">").toString()
+        } else {
+            lines << start.append(">").toString()
+            for (ConfigurationNode child : children)
+                child.appendXMLLines(lines, indent + "    ")
+            lines << indent + "</" + name + ">"
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;")
+    }
+
+    @Override
+    String toString() {
+        return toXML()
+    }
+
+    private static final int FORMAT_VERSION = 1
+
+    /**
+     * Write the node and its descendants in the binary form, which is read by read(DataInput).
+     */
+    void write(DataOutput output) throws IOException {
+        output.writeInt(FORMAT_VERSION)
+        writeNode(output)
+    }
+
+    private void writeNode(DataOutput output) throws IOException {
+        writeString(output, name)
+        output.writeInt(attributes.size())
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            writeString(output, attribute.key)
+            writeString(output, attribute.value)
+        }
+        writeString(output, ownText)
+        output.writeInt(children.size())
+        for (ConfigurationNode child : children)
+            child.writeNode(output)
+        // Mixed content is stored as a sequence of texts and markers for the next child.
+        output.writeInt(mixedContent != null ? mixedContent.size() : -1)
+        if (mixedContent != null) {
+            for (Object content : mixedContent) {
+                output.writeBoolean(content instanceof String)
+                if (content instanceof String)
+                    writeString(output, (String) content)
+            }
+        }
+    }
+
+    /**
+     * @throws IOException, if the input is not a node written by write(DataOutput) of this Roddy version.
+     */
+    static ConfigurationNode read(DataInput input) throws IOException {
+        int version = input.readInt()
+        if (version != FORMAT_VERSION)
+            throw new IOException("Unknown format version ${version} of a configuration node".toString())
+        return readNode(input)
+    }
+
+    private static ConfigurationNode readNode(DataInput input) throws IOException {
+        String name = readString(input)
+        int attributeCount = readCount(input)
+        Map<String, String> attributes = new LinkedHashMap<String, String>(attributeCount * 2)
+        for (int i = 0; i < attributeCount; i++) {
+            String key = readString(input)
+            attributes[key] = readString(input)
+        }
+        String ownText = readString(input)
+        int childCount = readCount(input)
+        List<ConfigurationNode> children = new ArrayList<ConfigurationNode>(childCount)
+        for (int i = 0; i < childCount; i++)
+            children << readNode(input)
+        List<Object> mixedContent = null
+        int contentCount = input.readInt()
+        if (contentCount >= 0) {
+            mixedContent = new ArrayList<Object>(contentCount)
+            Iterator<ConfigurationNode> nextChild = children.iterator()
+            for (int i = 0; i < contentCount; i++)
+                mixedContent << (input.readBoolean() ? (Object) readString(input) : (Object) nextChild.next())
+        }
+        return new ConfigurationNode(name, attributes, children, ownText, mixedContent)
+    }
+
+    /**
+     * Strings are stored with their length in bytes, because DataOutput.writeUTF() is limited to 64 kB.
+     */
+    private static void writeString(DataOutput output, String text) throws IOException {
+        if (text == null) {
+            output.writeInt(-1)
+            return
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8)
+        output.writeInt(bytes.length)
+        output.write(bytes)
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        int length = input.readInt()
+        if (length < 0)
+            return null
+        byte[] bytes = new byte[length]
+        input.readFully(bytes)
+        return new String(bytes, StandardCharsets.UTF_8)
+    }
+
+    private static int readCount(DataInput input) throws IOException {
+        int count = input.readInt()
+        if (count < 0)
+            throw new IOException("Invalid count ${count} in a configuration node".toString())
+        return count
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.loader
+
+import groovy.transform.CompileStatic
+
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamException
+import javax.xml.stream.XMLStreamReader
+import java.util.function.Supplier
+
+/**
+ * Reads a configuration text into ConfigurationNodes with a streaming StAX parser. Only elements, attributes and text
+ * are kept, so the resulting tree is much smaller than an XmlSlurper tree of the same text, and it is accessed without
+ * dynamic dispatch.
+ */
+@CompileStatic
+class ConfigurationNodeReader {
+
+    private static final List<ConfigurationNode> NO_CHILDREN = Collections.emptyList()
+
+    private static final ThreadLocal<XMLInputFactory> inputFactories = ThreadLocal.withInitial({
+        XMLInputFactory factory = XMLInputFactory.newInstance()
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true)
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false)
+        return factory
+    } as Supplier<XMLInputFactory>)
+
+    /**
+     * @return the root element of the text.
+     * @throws XMLStreamException, if the text is not well-formed XML.
+     */
+    static ConfigurationNode read(String text) throws XMLStreamException {
+        XMLStreamReader reader = inputFactories.get().createXMLStreamReader(new StringReader(text))
+        try {
+            while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                // Skip the prolog.
+            }
+            ConfigurationNode root = readElement(reader)
+            // Read to the end, the document must be well-formed.
+            while (reader.hasNext())
+                reader.next()
+            return root
+        } finally {
+            reader.close()
+        }
+    }
+
+    /**
+     * Reads the element at the current START_ELEMENT. The reader is on its END_ELEMENT afterwards.
+     */
+    private static ConfigurationNode readElement(XMLStreamReader reader) {
+        String name = reader.localName
+        Map<String, String> attributes = new LinkedHashMap<>(reader.attributeCount * 2)
+        for (int i = 0; i < reader.attributeCount; i++)
+            attributes[reader.getAttributeLocalName(i)] = reader.getAttributeValue(i)
+
+        List<ConfigurationNode> children = []
+        List<Object> content = []
+        StringBuilder section = new StringBuilder()
+        int event
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                addSection(content, section)
+                ConfigurationNode child = readElement(reader)
+                children << child
+                content << child
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                section.append(reader.textCharacters, reader.textStart, reader.textLength)
+            }
+        }
+        addSection(content, section)
+
+        String ownText = null
+        if (content.size() > children.size())
+            ownText = content.findAll { it instanceof String }.join("")
+        if (children.isEmpty())
+            return new ConfigurationNode(name, attributes, NO_CHILDREN, ownText)
+        return new ConfigurationNode(name, attributes, children, ownText, ownText != null ? content : null)
+    }
+
+    /**
+     * Keeps the text between two elements, if it does not only consist of whitespace (like XmlSlurper does).
+     */
+    private static void addSection(List<Object> content, StringBuilder section) {
+        if (section.length() == 0)
+            return
+        String text = section.toString()
+        if (text.trim())
+            content << (Object) text
+        section.setLength(0)
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.loader
+
+import de.dkfz.roddy.Constants
+import de.dkfz.roddy.tools.AtomicFiles
+import de.dkfz.roddy.tools.LoggerWrapper
+import groovy.transform.CompileStatic
+
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * An on-disk index of the information that ConfigurationFactory extracts from configuration files on startup (name,
+ * type, imports, analyses and subconfigurations, see PreloadedConfiguration).
+ *
+ * Entries are stored by the absolute path of the configuration file and are only used, if size, modification time
+ * and the MD5 of the file content are unchanged. Then the file does not need to be converted and parsed, until the
+ * configuration is really loaded. The index is written to a temporary file, which is then moved over the index file,
+ * so concurrent Roddy calls always read a complete index. An index of another format or Roddy version is ignored.
+ */
+@CompileStatic
+class PreloadedConfigurationIndex {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(PreloadedConfigurationIndex.class.simpleName)
+
+    static final String INDEX_FILE_NAME = "preloadedConfigurations.idx"
+
+    static final int FORMAT_VERSION = 1
+
+    /**
+     * The information of a (sub)configuration, which is needed to create its PreloadedConfiguration.
+     */
+    static class Record implements Serializable {
+        private static final long serialVersionUID = 1L
+
+        final String type
+        final String name
+        final String description
+        final String className
+        final String imports
+        final String usedresourcessize
+        final ArrayList<String> analyses
+        final ArrayList<Record> subRecords = new ArrayList<Record>()
+
+        Record(String type, String name, String description, String className, String imports,
+               String usedresourcessize, List<String> analyses) {
+            this.type = type
+            this.name = name
+            this.description = description
+            this.className = className
+            this.imports = imports
+            this.usedresourcessize = usedresourcessize
+            this.analyses = analyses != null ? new ArrayList<String>(analyses) : null
+        }
+    }
+
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L
+
+        final long size
+        final long lastModified
+        final String md5
+        final Record record
+
+        Entry(long size, long lastModified, String md5, Record record) {
+            this.size = size
+            this.lastModified = lastModified
+            this.md5 = md5
+            this.record = record
+        }
+    }
+
+    private final File indexFile
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>()
+
+    private volatile boolean modified = false
+
+    private int hits = 0
+
+    private int misses = 0
+
+    PreloadedConfigurationIndex(File indexFile) {
+        this.indexFile = indexFile
+        load()
+    }
+
+    private static String getHeader() {
+        return "${FORMAT_VERSION}:${Constants.APP_CURRENT_VERSION_STRING}".toString()
+    }
+
+    private void load() {
+        if (indexFile == null || !indexFile.isFile())
+            return
+        try {
+            indexFile.withObjectInputStream(PreloadedConfigurationIndex.classLoader) { ObjectInputStream ois ->
+                if (ois.readObject() != header)
+                    return
+                entries.putAll((Map<String, Entry>) ois.readObject())
+            }
+        } catch (Exception ex) {
+            logger.warning("Could not read the index of preloaded configurations '${indexFile}', it will be rebuilt: " +
+                    ex.message)
+            entries.clear()
+        }
+    }
+
+    /**
+     * The MD5 of the file content. It identifies the content of a file together with its size and modification time.
+     */
+    static String getContentMD5(File file) {
+        return MessageDigest.getInstance("MD5").digest(file.bytes).encodeHex().toString()
+    }
+
+    /**
+     * @return The stored record for the file or null, if the file is unknown or was changed.
+     */
+    Record get(File file, String md5) {
+        Entry entry = entries.get(file.absolutePath)
+        boolean valid = entry != null && entry.size == file.length() && entry.lastModified == file.lastModified() &&
+                entry.md5 == md5
+        synchronized (this) {
+            if (valid)
+                hits++
+            else
+                misses++
+        }
+        return valid ? entry.record : null
+    }
+
+    void put(File file, String md5, Record record) {
+        entries.put(file.absolutePath, new Entry(file.length(), file.lastModified(), md5, record))
+        modified = true
+    }
+
+    int getHits() {
+        return hits
+    }
+
+    int getMisses() {
+        return misses
+    }
+
+    /**
+     * Write the index, if entries were added. Entries of files that do not exist anymore are removed. Errors are only
+     * logged, because the index is just a cache.
+     */
+    synchronized void save() {
+        for (String path : new ArrayList<String>(entries.keySet())) {
+            if (!new File(path).isFile()) {
+                entries.remove(path)
+                modified = true
+            }
+        }
+        if (!modified || indexFile == null)
+            return
+        try {
+            AtomicFiles.write(indexFile) { File tempFile ->
+                tempFile.withObjectOutputStream { ObjectOutputStream oos ->
+                    oos.writeObject(header)
+                    oos.writeObject(new HashMap<String, Entry>(entries))
+                }
+            }
+            modified = false
+        } catch (Exception ex) {
+            logger.warning("Could not write the index of preloaded configurations '${indexFile}': ${ex.message}")
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.loader
+
+import de.dkfz.roddy.config.Configuration.ConfigurationType
+import de.dkfz.roddy.config.ResourceSetSize
+import de.dkfz.roddy.core.Project
+import groovy.transform.CompileStatic
+
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamException
+import javax.xml.stream.XMLStreamReader
+import java.util.function.Supplier
+
+import static de.dkfz.roddy.StringConstants.FALSE
+
+/**
+ * Reads the informational part of a configuration (see PreloadedConfigurationIndex.Record) with a streaming StAX
+ * parser. Only the attributes of the configuration elements, their analyses and their subconfigurations are kept, all
+ * other elements (cvalues, processing tools, filename patterns ...) are skipped. So no XML tree is built for the
+ * configurations, which are preloaded on startup but never loaded.
+ *
+ * The read records are the same as the ones ConfigurationFactory extracted from the XmlSlurper tree before.
+ */
+@CompileStatic
+class PreloadedConfigurationReader {
+
+    private static final ThreadLocal<XMLInputFactory> inputFactories = ThreadLocal.withInitial({
+        XMLInputFactory.newInstance()
+    } as Supplier<XMLInputFactory>)
+
+    /**
+     * The parts of a configuration element which are needed for its record.
+     */
+    private static class ConfigurationElement {
+        final Map<String, String> attributes
+        final List<Map<String, String>> analyses = []
+        final List<ConfigurationElement> subConfigurations = []
+
+        ConfigurationElement(Map<String, String> attributes) {
+            this.attributes = attributes
+        }
+
+        String get(String id, String defaultText = "") {
+            return attributes.containsKey(id) ? attributes[id] : defaultText
+        }
+    }
+
+    /**
+     * @throws XMLStreamException, if the text is not well-formed XML.
+     */
+    static PreloadedConfigurationIndex.Record read(String text) throws XMLStreamException {
+        XMLStreamReader reader = inputFactories.get().createXMLStreamReader(new StringReader(text))
+        try {
+            nextElementEvent(reader)
+            ConfigurationElement root = readConfigurationElement(reader)
+            // Read to the end, the document must be well-formed like before.
+            while (reader.hasNext())
+                reader.next()
+            return toRecord(root, null)
+        } finally {
+            reader.close()
+        }
+    }
+
+    private static Map<String, String> readAttributes(XMLStreamReader reader) {
+        Map<String, String> attributes = [:]
+        for (int i = 0; i < reader.attributeCount; i++)
+            attributes[reader.getAttributeLocalName(i)] = reader.getAttributeValue(i)
+        return attributes
+    }
+
+    /**
+     * Reads the element at the current START_ELEMENT. The reader is on its END_ELEMENT afterwards.
+     */
+    private static ConfigurationElement readConfigurationElement(XMLStreamReader reader) {
+        ConfigurationElement element = new ConfigurationElement(readAttributes(reader))
+        while (nextElementEvent(reader) == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.localName
+            if (name == "availableAnalyses") {
+                while (nextElementEvent(reader) == XMLStreamConstants.START_ELEMENT) {
+                    if (reader.localName == "analysis")
+                        element.analyses << readAttributes(reader)
+                    skipElement(reader)
+                }
+            } else if (name == "subconfigurations") {
+                while (nextElementEvent(reader) == XMLStreamConstants.START_ELEMENT) {
+                    if (reader.localName == "configuration")
+                        element.subConfigurations << readConfigurationElement(reader)
+                    else
+                        skipElement(reader)
+                }
+            } else {
+                skipElement(reader)
+            }
+        }
+        return element
+    }
+
+    /**
+     * Moves to the next START_ELEMENT or END_ELEMENT. Other content like text or comments is ignored, XmlSlurper
+     * ignored it for the informational part as well.
+     */
+    private static int nextElementEvent(XMLStreamReader reader) {
+        int event = reader.next()
+        while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT)
+            event = reader.next()
+        return event
+    }
+
+    /**
+     * Skips the element at the current START_ELEMENT including all its content.
+     */
+    private static void skipElement(XMLStreamReader reader) {
+        int depth = 1
+        while (depth > 0) {
+            int event = reader.next()
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--
+        }
+    }
+
+    private static PreloadedConfigurationIndex.Record toRecord(ConfigurationElement element,
+                                                               PreloadedConfigurationIndex.Record parent) {
+        ConfigurationType type = ConfigurationType.valueOf(element.get(
+                "configurationType",
+                parent != null
+                        ? parent.type.toUpperCase()
+                        : ConfigurationType.OTHER.name()).toUpperCase())
+        String cls = element.get("class", Project.class.name)
+        String name = element.get("name")
+        String description = element.get("description")
+        String imports = element.get("imports")
+
+        PreloadedConfigurationIndex.Record record
+        if (type == ConfigurationType.PROJECT) {
+            List<String> analyses = []
+            if (!Boolean.parseBoolean(element.get(ConfigurationFactory.XMLTAG_ATTRIBUTE_INHERITANALYSES, FALSE))) {
+                for (Map<String, String> analysis : element.analyses) {
+                    String id = analysis["id"] ?: ""
+                    String configuration = analysis["configuration"] ?: ""
+                    String useplugin = analysis["useplugin"] ?: ""
+                    String killswitches = analysis["killswitches"] ?: ""
+                    analyses << "${id}::${configuration}::useplugin=${useplugin}::killswitches=${killswitches}".toString()
+                }
+            } else {
+                analyses = parent.analyses
+            }
+            String setSize = ResourceSetSize.valueOf(element.get("usedresourcessize", "l")).name()
+            record = new PreloadedConfigurationIndex.Record(
+                    type.name(), name, description, cls, imports, setSize, analyses)
+        } else {
+            record = new PreloadedConfigurationIndex.Record(
+                    type.name(), name, description, cls, imports, null, null)
+        }
+
+        for (ConfigurationElement subConfiguration : element.subConfigurations) {
+            record.subRecords << toRecord(subConfiguration, record)
+        }
+
+        return record
+    }
+}
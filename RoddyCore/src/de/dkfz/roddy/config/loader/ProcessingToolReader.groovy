@@ -19,12 +19,9 @@ import de.dkfz.roddy.knowledge.files.GenericFileGroup
 import de.dkfz.roddy.plugins.LibrariesFactory
 import de.dkfz.roddy.tools.*
 import groovy.transform.CompileStatic
-import groovy.transform.TypeCheckingMode
-import groovy.util.slurpersupport.NodeChild
-import groovy.util.slurpersupport.NodeChildren
 
 /**
- * Class to load a processing tool entry from a node slurper
+ * Class to load a processing tool entry from a configuration node
  * Created by heinold on 02.05.17.
  */
 @CompileStatic
@@ -32,7 +29,7 @@ class ProcessingToolReader {
 
     static LoggerWrapper logger = LoggerWrapper.getLogger(ProcessingToolReader)
 
-    NodeChild tool
+    ConfigurationNode tool
 
     Configuration config
 
@@ -40,7 +37,7 @@ class ProcessingToolReader {
 
     String toolID
 
-    ProcessingToolReader(NodeChild tool, Configuration config) {
+    ProcessingToolReader(ConfigurationNode tool, Configuration config) {
         this.tool = tool
         this.config = config
     }
@@ -53,9 +50,8 @@ class ProcessingToolReader {
         loadErrors << new ConfigurationLoadError(config, getClass().simpleName + (toolID ? " - tool: ${toolID}" : " - The id of the processed tool could not be read, is the tag toolID set?"), desc, ex)
     }
 
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    String readAttribute(NodeChild node, String id, String _default = null) {
-        String text = node.@"$id".text()
+    String readAttribute(ConfigurationNode node, String id, String _default = null) {
+        String text = node.attribute(id)
         if (text)
             return text
         else if (_default)
@@ -72,24 +68,12 @@ class ProcessingToolReader {
      * @param id
      * @return
      */
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    String readAttributeOrDefault(NodeChild node, String id) {
-        String text = node.@"$id".text()
-        if (text)
-            return text
-        return ""
-    }
-
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    Collection<NodeChild> readCollection(NodeChild node, String id) {
-        def collection = node."$id" as Collection<NodeChild>
-        return collection
+    String readAttributeOrDefault(ConfigurationNode node, String id) {
+        return node.attribute(id)
     }
 
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    Collection<NodeChild> readCollection(NodeChildren node, String id) {
-        def collection = node."$id" as Collection<NodeChild>
-        return collection
+    Collection<ConfigurationNode> readCollection(ConfigurationNode node, String id) {
+        return node.children(id)
     }
 
     /**
@@ -110,7 +94,7 @@ class ProcessingToolReader {
                 currentEntry.setOverridesResourceSets()
             if (useAutoCheckpoint)
                 currentEntry.setUseAutoCheckpoint()
-            int noOfChildren = tool.children().size()
+            int noOfChildren = tool.children.size()
             if (noOfChildren > 0) {
                 List<ToolEntry.ToolParameter> inputParameters = []
                 List<ToolEntry.ToolParameter> outputParameters = []
@@ -118,11 +102,11 @@ class ProcessingToolReader {
                 int noOfInputParameters = 0
                 int noOfOutputParameters = 0
                 boolean allParametersValid = true
-                for (NodeChild child in (tool.children() as List<NodeChild>)) {
-                    String cName = child.name()
+                for (ConfigurationNode child in tool.children) {
+                    String cName = child.name
 
                     if (cName == "resourcesets") {
-                        for (NodeChild rset in readCollection(child, "rset")) {
+                        for (ConfigurationNode rset in readCollection(child, "rset")) {
                             ResourceSet tempSet = parseToolResourceSet(rset, config)
                             if (tempSet)
                                 resourceSets << tempSet
@@ -186,7 +170,7 @@ class ProcessingToolReader {
         }
     }
 
-    ResourceSet parseToolResourceSet(NodeChild rset, Configuration config) {
+    ResourceSet parseToolResourceSet(ConfigurationNode rset, Configuration config) {
         ResourceSet tempSet = null
         try {
             ResourceSetSize rsetSize = readAttribute(rset, "size")
@@ -220,7 +204,7 @@ class ProcessingToolReader {
      * @param child
      * @return
      */
-    ToolEntry.ToolParameter parseToolParameter(NodeChild child, String toolID) {
+    ToolEntry.ToolParameter parseToolParameter(ConfigurationNode child, String toolID) {
         String type = readAttribute(child, 'type')
         if (type == 'file') { // Load a file
             return parseFile(child, toolID)
@@ -246,13 +230,12 @@ class ProcessingToolReader {
         } else {
             addLoadErr("The type attribute of a parameter was invalid (${type}) for tool ${toolID}\n" +
                     ConfigurationFactory.ERROR_PRINTOUT_XML_LINEPREFIX +
-                    RoddyConversionHelperMethods.toFormattedXML(child, "\n" +
-                            ConfigurationFactory.ERROR_PRINTOUT_XML_LINEPREFIX))
+                    child.toXMLLines().join("\n" + ConfigurationFactory.ERROR_PRINTOUT_XML_LINEPREFIX))
             return null
         }
     }
 
-    ToolFileParameter parseFile(NodeChild child, String toolID, ToolFileParameter parent = null) {
+    ToolFileParameter parseFile(ConfigurationNode child, String toolID, ToolFileParameter parent = null) {
         String cls = readAttribute(child, 'typeof')
         Class _cls = LibrariesFactory.instance.loadRealOrSyntheticClass(cls, BaseFile.class.name)
 
@@ -267,7 +250,7 @@ class ProcessingToolReader {
             addLoadErr("Tool file parameter with parent file parameter does not have 'variable' set")
 
         List<ToolEntry.ToolConstraint> constraints = []
-        for (constraint in readCollection(child, 'constraint')) {
+        for (ConfigurationNode constraint in readCollection(child, 'constraint')) {
             String method = readAttribute(constraint, 'method')
             String methodonfail = readAttribute(constraint, 'methodonfail')
             constraints << new ToolEntry.ToolConstraint(_cls.getMethod(methodonfail), _cls.getMethod(method))
@@ -277,7 +260,7 @@ class ProcessingToolReader {
         List<ToolFileParameter> subParameters = []
         ToolFileParameter toolParameter =
                 new ToolFileParameter(_cls, constraints, parameterId, check, selectionTag, subParameters, parentFileVariable)
-        for (NodeChild fileChild in (child.children() as List<NodeChild>)) {
+        for (ConfigurationNode fileChild in child.children) {
             subParameters << (ToolFileParameter) parseFile(fileChild, toolID, toolParameter)
         }
 
@@ -288,24 +271,24 @@ class ProcessingToolReader {
         return toolParameter
     }
 
-    ToolTupleParameter parseTuple(NodeChild child, String toolID) {
-        int tupleSize = child.children().size()
+    ToolTupleParameter parseTuple(ConfigurationNode child, String toolID) {
+        int tupleSize = child.children.size()
         if (!FileObjectTupleFactory.isValidSize(tupleSize)) {
             logger.severe("Tuple is of wrong size for tool ${toolID}.")
         }
         List<ToolEntry.ToolParameterOfFiles> subParameters = []
-        for (NodeChild fileChild in (child.children() as List<NodeChild>)) {
+        for (ConfigurationNode fileChild in child.children) {
             subParameters << (ToolEntry.ToolParameterOfFiles) parseToolParameter(fileChild, toolID)
         }
         return new ToolTupleParameter(subParameters)
     }
 
     @Deprecated
-    boolean isInputFileGroup(NodeChild groupNode) {
-        return groupNode.name() == "input"
+    boolean isInputFileGroup(ConfigurationNode groupNode) {
+        return groupNode.name == "input"
     }
 
-    ToolFileGroupParameter parseFileGroup(NodeChild groupNode, String toolID) {
+    ToolFileGroupParameter parseFileGroup(ConfigurationNode groupNode, String toolID) {
         String cls = extractAttributeText(groupNode, "typeof", GenericFileGroup.name)
         Class<FileGroup> filegroupClass = LibrariesFactory.getInstance().loadRealOrSyntheticClass(cls, FileGroup.class.name) as Class<FileGroup>
         if (!filegroupClass)
@@ -325,7 +308,7 @@ class ProcessingToolReader {
         String selectiontag = extractSelectionTag(groupNode)
 
         String fileclass = extractAttributeText(groupNode, "fileclass", null)
-        int childCount = groupNode.children().size()
+        int childCount = groupNode.children.size()
 
         if (fileclass) {
             // The parameter name is only used if no children are set.
@@ -355,20 +338,20 @@ class ProcessingToolReader {
     }
 
     @Deprecated
-    ToolFileGroupParameter parseChildFilesForFileGroup(NodeChild groupNode,
+    ToolFileGroupParameter parseChildFilesForFileGroup(ConfigurationNode groupNode,
                                                        ToolFileGroupParameter.PassOptions passas,
                                                        String toolID,
                                                        String pName,
                                                        Class filegroupClass,
                                                        ToolFileGroupParameter.IndexOptions indexOptions,
                                                        String selectiontag) {
-        int childCount = groupNode.children().size()
+        int childCount = groupNode.children.size()
         List<ToolFileParameter> children = new LinkedList<ToolFileParameter>()
         if (passas == ToolFileGroupParameter.PassOptions.ARRAY && childCount == 0)
             // A file group that passes an array must have at least one file in the array.
             logger.severe("No files in the file group. Invalid configuration.")
-        for (Object fileChild in groupNode.children()) {
-            children << (parseToolParameter(fileChild as NodeChild, toolID) as ToolFileParameter)
+        for (ConfigurationNode fileChild in groupNode.children) {
+            children << (parseToolParameter(fileChild, toolID) as ToolFileParameter)
         }
         return new ToolFileGroupParameter(filegroupClass, children, pName, passas, indexOptions, selectiontag)
     }
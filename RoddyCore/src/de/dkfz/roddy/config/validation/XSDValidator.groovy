@@ -11,13 +11,17 @@ import de.dkfz.roddy.Roddy
 import de.dkfz.roddy.StringConstants;
 import de.dkfz.roddy.config.Configuration
 import de.dkfz.roddy.config.loader.ConfigurationFactory;
+import de.dkfz.roddy.config.loader.ConfigurationFileCache
 import de.dkfz.roddy.config.PreloadedConfiguration
 import de.dkfz.roddy.tools.RoddyIOHelperMethods
 import org.xml.sax.ErrorHandler
 
 import javax.xml.XMLConstants
 import javax.xml.transform.stream.StreamSource
+import javax.xml.validation.Schema
 import javax.xml.validation.SchemaFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.Function
 
 /**
  * Created by michael on 30.04.15.
@@ -26,7 +30,33 @@ class XSDValidator {
     private static final de.dkfz.roddy.tools.LoggerWrapper logger =
             de.dkfz.roddy.tools.LoggerWrapper.getLogger(XSDValidator.class.getSimpleName())
 
-    private static List<File> alreadyChecked = []
+    private static final Set<File> alreadyChecked = ConcurrentHashMap.newKeySet()
+
+    /**
+     * Texts and compiled schemas by schema file. Schemas are thread-safe and are compiled only once, validators are
+     * created per validation.
+     */
+    private static final Map<File, String> schemaTexts = new ConcurrentHashMap<>()
+
+    private static final Map<File, Schema> schemas = new ConcurrentHashMap<>()
+
+    private static File getSchemaFile(String name) {
+        return RoddyIOHelperMethods.assembleLocalPath(Roddy.getRoddyBinaryFolder(), "xmlvalidation", name)
+    }
+
+    private static String getSchemaText(File schemaFile) {
+        return schemaTexts.computeIfAbsent(schemaFile, { File f -> f.text } as Function<File, String>)
+    }
+
+    private static Schema getSchema(File schemaFile) {
+        return schemas.computeIfAbsent(schemaFile, { File f ->
+            def factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+            factory.setResourceResolver(new ResourceResolver(
+                    RoddyIOHelperMethods.assembleLocalPath(Roddy.getRoddyBinaryFolder(),
+                            "xmlvalidation/").absolutePath))
+            factory.newSchema(new StreamSource(new StringReader(getSchemaText(f))))
+        } as Function<File, Schema>)
+    }
 
     static boolean validateTree(PreloadedConfiguration icc) {
         boolean validated = validate(icc)
@@ -49,33 +79,30 @@ class XSDValidator {
     }
 
     static boolean validate(PreloadedConfiguration icc) {
-        if(alreadyChecked.contains(icc.file))
+        if (!alreadyChecked.add(icc.file))
             return true
         logger.postSometimesInfo("Will validate configuration ${icc.id}.")
-        alreadyChecked << icc.file
-        String xsdString
-        String xmlString
-        xmlString = icc.text
+        File xsdFile
         if (icc.type == Configuration.ConfigurationType.PROJECT) {
-            xsdString = RoddyIOHelperMethods.assembleLocalPath(Roddy.getRoddyBinaryFolder(),
-                    "xmlvalidation", "projectConfigurationValidation.xst").text
+            xsdFile = getSchemaFile("projectConfigurationValidation.xst")
         } else if(icc.type == Configuration.ConfigurationType.ANALYSIS) {
-            xsdString = RoddyIOHelperMethods.assembleLocalPath(Roddy.getRoddyBinaryFolder(),
-                    "xmlvalidation", "analysisConfigurationValidation.xst").text
+            xsdFile = getSchemaFile("analysisConfigurationValidation.xst")
         } else {
-            xsdString = RoddyIOHelperMethods.assembleLocalPath(Roddy.getRoddyBinaryFolder(),
-                    "xmlvalidation", "commonConfigurationValidation.xst").text
+            xsdFile = getSchemaFile("commonConfigurationValidation.xst")
         }
-        String xsdCommonString = RoddyIOHelperMethods.assembleLocalPath(Roddy.getRoddyBinaryFolder(),
-                "xmlvalidation", "commonValidationDefinitions.xst").text
+        String xsdString = getSchemaText(xsdFile)
+        String xsdCommonString = getSchemaText(getSchemaFile("commonValidationDefinitions.xst"))
 
-        def factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
-        factory.setResourceResolver(new ResourceResolver(
-                RoddyIOHelperMethods.assembleLocalPath(Roddy.getRoddyBinaryFolder(),
-                        "xmlvalidation/").absolutePath))
+        // Files that were validated successfully before, are not validated again.
+        String schema = xsdString + xsdCommonString
+        boolean cached = ConfigurationFileCache.enabled && icc.file != null
+        if (cached && ConfigurationFileCache.instance.isValidated(icc.file, schema)) {
+            logger.rare("Configuration ${icc.id} is unchanged since its last successful validation.")
+            return true
+        }
 
-        def list = factory.newSchema(  new StreamSource(new StringReader(xsdString))  )
-                .newValidator().with { validator ->
+        String xmlString = icc.text
+        def list = getSchema(xsdFile).newValidator().with { validator ->
             List exceptions = []
             Closure<Void> handler = { newException -> exceptions << newException }
             errorHandler = [warning: handler, fatalError: handler, error: handler] as ErrorHandler
@@ -83,8 +110,11 @@ class XSDValidator {
             exceptions
         }
 
-        if (!list)
+        if (!list) {
+            if (cached)
+                ConfigurationFileCache.instance.setValidated(icc.file, schema)
             return true
+        }
         logger.postAlwaysInfo("Validated file ${icc.file?.absolutePath} with errors:" )
         list.each {
             logger.postAlwaysInfo(it.toString())
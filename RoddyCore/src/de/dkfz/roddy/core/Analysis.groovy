@@ -7,6 +7,7 @@
 package de.dkfz.roddy.core
 
 import com.google.common.base.Preconditions
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import de.dkfz.roddy.BEException
 import de.dkfz.roddy.Constants
 import de.dkfz.roddy.FeatureToggles
@@ -22,7 +23,13 @@ import de.dkfz.roddy.tools.LoggerWrapper
 import groovy.transform.CompileStatic
 import org.apache.commons.io.filefilter.WildcardFileFilter
 
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
 import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
 
 import static de.dkfz.roddy.config.ConfigurationIssue.ConfigurationIssueTemplate
 import static de.dkfz.roddy.tools.RoddyIOHelperMethods.getStackTraceAsString
@@ -40,6 +47,8 @@ class Analysis {
 
     private static final LoggerWrapper logger = LoggerWrapper.getLogger(Analysis.class.getSimpleName())
 
+    private static final Object outputLock = new Object()
+
     /**
      * An analysis should have a unique name like i.e. whole_genome_processing or exome_analysis
      */
@@ -198,14 +207,13 @@ class Analysis {
      */
     List<ExecutionContext> run(List<String> pidFilters, ExecutionContextLevel level, boolean preventLoggingOnQueryStatus) {
         List<DataSet> selectedDatasets = getRuntimeService().loadDatasetsWithFilter(this, pidFilters)
-        List<ExecutionContext> runs = new LinkedList<>()
 
         long creationCheckPoint = System.nanoTime()
 
-        for (DataSet ds : selectedDatasets) {
+        return processAndReport(selectedDatasets, { DataSet ds ->
             if (level.allowedToSubmitJobs && !canStartJobs(ds)) {
                 logger.postAlwaysInfo("The ${Constants.DATASET_HR} ${ds.id} is still running and will be skipped for the process.")
-                continue
+                return null
             }
 
             ExecutionContext context =
@@ -214,9 +222,8 @@ class Analysis {
                             null, creationCheckPoint)
 
             executeRun(context, preventLoggingOnQueryStatus)
-            runs.add(context)
-        }
-        return runs
+            return context
+        } as Closure<ExecutionContext>)
     }
 
     /**
@@ -228,26 +235,24 @@ class Analysis {
      */
     List<ExecutionContext> rerun(List<ExecutionContext> contexts, boolean test) {
         long creationCheckPoint = System.nanoTime()
-        LinkedList<ExecutionContext> newRunContexts = new LinkedList<>()
-        for (ExecutionContext oldContext : contexts) {
+        return processAndReport(contexts, { ExecutionContext oldContext ->
             DataSet ds = oldContext.dataSet
 
             if (Roddy.getFeatureToggleValue(FeatureToggles.FailOnErroneousDryRuns) && oldContext.hasErrors()) {
                 // Why print out here? Because the oldContext was started with suppressed messages (Default for QUERY_STATUS).
                 // As there are errors, we'll print them here, otherwise we won't see them.
                 printErrorsAndWarnings(oldContext)
-                newRunContexts.add(oldContext)
                 logger.postAlwaysInfo("\nYour tried to start an analysis using rerun or testrerun.\n" +
                         " This is a two step process, where the first step is used to gather information about previous runs." +
                         " However, this first step failed and Roddy will not continue.\n" +
                         " You can use the feature toggle 'FailOnErroneousDryRuns=false' to disable this behaviour.\n" +
                         " You can add it to the feature toggle file in ~/.roddy/featureToggles.ini")
-                continue
+                return oldContext
             }
 
             if (!test && !canStartJobs(ds)) {
                 logger.postAlwaysInfo("The ${Constants.DATASET_HR} ${ds.id} is still running and will be skipped for the process.")
-                continue
+                return null
             }
 
             ExecutionContext context =
@@ -262,9 +267,119 @@ class Analysis {
 
             context.allFilesInRun.addAll(oldContext.allFilesInRun)
             executeRun(context)
-            newRunContexts.add(context)
+            return context
+        } as Closure<ExecutionContext>)
+    }
+
+    /**
+     * Applies the processor to each item and returns the non-null contexts in the order of the items.
+     *
+     * With --parallelContexts=n (n > 1) the items are processed by a bounded pool of n workers. A failure while
+     * processing one item is reported and does not stop the other items. Like in sequential processing, the failure
+     * is then rethrown, after all items were processed; further failures are added to it as suppressed exceptions.
+     * At the end, a throughput summary is printed. Otherwise, the items are processed one after the other, like
+     * before.
+     *
+     * @param items The datasets or (old) contexts to process
+     * @param processor Creates and executes a context for an item or returns null, if the item was skipped.
+     * @return The list of processed contexts
+     */
+    private <T> List<ExecutionContext> processInWorkerPool(List<T> items, Closure<ExecutionContext> processor) {
+        List<ExecutionContext> contexts = new LinkedList<>()
+        int workerCount = Math.min(Roddy.parallelContextCount, items.size())
+
+        if (workerCount <= 1) {
+            for (T item : items) {
+                ExecutionContext context = processor(item)
+                if (context != null)
+                    contexts.add(context)
+            }
+            return contexts
         }
-        return newRunContexts
+
+        // Create the shared analysis configuration, before the workers create their context configurations on top of it.
+        getConfiguration()
+
+        logger.postAlwaysInfo("Processing ${items.size()} ${Constants.DATASET_HR}s with ${workerCount} parallel workers.")
+        long startTime = System.nanoTime()
+        AtomicInteger finishedCount = new AtomicInteger(0)
+        Throwable failure = null
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount,
+                new ThreadFactoryBuilder().setNameFormat("roddy-context-worker-%d").setDaemon(true).build())
+        try {
+            List<Future<ExecutionContext>> futures = new LinkedList<>()
+            for (T loopItem : items) {
+                // The loop variable is shared by all closures, so each worker gets its own copy.
+                T item = loopItem
+                futures.add(workers.submit({
+                    ExecutionContext context = null
+                    try {
+                        context = processor(item)
+                    } catch (Exception e) {
+                        logger.severe("Processing of ${item} failed with an unhandled exception of type " +
+                                "'${e.class.canonicalName}': '${e.message}'" +
+                                Constants.ENV_LINESEPARATOR + getStackTraceAsString(e))
+                        logger.postAlwaysInfo("Failed ${Constants.DATASET_HR} ${item} " +
+                                "(${finishedCount.incrementAndGet()}/${items.size()})")
+                        throw e
+                    }
+                    String dataSetID = context != null ? context.dataSet.id : item.toString()
+                    logger.postAlwaysInfo("Finished ${Constants.DATASET_HR} ${dataSetID} " +
+                            "(${finishedCount.incrementAndGet()}/${items.size()})")
+                    return context
+                } as Callable<ExecutionContext>))
+            }
+            // Collect the results in the order of the items. The failure of the first failed item is rethrown like in
+            // a sequential run, the failures of later items are attached to it.
+            for (Future<ExecutionContext> future : futures) {
+                try {
+                    ExecutionContext context = future.get()
+                    if (context != null)
+                        contexts.add(context)
+                } catch (ExecutionException e) {
+                    if (failure == null)
+                        failure = e.cause
+                    else
+                        failure.addSuppressed(e.cause)
+                }
+            }
+        } finally {
+            workers.shutdownNow()
+        }
+
+        printThroughput(contexts, System.nanoTime() - startTime)
+
+        if (failure != null)
+            throw failure
+        return contexts
+    }
+
+    private void printThroughput(List<ExecutionContext> contexts, long durationNanos) {
+        double minutes = Math.max(durationNanos, 1L) / 60e9d
+        int jobCount = 0
+        for (ExecutionContext context : contexts)
+            jobCount += context.startedJobs.size()
+        logger.postAlwaysInfo(String.format(Locale.ENGLISH,
+                "Processed %d contexts with %d started jobs in %.1f s (%.2f contexts/minute, %.2f jobs/minute).",
+                contexts.size(), jobCount, minutes * 60d, contexts.size() / minutes, jobCount / minutes))
+    }
+
+    /**
+     * Process the items with processInWorkerPool() and report the file status cache statistics at the end of the run,
+     * also for sequential processing and if the processing failed.
+     */
+    private <T> List<ExecutionContext> processAndReport(List<T> items, Closure<ExecutionContext> processor) {
+        try {
+            return processInWorkerPool(items, processor)
+        } finally {
+            printFileStatusCacheStatistics()
+        }
+    }
+
+    private static void printFileStatusCacheStatistics() {
+        FileSystemAccessProvider provider = FileSystemAccessProvider.instance
+        if (provider != null && provider.fileStatusCache.hits + provider.fileStatusCache.misses > 0)
+            logger.postSometimesInfo(provider.fileStatusCache.toString())
     }
 
     private boolean canStartJobs(DataSet ds) {
@@ -452,7 +567,17 @@ class Analysis {
         }
     }
 
+    /**
+     * Prints the messages of the context as one block. The block is guarded, so that the output of concurrently
+     * processed contexts does not interleave.
+     */
     void printErrorsAndWarnings(ExecutionContext context) {
+        synchronized (outputLock) {
+            _printErrorsAndWarnings(context)
+        }
+    }
+
+    private void _printErrorsAndWarnings(ExecutionContext context) {
         boolean printed = printConfigurationErrorsAndWarnings(context)
         printed |= printMessagesForContext(context)
         if (printed)
@@ -520,6 +645,9 @@ class Analysis {
                     // Finally, if execution is allowed, run it and start the submitted jobs (if hold jobs is enabled)
                     if (execute) {
                         successfullyExecuted = context.execute()
+                        // Held jobs must not start before their parameter files are written.
+                        if (successfullyExecuted)
+                            successfullyExecuted = context.jobSubmissionPipeline.finish()
                         if (successfullyExecuted)
                             finallyStartJobsOfContext(context)
                     }
@@ -535,6 +663,7 @@ class Analysis {
                         if (context.executionDirectory.name.contains(ConfigurationConstants.RODDY_EXEC_DIR_PREFIX))
                             FileSystemAccessProvider.instance.removeDirectory(context.executionDirectory)
                     } else {
+                        context.closeJobSubmissionPipeline()
                         if (!successfullyExecuted)
                             maybeAbortStartedJobsOfContext(context)
 
@@ -725,6 +854,7 @@ class Analysis {
                             ExecutionService.instance.writeFilesForExecution(context)
                             cleanupJob.run()
                         } finally {
+                            context.closeJobSubmissionPipeline()
                             ExecutionService.instance.writeAdditionalFilesAfterExecution(context)
                         }
                     }
@@ -744,10 +874,11 @@ class Analysis {
                                         toString())
                     } else {
                         try {
-                            boolean successfullyExecuted = wf.cleanup()
+                            boolean successfullyExecuted = wf.cleanup() && context.jobSubmissionPipeline.finish()
                             if (successfullyExecuted)
                                 finallyStartJobsOfContext(context)
                         } finally {
+                            context.closeJobSubmissionPipeline()
                             ExecutionService.getInstance().writeAdditionalFilesAfterExecution(context)
                         }
                     }
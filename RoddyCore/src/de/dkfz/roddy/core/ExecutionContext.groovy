@@ -80,6 +80,14 @@ class ExecutionContext {
      * Keeps a list of all files which were created with this process.
      */
     protected final List<BaseFile> allFilesInRun = new LinkedList<BaseFile>().asSynchronized()
+    /**
+     * The files in allFilesInRun by their absolute path, in the order in which they got their path. Files without a
+     * path are kept in unresolvedFilesInRun. Both are guarded by allFilesInRun, which is also used to signal that
+     * all files got their path.
+     */
+    private final Map<String, List<BaseFile>> filesInRunByPath = new HashMap<String, List<BaseFile>>()
+    private final Set<BaseFile> unresolvedFilesInRun =
+            Collections.newSetFromMap(new IdentityHashMap<BaseFile, Boolean>())
     /**
      * Keeps a list of all (previously) started jobs which belong to this process.
      */
@@ -157,6 +165,18 @@ class ExecutionContext {
      * The user who created the context (if known)
      */
     private String executingUser = Constants.UNKNOWN_USER
+    /**
+     * Writes the parameter files and job state log lines of the submitted jobs. Created on first use.
+     */
+    private JobSubmissionPipeline jobSubmissionPipeline
+    /**
+     * Writes the job call files while the jobs are submitted. Created on first use.
+     */
+    private JobCallsFileWriter jobCallsFileWriter
+    /**
+     * The configuration layer of this context on top of the analysis configuration. Created on first use.
+     */
+    private volatile Configuration contextConfiguration
 
     ExecutionContext(String userID, Analysis analysis, DataSet dataSet, ExecutionContextLevel executionContextLevel,
                      File outputDirectory, File inputDirectory, File executionDirectory) {
@@ -213,7 +233,9 @@ class ExecutionContext {
         this.executionContextSubLevel = p.executionContextSubLevel
         this.processingFlag = p.processingFlag
         this.executingUser = p.executingUser
-        this.allFilesInRun.addAll(p.getAllFilesInRun())
+        this.contextConfiguration = p.contextConfiguration
+        for (BaseFile file : p.getAllFilesInRun())
+            addFileToRun(file)
         this.jobsForProcess.addAll(p.jobsForProcess)
         this.commandCalls.addAll(p.commandCalls)
         this.errors.addAll(p.errors)
@@ -367,8 +389,22 @@ class ExecutionContext {
         return dataSet
     }
 
+    /**
+     * If contexts are processed in parallel, values set for this context, e.g. the execution directory, are stored in a
+     * layer of its own. So contexts of the same analysis do not see each other's values. Otherwise, the context uses
+     * the configuration of the analysis, like before.
+     */
     Configuration getConfiguration() {
-        return analysis.configuration
+        Configuration configuration = contextConfiguration
+        if (configuration == null) {
+            synchronized (this) {
+                if (contextConfiguration == null)
+                    contextConfiguration = Roddy.parallelContextCount > 1 ?
+                            new ContextConfiguration(analysis.configuration) : analysis.configuration
+                configuration = contextConfiguration
+            }
+        }
+        return configuration
     }
 
     Configuration createJobConfiguration() {
@@ -635,6 +671,34 @@ class ExecutionContext {
                 fileSystemAccessProvider.commandSet.defaultUMask)
     }
 
+    synchronized JobSubmissionPipeline getJobSubmissionPipeline() {
+        if (jobSubmissionPipeline == null)
+            jobSubmissionPipeline = new JobSubmissionPipeline(this)
+        return jobSubmissionPipeline
+    }
+
+    /**
+     * Create the output directories requested for new files, if the file is written into one of them. The directories
+     * are otherwise only created before the next job is submitted.
+     */
+    void createRequestedDirectoriesFor(File file) {
+        JobSubmissionPipeline pipeline
+        synchronized (this) {
+            pipeline = jobSubmissionPipeline
+        }
+        pipeline?.createRequestedDirectoriesFor(file)
+    }
+
+    /**
+     * Write all pending files of the job submission pipeline and stop it. A later submission creates a new pipeline.
+     */
+    synchronized void closeJobSubmissionPipeline() {
+        if (jobSubmissionPipeline != null) {
+            jobSubmissionPipeline.close()
+            jobSubmissionPipeline = null
+        }
+    }
+
     synchronized File getLockFilesDirectory() {
         if (lockFilesDirectory == null)
             lockFilesDirectory = runtimeService.getLockFilesDirectory(this)
@@ -665,16 +729,109 @@ class ExecutionContext {
         new File(executionDirectory, "${job.jobName}_${job.jobCreationCounter}${Constants.PARAMETER_FILE_SUFFIX}")
     }
 
+    /**
+     * The parameter file with the values of the context configuration, which is sourced by the parameter files of the
+     * jobs, if the feature toggle SharedContextParameterFile is enabled.
+     */
+    File getContextParameterFile() {
+        new File(executionDirectory, "executionContext${Constants.PARAMETER_FILE_SUFFIX}")
+    }
+
     void addFile(BaseFile file) {
         if (processingFlag.contains(ProcessingFlag.STORE_FILES)) {
             if (executionContextLevel == ExecutionContextLevel.QUERY_STATUS
                     || executionContextLevel == ExecutionContextLevel.RERUN
                     || executionContextLevel == ExecutionContextLevel.TESTRERUN
                     || executionContextLevel == ExecutionContextLevel.RUN) {
-                synchronized (allFilesInRun) {
-                    this.allFilesInRun.add(file)
-                }
+                addFileToRun(file)
+            }
+        }
+    }
+
+    private void addFileToRun(BaseFile file) {
+        synchronized (allFilesInRun) {
+            this.allFilesInRun.add(file)
+            if (file == null)
+                return
+            if (file.path == null)
+                unresolvedFilesInRun.add(file)
+            else
+                indexFileInRun(file, file.path)
+        }
+    }
+
+    private void indexFileInRun(BaseFile file, File path) {
+        String key = path.absolutePath
+        List<BaseFile> files = filesInRunByPath.get(key)
+        if (files == null) {
+            files = new LinkedList<BaseFile>()
+            filesInRunByPath.put(key, files)
+        }
+        files.add(file)
+    }
+
+    private boolean removeFromIndexOfFilesInRun(BaseFile file, File path) {
+        if (path == null)
+            return unresolvedFilesInRun.remove(file)
+        String key = path.absolutePath
+        List<BaseFile> files = filesInRunByPath.get(key)
+        if (files == null)
+            return false
+        boolean removed = files.removeIf { BaseFile it -> it.is(file) }
+        if (files.isEmpty())
+            filesInRunByPath.remove(key)
+        return removed
+    }
+
+    /**
+     * Called by BaseFile, when the path of a file changed. Files that are not part of the run are ignored.
+     */
+    void filePathChanged(BaseFile file, File oldPath) {
+        synchronized (allFilesInRun) {
+            if (!removeFromIndexOfFilesInRun(file, oldPath))
+                return
+            if (file.path == null) {
+                unresolvedFilesInRun.add(file)
+            } else {
+                indexFileInRun(file, file.path)
+                if (unresolvedFilesInRun.isEmpty())
+                    allFilesInRun.notifyAll()
+            }
+        }
+    }
+
+    /**
+     * @return the first file in the run that got the path or null, if there is no such file.
+     */
+    BaseFile getFileInRun(File path) {
+        synchronized (allFilesInRun) {
+            List<BaseFile> files = filesInRunByPath.get(path.absolutePath)
+            return files ? files.first() : null
+        }
+    }
+
+    List<BaseFile> getUnresolvedFilesInRun() {
+        synchronized (allFilesInRun) {
+            return new LinkedList<BaseFile>(unresolvedFilesInRun)
+        }
+    }
+
+    /**
+     * Wait until all files in the run got their path. Files may get their path concurrently, e.g. via runParallel.
+     *
+     * @return false, if there are still files without a path after the timeout.
+     * @throws InterruptedException
+     */
+    boolean waitForPathsOfFilesInRun(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs
+        synchronized (allFilesInRun) {
+            while (!unresolvedFilesInRun.isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis()
+                if (remaining <= 0)
+                    return false
+                allFilesInRun.wait(remaining)
             }
+            return true
         }
     }
 
@@ -755,7 +912,33 @@ class ExecutionContext {
     }
 
     void addCalledCommand(BECommand command) {
-        commandCalls.add(command)
+        if (executionContextLevel.allowedToSubmitJobs) {
+            // Use the getter, the field is null until the writer is created. A new writer gets the earlier commands.
+            synchronized (this) {
+                JobCallsFileWriter writer = getJobCallsFileWriter()
+                commandCalls.add(command)
+                writer.addCalledCommand(command)
+            }
+        } else {
+            commandCalls.add(command)
+        }
+    }
+
+    /**
+     * Tell the job calls file writer, that the job ID of the command is known.
+     */
+    void calledCommandSubmitted(BECommand command) {
+        if (command != null)
+            getJobCallsFileWriter().commandSubmitted(command)
+    }
+
+    synchronized JobCallsFileWriter getJobCallsFileWriter() {
+        if (jobCallsFileWriter == null) {
+            jobCallsFileWriter = JobCallsFileWriter.forContext(this)
+            for (BECommand command : commandCalls)
+                jobCallsFileWriter.addCalledCommand(command)
+        }
+        return jobCallsFileWriter
     }
 
     List<BECommand> getCommandCalls() {
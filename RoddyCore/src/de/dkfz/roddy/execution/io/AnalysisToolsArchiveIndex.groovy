@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import de.dkfz.roddy.StringConstants
+import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
+import de.dkfz.roddy.tools.RoddyIOHelperMethods
+import groovy.transform.CompileStatic
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.BasicFileAttributes
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.Function
+import java.util.stream.Collectors
+import java.util.stream.Stream
+
+/**
+ * Process-wide knowledge about the compressed analysis tools archives, so that tools are hashed and uploaded at most
+ * once, also if many contexts are started with one Roddy call:
+ *
+ * - The content MD5 of a local tool folder is only recomputed, if the fingerprint of the folder changed. The
+ *   fingerprint consists of the relative paths, sizes, modification times and access flags of all entries in the
+ *   folder. Fingerprints are stored next to the compressed archives and are reused by later Roddy calls. Within a
+ *   Roddy call, the fingerprint of a folder is calculated only once, because the tool folders do not change.
+ * - The remote archive overview files (zippedAnalysesMD5.txt) are loaded once and then kept up to date in memory.
+ * - Remote archive directories are only checked once for being unpacked.
+ */
+@CompileStatic
+class AnalysisToolsArchiveIndex {
+
+    static final String FINGERPRINT_SUFFIX = "_fingerprint"
+
+    /**
+     * Content MD5 sums by folder path and fingerprint.
+     */
+    private final Map<String, String> md5ByFingerprint = new ConcurrentHashMap<>()
+
+    /**
+     * Fingerprints by folder path.
+     */
+    private final Map<String, String> fingerprintsByFolder = new ConcurrentHashMap<>()
+
+    /**
+     * For each overview file, the remote archive names by their MD5 sums.
+     */
+    private final Map<File, Map<String, String>> remoteArchivesByOverviewFile = [:]
+
+    private final Set<File> unpackedRemoteDirectories = ConcurrentHashMap.newKeySet()
+
+    /**
+     * Calculate a fingerprint from the metadata of all entries in the folder. Reading the metadata is much cheaper
+     * than hashing the contents.
+     */
+    static String getFingerprint(File folder) {
+        Path root = folder.toPath()
+        Stream<Path> walk = Files.walk(root)
+        List<Path> entries
+        try {
+            entries = walk.sorted().collect(Collectors.toList()) as List<Path>
+        } finally {
+            walk.close()
+        }
+        MessageDigest digest = MessageDigest.getInstance("MD5")
+        for (Path entry : entries) {
+            BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes)
+            File file = entry.toFile()
+            String line = [root.relativize(entry).toString(),
+                           attributes.directory ? "d" : "f",
+                           attributes.size(),
+                           attributes.lastModifiedTime().toMillis(),
+                           (file.canRead() ? "r" : "-") + (file.canWrite() ? "w" : "-") + (file.canExecute() ? "x" : "-")
+            ].join(StringConstants.COLON) + "\n"
+            digest.update(line.getBytes("UTF-8"))
+        }
+        return digest.digest().encodeHex().toString()
+    }
+
+    /**
+     * @return the fingerprint of the folder, which is calculated once per Roddy call.
+     */
+    String getFingerprintOnce(File folder) {
+        return fingerprintsByFolder.computeIfAbsent(folder.absolutePath,
+                { String path -> getFingerprint(folder) } as Function<String, String>)
+    }
+
+    /**
+     * Get the content MD5 of the tool folder as calculated by
+     * RoddyIOHelperMethods.getSingleMD5OfFilesInDirectoryIncludingDirectoryNamesAndPermissions(). The MD5 is only
+     * calculated, if the fingerprint of the folder is neither known in this process nor stored in fingerprintFile
+     * together with the MD5 in md5File.
+     */
+    String getContentMD5(File folder, File md5File, File fingerprintFile) {
+        String fingerprint = getFingerprintOnce(folder)
+        String key = folder.absolutePath + StringConstants.COLON + fingerprint
+        String md5 = md5ByFingerprint.get(key)
+        if (md5 != null)
+            return md5
+
+        if (md5File.exists() && fingerprintFile.exists() && fingerprintFile.text.trim() == fingerprint) {
+            md5 = md5File.text.trim()
+        } else {
+            md5 = RoddyIOHelperMethods.getSingleMD5OfFilesInDirectoryIncludingDirectoryNamesAndPermissions(folder)
+        }
+        md5ByFingerprint.put(key, md5)
+        return md5
+    }
+
+    /**
+     * Store the fingerprint of the folder for later Roddy calls. Call this after md5File was written.
+     */
+    void storeFingerprint(File folder, File fingerprintFile) {
+        fingerprintFile.text = getFingerprintOnce(folder)
+    }
+
+    /**
+     * Find an archive with the MD5 in the overview file. If the archive is not known, the overview file is read
+     * again, because other Roddy processes might have added it in the meantime.
+     *
+     * @return The name of the remote archive or null, if there is no archive with the MD5.
+     */
+    synchronized String findRemoteArchive(File overviewFile, String md5) {
+        Map<String, String> archives = remoteArchivesByOverviewFile[overviewFile]
+        if (archives != null && archives.containsKey(md5))
+            return archives[md5]
+        archives = loadOverviewFile(overviewFile)
+        remoteArchivesByOverviewFile[overviewFile] = archives
+        return archives[md5]
+    }
+
+    private static Map<String, String> loadOverviewFile(File overviewFile) {
+        Map<String, String> archives = [:]
+        String[] lines = FileSystemAccessProvider.instance.loadTextFile(overviewFile)
+        for (String line : (lines ?: new String[0])) {
+            String[] split = line.split(StringConstants.SPLIT_COLON)
+            if (split.length == 2) {
+                archives.putIfAbsent(split[1], split[0])
+            } else if (split.length == 3) { // Newer Roddy version create directories containing version strings (separated by ":")
+                archives.putIfAbsent(split[2], split[0] + ":" + split[1])
+            }
+        }
+        return archives
+    }
+
+    /**
+     * Remember an archive, that was added to the overview file.
+     */
+    synchronized void addRemoteArchive(File overviewFile, String archiveName, String md5) {
+        Map<String, String> archives = remoteArchivesByOverviewFile[overviewFile]
+        if (archives == null) {
+            archives = [:]
+            remoteArchivesByOverviewFile[overviewFile] = archives
+        }
+        archives.putIfAbsent(md5, archiveName)
+    }
+
+    boolean isUnpacked(File remoteDirectory) {
+        return unpackedRemoteDirectories.contains(remoteDirectory)
+    }
+
+    void markAsUnpacked(File remoteDirectory) {
+        unpackedRemoteDirectories.add(remoteDirectory)
+    }
+}
@@ -12,6 +12,9 @@ import groovy.transform.CompileStatic
  * The basic input table class for data input in table format instead of files.
  * To get the full power of the class, create a custom class in your workflow
  * extends this one and add all the stuff you need.
+ *
+ * The values are stored by column in MetadataTableColumns. A subset of a table shares the columns of the table and
+ * only stores the indices of its rows, so subsetting a large table for every dataset does not copy the records.
  */
 @CompileStatic
 class BaseMetadataTable {
@@ -27,7 +30,16 @@ class BaseMetadataTable {
     // A map which links column id and column position.
     // The table uses internal column ids
     protected Map<String, Integer> headerMap = [:]
-    protected List<Map<String, String>> records = []
+
+    // The values of the table, shared by all subsets of the table.
+    protected MetadataTableColumns columns
+
+    // The rows of the columns that belong to this table, in the order of the records. The array is never modified, but
+    // replaced, if records are added, removed or replaced.
+    protected int[] rows
+
+    // The records of the table, a view of the columns. See RecordList.
+    protected List<Map<String, String>> records = new RecordList(this)
 
     public static final String INPUT_TABLE_DATASET = "datasetCol"
     public static final String INPUT_TABLE_FILE = "fileCol"
@@ -40,7 +52,8 @@ class BaseMetadataTable {
         this.custom2InternalIDMap += origin.custom2InternalIDMap
         this.mandatoryColumns += origin.mandatoryColumns
         this.headerMap += origin.headerMap
-        this.records += origin.records
+        this.columns = origin.columns
+        this.rows = origin.rows
     }
 
     /**
@@ -51,7 +64,20 @@ class BaseMetadataTable {
         this.custom2InternalIDMap += origin.custom2InternalIDMap
         this.mandatoryColumns += origin.mandatoryColumns
         this.headerMap += origin.headerMap
-        this.records += records
+        this.columns = MetadataTableColumns.fromRecords(internal2CustomIDMap.keySet(), records)
+        this.rows = allRows(records.size())
+    }
+
+    /**
+     * Copy construct subsets of the origin's rows.
+     */
+    protected BaseMetadataTable(BaseMetadataTable origin, int[] rows) {
+        this.internal2CustomIDMap += origin.internal2CustomIDMap
+        this.custom2InternalIDMap += origin.custom2InternalIDMap
+        this.mandatoryColumns += origin.mandatoryColumns
+        this.headerMap += origin.headerMap
+        this.columns = origin.columns
+        this.rows = rows
     }
 
     BaseMetadataTable(Map<String, Integer> headerMap, Map<String, String> internal2CustomIDMap, List<String> mandatoryColumns, List<Map<String, String>> records) {
@@ -60,25 +86,44 @@ class BaseMetadataTable {
             String key, String val -> custom2InternalIDMap[val] = key
         }
         this.mandatoryColumns = mandatoryColumns
-        def collect = records.collect {
-            Map<String, String> record ->
-                Map<String, String> clone = [:] as Map<String, String>
-                for (String header in internal2CustomIDMap.keySet())
-                    clone[header] = (String) null
-                for (String key in record.keySet()) {
-                    String val = record[key]
+        this.columns = new MetadataTableColumns(internal2CustomIDMap.keySet(), records.size())
+        int row = 0
+        for (Map<String, String> record : records) {
+            for (String key in record.keySet()) {
+                String val = record[key]
 
-                    def internalKey = custom2InternalIDMap[key]
-                    if (internalKey == null)
-                        throw new RuntimeException("The metadata table key '${key}' could not be mapped to an internal key!")
+                def internalKey = custom2InternalIDMap[key]
+                if (internalKey == null)
+                    throw new RuntimeException("The metadata table key '${key}' could not be mapped to an internal key!")
 
-                    clone[internalKey] = val
-                }
-                return clone
+                columns.set(row, internalKey, val)
+            }
+            row++
         }
 
         this.headerMap = headerMap
-        this.records = collect as List<Map<String, String>>
+        this.rows = allRows(records.size())
+    }
+
+    /**
+     * Construct a table from columns with internal column IDs, e.g. read by MetadataTableFactory.
+     */
+    BaseMetadataTable(Map<String, Integer> headerMap, Map<String, String> internal2CustomIDMap, List<String> mandatoryColumns, MetadataTableColumns columns) {
+        this.internal2CustomIDMap = internal2CustomIDMap
+        this.internal2CustomIDMap.each {
+            String key, String val -> custom2InternalIDMap[val] = key
+        }
+        this.mandatoryColumns = mandatoryColumns
+        this.headerMap = headerMap
+        this.columns = columns
+        this.rows = allRows(columns.rowCount)
+    }
+
+    private static int[] allRows(int rowCount) {
+        int[] rows = new int[rowCount]
+        for (int row = 0; row < rowCount; row++)
+            rows[row] = row
+        return rows
     }
 
     List<String> getMandatoryColumnNames() {
@@ -113,7 +158,7 @@ class BaseMetadataTable {
 
     void assertValidTable() {
         assertHeader()
-        records.each { assertValidRecord(it) }
+        getRecords().each { assertValidRecord(it) }
     }
 
     Map<String, Integer> getHeaderMap() {
@@ -140,17 +185,46 @@ class BaseMetadataTable {
 
 
     List<Map<String, String>> getTable() {
-        return records.collect { it.clone() } as List<Map<String, String>>
+        List<Map<String, String>> table = new ArrayList<Map<String, String>>(rows.length)
+        for (int row : rows)
+            table << columns.getRow(row)
+        return table
     }
 
-    BaseMetadataTable unsafeSubsetByColumn(String columnName, String value) {
+    private boolean isAllRowsInOrder(int[] fromRows) {
+        if (fromRows.length != columns.rowCount)
+            return false
+        for (int i = 0; i < fromRows.length; i++) {
+            if (fromRows[i] != i)
+                return false
+        }
+        return true
+    }
+
+    /**
+     * @return the rows out of the given rows with the value in the column (internal column namespace).
+     */
+    protected int[] selectRows(int[] fromRows, String columnName, String value) {
+        MetadataTableColumns.Column column = columns.getColumn(columnName)
+        if (column == null)
+            return value == null ? fromRows : MetadataTableColumns.NO_ROWS
+        if (isAllRowsInOrder(fromRows))
+            return column.getRowsWithValue(value)
+
+        int code = column.getCodeOf(value)
+        if (code < 0)
+            return MetadataTableColumns.NO_ROWS
+        int[] selected = new int[fromRows.length]
+        int count = 0
+        for (int row : fromRows) {
+            if (column.getCode(row) == code)
+                selected[count++] = row
+        }
+        return Arrays.copyOf(selected, count)
+    }
 
-        // Look into internal mapping table for headernames to varnames
-        return new BaseMetadataTable(
-                this,
-                records.findAll { Map<String, String> row ->
-                    row.get(columnName) == value
-                })
+    BaseMetadataTable unsafeSubsetByColumn(String columnName, String value) {
+        return new BaseMetadataTable(this, selectRows(rows, columnName, value))
     }
 
     /** Get a subset of rows by unique values in a specified column (internal column namespace).
@@ -170,7 +244,7 @@ class BaseMetadataTable {
     /** Given a column names, throw if that column or some higher-priority mandatory column have non-unique values. */
     BaseMetadataTable assertUniqueness(String columnName = null) {
         for(String colToCheck : mandatoryColumnNames) {
-            if (listColumn(colToCheck).unique().size() != 1) {
+            if (!hasSingleValue(colToCheck)) {
                 throw new RuntimeException("For metadata table column(s) '${columnName}' higher-priority column values for '${colToCheck}' are not unique: ${listColumn(colToCheck).unique().sort()}")
             }
             if (colToCheck.equals(columnName)) {
@@ -180,15 +254,34 @@ class BaseMetadataTable {
         return this
     }
 
+    /**
+     * @return true, if the table has rows and all rows have the same value in the column.
+     */
+    private boolean hasSingleValue(String columnName) {
+        if (rows.length == 0)
+            return false
+        MetadataTableColumns.Column column = columns.getColumn(columnName)
+        if (column == null)
+            return true
+        int code = column.getCode(rows[0])
+        for (int row : rows) {
+            if (column.getCode(row) != code)
+                return false
+        }
+        return true
+    }
+
     BaseMetadataTable subsetByDataset(String datasetId) {
         return subsetByColumn(INPUT_TABLE_DATASET, datasetId)
     }
 
     BaseMetadataTable unsafeSubsetBy(Map<String, String> columnValueMap) {
-        BaseMetadataTable result = columnValueMap.inject(this) { BaseMetadataTable metaDataTable, String columnName, String value ->
-            metaDataTable.unsafeSubsetByColumn(columnName, value)
-        } as BaseMetadataTable
-        return result
+        if (columnValueMap.isEmpty())
+            return this
+        int[] selected = rows
+        for (Map.Entry<String, String> entry : columnValueMap.entrySet())
+            selected = selectRows(selected, entry.key, entry.value)
+        return new BaseMetadataTable(this, selected)
     }
 
     BaseMetadataTable subsetBy(Map<String, String> columnValueMap) {
@@ -196,25 +289,116 @@ class BaseMetadataTable {
     }
 
     Integer size() {
-        return records.size()
+        return rows.length
     }
 
     List<String> listColumn(String columnName) {
-        return records.collect { Map<String, String> record ->
-            record.get(columnName)
+        MetadataTableColumns.Column column = columns.getColumn(columnName)
+        List<String> values = new ArrayList<String>(rows.length)
+        for (int row : rows)
+            values << (column != null ? column.get(row) : (String) null)
+        return values
+    }
+
+    /**
+     * @return the distinct values of the column in the order of their first occurrence, like listColumn().unique().
+     */
+    List<String> listDistinctValues(String columnName) {
+        MetadataTableColumns.Column column = columns.getColumn(columnName)
+        if (column == null)
+            return rows.length > 0 ? [(String) null] : [] as List<String>
+        Set<Integer> seenCodes = new HashSet<Integer>()
+        List<String> values = []
+        for (int row : rows) {
+            if (seenCodes.add(column.getCode(row)))
+                values << column.get(row)
         }
+        return values
     }
 
     List<String> listDatasets() {
-        return listColumn(INPUT_TABLE_DATASET).unique()
+        return listDistinctValues(INPUT_TABLE_DATASET)
     }
 
     List<File> listFiles() {
-        return listColumn(INPUT_TABLE_FILE).unique().collect { new File(it) }
+        return listDistinctValues(INPUT_TABLE_FILE).collect { new File(it) }
     }
 
+    /**
+     * @return the records of the table, a view of the columns. See RecordList.
+     */
     List<Map<String, String>> getRecords() {
         return records
     }
 
+    /**
+     * The records of a table as a view of the columns, which are shared with the subsets of the table. Like the record
+     * maps before, changes to a record are seen by the table, its origin and its subsets. Adding, removing or replacing
+     * records only changes this table, so e.g. sorting the records does not reorder the origin. Records can only be
+     * added at the end.
+     */
+    private static class RecordList extends AbstractList<Map<String, String>> {
+
+        private final BaseMetadataTable table
+
+        RecordList(BaseMetadataTable table) {
+            this.table = table
+        }
+
+        @Override
+        Map<String, String> get(int index) {
+            return table.columns.getRowView(table.rows[index])
+        }
+
+        @Override
+        int size() {
+            return table.rows.length
+        }
+
+        @Override
+        Map<String, String> set(int index, Map<String, String> record) {
+            int[] rows = table.rows
+            Map<String, String> previous = table.columns.getRowView(rows[index])
+            int[] newRows = rows.clone()
+            newRows[index] = rowOf(record)
+            table.rows = newRows
+            return previous
+        }
+
+        @Override
+        void add(int index, Map<String, String> record) {
+            int[] rows = table.rows
+            if (index != rows.length)
+                throw new UnsupportedOperationException("Records can only be added at the end of a metadata table.")
+            int row = rowOf(record)
+            int[] newRows = Arrays.copyOf(rows, rows.length + 1)
+            newRows[rows.length] = row
+            table.rows = newRows
+        }
+
+        @Override
+        Map<String, String> remove(int index) {
+            int[] rows = table.rows
+            Map<String, String> previous = table.columns.getRow(rows[index])
+            int[] newRows = new int[rows.length - 1]
+            System.arraycopy(rows, 0, newRows, 0, index)
+            System.arraycopy(rows, index + 1, newRows, index, rows.length - index - 1)
+            table.rows = newRows
+            return previous
+        }
+
+        /**
+         * @return the row of a record of the columns or a new row with the values of another record.
+         */
+        private int rowOf(Map<String, String> record) {
+            int row = table.columns.getRowOfView(record)
+            if (row >= 0)
+                return row
+            row = table.columns.addRow()
+            for (Map.Entry<String, String> field : record.entrySet())
+                table.columns.set(row, field.key, field.value)
+            return row
+        }
+    }
+
 }
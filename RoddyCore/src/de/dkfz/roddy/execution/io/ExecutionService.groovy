@@ -12,6 +12,7 @@ import de.dkfz.roddy.config.Configuration
 import de.dkfz.roddy.config.ConfigurationConstants
 import de.dkfz.roddy.config.ConfigurationValue
 import de.dkfz.roddy.config.ToolEntry
+import de.dkfz.roddy.config.ToolFingerprintCache
 import de.dkfz.roddy.config.converters.ConfigurationConverter
 import de.dkfz.roddy.config.loader.ConfigurationFactory
 import de.dkfz.roddy.config.loader.ConfigurationLoaderException
@@ -199,6 +200,8 @@ abstract class ExecutionService implements BEExecutionService {
         }
 
         File jobLog = new File(wrapperJob.jobLog.getOut(wrapperJob.jobID.toString()))
+        // The job log was written by the job, not by Roddy. Forget anything known about it.
+        FileSystemAccessProvider.instance.fileStatusCache.invalidate(jobLog)
         if (!FileSystemAccessProvider.instance.fileExists(jobLog))
             throw new IOException("Job log file ${jobLog} does not exist")
 
@@ -462,6 +465,16 @@ abstract class ExecutionService implements BEExecutionService {
     private long lastExecutionContextCheckpoint = -1100
     Map<File, CompressedArchiveInfo> mapOfPreviouslyCompressedArchivesByFolder = [:]
 
+    private final Object toolCompressionLock = new Object()
+
+    private final AnalysisToolsArchiveIndex toolArchiveIndex = new AnalysisToolsArchiveIndex()
+
+    /**
+     * Tool folders with inline scripts by the original folder and the inline scripts. The folders are reused by all
+     * contexts with the same inline scripts, so they are compressed and hashed only once.
+     */
+    private final Map<String, File> toolFoldersWithInlineScripts = [:]
+
     /**
      * Writes files like the scripts in the analysisTools directory, the current configuration (shellscript and xml) and files with debug information to the runs logging directory.
      *
@@ -631,9 +644,6 @@ abstract class ExecutionService implements BEExecutionService {
 
         provider.checkDirectory(dstExecutionDirectory, context, true)
 
-        String[] existingArchives = provider.loadTextFile(context.getFileForAnalysisToolsArchiveOverview())
-        if (existingArchives == null)
-            existingArchives = new String[0]
         Roddy.compressedAnalysisToolsDirectory.mkdir()
 
         Map<File, PluginInfo> listOfFolders = sourcePaths.findAll { File it, PluginInfo pInfo -> !it.name.contains(".svn") }
@@ -660,17 +670,41 @@ abstract class ExecutionService implements BEExecutionService {
 
         long startParallelCompression = System.nanoTime()
 
-        // Check and override the listOfFolders, eventually create new temporary folders, if inline scripts are used
-        listOfFolders = writeInlineScriptsAndCorrectListOfFolders(listOfFolders, mapOfInlineScripts)
+        // Contexts may be processed concurrently (see Analysis.run()). The local archives are shared between them.
+        synchronized (toolCompressionLock) {
+            // Check and override the listOfFolders, eventually create new temporary folders, if inline scripts are used
+            listOfFolders = writeInlineScriptsAndCorrectListOfFolders(listOfFolders, mapOfInlineScripts)
 
-        // Compress the new (or old) folder list.
-        compressToolFolders(listOfFolders, mapOfInlineScripts)
+            // Compress the new (or old) folder list.
+            compressToolFolders(listOfFolders, mapOfInlineScripts)
+        }
         logger.postRareInfo("Overall tool compression took ${(System.nanoTime() - startParallelCompression) / 1000000} ms.")
 
         // Now check if the local file with its md5 sum exists on the remote site.
-        moveCompressedToolFilesToRemoteLocation(listOfFolders, existingArchives, provider, context)
+        moveCompressedToolFilesToRemoteLocation(listOfFolders, provider, context)
 
         markConfiguredToolsAsExecutable(context)
+
+        hashToolsForContext(context)
+    }
+
+    /**
+     * Hash the sources of the configured tools in parallel. The jobs reference their tools with the MD5 sums, which are
+     * then taken from the ToolFingerprintCache instead of reading the tools for every job.
+     */
+    void hashToolsForContext(ExecutionContext context) {
+        Configuration cfg = context.configuration
+        List<File> sourceToolPaths = []
+        for (ToolEntry tool in cfg.tools.allValuesAsList) {
+            try {
+                sourceToolPaths << cfg.getSourceToolPath(tool.id)
+            } catch (Exception ignored) {
+                // Invalid tools are reported, if they are used.
+            }
+        }
+        long start = System.nanoTime()
+        ToolFingerprintCache.instance.hashAll(sourceToolPaths)
+        logger.postRareInfo("Hashing of ${sourceToolPaths.size()} tools took ${(System.nanoTime() - start) / 1000000} ms.")
     }
 
     /**
@@ -700,6 +734,17 @@ abstract class ExecutionService implements BEExecutionService {
                     return
                 }
 
+                // Reuse the folder of an earlier context with the same inline scripts.
+                String key = subFolder.absolutePath + mapOfInlineScriptsBySubfolder[subFolder.name].toString()
+                File existingFolder
+                synchronized (toolFoldersWithInlineScripts) {
+                    existingFolder = toolFoldersWithInlineScripts[key]
+                }
+                if (existingFolder?.directory) {
+                    correctedListOfFolders[existingFolder] = pInfo
+                    return
+                }
+
                 // Create the temp folder
                 File tempFolder = File.createTempDir()
                 tempFolder.deleteOnExit()
@@ -714,6 +759,9 @@ abstract class ExecutionService implements BEExecutionService {
                     scriptEntry ->
                         new File(tempFolder, scriptEntry["inlineScriptName"]) << scriptEntry["inlineScript"]
                 }
+                synchronized (toolFoldersWithInlineScripts) {
+                    toolFoldersWithInlineScripts[key] = tempFolder
+                }
                 correctedListOfFolders[tempFolder] = pInfo
         }
         return correctedListOfFolders
@@ -731,12 +779,14 @@ abstract class ExecutionService implements BEExecutionService {
                 long startSingleCompression = System.nanoTime()
 
                 PluginInfo pInfo = listOfFolders[subFolder]
-                // Md5sum from tempFolder
-                String md5sum = RoddyIOHelperMethods.getSingleMD5OfFilesInDirectoryIncludingDirectoryNamesAndPermissions(subFolder)
                 String zipFilename = "cTools_${pInfo.name}:${pInfo.getProdVersion()}_${subFolder.name}.zip"
                 String zipMD5Filename = zipFilename + "_contentmd5"
                 File tempFile = new File(Roddy.compressedAnalysisToolsDirectory, zipFilename)
                 File zipMD5File = new File(Roddy.compressedAnalysisToolsDirectory, zipMD5Filename)
+                File fingerprintFile = new File(Roddy.compressedAnalysisToolsDirectory,
+                        zipFilename + AnalysisToolsArchiveIndex.FINGERPRINT_SUFFIX)
+                // Md5sum from tempFolder. Only calculated, if the files in the folder changed.
+                String md5sum = toolArchiveIndex.getContentMD5(subFolder, zipMD5File, fingerprintFile)
                 boolean createNew = false
                 if (!tempFile.exists())
                     createNew = true
@@ -748,6 +798,9 @@ abstract class ExecutionService implements BEExecutionService {
                     RoddyIOHelperMethods.compressDirectory(subFolder, tempFile)
                     // See issue #286
                     zipMD5File.text = md5sum
+                    toolArchiveIndex.storeFingerprint(subFolder, fingerprintFile)
+                } else if (!fingerprintFile.exists()) {
+                    toolArchiveIndex.storeFingerprint(subFolder, fingerprintFile)
                 }
 
                 String newArchiveMD5 = md5sum
@@ -762,112 +815,102 @@ abstract class ExecutionService implements BEExecutionService {
 
     /**
      * Check if the local file with its md5 sum exists on the remote site otherwise move those files from local to remote site.
+     * All tool folders are then linked into the analysis tools directory of the context with a single command.
      * @param listOfFolders
-     * @param existingArchives
      * @param provider
      * @param context
      */
-    void moveCompressedToolFilesToRemoteLocation(Map<File, PluginInfo> listOfFolders, String[] existingArchives, FileSystemAccessProvider provider, ExecutionContext context) {
-        File dstCommonExecutionDirectory = context.commonExecutionDirectory
+    void moveCompressedToolFilesToRemoteLocation(Map<File, PluginInfo> listOfFolders, FileSystemAccessProvider provider, ExecutionContext context) {
         File dstAnalysisToolsDirectory = context.analysisToolsDirectory
 
+        Map<File, File> targetsByLink = [:]
         listOfFolders.each {
             File subFolder, PluginInfo pInfo ->
                 if (!subFolder.directory)
                     return
-                File localFile = mapOfPreviouslyCompressedArchivesByFolder[subFolder].localArchive
-                File remoteFile = new File(mapOfPreviouslyCompressedArchivesByFolder[subFolder].localArchive.name[0..-5] + "_" + context.getTimestampString() + ".zip")
-                String archiveMD5 = mapOfPreviouslyCompressedArchivesByFolder[subFolder].md5
-
-                String foundExisting = null
-                String subFolderOnRemote = subFolder.name
-                for (String line : existingArchives) {
-                    String[] split = line.split(StringConstants.SPLIT_COLON)
-                    String existingFilePath = split[0]
-                    String existingFileMD5 = split[1]
-                    if (split.length == 2) {
-                        existingFilePath = split[0]
-                        existingFileMD5 = split[1]
-                    } else if (split.length == 3) {                   // Newer Roddy version create directories containing version strings (separated by ":")
-                        existingFilePath = split[0] + ":" + split[1]
-                        existingFileMD5 = split[2]
-                    } else {
-                        continue
-                    }
-
-                    if (existingFileMD5.equals(archiveMD5)) {
-                        foundExisting = existingFilePath
-                        remoteFile = new File(remoteFile.getParentFile(), existingFilePath)
-                        subFolderOnRemote = remoteFile.name.split(StringConstants.SPLIT_UNDERSCORE)[-3]
-                        //TODO This is seriously a hack.
-                        break
-                    }
+                CompressedArchiveInfo archive
+                synchronized (mapOfPreviouslyCompressedArchivesByFolder) {
+                    archive = mapOfPreviouslyCompressedArchivesByFolder[subFolder]
                 }
-
-                File analysisToolsServerDir
-
-                // Check, if there is a zip file available and if the zip file is uncompressed.
-                if (foundExisting) {
-                    analysisToolsServerDir = new File(dstCommonExecutionDirectory, "/dir_" + foundExisting)
-                    File remoteZipFile = new File(dstCommonExecutionDirectory, remoteFile.name)
-                    if (!provider.directoryExists(analysisToolsServerDir)) {
-                        // Now we may assume, that the file was not uncompressed!
-                        // Check if the zip file exists. If so, uncompress it.
-                        if (provider.fileExists(remoteZipFile)) {
-                            // Unzip the file again. foundExisting stays true
-                            GString command = RoddyIOHelperMethods.compressor.getDecompressionString(
-                                    remoteZipFile, analysisToolsServerDir, analysisToolsServerDir)
-                            ExecutionResult result =
-                                    instance.execute(command, true)
-                            if (!result.successful)
-                                throw new UnexpectedExecutionResultException(
-                                        "Could not execute command: ${result.toStatusMessage()}" as String,
-                                        result.stdout)
-                            boolean success = provider.
-                                    setDefaultAccessRightsRecursively(new File(analysisToolsServerDir.absolutePath), context)
-                            if (!success)
-                                logger.warning("Ignoring error while setting default access rights on '${analysisToolsServerDir.absolutePath} (existing archive)'")
-                        } else {
-                            // Uh Oh, the file is not existing, the directory is not existing! Copy again and unzip
-                            foundExisting = false
-                        }
-                    }
+                // Contexts may be processed concurrently. Only one of them should upload a missing archive.
+                synchronized (toolArchiveIndex) {
+                    targetsByLink[new File(dstAnalysisToolsDirectory, subFolder.name)] =
+                            provideRemoteToolFolder(subFolder, archive, provider, context)
                 }
+        }
 
-                if (foundExisting) {
-                    analysisToolsServerDir = new File(dstCommonExecutionDirectory, "/dir_" + foundExisting)
-                    logger.postSometimesInfo("Skipping copy of file ${remoteFile.name}, a file with the same md5 was found.")
-                } else {
-
-                    analysisToolsServerDir = new File(dstCommonExecutionDirectory, "/dir_" + remoteFile.name)
-                    provider.checkDirectory(dstCommonExecutionDirectory, context, true)
-                    provider.checkDirectory(analysisToolsServerDir, context, true)
-                    provider.copyFile(localFile, new File(dstCommonExecutionDirectory, remoteFile.name), context)
-                    provider.checkFile(context.getFileForAnalysisToolsArchiveOverview(), true, context)
-                    provider.appendLineToFile(true, context.getFileForAnalysisToolsArchiveOverview(), "${remoteFile.name}:${archiveMD5}", true)
-
-                    GString command = RoddyIOHelperMethods.compressor.getDecompressionString(
-                            new File(dstCommonExecutionDirectory, remoteFile.name),
-                            analysisToolsServerDir, analysisToolsServerDir)
-                    ExecutionResult result =
-                            instance.execute(command, true)
-                    if (!result.successful)
-                        throw new UnexpectedExecutionResultException(
-                                "Could not execute command: ${result.toStatusMessage()}" as String,
-                                result.stdout)
-                    boolean success = provider.
-                            setDefaultAccessRightsRecursively(new File(analysisToolsServerDir.absolutePath), context)
-                    if (!success)
-                        logger.warning("Ignoring error while setting default access rights on '${analysisToolsServerDir.absolutePath} (no existing archive)'")
-                    if (!provider.directoryExists(analysisToolsServerDir))
-                        context.addError(ExecutionContextError.EXECUTION_PATH_NOTFOUND.
-                                expand("The central archive ${analysisToolsServerDir.absolutePath} was not created!"))
+        provider.checkDirectory(dstAnalysisToolsDirectory, context, true)
+        if (targetsByLink)
+            instance.execute(provider.commandSet.getCreateSymbolicLinksCommand(targetsByLink), true)
+    }
 
-                }
-                provider.checkDirectory(dstAnalysisToolsDirectory, context, true)
-                def linkCommand = "ln -s ${analysisToolsServerDir.absolutePath}/${subFolderOnRemote} ${dstAnalysisToolsDirectory.absolutePath}/${subFolder.name}"
-                instance.execute(linkCommand, true)
+    /**
+     * Find the unpacked remote copy of the archive or upload and unpack the archive.
+     *
+     * @return The tool folder in the remote archive directory.
+     */
+    private File provideRemoteToolFolder(File subFolder, CompressedArchiveInfo archive, FileSystemAccessProvider provider, ExecutionContext context) {
+        File dstCommonExecutionDirectory = context.commonExecutionDirectory
+        File overviewFile = context.getFileForAnalysisToolsArchiveOverview()
+        String archiveMD5 = archive.md5
+
+        String foundExisting = toolArchiveIndex.findRemoteArchive(overviewFile, archiveMD5)
+        if (foundExisting) {
+            File analysisToolsServerDir = new File(dstCommonExecutionDirectory, "/dir_" + foundExisting)
+            File remoteZipFile = new File(dstCommonExecutionDirectory, new File(foundExisting).name)
+            //TODO This is seriously a hack.
+            String subFolderOnRemote = remoteZipFile.name.split(StringConstants.SPLIT_UNDERSCORE)[-3]
+
+            // Check, if there is a zip file available and if the zip file is uncompressed.
+            if (toolArchiveIndex.isUnpacked(analysisToolsServerDir) || provider.directoryExists(analysisToolsServerDir)) {
+                toolArchiveIndex.markAsUnpacked(analysisToolsServerDir)
+                logger.postSometimesInfo("Skipping copy of file ${remoteZipFile.name}, a file with the same md5 was found.")
+                return new File(analysisToolsServerDir, subFolderOnRemote)
+            }
+
+            // Now we may assume, that the file was not uncompressed!
+            // Check if the zip file exists. If so, uncompress it.
+            if (provider.fileExists(remoteZipFile)) {
+                unpackRemoteToolArchive(remoteZipFile, analysisToolsServerDir, provider, context, "existing archive")
+                toolArchiveIndex.markAsUnpacked(analysisToolsServerDir)
+                logger.postSometimesInfo("Skipping copy of file ${remoteZipFile.name}, a file with the same md5 was found.")
+                return new File(analysisToolsServerDir, subFolderOnRemote)
+            }
+            // Uh Oh, the file is not existing, the directory is not existing! Copy again and unzip
         }
+
+        File remoteFile = new File(archive.localArchive.name[0..-5] + "_" + context.getTimestampString() + ".zip")
+        File analysisToolsServerDir = new File(dstCommonExecutionDirectory, "/dir_" + remoteFile.name)
+        File remoteZipFile = new File(dstCommonExecutionDirectory, remoteFile.name)
+        provider.checkDirectory(dstCommonExecutionDirectory, context, true)
+        provider.checkDirectory(analysisToolsServerDir, context, true)
+        provider.copyFile(archive.localArchive, remoteZipFile, context)
+        provider.checkFile(overviewFile, true, context)
+        provider.appendLineToFile(true, overviewFile, "${remoteFile.name}:${archiveMD5}", true)
+        toolArchiveIndex.addRemoteArchive(overviewFile, remoteFile.name, archiveMD5)
+
+        unpackRemoteToolArchive(remoteZipFile, analysisToolsServerDir, provider, context, "no existing archive")
+        if (provider.directoryExists(analysisToolsServerDir))
+            toolArchiveIndex.markAsUnpacked(analysisToolsServerDir)
+        else
+            context.addError(ExecutionContextError.EXECUTION_PATH_NOTFOUND.
+                    expand("The central archive ${analysisToolsServerDir.absolutePath} was not created!"))
+        return new File(analysisToolsServerDir, subFolder.name)
+    }
+
+    private void unpackRemoteToolArchive(File remoteZipFile, File analysisToolsServerDir, FileSystemAccessProvider provider, ExecutionContext context, String description) {
+        GString command = RoddyIOHelperMethods.compressor.getDecompressionString(
+                remoteZipFile, analysisToolsServerDir, analysisToolsServerDir)
+        ExecutionResult result =
+                instance.execute(command, true)
+        if (!result.successful)
+            throw new UnexpectedExecutionResultException(
+                    "Could not execute command: ${result.toStatusMessage()}" as String,
+                    result.stdout)
+        boolean success = provider.
+                setDefaultAccessRightsRecursively(new File(analysisToolsServerDir.absolutePath), context)
+        if (!success)
+            logger.warning("Ignoring error while setting default access rights on '${analysisToolsServerDir.absolutePath} (${description})'")
     }
 
     /**
@@ -880,47 +923,13 @@ abstract class ExecutionService implements BEExecutionService {
 
         context.setDetailedExecutionContextLevel(ExecutionContextSubLevel.RUN_FINALIZE_CREATE_JOBFILES)
 
-        final FileSystemAccessProvider provider = FileSystemAccessProvider.instance
-        final String separator = Constants.ENV_LINESEPARATOR
-
-        List<Command> commandCalls = context.getCommandCalls() ?: ([] as List<Command>)
-        StringBuilder realCalls = new StringBuilder()
-        List<BEJobID> jobIDs = new LinkedList<>()
-        int cnt = 0
-        Map<String, String> jobIDReplacement = new HashMap<String, String>()
-        StringBuilder repeatCalls = new StringBuilder()
-
-        for (Command c : commandCalls) {
-            BEJobID eID = c.getJobID()
-            if (eID != null) {
-                jobIDs.add(eID)
-                if (eID.getShortID() != null) {
-                    jobIDReplacement.put(eID.getShortID(), String.format('$j_' + "%08d", cnt++))
-                }
-            }
-        }
-        for (Command c : commandCalls) {
-            BEJobID eID = c.getJobID()
-            String cmdStr = c.toBashCommandString()
-            realCalls.append(eID).append(", ").append(cmdStr).append(separator)
-
-            String repeatCallLine = String.format("%s=`%s`" + separator, eID, cmdStr)
-            for (String k : jobIDReplacement.keySet()) {
-                String v = jobIDReplacement.get(k)
-
-                repeatCallLine = repeatCallLine.replace(k, v)
-            }
-            repeatCalls.append(repeatCallLine.substring(1))
-        }
+        // Most lines were already written while the jobs were submitted. Write the remaining ones.
+        context.jobCallsFileWriter.finish()
 
         context.detailedExecutionContextLevel =
                 ExecutionContextSubLevel.RUN_FINALIZE_CREATE_BINARYFILES
 
         RuntimeService rService = context.runtimeService
-        final File realCallFile = rService.getRealCallsFile(context)
-        final File repeatCallFile = rService.getRepeatableJobCallsFile(context)
-        provider.writeTextFile(realCallFile, realCalls.toString(), context)
-        provider.writeTextFile(repeatCallFile, repeatCalls.toString(), context)
         rService.writeJobInfoFile(context)
     }
 
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import de.dkfz.roddy.FeatureToggles
+import de.dkfz.roddy.Roddy
+import de.dkfz.roddy.tools.AtomicFiles
+import de.dkfz.roddy.tools.LoggerWrapper
+import de.dkfz.roddy.tools.RoddyIOHelperMethods
+import groovy.transform.CompileStatic
+
+
+/**
+ * A cache of read metadata tables in the Roddy settings directory, so that repeated Roddy calls with the same table
+ * do not parse it again. An entry holds the header and the binary columns of a table. It is keyed by the MD5 of the
+ * table file and the parameters used to read it (format, column IDs and dataset filter).
+ *
+ * Entries are written to temporary files and moved into place. Only the most recently used entries are kept, because
+ * the entries of large tables are large, too.
+ */
+@CompileStatic
+class MetadataTableCache {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(MetadataTableCache.class.simpleName)
+
+    static final int FORMAT_VERSION = 1
+
+    static final int MAXIMUM_ENTRIES = 8
+
+    static final String ENTRY_SUFFIX = ".table"
+
+    private final File directory
+
+    MetadataTableCache(File directory) {
+        this.directory = directory
+    }
+
+    static boolean isEnabled() {
+        return Roddy.getFeatureToggleValue(FeatureToggles.UseMetadataTableCache)
+    }
+
+    static MetadataTableCache getDefaultCache() {
+        return new MetadataTableCache(new File(new File(Roddy.getSettingsDirectory(), "caches"), "metadataTables"))
+    }
+
+    /**
+     * @return the key of the table read from the file with the parameters or null, if the file cannot be hashed.
+     */
+    static String createKey(File file, String format, Map<String, String> internalToCustomIDMap,
+                            List<String> mandatoryColumns, List<String> datasetPatterns) {
+        String md5 = file.isFile() ? RoddyIOHelperMethods.getMD5OfFile(file) : null
+        if (!md5)
+            return null
+        return RoddyIOHelperMethods.getMD5OfText([FORMAT_VERSION, md5, (format ?: "tsv").toLowerCase(),
+                                                  internalToCustomIDMap, mandatoryColumns, datasetPatterns].toString())
+    }
+
+    /**
+     * @return the cached table or null, if there is no valid entry for the key.
+     */
+    BaseMetadataTable get(String key, Map<String, String> internalToCustomIDMap, List<String> mandatoryColumns) {
+        File entry = new File(directory, key + ENTRY_SUFFIX)
+        if (!entry.isFile())
+            return null
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(entry), 1 << 16))
+            try {
+                Map<String, Integer> headerMap = new LinkedHashMap<String, Integer>()
+                int headerSize = input.readInt()
+                for (int i = 0; i < headerSize; i++)
+                    headerMap.put(input.readUTF(), input.readInt())
+                MetadataTableColumns columns = MetadataTableColumns.read(input)
+                entry.setLastModified(System.currentTimeMillis())
+                return new BaseMetadataTable(headerMap, internalToCustomIDMap, mandatoryColumns, columns)
+            } finally {
+                input.close()
+            }
+        } catch (IOException ex) {
+            logger.warning("Could not read cached metadata table '${entry}', the table will be read again: ${ex.message}")
+            return null
+        }
+    }
+
+    /**
+     * Store the table and remove the least recently used entries. Errors are only logged, because this is just a
+     * cache.
+     */
+    void put(String key, BaseMetadataTable table) {
+        File entry = new File(directory, key + ENTRY_SUFFIX)
+        try {
+            AtomicFiles.write(entry) { File tempFile ->
+                DataOutputStream output =
+                        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16))
+                try {
+                    output.writeInt(table.headerMap.size())
+                    for (Map.Entry<String, Integer> header : table.headerMap.entrySet()) {
+                        output.writeUTF(header.key)
+                        output.writeInt(header.value)
+                    }
+                    table.columns.write(output)
+                } finally {
+                    output.close()
+                }
+            }
+        } catch (IOException ex) {
+            logger.warning("Could not write cached metadata table '${entry}': ${ex.message}")
+            return
+        }
+        removeOldEntries()
+    }
+
+    private void removeOldEntries() {
+        File[] entries = directory.listFiles({ File file -> file.name.endsWith(ENTRY_SUFFIX) } as FileFilter)
+        if (entries == null || entries.length <= MAXIMUM_ENTRIES)
+            return
+        List<File> sortedEntries = entries.toList().sort { File a, File b -> b.lastModified() <=> a.lastModified() }
+        for (File oldEntry : sortedEntries.drop(MAXIMUM_ENTRIES))
+            oldEntry.delete()
+    }
+}
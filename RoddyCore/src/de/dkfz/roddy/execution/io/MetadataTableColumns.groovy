@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import groovy.transform.CompileStatic
+
+/**
+ * The values of a metadata table, stored by column. Each column is dictionary-encoded: its distinct values are stored
+ * once and every row holds the code of its value. An index from the values of a column to their rows is built on the
+ * first lookup in the column.
+ *
+ * The columns are shared by a table and all its subsets. Values are set while the table is read and through the
+ * record views of the rows. Rows can be added one by one, so a table can be read as a stream of records, and the
+ * columns can be written to and read from a binary file.
+ */
+@CompileStatic
+class MetadataTableColumns {
+
+    static final int[] NO_ROWS = new int[0]
+
+    static class Column {
+
+        /**
+         * The distinct values of the column. Code 0 is null, the value of unset fields.
+         */
+        private final List<String> dictionary = new ArrayList<String>()
+
+        private final Map<String, Integer> codes = new HashMap<String, Integer>()
+
+        private int[] rowCodes
+
+        private int size
+
+        /**
+         * The rows by the code of their value, in ascending order.
+         */
+        private volatile int[][] index
+
+        private Column(int rowCount) {
+            rowCodes = new int[Math.max(rowCount, 16)]
+            size = rowCount
+            dictionary << (String) null
+            codes.put(null, 0)
+        }
+
+        private void set(int row, String value) {
+            Integer code = codes.get(value)
+            if (code == null) {
+                code = dictionary.size()
+                dictionary << value
+                codes.put(value, code)
+            }
+            rowCodes[row] = code
+            index = null
+        }
+
+        private void addRow() {
+            if (size == rowCodes.length)
+                rowCodes = Arrays.copyOf(rowCodes, size * 2)
+            size++
+            index = null
+        }
+
+        String get(int row) {
+            return dictionary[rowCodes[row]]
+        }
+
+        int getCode(int row) {
+            return rowCodes[row]
+        }
+
+        /**
+         * @return the code of the value or -1, if the value is not in the column.
+         */
+        int getCodeOf(String value) {
+            Integer code = codes.get(value)
+            return code != null ? code : -1
+        }
+
+        /**
+         * @return the rows with the value in ascending order. The returned array must not be modified.
+         */
+        int[] getRowsWithValue(String value) {
+            int code = getCodeOf(value)
+            return code < 0 ? NO_ROWS : getIndex()[code]
+        }
+
+        private synchronized int[][] getIndex() {
+            if (index == null) {
+                int[] counts = new int[dictionary.size()]
+                for (int row = 0; row < size; row++)
+                    counts[rowCodes[row]]++
+                int[][] rowsByCode = new int[dictionary.size()][]
+                for (int code = 0; code < counts.length; code++)
+                    rowsByCode[code] = new int[counts[code]]
+                Arrays.fill(counts, 0)
+                for (int row = 0; row < size; row++) {
+                    int code = rowCodes[row]
+                    rowsByCode[code][counts[code]++] = row
+                }
+                index = rowsByCode
+            }
+            return index
+        }
+    }
+
+    private int rowCount
+
+    private final Map<String, Column> columns = new LinkedHashMap<String, Column>()
+
+    MetadataTableColumns(Collection<String> columnNames, int rowCount = 0) {
+        this.rowCount = rowCount
+        for (String name : columnNames)
+            columns.put(name, new Column(rowCount))
+    }
+
+    int getRowCount() {
+        return rowCount
+    }
+
+    /**
+     * Add a row with unset (null) values. Rows are never removed, so the rows of tables and views stay valid.
+     * @return the index of the new row
+     */
+    int addRow() {
+        for (Column column : columns.values())
+            column.addRow()
+        return rowCount++
+    }
+
+    /**
+     * Store the records with the column names as keys.
+     */
+    static MetadataTableColumns fromRecords(Collection<String> columnNames, List<Map<String, String>> records) {
+        Set<String> allColumnNames = new LinkedHashSet<String>(columnNames)
+        for (Map<String, String> record : records)
+            allColumnNames.addAll(record.keySet())
+        MetadataTableColumns columns = new MetadataTableColumns(allColumnNames, records.size())
+        int row = 0
+        for (Map<String, String> record : records) {
+            for (Map.Entry<String, String> field : record.entrySet())
+                columns.set(row, field.key, field.value)
+            row++
+        }
+        return columns
+    }
+
+    /**
+     * Set the value of a field. A column, which does not exist yet, is added.
+     */
+    void set(int row, String columnName, String value) {
+        Column column = columns.get(columnName)
+        if (column == null) {
+            column = new Column(rowCount)
+            columns.put(columnName, column)
+        }
+        column.set(row, value)
+    }
+
+    /**
+     * @return the column or null, if there is no column with this name.
+     */
+    Column getColumn(String columnName) {
+        return columns.get(columnName)
+    }
+
+    Set<String> getColumnNames() {
+        return Collections.unmodifiableSet(columns.keySet())
+    }
+
+    void write(DataOutput output) throws IOException {
+        output.writeInt(rowCount)
+        output.writeInt(columns.size())
+        for (Map.Entry<String, Column> entry : columns.entrySet()) {
+            Column column = entry.value
+            output.writeUTF(entry.key)
+            output.writeInt(column.dictionary.size())
+            for (int code = 1; code < column.dictionary.size(); code++)
+                output.writeUTF(column.dictionary[code])
+            for (int row = 0; row < rowCount; row++)
+                output.writeInt(column.rowCodes[row])
+        }
+    }
+
+    static MetadataTableColumns read(DataInput input) throws IOException {
+        int rowCount = input.readInt()
+        int columnCount = input.readInt()
+        Map<String, Column> columns = new LinkedHashMap<String, Column>()
+        for (int i = 0; i < columnCount; i++) {
+            String name = input.readUTF()
+            Column column = new Column(rowCount)
+            int dictionarySize = input.readInt()
+            for (int code = 1; code < dictionarySize; code++) {
+                String value = input.readUTF()
+                column.dictionary << value
+                column.codes.put(value, code)
+            }
+            for (int row = 0; row < rowCount; row++)
+                column.rowCodes[row] = input.readInt()
+            columns.put(name, column)
+        }
+        MetadataTableColumns result = new MetadataTableColumns([], rowCount)
+        result.columns.putAll(columns)
+        return result
+    }
+
+    /**
+     * A map view of a row. Changes to the map are written to the columns.
+     */
+    private static class RowView extends AbstractMap<String, String> {
+
+        private final MetadataTableColumns columns
+
+        private final int row
+
+        RowView(MetadataTableColumns columns, int row) {
+            this.columns = columns
+            this.row = row
+        }
+
+        int getRowOf(MetadataTableColumns columns) {
+            return this.columns.is(columns) ? row : -1
+        }
+
+        @Override
+        String get(Object key) {
+            Column column = key instanceof String ? columns.getColumn((String) key) : null
+            return column != null ? column.get(row) : null
+        }
+
+        @Override
+        boolean containsKey(Object key) {
+            return columns.columnNames.contains(key)
+        }
+
+        @Override
+        String put(String key, String value) {
+            String previous = get(key)
+            columns.set(row, key, value)
+            return previous
+        }
+
+        @Override
+        int size() {
+            return columns.columnNames.size()
+        }
+
+        @Override
+        Set<Map.Entry<String, String>> entrySet() {
+            Set<Map.Entry<String, String>> entries = new LinkedHashSet<Map.Entry<String, String>>()
+            for (String name : columns.columnNames)
+                entries.add(new RowEntry(this, name))
+            return entries
+        }
+    }
+
+    /**
+     * A field of a row view. Setting the value writes it to the columns.
+     */
+    private static class RowEntry implements Map.Entry<String, String> {
+
+        private final RowView rowView
+
+        private final String key
+
+        RowEntry(RowView rowView, String key) {
+            this.rowView = rowView
+            this.key = key
+        }
+
+        @Override
+        String getKey() {
+            return key
+        }
+
+        @Override
+        String getValue() {
+            return rowView.get(key)
+        }
+
+        @Override
+        String setValue(String value) {
+            return rowView.put(key, value)
+        }
+
+        @Override
+        boolean equals(Object other) {
+            if (!(other instanceof Map.Entry))
+                return false
+            Map.Entry entry = (Map.Entry) other
+            return Objects.equals(key, entry.key) && Objects.equals(getValue(), entry.value)
+        }
+
+        @Override
+        int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue())
+        }
+    }
+
+    /**
+     * @return a map view of the values of a row by column name. Changes to the map are written to the columns.
+     */
+    Map<String, String> getRowView(int row) {
+        return new RowView(this, row)
+    }
+
+    /**
+     * @return the row of the record, if it is a row view of these columns, or -1.
+     */
+    int getRowOfView(Map<String, String> record) {
+        return record instanceof RowView ? ((RowView) record).getRowOf(this) : -1
+    }
+
+    /**
+     * @return a new map with the values of a row by column name.
+     */
+    Map<String, String> getRow(int row) {
+        Map<String, String> record = new LinkedHashMap<String, String>()
+        for (Map.Entry<String, Column> column : columns.entrySet())
+            record.put(column.key, column.value.get(row))
+        return record
+    }
+}
@@ -6,9 +6,12 @@
 
 package de.dkfz.roddy.execution.io
 
+import de.dkfz.roddy.FeatureToggles
 import de.dkfz.roddy.Roddy;
 import de.dkfz.roddy.StringConstants;
+import de.dkfz.roddy.client.RoddyStartupModes
 import de.dkfz.roddy.client.RoddyStartupOptions
+import de.dkfz.roddy.client.cliclient.CommandLineCall
 import de.dkfz.roddy.config.ConfigurationValue
 import de.dkfz.roddy.config.loader.ConfigurationLoaderException
 import de.dkfz.roddy.core.Analysis
@@ -17,6 +20,9 @@ import de.dkfz.roddy.tools.RoddyConversionHelperMethods
 import groovy.transform.CompileStatic
 import org.apache.commons.csv.CSVFormat
 import org.apache.commons.csv.CSVParser
+import org.apache.commons.csv.CSVRecord
+import org.apache.commons.io.FilenameUtils
+import org.apache.commons.io.IOCase
 
 /**
  * A factory to construct Roddys metadata table instance.
@@ -69,7 +75,8 @@ final class MetadataTableFactory {
                     return [(colVar.toString()): colVal?.toString()]
             }
             try {
-                _cachedTable = readTable(new File(file), format, columnIDMap, mandatoryColumns);
+                _cachedTable = readTable(new File(file), format, columnIDMap, mandatoryColumns, getDatasetPatterns(),
+                        MetadataTableCache.isEnabled() ? MetadataTableCache.getDefaultCache() : null);
             } catch (IOException e) {
                 throw new ConfigurationLoaderException("Could not load metadata table from '$file'.\nError was '$e.message'\nEnsure that the file is accessible from the Roddy-executing system and correctly formatted.")
             }
@@ -83,26 +90,113 @@ final class MetadataTableFactory {
  **/
     }
 
+    /**
+     * @return the dataset specifications of the command line, if they can be used to skip the records of other datasets
+     * while the table is read. Null, if the whole table is needed.
+     */
+    static List<String> getDatasetPatterns() {
+        if (!Roddy.getFeatureToggleValue(FeatureToggles.FilterMetadataTableByDatasets))
+            return null
+        CommandLineCall clc = Roddy.getCommandLineCall()
+        if (!(clc.startupMode in [RoddyStartupModes.run, RoddyStartupModes.rerun,
+                                  RoddyStartupModes.testRun, RoddyStartupModes.testRerun])
+                || clc.getParameters().size() < 2)
+            return null
+        List<String> patterns = clc.getDatasetSpecifications()
+        if (patterns.any { String pattern -> pattern == "[ALL]" || pattern.contains(":") || pattern.contains("[") })
+            return null
+        return patterns
+    }
+
     public static BaseMetadataTable readTable(Reader instream, String format, Map<String, String> internalToCustomIDMap, List<String> mandatoryColumns) {
+        return readTable(instream, format, internalToCustomIDMap, mandatoryColumns, null)
+    }
+
+    /**
+     * Read the records one by one into the columns of the table. If dataset patterns are given, only the records with
+     * a dataset matching one of the (wildcard) patterns are kept.
+     */
+    public static BaseMetadataTable readTable(Reader instream, String format, Map<String, String> internalToCustomIDMap, List<String> mandatoryColumns,
+                                              List<String> datasetPatterns) {
         CSVFormat tableFormat = convertFormat(format)
         tableFormat = tableFormat.withCommentMarker('#' as char)
                 .withIgnoreEmptyLines()
                 .withHeader();
         CSVParser parser = tableFormat.parse(instream)
         def map = parser.headerMap as Map<String, Integer>
-        def collect = parser.records.collect { it.toMap() }
-        def inputTable = new BaseMetadataTable(map, internalToCustomIDMap, mandatoryColumns, collect)
-        return inputTable
+
+        Map<String, String> custom2InternalIDMap = [:]
+        internalToCustomIDMap.each { String key, String val -> custom2InternalIDMap[val] = key }
+
+        // The internal column IDs by their position in the records.
+        String[] internalIDs = new String[map.size()]
+        String unmappedKey = null
+        map.each { String key, Integer position ->
+            internalIDs[position] = custom2InternalIDMap[key]
+            if (internalIDs[position] == null && unmappedKey == null)
+                unmappedKey = key
+        }
+        Integer datasetPosition = map[internalToCustomIDMap[BaseMetadataTable.INPUT_TABLE_DATASET]]
+        if (datasetPatterns != null && datasetPosition == null)
+            datasetPatterns = null
+
+        MetadataTableColumns columns = new MetadataTableColumns(internalToCustomIDMap.keySet())
+        int skippedRecords = 0
+        for (CSVRecord record : parser) {
+            if (unmappedKey != null)
+                throw new RuntimeException("The metadata table key '${unmappedKey}' could not be mapped to an internal key!")
+            if (datasetPatterns != null && !matchesAny(datasetPosition < record.size() ? record.get(datasetPosition) : null, datasetPatterns)) {
+                skippedRecords++
+                continue
+            }
+            int row = columns.addRow()
+            int fields = Math.min(record.size(), internalIDs.length)
+            for (int position = 0; position < fields; position++)
+                columns.set(row, internalIDs[position], record.get(position))
+        }
+        if (datasetPatterns != null)
+            logger.postSometimesInfo("Read ${columns.rowCount} records of the metadata table, skipped ${skippedRecords} records of other datasets.")
+        return new BaseMetadataTable(map, internalToCustomIDMap, mandatoryColumns, columns)
+    }
+
+    private static boolean matchesAny(String dataset, List<String> datasetPatterns) {
+        if (dataset == null)
+            return false
+        for (String pattern : datasetPatterns) {
+            if (FilenameUtils.wildcardMatch(dataset, pattern, IOCase.SENSITIVE))
+                return true
+        }
+        return false
     }
 
     public static BaseMetadataTable readTable(File file, String format, Map<String, String> internalToCustomIDMap, List<String> mandatoryColumns) {
+        return readTable(file, format, internalToCustomIDMap, mandatoryColumns, null, null)
+    }
+
+    /**
+     * Read the table from the cache, if it contains the table read from the file with the same parameters. Otherwise
+     * read the file and store the table in the cache. The cache may be null.
+     */
+    public static BaseMetadataTable readTable(File file, String format, Map<String, String> internalToCustomIDMap, List<String> mandatoryColumns,
+                                              List<String> datasetPatterns, MetadataTableCache cache) {
+        String key = cache != null ? MetadataTableCache.createKey(file, format, internalToCustomIDMap, mandatoryColumns, datasetPatterns) : null
+        if (key != null) {
+            BaseMetadataTable cachedTable = cache.get(key, internalToCustomIDMap, mandatoryColumns)
+            if (cachedTable != null)
+                return cachedTable
+        }
+
         Reader instream
+        BaseMetadataTable table
         try {
-            instream = new FileReader(file)
-            return readTable(instream, format, internalToCustomIDMap, mandatoryColumns)
+            instream = new BufferedReader(new FileReader(file), 1 << 16)
+            table = readTable(instream, format, internalToCustomIDMap, mandatoryColumns, datasetPatterns)
         } finally {
             instream?.close()
         }
+        if (key != null)
+            cache.put(key, table)
+        return table
     }
 
     public static CSVFormat convertFormat(String format) {
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import de.dkfz.roddy.tools.Tuple3
+import groovy.transform.CompileStatic
+import net.schmizz.sshj.SSHClient
+import net.schmizz.sshj.connection.channel.direct.Session
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * A long-lived remote Bash into which commands are written one after another. This saves the setup of a new SSH
+ * session for every command.
+ *
+ * Each command is evaluated in a subshell with stdin from /dev/null. Its stderr is redirected to a temporary file.
+ * After the command, the shell prints a marker line with the exit code, the content of the stderr file and a second
+ * marker line. The marker is unique per channel, so command output cannot end a frame by accident. Output without a
+ * trailing newline is followed directly by the marker; the part before the marker is kept as last line.
+ *
+ * A channel executes one command at a time. If the stream breaks, the channel is marked as broken and must be closed.
+ */
+@CompileStatic
+class SSHCommandChannel implements Closeable {
+
+    static final String FRAME_STDOUT = "OUT"
+
+    static final String FRAME_STDERR = "ERR"
+
+    private final BufferedReader reader
+
+    private final Writer writer
+
+    private final Closeable resource
+
+    private final String marker
+
+    private boolean broken = false
+
+    private boolean closed = false
+
+    SSHCommandChannel(InputStream shellStdout, OutputStream shellStdin, Closeable resource,
+                      String marker = "__RODDY_FRAME_" + UUID.randomUUID().toString().replace("-", "") + "__") {
+        this.reader = new BufferedReader(new InputStreamReader(shellStdout, StandardCharsets.UTF_8))
+        this.writer = new OutputStreamWriter(shellStdin, StandardCharsets.UTF_8)
+        this.resource = resource
+        this.marker = marker
+    }
+
+    /**
+     * Open a session on the client and start the remote shell in it.
+     */
+    static SSHCommandChannel open(SSHClient client) {
+        Session session = client.startSession()
+        try {
+            Session.Command shell = session.exec("bash -s")
+            SSHCommandChannel channel = new SSHCommandChannel(shell.inputStream, shell.outputStream, session)
+            channel.start()
+            return channel
+        } catch (Exception ex) {
+            session.close()
+            throw ex
+        }
+    }
+
+    /**
+     * Create the stderr file of the shell and check, that the framing works.
+     */
+    void start() throws IOException {
+        writeToShell('__roddy_err=$(mktemp) || exit 1\n')
+        Integer exitCode = execute("true").x
+        if (exitCode != 0)
+            throw new IOException("The remote shell of the command channel could not be started.")
+    }
+
+    boolean isBroken() {
+        return broken
+    }
+
+    /**
+     * Execute the command in the remote shell and wait for it.
+     *
+     * @param outputStream If set, stdout lines are also written to this stream.
+     * @return exit code, stdout lines and stderr lines
+     */
+    synchronized Tuple3<Integer, List<String>, List<String>> execute(String command, OutputStream outputStream = null)
+            throws IOException {
+        if (broken || closed)
+            throw new IOException("The command channel cannot be used anymore.")
+        try {
+            writeToShell(frame(command))
+            List<String> stdout = []
+            Integer exitCode = readFrame(stdout, FRAME_STDOUT, outputStream)
+            List<String> stderr = []
+            readFrame(stderr, FRAME_STDERR, null)
+            return new Tuple3<Integer, List<String>, List<String>>(exitCode, stdout, stderr)
+        } catch (IOException ex) {
+            broken = true
+            throw ex
+        }
+    }
+
+    /**
+     * The command is passed to eval as single quoted string. Unbalanced quotes or a trailing backslash in the command
+     * thus only fail the command, but do not leave the shell waiting for more input.
+     */
+    String frame(String command) {
+        return "( eval ${singleQuote(command)} ) </dev/null 2>\"\$__roddy_err\"; " +
+                "printf '%s ${FRAME_STDOUT} %d\\n' ${singleQuote(marker)} \$?; " +
+                "cat \"\$__roddy_err\"; " +
+                "printf '%s ${FRAME_STDERR}\\n' ${singleQuote(marker)}\n"
+    }
+
+    static String singleQuote(String text) {
+        return "'" + text.replace("'", "'\\''") + "'"
+    }
+
+    private void writeToShell(String text) throws IOException {
+        writer.write(text)
+        writer.flush()
+    }
+
+    /**
+     * Read lines up to the end marker of the frame.
+     *
+     * @return The exit code for stdout frames, null for stderr frames.
+     */
+    private Integer readFrame(List<String> lines, String frameType, OutputStream outputStream) throws IOException {
+        while (true) {
+            String line = reader.readLine()
+            if (line == null)
+                throw new EOFException("The remote shell closed the command channel.")
+            int index = line.indexOf(marker)
+            if (index < 0) {
+                addLine(lines, line, outputStream)
+                continue
+            }
+            if (index > 0)
+                addLine(lines, line.substring(0, index), outputStream)
+            return parseFrameEnd(line.substring(index + marker.length()), frameType)
+        }
+    }
+
+    private static void addLine(List<String> lines, String line, OutputStream outputStream) {
+        lines << line
+        if (outputStream != null)
+            outputStream.write((line + "\n").getBytes(StandardCharsets.UTF_8))
+    }
+
+    static Integer parseFrameEnd(String frameEnd, String expectedFrameType) throws IOException {
+        String[] split = frameEnd.trim().split(" ")
+        if (split[0] != expectedFrameType)
+            throw new IOException("Expected the end of a ${expectedFrameType} frame, but got '${frameEnd}'.")
+        if (expectedFrameType == FRAME_STDERR)
+            return null
+        if (split.length != 2 || !split[1].isInteger())
+            throw new IOException("The end of the ${expectedFrameType} frame contains no exit code: '${frameEnd}'.")
+        return split[1] as Integer
+    }
+
+    @Override
+    synchronized void close() {
+        if (closed)
+            return
+        closed = true
+        try {
+            if (!broken)
+                writeToShell('rm -f "$__roddy_err"; exit 0\n')
+        } catch (IOException ignored) {
+            // The shell is gone anyway.
+        }
+        try {
+            resource?.close()
+        } catch (IOException ex) {
+            SSHExecutionService.logger.rare("Could not close the session of a command channel. " + ex)
+        }
+    }
+}
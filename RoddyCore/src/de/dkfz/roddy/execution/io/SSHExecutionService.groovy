@@ -12,6 +12,7 @@ import com.jcraft.jsch.agentproxy.Identity
 import com.jcraft.jsch.agentproxy.sshj.AuthAgent
 import de.dkfz.roddy.Constants
 import de.dkfz.roddy.ExitReasons
+import de.dkfz.roddy.FeatureToggles
 import de.dkfz.roddy.Roddy
 import de.dkfz.roddy.SystemProperties
 import de.dkfz.roddy.config.RoddyAppConfig
@@ -35,6 +36,7 @@ import sun.reflect.generics.reflectiveObjects.NotImplementedException
 
 import java.time.Duration
 import java.time.temporal.TemporalUnit
+import java.util.concurrent.Callable
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
@@ -66,6 +68,11 @@ class SSHExecutionService extends RemoteExecutionService {
 
         public SCPFileTransfer scpFileTransfer
 
+        /**
+         * Long-lived remote shells for the execution of commands.
+         */
+        public SSHSessionPool commandChannels
+
         public final String user
 
         public final String host
@@ -98,6 +105,14 @@ class SSHExecutionService extends RemoteExecutionService {
 
         void close() {
 
+            try {
+                if (commandChannels != null) {
+                    commandChannels.close()
+                }
+            } catch (Exception ex) {
+                logger.rare("Could not close SSH command channels." + ex)
+            }
+
             try {
                 if (sftpClient != null) {
                     sftpClient.close()
@@ -187,6 +202,8 @@ class SSHExecutionService extends RemoteExecutionService {
             sftpClient = client.newSFTPClient()
             scpFileTransfer = client.newSCPFileTransfer()
             scpDownloadClient = scpFileTransfer.newSCPDownloadClient()
+            commandChannels = new SSHSessionPool({ -> SSHCommandChannel.open(c) } as Callable<SSHCommandChannel>,
+                    maximumCommandChannels, poolMetrics)
             t1 = System.nanoTime()
             logger.sometimes(RoddyIOHelperMethods.printTimingInfo("create additional ssh services", t2, t1))
 
@@ -301,6 +318,22 @@ class SSHExecutionService extends RemoteExecutionService {
 
     private static Lock lock = new ReentrantLock()
 
+    private static final SSHPoolMetrics poolMetrics = new SSHPoolMetrics()
+
+    /**
+     * The number of command channels per connection is limited by the MaxSessions setting of the SSH server (default
+     * 10). Two sessions are kept free for the SFTP subsystem and SCP transfers.
+     */
+    static int getMaximumCommandChannels() {
+        int maxSessions = RoddyConversionHelperMethods.toInt(Roddy.applicationConfiguration.getOrSetApplicationProperty(
+                Roddy.getRunMode(), Constants.APP_PROPERTY_EXECUTION_SERVICE_MAX_SESSIONS, "10"), 10)
+        return Math.max(1, maxSessions - 2)
+    }
+
+    static SSHPoolMetrics getPoolMetrics() {
+        return poolMetrics
+    }
+
     private static final ConnectionPool connectionPool = new ConnectionPool()
 
     /**
@@ -331,6 +364,8 @@ class SSHExecutionService extends RemoteExecutionService {
         synchronized (connectionPool) {
             connectionPool.close()
         }
+        if (poolMetrics.commands > 0)
+            logger.postSometimesInfo(poolMetrics.toString())
     }
 
     @Override
@@ -389,38 +424,17 @@ class SSHExecutionService extends RemoteExecutionService {
 
         CompletableFuture<Tuple3<Integer,List<String>, List<String>>> processF = CompletableFuture.supplyAsync({
             SSHPoolConnectionSet connectionSet = waitForService()
-            SSHClient sshClient = connectionSet.client
-            connectionSet.acquire()
-            Session session = sshClient.startSession()
-            List<String> stdout
-            List<String> stderr
-            Integer exitCode
-            try {
-                Session.Command executingCommand
-                if (timeout != Duration.ZERO) {
-                    // TODO Remove this workaround. Try switching to mina-sshd.
-                    Long seconds = Math.round(Math.ceil(timeout.toNanos() / 1000000000.0d))
-                    Long killSeconds = 60
-                    String timeoutCommand = "timeout --preserve-status -s TERM -k ${killSeconds}s ${seconds}s"
-                    executingCommand = session.exec("${timeoutCommand} ${command}")
-                } else {
-                    executingCommand = session.exec(command)
-                }
-                if (outputStream) {
-                    stdout = LocalExecutionHelper.readStringStream(executingCommand.inputStream, outputStream)
-                } else {
-                    stdout = LocalExecutionHelper.readStringStream(executingCommand.inputStream)
-                }
-                stderr = LocalExecutionHelper.readStringStream(executingCommand.errorStream)
-
-                executingCommand.join()
-                exitCode = executingCommand.exitStatus
-            } finally {
-                connectionSet.release()
-                session.close()
+            String commandToExecute = command
+            if (timeout != Duration.ZERO) {
+                // TODO Remove this workaround. Try switching to mina-sshd.
+                Long seconds = Math.round(Math.ceil(timeout.toNanos() / 1000000000.0d))
+                Long killSeconds = 60
+                String timeoutCommand = "timeout --preserve-status -s TERM -k ${killSeconds}s ${seconds}s"
+                commandToExecute = "${timeoutCommand} ${command}"
             }
-
-            new Tuple3<Integer,List<String>, List<String>>(exitCode, stdout, stderr)
+            if (Roddy.getFeatureToggleValue(FeatureToggles.UseSSHCommandChannels))
+                return connectionSet.commandChannels.execute(commandToExecute, outputStream)
+            return executeInNewSession(connectionSet, commandToExecute, outputStream)
         } as Supplier<Tuple3<Integer,List<String>, List<String>>>, executorService)
 
         AsyncExecutionResult result = new AsyncExecutionResult([command], null as Integer,
@@ -435,6 +449,34 @@ class SSHExecutionService extends RemoteExecutionService {
         }
     }
 
+    private static Tuple3<Integer,List<String>, List<String>> executeInNewSession(SSHPoolConnectionSet connectionSet,
+                                                                                String command,
+                                                                                OutputStream outputStream) {
+        SSHClient sshClient = connectionSet.client
+        connectionSet.acquire()
+        Session session = sshClient.startSession()
+        List<String> stdout
+        List<String> stderr
+        Integer exitCode
+        try {
+            Session.Command executingCommand = session.exec(command)
+            if (outputStream) {
+                stdout = LocalExecutionHelper.readStringStream(executingCommand.inputStream, outputStream)
+            } else {
+                stdout = LocalExecutionHelper.readStringStream(executingCommand.inputStream)
+            }
+            stderr = LocalExecutionHelper.readStringStream(executingCommand.errorStream)
+
+            executingCommand.join()
+            exitCode = executingCommand.exitStatus
+        } finally {
+            connectionSet.release()
+            session.close()
+        }
+
+        new Tuple3<Integer,List<String>, List<String>>(exitCode, stdout, stderr)
+    }
+
 //    @Override
 //    public ExecutionResult execute(String string, boolean waitFor = true) {
 //        ExecutionResult result = _execute(string, waitFor);
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Counters of the SSH command channel pools of all connections.
+ */
+@CompileStatic
+class SSHPoolMetrics {
+
+    private final AtomicLong commands = new AtomicLong(0)
+
+    private final AtomicLong queueWaitNanos = new AtomicLong(0)
+
+    private final AtomicLong maximumQueueWaitNanos = new AtomicLong(0)
+
+    private final AtomicInteger inFlight = new AtomicInteger(0)
+
+    private final AtomicInteger maximumInFlight = new AtomicInteger(0)
+
+    private final AtomicLong sessionsOpened = new AtomicLong(0)
+
+    private final AtomicLong sessionsReused = new AtomicLong(0)
+
+    private final AtomicLong sessionOpenFailures = new AtomicLong(0)
+
+    void commandStarted(long waitNanos) {
+        commands.incrementAndGet()
+        queueWaitNanos.addAndGet(waitNanos)
+        long maximum = maximumQueueWaitNanos.get()
+        while (waitNanos > maximum && !maximumQueueWaitNanos.compareAndSet(maximum, waitNanos))
+            maximum = maximumQueueWaitNanos.get()
+        int current = inFlight.incrementAndGet()
+        int maximumCurrent = maximumInFlight.get()
+        while (current > maximumCurrent && !maximumInFlight.compareAndSet(maximumCurrent, current))
+            maximumCurrent = maximumInFlight.get()
+    }
+
+    void commandFinished() {
+        inFlight.decrementAndGet()
+    }
+
+    void sessionOpened() {
+        sessionsOpened.incrementAndGet()
+    }
+
+    void sessionReused() {
+        sessionsReused.incrementAndGet()
+    }
+
+    void sessionOpenFailed() {
+        sessionOpenFailures.incrementAndGet()
+    }
+
+    long getCommands() {
+        return commands.get()
+    }
+
+    int getInFlight() {
+        return inFlight.get()
+    }
+
+    int getMaximumInFlight() {
+        return maximumInFlight.get()
+    }
+
+    long getSessionsOpened() {
+        return sessionsOpened.get()
+    }
+
+    long getSessionsReused() {
+        return sessionsReused.get()
+    }
+
+    long getSessionOpenFailures() {
+        return sessionOpenFailures.get()
+    }
+
+    double getAverageQueueWaitMillis() {
+        long count = commands.get()
+        return count == 0 ? 0d : queueWaitNanos.get() / count / 1e6d
+    }
+
+    double getMaximumQueueWaitMillis() {
+        return maximumQueueWaitNanos.get() / 1e6d
+    }
+
+    @Override
+    String toString() {
+        return String.format(Locale.ENGLISH,
+                "SSH command channels: %d commands, %d in flight (max. %d), %d sessions opened, %d reused, " +
+                        "%d failed to open, queue wait %.1f ms on average (max. %.1f ms)",
+                commands.get(), inFlight.get(), maximumInFlight.get(), sessionsOpened.get(), sessionsReused.get(),
+                sessionOpenFailures.get(), averageQueueWaitMillis, maximumQueueWaitMillis)
+    }
+}
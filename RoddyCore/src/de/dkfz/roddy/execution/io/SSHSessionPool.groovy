@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import de.dkfz.roddy.tools.Tuple3
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.Callable
+
+/**
+ * A pool of command channels of one SSH connection, which adapts its size to the load.
+ *
+ * The pool starts with INITIAL_LIMIT channels. A channel is opened in addition, if commands had to wait for a channel
+ * for more than a quarter of the average command latency. After each window of WINDOW_SIZE commands, the limit is
+ * lowered to one above the highest number of concurrently used channels in the window. The limit never exceeds
+ * maximumSize. If the server refuses to open another session (MaxSessions), the limit and the maximum size are
+ * lowered to the number of open channels.
+ *
+ * Idle channels are reused last in, first out, so rarely used channels are the first to be closed.
+ */
+@CompileStatic
+class SSHSessionPool {
+
+    static final int INITIAL_LIMIT = 2
+
+    static final int WINDOW_SIZE = 64
+
+    /** Weight of the latest command in the moving averages of queue wait and latency. */
+    static final double AVERAGE_WEIGHT = 0.2d
+
+    private final Callable<SSHCommandChannel> channelFactory
+
+    private int maximumSize
+
+    private final SSHPoolMetrics metrics
+
+    private final Deque<SSHCommandChannel> idleChannels = new ArrayDeque<SSHCommandChannel>()
+
+    private int openChannels = 0
+
+    private int usedChannels = 0
+
+    private int limit
+
+    private int peakUsedChannelsInWindow = 0
+
+    private int commandsInWindow = 0
+
+    private double averageQueueWaitNanos = 0d
+
+    private double averageLatencyNanos = 0d
+
+    private boolean closed = false
+
+    SSHSessionPool(Callable<SSHCommandChannel> channelFactory, int maximumSize, SSHPoolMetrics metrics) {
+        this.channelFactory = channelFactory
+        this.maximumSize = Math.max(1, maximumSize)
+        this.metrics = metrics
+        this.limit = Math.min(INITIAL_LIMIT, this.maximumSize)
+    }
+
+    synchronized int getLimit() {
+        return limit
+    }
+
+    synchronized int getOpenChannels() {
+        return openChannels
+    }
+
+    /**
+     * Execute the command in a pooled channel. Waits, if all channels are in use.
+     */
+    Tuple3<Integer, List<String>, List<String>> execute(String command, OutputStream outputStream = null) {
+        long waitStart = System.nanoTime()
+        SSHCommandChannel channel = acquire()
+        long queueWait = System.nanoTime() - waitStart
+        metrics.commandStarted(queueWait)
+        long start = System.nanoTime()
+        boolean broken = true
+        try {
+            Tuple3<Integer, List<String>, List<String>> result = channel.execute(command, outputStream)
+            broken = false
+            return result
+        } finally {
+            metrics.commandFinished()
+            release(channel, broken, queueWait, System.nanoTime() - start)
+        }
+    }
+
+    private SSHCommandChannel acquire() {
+        while (true) {
+            synchronized (this) {
+                while (!closed && idleChannels.isEmpty() && openChannels >= limit)
+                    wait()
+                if (closed)
+                    throw new IOException("The SSH command channel pool was closed.")
+                usedChannels++
+                peakUsedChannelsInWindow = Math.max(peakUsedChannelsInWindow, usedChannels)
+                if (!idleChannels.isEmpty()) {
+                    metrics.sessionReused()
+                    return idleChannels.pollFirst()
+                }
+                openChannels++
+            }
+            SSHCommandChannel channel = openChannel()
+            if (channel != null)
+                return channel
+        }
+    }
+
+    /**
+     * @return The new channel or null, if the server refused it and other channels can be used instead.
+     */
+    private SSHCommandChannel openChannel() {
+        try {
+            SSHCommandChannel channel = channelFactory.call()
+            metrics.sessionOpened()
+            return channel
+        } catch (Exception ex) {
+            metrics.sessionOpenFailed()
+            synchronized (this) {
+                openChannels--
+                usedChannels--
+                if (openChannels == 0)
+                    throw new IOException("Could not open an SSH command channel: ${ex.message}", ex)
+                SSHExecutionService.logger.sometimes("Could not open SSH command channel ${openChannels + 1}, " +
+                        "limiting the pool to ${openChannels} channels: ${ex.message}")
+                // The server will not accept more sessions, while the open channels are in use.
+                maximumSize = openChannels
+                limit = openChannels
+                notifyAll()
+            }
+            return null
+        }
+    }
+
+    private void release(SSHCommandChannel channel, boolean broken, long queueWaitNanos, long latencyNanos) {
+        List<SSHCommandChannel> channelsToClose = []
+        synchronized (this) {
+            usedChannels--
+            adjustLimit(queueWaitNanos, latencyNanos)
+            if (broken || channel.broken || closed) {
+                openChannels--
+                channelsToClose << channel
+            } else {
+                idleChannels.addFirst(channel)
+            }
+            // Close the least recently used channels, if the limit was lowered.
+            while (openChannels > limit && !idleChannels.isEmpty()) {
+                openChannels--
+                channelsToClose << idleChannels.pollLast()
+            }
+            notifyAll()
+        }
+        for (SSHCommandChannel it : channelsToClose)
+            it.close()
+    }
+
+    /**
+     * Update the moving averages and the limit with the timings of a finished command.
+     */
+    synchronized void adjustLimit(long queueWaitNanos, long latencyNanos) {
+        averageQueueWaitNanos += AVERAGE_WEIGHT * (queueWaitNanos - averageQueueWaitNanos)
+        averageLatencyNanos += AVERAGE_WEIGHT * (latencyNanos - averageLatencyNanos)
+        if (averageQueueWaitNanos > averageLatencyNanos / 4 && limit < maximumSize) {
+            limit++
+            averageQueueWaitNanos = 0d
+        }
+        commandsInWindow++
+        if (commandsInWindow >= WINDOW_SIZE) {
+            limit = Math.min(limit, Math.max(1, peakUsedChannelsInWindow + 1))
+            commandsInWindow = 0
+            peakUsedChannelsInWindow = usedChannels
+        }
+    }
+
+    /**
+     * Close all idle channels. Used channels are closed when they are released.
+     */
+    void close() {
+        List<SSHCommandChannel> channels
+        synchronized (this) {
+            closed = true
+            channels = new ArrayList<SSHCommandChannel>(idleChannels)
+            openChannels -= idleChannels.size()
+            idleChannels.clear()
+            notifyAll()
+        }
+        for (SSHCommandChannel channel : channels)
+            channel.close()
+    }
+}
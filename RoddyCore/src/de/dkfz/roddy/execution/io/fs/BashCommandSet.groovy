@@ -65,6 +65,27 @@ class BashCommandSet extends ShellCommandSet {
         return TRUE
     }
 
+    /**
+     * Prints "<flags>\t<path>" for each file. The flags are the characters e, f, d, r, w, x (see FileStatus) or "-",
+     * if none of the tests succeeded. Paths are single quoted, so they may contain spaces.
+     */
+    @Override
+    String getFileStatusProbeCommand(Collection<File> files) {
+        String paths = files.collect { File f -> "'" + f.absolutePath.replace("'", "'\\''") + "'" }.join(" ")
+        return 'for f in ' + paths + '; do s=""; ' +
+                '[[ -e "$f" ]] && s+=e; [[ -f "$f" ]] && s+=f; [[ -d "$f" ]] && s+=d; ' +
+                '[[ -r "$f" ]] && s+=r; [[ -w "$f" ]] && s+=w; [[ -x "$f" ]] && s+=x; ' +
+                'printf "%s\\t%s\\n" "${s:--}" "$f"; done'
+    }
+
+    @Override
+    FileStatus parseFileStatusProbeLine(String line) {
+        int separator = line.indexOf("\t")
+        if (separator < 1)
+            return null
+        return FileStatus.fromFlags(new File(line.substring(separator + 1)), line.substring(0, separator))
+    }
+
     @Override
     String getUserDirectoryCommand() {
         return 'echo ~'
@@ -154,6 +175,19 @@ class BashCommandSet extends ShellCommandSet {
             return "${checkExistence} || install -d \"${path}\" || echo ''"
     }
 
+    @Override
+    String getCheckAndCreateDirectoriesCommand(Collection<File> files, String onCreateAccessRights, String onCreateFileGroup) {
+        String paths = files.collect { File f -> "'" + f.absolutePath.replace("'", "'\\''") + "'" }.join(" ")
+        String create
+        if (onCreateAccessRights && onCreateFileGroup)
+            // The command of sg is parsed again by a shell, so the path is passed %q-quoted.
+            create = "{ printf -v q %q \"\$d\" && sg ${onCreateFileGroup} -c \"umask ${onCreateAccessRights} && mkdir -p \$q\"; }"
+        else
+            create = 'install -d "$d"'
+        return 'for d in ' + paths + '; do [[ -e "$d" ]] || ' + create + '; ' +
+                '[[ -e "$d" && -d "$d" && -r "$d" ]] ' + TRUE_OR_FALSE + '; done'
+    }
+
     /** Check whether it is possible to change permissions at the target-location. Specifically, the path `file` will
      *  be appended by ".roddyPermissionTestFile" and it is checked, whether its permissions can get changed.
      *
@@ -323,12 +357,26 @@ class BashCommandSet extends ShellCommandSet {
         return "mv ${_in.absolutePath} ${_out.absolutePath}" \
     }
 
+    @Override
+    String getCreateSymbolicLinksCommand(Map<File, File> targetsByLink) {
+        return targetsByLink.collect { File link, File target ->
+            "ln -s ${target.absolutePath} ${link.absolutePath}".toString()
+        }.join("; ")
+    }
+
     @Override
     String getLockedAppendLineToFileCommand(File file, String line) {
         String path = file.absolutePath
         return "lockfile ${path}~; echo \"${line}\" >> ${path}; rm -rf ${path}~"
     }
 
+    @Override
+    String getLockedAppendLinesToFileCommand(File file, List<String> lines) {
+        String path = file.absolutePath
+        String quotedLines = lines.collect { String line -> "'" + line.replace("'", "'\\''") + "'" }.join(" ")
+        return "lockfile ${path}~; printf '%s\\n' ${quotedLines} >> ${path}; rm -rf ${path}~"
+    }
+
     @Override
     String getDefaultUMask() {
         return "007"
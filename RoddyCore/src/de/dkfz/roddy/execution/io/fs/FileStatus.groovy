@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io.fs
+
+import groovy.transform.CompileStatic
+
+/**
+ * The result of a file status probe (see ShellCommandSet.getFileStatusProbeCommand()). Like the single test
+ * commands, the access flags are only true, if the path exists.
+ */
+@CompileStatic
+class FileStatus {
+
+    static final String FLAG_EXISTS = "e"
+    static final String FLAG_REGULAR_FILE = "f"
+    static final String FLAG_DIRECTORY = "d"
+    static final String FLAG_READABLE = "r"
+    static final String FLAG_WRITABLE = "w"
+    static final String FLAG_EXECUTABLE = "x"
+
+    final File path
+    final boolean exists
+    final boolean regularFile
+    final boolean directory
+    final boolean readable
+    final boolean writable
+    final boolean executable
+
+    FileStatus(File path, boolean exists, boolean regularFile, boolean directory,
+               boolean readable, boolean writable, boolean executable) {
+        this.path = path
+        this.exists = exists
+        this.regularFile = exists && regularFile
+        this.directory = exists && directory
+        this.readable = exists && readable
+        this.writable = exists && writable
+        this.executable = exists && executable
+    }
+
+    /**
+     * @param flags A string with the probe flags (e.g. "efrw"). Unknown characters are ignored.
+     */
+    static FileStatus fromFlags(File path, String flags) {
+        return new FileStatus(path,
+                flags.contains(FLAG_EXISTS),
+                flags.contains(FLAG_REGULAR_FILE),
+                flags.contains(FLAG_DIRECTORY),
+                flags.contains(FLAG_READABLE),
+                flags.contains(FLAG_WRITABLE),
+                flags.contains(FLAG_EXECUTABLE))
+    }
+
+    /**
+     * Query the status with the Java file API. Only use this for local paths.
+     */
+    static FileStatus fromLocalFile(File path) {
+        return new FileStatus(path, path.exists(), path.isFile(), path.isDirectory(),
+                path.canRead(), path.canWrite(), path.canExecute())
+    }
+
+    static FileStatus missing(File path) {
+        return new FileStatus(path, false, false, false, false, false, false)
+    }
+
+    @Override
+    String toString() {
+        return "FileStatus(${path}: exists=${exists}, file=${regularFile}, directory=${directory}, " +
+                "r=${readable}, w=${writable}, x=${executable})"
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io.fs
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import groovy.transform.CompileStatic
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.BiFunction
+import java.util.function.Predicate
+
+/**
+ * A bounded cache of file metadata keyed by absolute path. Entries expire after a fixed time after they were
+ * written and the least recently used entries are evicted, if the maximum size is reached.
+ *
+ * The information for a path is collected from different sources: File status probes (existence, type and access
+ * rights), directory listings (existence and type) and owner queries. An entry only answers the questions for
+ * which it has information. File sizes are not cached, because files like job logs grow while they are watched.
+ * Each lookup counts as a hit or a miss, so the counters tell how many remote queries were saved.
+ */
+@CompileStatic
+class FileStatusCache {
+
+    static final long DEFAULT_MAXIMUM_SIZE = 200000
+
+    static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10)
+
+    /**
+     * The cached information for a single path. null fields are unknown.
+     */
+    @CompileStatic
+    static class Entry {
+        final FileStatus status
+        final Boolean listedAsDirectory
+        final String owner
+
+        Entry(FileStatus status, Boolean listedAsDirectory, String owner) {
+            this.status = status
+            this.listedAsDirectory = listedAsDirectory
+            this.owner = owner
+        }
+
+        /** The newer information wins, unknown values are kept from the older entry. */
+        Entry mergeWith(Entry newer) {
+            return new Entry(newer.status ?: status,
+                    newer.listedAsDirectory != null ? newer.listedAsDirectory : listedAsDirectory,
+                    newer.owner ?: owner)
+        }
+
+        Boolean getFileExists() {
+            if (status != null) return status.regularFile
+            if (listedAsDirectory != null) return !listedAsDirectory
+            return null
+        }
+
+        Boolean getDirectoryExists() {
+            if (status != null) return status.directory
+            if (listedAsDirectory != null) return listedAsDirectory
+            return null
+        }
+    }
+
+    private final Cache<String, Entry> cache
+
+    private final AtomicLong hits = new AtomicLong(0)
+
+    private final AtomicLong misses = new AtomicLong(0)
+
+    FileStatusCache() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_TIME_TO_LIVE)
+    }
+
+    FileStatusCache(long maximumSize, Duration timeToLive) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive.toMillis(), TimeUnit.MILLISECONDS)
+                .build() as Cache<String, Entry>
+    }
+
+    private <T> T count(T value) {
+        if (value != null)
+            hits.incrementAndGet()
+        else
+            misses.incrementAndGet()
+        return value
+    }
+
+    private Entry entry(File file) {
+        return cache.getIfPresent(file.absolutePath)
+    }
+
+    FileStatus getStatus(File file) {
+        return count(entry(file)?.status)
+    }
+
+    Boolean getFileExists(File file) {
+        return count(entry(file)?.fileExists)
+    }
+
+    Boolean getDirectoryExists(File file) {
+        return count(entry(file)?.directoryExists)
+    }
+
+    String getOwner(File file) {
+        return count(entry(file)?.owner)
+    }
+
+    private void merge(File file, Entry newEntry) {
+        cache.asMap().merge(file.absolutePath, newEntry,
+                { Entry older, Entry newer -> older.mergeWith(newer) } as BiFunction<Entry, Entry, Entry>)
+    }
+
+    void putStatus(FileStatus status) {
+        merge(status.path, new Entry(status, null, null))
+    }
+
+    /**
+     * Remember that a path was found by a directory listing.
+     */
+    void putListed(File file, boolean directory) {
+        merge(file, new Entry(null, directory, null))
+    }
+
+    void putOwner(File file, String owner) {
+        merge(file, new Entry(null, null, owner))
+    }
+
+    void invalidate(File file) {
+        cache.invalidate(file.absolutePath)
+    }
+
+    /**
+     * Invalidate the path and everything below it.
+     */
+    void invalidateRecursively(File directory) {
+        String path = directory.absolutePath
+        String prefix = path.endsWith(File.separator) ? path : path + File.separator
+        cache.invalidate(path)
+        cache.asMap().keySet().removeIf({ String key -> key.startsWith(prefix) } as Predicate<String>)
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll()
+    }
+
+    long size() {
+        return cache.size()
+    }
+
+    long getHits() {
+        return hits.get()
+    }
+
+    long getMisses() {
+        return misses.get()
+    }
+
+    @Override
+    String toString() {
+        return "File status cache: ${hits.get()} hits (saved queries), ${misses.get()} misses, ${cache.size()} entries"
+    }
+}
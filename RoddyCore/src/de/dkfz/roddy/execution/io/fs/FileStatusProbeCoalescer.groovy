@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io.fs
+
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+
+/**
+ * Merges concurrent single file status requests into batched probes.
+ *
+ * The first caller becomes the prober and executes a probe for all paths requested so far. Callers arriving while a
+ * probe is running are queued and served together by the next probe of the same prober. Without concurrent callers,
+ * each request results in a probe for a single path, i.e. the behaviour is the same as with a direct call.
+ */
+@CompileStatic
+class FileStatusProbeCoalescer {
+
+    private final Closure<Map<File, FileStatus>> batchProbe
+
+    private final Object lock = new Object()
+
+    private Map<File, CompletableFuture<FileStatus>> pendingRequests = new LinkedHashMap<>()
+
+    private boolean probing = false
+
+    /**
+     * @param batchProbe Takes a collection of files and returns the status for (at least) each of the files.
+     */
+    FileStatusProbeCoalescer(Closure<Map<File, FileStatus>> batchProbe) {
+        this.batchProbe = batchProbe
+    }
+
+    FileStatus probe(File file) {
+        CompletableFuture<FileStatus> request
+        boolean becomeProber = false
+        synchronized (lock) {
+            request = pendingRequests.get(file)
+            if (request == null) {
+                request = new CompletableFuture<FileStatus>()
+                pendingRequests.put(file, request)
+            }
+            if (!probing) {
+                probing = true
+                becomeProber = true
+            }
+        }
+
+        if (becomeProber)
+            probePendingRequests()
+
+        try {
+            return request.get()
+        } catch (ExecutionException ex) {
+            throw ex.cause instanceof RuntimeException ? (RuntimeException) ex.cause : new RuntimeException(ex.cause)
+        }
+    }
+
+    private void probePendingRequests() {
+        while (true) {
+            Map<File, CompletableFuture<FileStatus>> batch
+            synchronized (lock) {
+                if (pendingRequests.isEmpty()) {
+                    probing = false
+                    return
+                }
+                batch = pendingRequests
+                pendingRequests = new LinkedHashMap<>()
+            }
+
+            try {
+                Map<File, FileStatus> result = batchProbe.call(batch.keySet())
+                for (Map.Entry<File, CompletableFuture<FileStatus>> entry : batch.entrySet()) {
+                    FileStatus status = result.get(entry.key)
+                    entry.value.complete(status != null ? status : FileStatus.missing(entry.key))
+                }
+            } catch (Throwable t) {
+                for (CompletableFuture<FileStatus> request : batch.values())
+                    request.completeExceptionally(t)
+            }
+        }
+    }
+}
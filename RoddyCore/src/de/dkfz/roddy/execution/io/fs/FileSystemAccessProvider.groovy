@@ -7,6 +7,7 @@
 package de.dkfz.roddy.execution.io.fs
 
 import de.dkfz.roddy.Constants
+import de.dkfz.roddy.FeatureToggles
 import de.dkfz.roddy.Roddy
 import de.dkfz.roddy.SystemProperties
 import de.dkfz.roddy.config.converters.ConfigurationConverter
@@ -162,11 +163,6 @@ class FileSystemAccessProvider {
         return isReadable(bf.path)
     }
 
-    private boolean runFileTestCommand(String cmd) {
-        ExecutionResult er = ExecutionService.instance.execute(cmd, true)
-        return er.firstStdoutLine == commandSet.getReadabilityTestPositiveResult()
-    }
-
     boolean isCachingAllowed(File file) {
         List<String> filters = ['.roddyExecCache', '.roddy', 'jobStateLogfile', 'JobCalls', 'zippedAnalysesMD5.txt']
 
@@ -177,11 +173,141 @@ class FileSystemAccessProvider {
         return true
     }
 
+    /**
+     * The maximum number of paths that are probed with a single remote command. This keeps the command line well
+     * below the usual limits of the remote shell.
+     */
+    static final int FILE_STATUS_PROBE_BATCH_SIZE = 500
+
+    /**
+     * Merges concurrent single file tests into batched probes, if the execution service cannot query file
+     * attributes itself.
+     */
+    protected final FileStatusProbeCoalescer fileStatusProbe =
+            new FileStatusProbeCoalescer({ Collection<File> files -> probeFileStatus(files) })
+
+    /**
+     * Remembers the results of file status queries on remote file systems. Paths that are changed via this class are
+     * invalidated. See isFileStatusCacheApplicable() for the files that are cached.
+     */
+    protected final FileStatusCache fileStatusCache = new FileStatusCache()
+
+    FileStatusCache getFileStatusCache() {
+        return fileStatusCache
+    }
+
+    /**
+     * The cache is only used for remote file systems, where each query costs a round trip, and only for files for
+     * which isCachingAllowed() is true. Local file queries are cheap and always reflect the current state.
+     */
+    protected boolean isFileStatusCacheApplicable(File file) {
+        return file != null &&
+                !ExecutionService.instance.isLocalService() &&
+                Roddy.getFeatureToggleValue(FeatureToggles.UseFileStatusCache) &&
+                isCachingAllowed(file)
+    }
+
+    /**
+     * Invalidate the cached status of a file that was created, changed or removed. The parent directory is
+     * invalidated as well, because it might have been created along with the file. Writing methods call this before
+     * and after the change, so that the status of a concurrent query during the change is not kept.
+     */
+    protected void invalidateFileStatus(File file) {
+        if (file == null) return
+        fileStatusCache.invalidate(file)
+        if (file.parentFile != null)
+            fileStatusCache.invalidate(file.parentFile)
+    }
+
+    protected void invalidateFileStatusRecursively(File directory) {
+        if (directory == null) return
+        fileStatusCache.invalidateRecursively(directory)
+        if (directory.parentFile != null)
+            fileStatusCache.invalidate(directory.parentFile)
+    }
+
+    private void cacheListedFiles(Collection<File> files, boolean directories) {
+        for (File file : files) {
+            if (file.isAbsolute() && isFileStatusCacheApplicable(file))
+                fileStatusCache.putListed(file, directories)
+        }
+    }
+
+    /**
+     * Query existence, type and access rights of all files with as few commands as possible. For local services,
+     * the Java file API is used. Otherwise, the files are probed in batches of FILE_STATUS_PROBE_BATCH_SIZE with
+     * the commandSet's file status probe.
+     *
+     * @param files The files to query. null entries and duplicates are ignored.
+     * @return A map with a status for each of the (non-null) files.
+     */
+    Map<File, FileStatus> queryFileStatus(Collection<File> files) {
+        List<File> distinctFiles = new ArrayList<>(new LinkedHashSet<File>(files.findAll { it != null }))
+        if (ExecutionService.instance.isLocalService()) {
+            Map<File, FileStatus> result = new LinkedHashMap<>()
+            for (File file : distinctFiles)
+                result[file] = FileStatus.fromLocalFile(file)
+            return result
+        }
+        Map<File, FileStatus> result = new LinkedHashMap<>()
+        List<File> uncachedFiles = []
+        for (File file : distinctFiles) {
+            FileStatus cached = isFileStatusCacheApplicable(file) ? fileStatusCache.getStatus(file) : null
+            if (cached != null)
+                result[file] = cached
+            else
+                uncachedFiles << file
+        }
+        if (uncachedFiles)
+            result.putAll(probeFileStatus(uncachedFiles))
+        return result
+    }
+
+    protected Map<File, FileStatus> probeFileStatus(Collection<File> files) {
+        Map<File, FileStatus> result = new LinkedHashMap<>()
+        for (List<File> batch : (new ArrayList<File>(files)).collate(FILE_STATUS_PROBE_BATCH_SIZE)) {
+            Map<String, File> filesByPath = batch.collectEntries { File f -> [f.absolutePath, f] } as Map<String, File>
+            ExecutionResult er = ExecutionService.instance.execute(commandSet.getFileStatusProbeCommand(batch), true)
+            if (!er.successful)
+                logger.warning("File status probe for ${batch.size()} files failed: ${er.toStatusMessage()}")
+            for (String line : er.stdout) {
+                FileStatus status = commandSet.parseFileStatusProbeLine(line)
+                if (status != null && filesByPath.containsKey(status.path.absolutePath))
+                    result[filesByPath[status.path.absolutePath]] = status
+            }
+            for (File file : batch) {
+                if (!result.containsKey(file))
+                    result[file] = FileStatus.missing(file)
+                // Do not remember files as missing, if the probe itself failed.
+                if (er.successful && isFileStatusCacheApplicable(file))
+                    fileStatusCache.putStatus(result[file])
+            }
+        }
+        return result
+    }
+
+    /**
+     * Query the readability of all base files with as few commands as possible and store the result in the
+     * base file objects. Afterwards, BaseFile.isFileReadable() does not need to access the file system anymore.
+     */
+    void queryReadabilityOfBaseFiles(Collection<BaseFile> baseFiles) {
+        Map<File, FileStatus> status = queryFileStatus(baseFiles.collect { BaseFile bf -> bf.path })
+        for (BaseFile bf : baseFiles) {
+            if (bf.path != null)
+                bf.isFileReadable(status[bf.path].readable)
+        }
+    }
+
     boolean fileExists(File f) {
+        if (isFileStatusCacheApplicable(f)) {
+            Boolean cached = fileStatusCache.getFileExists(f)
+            if (cached != null)
+                return cached
+        }
         if (ExecutionService.instance.canQueryFileAttributes()) {
             return ExecutionService.instance.fileExists(f)
         }
-        return runFileTestCommand(commandSet.getFileExistsTestCommand(f))
+        return fileStatusProbe.probe(f).regularFile
     }
 
     Long fileSize(File f) {
@@ -194,10 +320,19 @@ class FileSystemAccessProvider {
     }
 
     boolean directoryExists(File f) {
+        if (isFileStatusCacheApplicable(f)) {
+            Boolean cached = fileStatusCache.getDirectoryExists(f)
+            if (cached != null)
+                return cached
+        }
         if (ExecutionService.instance.canQueryFileAttributes()) {
             return ExecutionService.instance.directoryExists(f)
         }
-        return runFileTestCommand(commandSet.getDirectoryExistsTestCommand(f))
+        return fileStatusProbe.probe(f).directory
+    }
+
+    private FileStatus getCachedStatus(File f) {
+        return isFileStatusCacheApplicable(f) ? fileStatusCache.getStatus(f) : null
     }
 
     /**
@@ -206,10 +341,13 @@ class FileSystemAccessProvider {
      * @return
      */
     boolean isReadable(File f) {
+        FileStatus cached = getCachedStatus(f)
+        if (cached != null)
+            return cached.readable
         if (ExecutionService.instance.canQueryFileAttributes()) {
             return ExecutionService.instance.isFileReadable(f)
         }
-        return runFileTestCommand(commandSet.getReadabilityTestCommand(f))
+        return fileStatusProbe.probe(f).readable
     }
 
     boolean isWritable(BaseFile f) {
@@ -217,13 +355,19 @@ class FileSystemAccessProvider {
     }
 
     boolean isWritable(File f) {
+        FileStatus cached = getCachedStatus(f)
+        if (cached != null)
+            return cached.writable
         if (ExecutionService.instance.canQueryFileAttributes()) {
             return ExecutionService.instance.isFileWriteable(f)
         }
-        return runFileTestCommand(commandSet.getWriteabilityTestCommand(f))
+        return fileStatusProbe.probe(f).writable
     }
 
     boolean isExecutable(File f) {
+        FileStatus cached = getCachedStatus(f)
+        if (cached != null)
+            return cached.executable
         ExecutionService eService = ExecutionService.instance
         if (eService.canQueryFileAttributes()) {
             return eService.isFileExecutable(f)
@@ -231,10 +375,7 @@ class FileSystemAccessProvider {
             if (eService.isLocalService())
                 return f.canExecute()
             else
-                return eService.execute(
-                        commandSet.getExecutabilityTestCommand(f),
-                        true).
-                        firstStdoutLine == commandSet.getReadabilityTestPositiveResult()
+                return fileStatusProbe.probe(f).executable
         }
     }
 
@@ -269,6 +410,7 @@ class FileSystemAccessProvider {
             if (folderFound == null)
                 allFiles.add(folderIn)
         }
+        cacheListedFiles(allFiles, true)
         return allFiles
     }
 
@@ -300,6 +442,7 @@ class FileSystemAccessProvider {
                         files << new File(l)
                     }
                 }
+                cacheListedFiles(files, false)
                 return files
             }
         } else {
@@ -332,6 +475,8 @@ class FileSystemAccessProvider {
                         true)
 
         List<File> foundFiles = result.stdout.collect { new File(it) } as List<File>
+        if (result.successful)
+            cacheListedFiles(foundFiles, false)
 
         foundFiles.findAll {
             String comparable
@@ -379,6 +524,7 @@ class FileSystemAccessProvider {
     boolean checkDirectory(File f, ExecutionContext context, boolean createMissing) {
         String cmd
         if (createMissing) {
+            invalidateFileStatus(f)
             String outputAccessRightsForDirectories = context.outputDirectoryAccessRights
             String outputFileGroup = context.outputGroupString
             cmd = commandSet.getCheckDirectoryCommand(f, true, outputFileGroup,
@@ -387,9 +533,35 @@ class FileSystemAccessProvider {
             cmd = commandSet.getCheckDirectoryCommand(f)
         }
         ExecutionResult er = ExecutionService.instance.execute(cmd, true)
+        if (createMissing)
+            invalidateFileStatus(f)
         return (er.firstStdoutLine == commandSet.readabilityTestPositiveResult)
     }
 
+    /**
+     * Create all missing directories with the output access rights and group of the context. The directories are
+     * created with one command per FILE_STATUS_PROBE_BATCH_SIZE directories.
+     * @return The directories that are missing or not readable afterwards.
+     */
+    Set<File> createDirectories(Collection<File> directories, ExecutionContext context) {
+        Set<File> failed = new LinkedHashSet<>()
+        for (List<File> batch : (new ArrayList<File>(directories)).collate(FILE_STATUS_PROBE_BATCH_SIZE)) {
+            for (File f : batch)
+                invalidateFileStatus(f)
+            String cmd = commandSet.getCheckAndCreateDirectoriesCommand(batch,
+                    context.outputDirectoryAccessRights, context.outputGroupString)
+            ExecutionResult er = ExecutionService.instance.execute(cmd, true)
+            for (File f : batch)
+                invalidateFileStatus(f)
+            List<String> lines = er.stdout
+            for (int i = 0; i < batch.size(); i++) {
+                if (i >= lines.size() || lines[i] != commandSet.readabilityTestPositiveResult)
+                    failed << batch[i]
+            }
+        }
+        return failed
+    }
+
     boolean checkBaseFiles(BaseFile... filesToCheck) {
         for (BaseFile bf : filesToCheck) {
             if (!checkFile(bf.path))
@@ -511,6 +683,19 @@ class FileSystemAccessProvider {
      * Returns the creator / current owner of a path.
      */
     String getOwnerOfPath(File file) {
+        boolean cacheable = isFileStatusCacheApplicable(file)
+        if (cacheable) {
+            String cached = fileStatusCache.getOwner(file)
+            if (cached != null)
+                return cached
+        }
+        String owner = _queryOwnerOfPath(file)
+        if (cacheable && owner)
+            fileStatusCache.putOwner(file, owner)
+        return owner
+    }
+
+    private String _queryOwnerOfPath(File file) {
         if (ExecutionService.instance.canQueryFileAttributes()) {
             FileAttributes attributes = ExecutionService.instance.queryFileAttributes(file)
             if (attributes == null || attributes.userID == null)
@@ -528,73 +713,104 @@ class FileSystemAccessProvider {
 
 
     boolean writeTextFile(File file, String text, ExecutionContext context) {
+        context?.createRequestedDirectoriesFor(file)
         return writeTextFile(file, text) &&
                 setDefaultAccessRights(file, context)
     }
 
     boolean writeTextFile(File file, String text) {
-        ExecutionService eService = ExecutionService.instance
-        if (eService.canWriteFiles()) {
-            return eService.writeTextFile(file, text)
-        } else if (eService.isLocalService()) {
-            if (!file.getParentFile().exists())
-                file.getParentFile().mkdirs()
-            file.write(text)
-            return true
-        } else
-            throw new RuntimeException("Not implemented yet!");
+        invalidateFileStatus(file)
+        try {
+            ExecutionService eService = ExecutionService.instance
+            if (eService.canWriteFiles()) {
+                return eService.writeTextFile(file, text)
+            } else if (eService.isLocalService()) {
+                if (!file.getParentFile().exists())
+                    file.getParentFile().mkdirs()
+                file.write(text)
+                return true
+            } else
+                throw new RuntimeException("Not implemented yet!");
+        } finally {
+            invalidateFileStatus(file)
+        }
     }
 
     boolean writeBinaryFile(File file, Serializable serializable, ExecutionContext context) {
+        context?.createRequestedDirectoriesFor(file)
         writeBinaryFile(file, serializable) && setDefaultAccessRights(file, context)
     }
 
     boolean writeBinaryFile(File file, Serializable serializable) {
-        if (ExecutionService.instance.canWriteFiles()) {
-            return ExecutionService.instance.writeBinaryFile(file, serializable)
+        invalidateFileStatus(file)
+        try {
+            if (ExecutionService.instance.canWriteFiles()) {
+                return ExecutionService.instance.writeBinaryFile(file, serializable)
+            }
+            throw new RuntimeException('Not implemented yet!')
+        } finally {
+            invalidateFileStatus(file)
         }
-        throw new RuntimeException('Not implemented yet!')
     }
 
     boolean copyFile(File _in, File _out, ExecutionContext context) {
+        context?.createRequestedDirectoriesFor(_out)
         copyFile(_in, _out) && setDefaultAccessRights(_out, context)
     }
 
     boolean copyFile(File _in, File _out) {
-        ExecutionService eService = ExecutionService.instance
-        if (eService.canCopyFiles()) {
-            return eService.copyFile(_in, _out)
-        } else {
-            return eService.execute(commandSet.getCopyFileCommand(_in, _out), true)
+        invalidateFileStatus(_out)
+        try {
+            ExecutionService eService = ExecutionService.instance
+            if (eService.canCopyFiles()) {
+                return eService.copyFile(_in, _out)
+            } else {
+                return eService.execute(commandSet.getCopyFileCommand(_in, _out), true)
+            }
+        } finally {
+            invalidateFileStatus(_out)
         }
     }
 
     boolean moveFile(File _from, File _to, ExecutionContext context) {
+        context?.createRequestedDirectoriesFor(_to)
         moveFile(_from, _to) && setDefaultAccessRights(_to, context)
     }
 
     boolean moveFile(File _from, File _to) {
-        ExecutionService eService = ExecutionService.instance
-        if (eService.canCopyFiles()) {
-            return eService.moveFile(_from, _to);
-        } else {
-            return eService.execute(commandSet.getMoveFileCommand(_from, _to), true);
+        invalidateFileStatus(_from)
+        invalidateFileStatus(_to)
+        try {
+            ExecutionService eService = ExecutionService.instance
+            if (eService.canCopyFiles()) {
+                return eService.moveFile(_from, _to);
+            } else {
+                return eService.execute(commandSet.getMoveFileCommand(_from, _to), true);
+            }
+        } finally {
+            invalidateFileStatus(_from)
+            invalidateFileStatus(_to)
         }
     }
 
     boolean copyDirectory(File _in, File _out, ExecutionContext context) {
+        context?.createRequestedDirectoriesFor(_out)
         copyDirectory(_in, _out) && setDefaultAccessRightsRecursively(_out, context)
     }
 
     boolean copyDirectory(File _in, File _out) {
-        ExecutionService eService = ExecutionService.instance
-        if (eService.canCopyFiles()) {
-            return eService.copyDirectory(_in, _out)
-        } else {
-            def executionResult = eService.execute(commandSet.getCopyDirectoryCommand(_in, _out), true)
-            return executionResult.successful
+        invalidateFileStatusRecursively(_out)
+        try {
+            ExecutionService eService = ExecutionService.instance
+            if (eService.canCopyFiles()) {
+                return eService.copyDirectory(_in, _out)
+            } else {
+                def executionResult = eService.execute(commandSet.getCopyDirectoryCommand(_in, _out), true)
+                return executionResult.successful
+            }
+        } finally {
+            invalidateFileStatusRecursively(_out)
         }
-
     }
 
     /**
@@ -643,9 +859,14 @@ class FileSystemAccessProvider {
      * @return
      */
     boolean setAccessRightsRecursively(File path, String accessStringDirectories, String accessStringFiles, String group) {
-        commandSet.getSetAccessRightsRecursivelyCommand(path, accessStringDirectories, accessStringFiles, group)
-                .map { ExecutionService.instance.execute(it, false).successful }
-                .orElse(true)
+        invalidateFileStatusRecursively(path)
+        try {
+            return commandSet.getSetAccessRightsRecursivelyCommand(path, accessStringDirectories, accessStringFiles, group)
+                    .map { ExecutionService.instance.execute(it, false).successful }
+                    .orElse(true)
+        } finally {
+            invalidateFileStatusRecursively(path)
+        }
     }
 
     boolean setDefaultAccessRights(File file, ExecutionContext context) {
@@ -666,13 +887,18 @@ class FileSystemAccessProvider {
      * @return
      */
     boolean setAccessRights(File file, String accessString, String group) {
-        ExecutionService eService = ExecutionService.instance
-        if (eService.canModifyAccessRights()) {
-            return eService.modifyAccessRights(file, accessString, group)
-        } else {
-            return commandSet.getSetAccessRightsCommand(file, accessString, group)
-                    .map { eService.execute(it, true).successful }
-                    .orElse(true)
+        invalidateFileStatus(file)
+        try {
+            ExecutionService eService = ExecutionService.instance
+            if (eService.canModifyAccessRights()) {
+                return eService.modifyAccessRights(file, accessString, group)
+            } else {
+                return commandSet.getSetAccessRightsCommand(file, accessString, group)
+                        .map { eService.execute(it, true).successful }
+                        .orElse(true)
+            }
+        } finally {
+            invalidateFileStatus(file)
         }
     }
 
@@ -714,6 +940,8 @@ class FileSystemAccessProvider {
     }
 
     boolean createFileWithDefaultAccessRights(boolean atomic, File filename, ExecutionContext context, boolean blocking) {
+        context?.createRequestedDirectoriesFor(filename)
+        invalidateFileStatus(filename)
         ExecutionService eService = ExecutionService.instance
         try {
             if (eService.canWriteFiles()) {
@@ -732,23 +960,35 @@ class FileSystemAccessProvider {
         } catch (Exception ex) {
             logger.postAlwaysInfo("Error creating file '${filename}'")
             return false
+        } finally {
+            invalidateFileStatus(filename)
         }
     }
 
     boolean appendLinesToFile(boolean atomic, File filename, List<String> lines, boolean blocking) {
-        ExecutionService eService = ExecutionService.instance
-        if (eService.canWriteFiles()) {
-            return eService.appendLinesToFile(atomic, filename, lines, blocking)
-        } else {
-            lines.each {
-                String line -> appendLineToFile(atomic, filename, line, blocking)
+        invalidateFileStatus(filename)
+        if (lines.isEmpty())
+            return true
+        try {
+            ExecutionService eService = ExecutionService.instance
+            if (atomic) { // All lines are appended while the lockfile is held, so they stay together.
+                return eService.execute(commandSet.getLockedAppendLinesToFileCommand(filename, lines)).successful
+            } else if (eService.canWriteFiles()) {
+                return eService.appendLinesToFile(atomic, filename, lines, blocking)
+            } else {
+                return lines.every { String line -> appendLineToFile(atomic, filename, line, blocking) }
             }
-            throw new RuntimeException('Not implemented yet!')
+        } catch (Exception ex) {
+            logger.postAlwaysInfo("Error appending to file '${filename}'")
+            return false
+        } finally {
+            invalidateFileStatus(filename)
         }
     }
 
 
     boolean appendLineToFile(boolean atomic, File filename, String line, boolean blocking) {
+        invalidateFileStatus(filename)
         try {
             ExecutionService eService = ExecutionService.instance
             if (atomic) { // Work very safe and use a lockfile
@@ -769,6 +1009,8 @@ class FileSystemAccessProvider {
             }
         } catch (Exception ex) {
             logger.postAlwaysInfo("Error appending to file '${filename}'")
+        } finally {
+            invalidateFileStatus(filename)
         }
     }
 
@@ -786,7 +1028,7 @@ class FileSystemAccessProvider {
                     bf.isFileReadable(exists)
             }
         } else {
-            //throw new RuntimeException('Not implemented yet!');
+            queryReadabilityOfBaseFiles(context.allFilesInRun)
         }
 
         for (BaseFile bf : context.allFilesInRun) {
@@ -796,11 +1038,16 @@ class FileSystemAccessProvider {
     }
 
     boolean removeDirectory(File directory) {
-        ExecutionService eService = ExecutionService.instance
-        if (eService.canDeleteFiles()) {
-            return eService.removeDirectory(directory)
-        } else {
-            return eService.execute(commandSet.getRemoveDirectoryCommand(directory), true)
+        invalidateFileStatusRecursively(directory)
+        try {
+            ExecutionService eService = ExecutionService.instance
+            if (eService.canDeleteFiles()) {
+                return eService.removeDirectory(directory)
+            } else {
+                return eService.execute(commandSet.getRemoveDirectoryCommand(directory), true)
+            }
+        } finally {
+            invalidateFileStatusRecursively(directory)
         }
     }
 
@@ -11,8 +11,13 @@ import de.dkfz.roddy.knowledge.files.BaseFile;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Dummy file system info provider which is used in lean initialization mode.
@@ -60,11 +65,26 @@ public class NoNoFileSystemAccessProvider extends FileSystemAccessProvider {
         return true;
     }
 
+    @Override
+    public Map<File, FileStatus> queryFileStatus(Collection<File> files) {
+        Map<File, FileStatus> result = new LinkedHashMap<>();
+        for (File f : files) {
+            if (f != null)
+                result.put(f, new FileStatus(f, true, true, false, true, true, true));
+        }
+        return result;
+    }
+
     @Override
     public boolean checkDirectory(File f, ExecutionContext context, boolean createMissing) {
         return true;
     }
 
+    @Override
+    public Set<File> createDirectories(Collection<File> directories, ExecutionContext context) {
+        return new LinkedHashSet<>();
+    }
+
     @Override
     public File getUserDirectory() {
         return new File("/virtualhomedrive/nouser");
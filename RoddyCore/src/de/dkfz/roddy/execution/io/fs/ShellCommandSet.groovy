@@ -26,6 +26,19 @@ abstract class ShellCommandSet {
 
     abstract String getReadabilityTestPositiveResult()
 
+    /**
+     * Return a command that probes existence, type and access rights of all given files in one invocation.
+     * The command prints one line per file, which can be parsed with parseFileStatusProbeLine().
+     * @param files The files to probe. Callers should keep the number of files per command moderate.
+     */
+    abstract String getFileStatusProbeCommand(Collection<File> files)
+
+    /**
+     * Parse a line of the output of the getFileStatusProbeCommand() command.
+     * @return The parsed status or null, if the line is not a status line.
+     */
+    abstract FileStatus parseFileStatusProbeLine(String line)
+
     abstract String getUserDirectoryCommand()
 
     abstract String getWhoAmICommand()
@@ -50,6 +63,13 @@ abstract class ShellCommandSet {
 
     abstract String getCheckAndCreateDirectoryCommand(File f, String onCreateAccessRights, String onCreateFileGroup)
 
+    /**
+     * Return a command that creates all missing directories like getCheckAndCreateDirectoryCommand() and prints the
+     * readability test result for each directory, one line per directory in the given order.
+     * @param files The directories to create. Callers should keep the number of directories per command moderate.
+     */
+    abstract String getCheckAndCreateDirectoriesCommand(Collection<File> files, String onCreateAccessRights, String onCreateFileGroup)
+
     abstract String getCheckChangeOfPermissionsPossibilityCommand(File f, String group)
 
     abstract Optional<String> getSetAccessRightsCommand(File f, String rightsForFiles, String fileGroup)
@@ -119,8 +139,20 @@ abstract class ShellCommandSet {
 
     abstract String getMoveFileCommand(File _from, File _to)
 
+    /**
+     * Create all symbolic links with a single command. Failures for single links are ignored.
+     *
+     * @param targetsByLink The link files and the files they point to.
+     */
+    abstract String getCreateSymbolicLinksCommand(Map<File, File> targetsByLink)
+
     abstract String getLockedAppendLineToFileCommand(File file, String line)
 
+    /**
+     * Append all lines with a single command, while the lock on the file is held.
+     */
+    abstract String getLockedAppendLinesToFileCommand(File file, List<String> lines)
+
     abstract String getDefaultUMask()
 
     abstract String getDefaultAccessRightsString()
@@ -576,11 +576,10 @@ class Job extends BEJob<BEJob, BEJobResult> {
                 jobInfoLine = null
             }
             if (jobInfoLine != null)
-                FileSystemAccessProvider.instance.
-                        appendLineToFile(true,
-                                executionContext.runtimeService.getJobStateLogFile(executionContext), 
+                executionContext.jobSubmissionPipeline.
+                        appendJobStateLine(executionContext.runtimeService.getJobStateLogFile(executionContext),
                                 jobInfoLine,
-                                false)
+                                jobManager.holdJobsEnabled)
         }
     }
 
@@ -625,9 +624,8 @@ class Job extends BEJob<BEJob, BEJobResult> {
                 // forced toString(), however on our local machine it always worked! Don't know why it worked
                 // for PBS... Now we force-convert the parameters.
                 String jobInfoLine = jobStateInfoLine("" + res.job.jobID, code, millis, toolID)
-                FileSystemAccessProvider.instance.
-                        appendLineToFile(true,
-                                executionContext.runtimeService.getJobStateLogFile(executionContext),
+                executionContext.jobSubmissionPipeline.
+                        appendJobStateLine(executionContext.runtimeService.getJobStateLogFile(executionContext),
                                 jobInfoLine,
                                 false)
             } else {
@@ -693,9 +691,13 @@ class Job extends BEJob<BEJob, BEJobResult> {
 
         // Execute the job or create a dummy command.
         if (runJob) {
-            storeJobConfigurationFile(createJobConfiguration())
+            // Jobs on hold are only started after all parameter files are written, see Analysis.executeRun().
+            context.jobSubmissionPipeline.storeParameterFile(parameterFile, createParameterFileText(),
+                    !jobManager.holdJobsEnabled)
             keepOnlyEssentialParameters()
+            context.jobSubmissionPipeline.createRequestedDirectories()
             runResult = jobManager.submitJob(this)
+            context.calledCommandSubmitted(runResult.beCommand)
             wasSubmittedOnHold = jobManager.holdJobsEnabled
             if (appendToJobStateLogfile)
                 this.appendToJobStateLogfile(jobManager, executionContext, runResult, null)
@@ -773,6 +775,27 @@ class Job extends BEJob<BEJob, BEJobResult> {
         return jobConfiguration
     }
 
+    /**
+     * With the feature toggle SharedContextParameterFile and the Bash converter, the parameter file only contains the
+     * job-specific values and sources the shared parameter file of the context. Otherwise, it contains all values.
+     */
+    private String createParameterFileText() {
+        Configuration jobConfiguration = createJobConfiguration()
+        ConfigurationConverter converter = FileSystemAccessProvider.instance.configurationConverter
+        if (context.getFeatureToggleStatus(FeatureToggles.SharedContextParameterFile) && converter instanceof BashConverter) {
+            BashConverter bashConverter = (BashConverter) converter
+            File contextParameterFile = context.jobSubmissionPipeline.storeContextParameterFile(
+                    context.contextParameterFile, {
+                bashConverter.convertContextConfiguration(context, context.configuration)
+            })
+            String text = contextParameterFile != null ?
+                    bashConverter.convertJobConfiguration(context, jobConfiguration, contextParameterFile) : null
+            if (text != null)
+                return text
+        }
+        return ConfigurationConverter.convertAutomatically(context, jobConfiguration)
+    }
+
     void storeJobConfigurationFile(Configuration cfg) {
         String configText = ConfigurationConverter.convertAutomatically(context, cfg)
         FileSystemAccessProvider.instance.writeTextFile(getParameterFile(), configText, context)
@@ -842,50 +865,27 @@ class Job extends BEJob<BEJob, BEJobResult> {
     /** Wait for all file objects in the run to be prepared. This is necessary, because these file
      *  may be updated concurrently (e.g., via runParallel).
      *
-     *  Usually, the initial sleep should be sufficient, but if the system on which Roddy runs is
-     *  very busy, it may be necessary to wait a bit longer.
-     *
-     *  This function is called for every job, and therefore, the total runtime impact of changing
-     *  the wait time depends on the number of jobs.
+     *  The context signals, when the last file object got its path, so usually there is no waiting at all.
+     *  If the system on which Roddy runs is very busy, it may be necessary to wait a bit longer.
      *
-     *  The waiting parameters are configured via the `maxFileObjectAppearanceRetries` and
-     *  `fileObjectAppearanceRetryWaitMs` configuration parameters.
-     *
-     *  Note: The previous implementation waited for each files in filesToVerify and waited for
-     *        each combination of filesToVerify and allFilesInRun. However, this was an all vs.
-     *        all comparison, even waiting for files that are not related to each other.
-     *
-     *        This new implementation is conceptually simpler and should be sufficient. Just wait
-     *        for all files objects to be ready and continue.
+     *  The maximum waiting time is `fileObjectAppearanceRetryWaitMs * (maxFileObjectAppearanceRetries + 1)`,
+     *  which is the longest time that the previous polling implementation waited.
      */
     protected void waitForFilesInRun() {
-        Integer numAttempts = context.maxFileObjectAppearanceRetries
-        Integer waitTime = context.fileObjectAppearanceRetryWaitMs
-
-        Thread.sleep(waitTime) // Initial short sleep to let other threads start working.
-        for (int i = 0; i < numAttempts; i++) {
-            Queue<BaseFile> filesToWaitFor = new LinkedList<BaseFile>()
-            for (BaseFile observedFile : context.allFilesInRun) {
-                if (observedFile == null) {
-                    logger.severe("File object in ExecutionContext.allFilesToRun is null. " +
-                                  "This should not happen. Please report this issue.")
-                } else if (observedFile.path == null) {
-                    filesToWaitFor.push(observedFile)
-                }
-            }
-            if (!filesToWaitFor.empty) {
-                try {
-                    logger.severe("Taking a short nap because a file does not seem to be finished." +
-                                  " Attempt ${i + 1}/$numAttempts")
-                    logger.rare(filesToWaitFor.collect {
-                        "Waiting for: " + it.toString()
-                    }.join("\n"))
-                    Thread.sleep(waitTime)
-                } catch (InterruptedException e) {
-                    System.err.println("Sleep interrupted for ${filesToWaitFor.size()} files: " + e.message)
-                    e.printStackTrace()
-                }
+        long timeout = context.fileObjectAppearanceRetryWaitMs.longValue() *
+                (context.maxFileObjectAppearanceRetries + 1)
+        try {
+            if (!context.waitForPathsOfFilesInRun(timeout)) {
+                List<BaseFile> filesToWaitFor = context.unresolvedFilesInRun
+                logger.severe("Waited ${timeout} ms, but ${filesToWaitFor.size()} file objects still " +
+                              "do not seem to be finished.")
+                logger.rare(filesToWaitFor.collect {
+                    "Waiting for: " + it.toString()
+                }.join("\n"))
             }
+        } catch (InterruptedException e) {
+            System.err.println("Wait for file objects interrupted: " + e.message)
+            e.printStackTrace()
         }
     }
 
@@ -904,23 +904,20 @@ class Job extends BEJob<BEJob, BEJobResult> {
         if (isVerbosityHigh) dbgMessage << "\tverifying specified files" << sep
 
         waitForFilesInRun()
-        List<BaseFile> observedFiles = context.allFilesInRun
 
         // TODO what about the case if no verifiable files where specified? Or if the know files count does not match
         for (BaseFile expFile : filesToVerify) {
-            for (BaseFile obsFile : observedFiles) {
-                if (expFile.absolutePath == obsFile.path.absolutePath) {
-                    // "Verification" and "validation" are the same in Roddy.
-                    if (!obsFile.fileValid) {
-                        fileUnverified = true
-                        if (isVerbosityHigh) {
-                            dbgMessage << "\tfile ${obsFile.path.name} could not be verified!$sep"
-                        }
-                    }
-                    knownFilesCnt++
-                    break
+            BaseFile obsFile = context.getFileInRun(expFile.path)
+            if (obsFile == null)
+                continue
+            // "Verification" and "validation" are the same in Roddy.
+            if (!obsFile.fileValid) {
+                fileUnverified = true
+                if (isVerbosityHigh) {
+                    dbgMessage << "\tfile ${obsFile.path.name} could not be verified!$sep"
                 }
             }
+            knownFilesCnt++
         }
         return new Tuple2<Boolean, Integer>(fileUnverified, knownFilesCnt)
     }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.jobs
+
+import de.dkfz.roddy.Constants
+import de.dkfz.roddy.core.ExecutionContext
+import de.dkfz.roddy.core.ExecutionContextError
+import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
+import de.dkfz.roddy.tools.TokenReplacer
+import groovy.transform.CompileStatic
+
+import java.util.logging.Level
+
+/**
+ * Writes the real job calls file and the repeatable job calls file of a context while the jobs are submitted.
+ *
+ * The job ID of a command is only known after the submission. Commands are therefore written in the order in which
+ * they were called, as soon as they and all earlier commands were submitted. Lines are written in groups, so partial
+ * call files exist, if the submission is aborted. finish() writes all remaining commands.
+ *
+ * In the repeatable job calls file, job IDs are replaced by variables ($j_00000000, ...) in a single pass over each
+ * line.
+ */
+@CompileStatic
+class JobCallsFileWriter {
+
+    static final int DEFAULT_GROUP_SIZE = 50
+
+    private final ExecutionContext context
+
+    private final File realCallsFile
+
+    private final File repeatableCallsFile
+
+    private final int groupSize
+
+    private final Deque<Command> calledCommands = new LinkedList<Command>()
+
+    private final Set<Command> submittedCommands = Collections.newSetFromMap(new IdentityHashMap<Command, Boolean>())
+
+    private final TokenReplacer jobIDReplacer = new TokenReplacer()
+
+    private int jobIDCounter = 0
+
+    private final List<String> realCallLines = []
+
+    private final List<String> repeatableCallLines = []
+
+    private boolean realCallsFileCreated = false
+
+    private boolean repeatableCallsFileCreated = false
+
+    private boolean writeFailureReported = false
+
+    JobCallsFileWriter(ExecutionContext context, File realCallsFile, File repeatableCallsFile,
+                       int groupSize = DEFAULT_GROUP_SIZE) {
+        this.context = context
+        this.realCallsFile = realCallsFile
+        this.repeatableCallsFile = repeatableCallsFile
+        this.groupSize = Math.max(1, groupSize)
+    }
+
+    static JobCallsFileWriter forContext(ExecutionContext context) {
+        return new JobCallsFileWriter(context, context.runtimeService.getRealCallsFile(context),
+                context.runtimeService.getRepeatableJobCallsFile(context))
+    }
+
+    synchronized void addCalledCommand(Command command) {
+        calledCommands.add(command)
+    }
+
+    /**
+     * Mark the command as submitted, i.e. its job ID is known.
+     */
+    synchronized void commandSubmitted(Command command) {
+        submittedCommands.add(command)
+        while (!calledCommands.isEmpty() && submittedCommands.remove(calledCommands.peekFirst()))
+            addLines(calledCommands.pollFirst())
+        if (realCallLines.size() >= groupSize)
+            flush()
+    }
+
+    private void addLines(Command command) {
+        BEJobID eID = command.jobID
+        String cmdStr = command.toBashCommandString()
+        realCallLines << "${eID}, ${cmdStr}".toString()
+
+        if (eID?.shortID != null)
+            jobIDReplacer.put(eID.shortID, String.format('$j_' + "%08d", jobIDCounter++))
+        // The line starts with the replaced job ID of the command. Remove the '$' to get the variable assignment.
+        repeatableCallLines << jobIDReplacer.replace(String.format("%s=`%s`", eID, cmdStr)).substring(1)
+    }
+
+    /**
+     * Write all lines of submitted commands. Lines that could not be written are kept and written with the next
+     * group. The first failure is added to the context as a warning.
+     */
+    synchronized void flush() {
+        realCallsFileCreated = write(realCallsFile, realCallLines, realCallsFileCreated)
+        repeatableCallsFileCreated = write(repeatableCallsFile, repeatableCallLines, repeatableCallsFileCreated)
+    }
+
+    /**
+     * Create the file with the lines or append them. The lines are removed, if they were written.
+     * @return true, if the file was created.
+     */
+    private boolean write(File file, List<String> lines, boolean fileCreated) {
+        if (fileCreated && lines.isEmpty())
+            return true
+        FileSystemAccessProvider provider = FileSystemAccessProvider.instance
+        boolean written
+        try {
+            if (!fileCreated) {
+                String separator = Constants.ENV_LINESEPARATOR
+                written = provider.writeTextFile(file, lines.collect { it + separator }.join(""), context)
+            } else {
+                written = provider.appendLinesToFile(false, file, new ArrayList<String>(lines), true)
+            }
+        } catch (Exception ex) {
+            written = false
+        }
+        if (written) {
+            lines.clear()
+            return true
+        }
+        if (!writeFailureReported) {
+            writeFailureReported = true
+            context.addWarning(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.expand(
+                    "The job calls file '${file}' could not be written. The calls are kept and written again later.",
+                    Level.WARNING))
+        }
+        return fileCreated
+    }
+
+    /**
+     * Write all called commands, also if they were not marked as submitted.
+     */
+    synchronized void finish() {
+        while (!calledCommands.isEmpty())
+            addLines(calledCommands.pollFirst())
+        submittedCommands.clear()
+        flush()
+        if (!realCallLines.isEmpty() || !repeatableCallLines.isEmpty())
+            context.addError(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.expand(
+                    "The job calls files '${realCallsFile}' and '${repeatableCallsFile}' are incomplete. " +
+                    "${Math.max(realCallLines.size(), repeatableCallLines.size())} calls could not be written."))
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.jobs
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import de.dkfz.roddy.FeatureToggles
+import de.dkfz.roddy.Roddy
+import de.dkfz.roddy.core.ExecutionContext
+import de.dkfz.roddy.core.ExecutionContextError
+import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
+import de.dkfz.roddy.tools.LoggerWrapper
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+/**
+ * Takes the file writes off the job submission path of an execution context:
+ *
+ * - Parameter files are written by a small pool of writer threads, while the next jobs are already prepared and
+ *   submitted. Jobs that are submitted on hold only need their parameter file, when they are started. Therefore,
+ *   finish() waits for all writes before the held jobs are released. Jobs that are not submitted on hold wait for
+ *   their parameter file before they are submitted.
+ * - Job state log lines of jobs submitted on hold are buffered and appended in groups with a single locked append.
+ *   Lines of other jobs are appended immediately (together with buffered lines), because these jobs might already
+ *   append their own lines to the job state log.
+ * - Output directories of new files are collected and created in batches, before the next job is submitted. Created
+ *   directories are remembered for the run, so each directory is only created once. Writes of the
+ *   FileSystemAccessProvider, which get the execution context, create the requested directories before, if they write
+ *   into one of them. Writes without the context do not know the requested directories.
+ * - The shared parameter file of the context (see BashConverter.convertContextConfiguration()) is written once, before
+ *   the first job that sources it. The number and size of all written parameter files is logged in close().
+ *
+ * Buffered lines are written, when the group is full, in finish() and close(), and in a shutdown hook, if Roddy is
+ * terminated before the context is finished.
+ */
+@CompileStatic
+class JobSubmissionPipeline {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(JobSubmissionPipeline.class.name)
+
+    static final int DEFAULT_WRITER_THREADS = 4
+
+    static final int DEFAULT_JOB_STATE_GROUP_SIZE = 100
+
+    /**
+     * Pipelines with buffered lines that need to be written, if the JVM is terminated.
+     */
+    private static final Set<JobSubmissionPipeline> openPipelines = ConcurrentHashMap.newKeySet()
+
+    static {
+        Runtime.runtime.addShutdownHook(new Thread({
+            for (JobSubmissionPipeline pipeline : openPipelines)
+                pipeline.flushJobStateLines()
+        } as Runnable, "roddy-job-state-log-flush"))
+    }
+
+    private final ExecutionContext context
+
+    private final int jobStateGroupSize
+
+    private final ExecutorService writers
+
+    private final Map<File, Future<Boolean>> pendingParameterFiles = new LinkedHashMap<>()
+
+    private final List<String> bufferedJobStateLines = []
+
+    private final Set<File> requestedDirectories = new LinkedHashSet<>()
+
+    private final Set<File> knownDirectories = new HashSet<>()
+
+    private File jobStateLogFile
+
+    private File contextParameterFile
+
+    private boolean contextParameterFileFailed = false
+
+    private int parameterFileCount = 0
+
+    private long parameterFileBytes = 0
+
+    JobSubmissionPipeline(ExecutionContext context,
+                          int writerThreads = DEFAULT_WRITER_THREADS,
+                          int jobStateGroupSize = DEFAULT_JOB_STATE_GROUP_SIZE) {
+        this.context = context
+        this.jobStateGroupSize = Math.max(1, jobStateGroupSize)
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads),
+                new ThreadFactoryBuilder().setNameFormat("roddy-parameter-file-writer-%d").setDaemon(true).build())
+    }
+
+    /**
+     * Write the parameter file of a job in the background.
+     *
+     * @param waitForCompletion Wait until the file is written, e.g. because the job is not submitted on hold.
+     * @return false, if waitForCompletion is set and the file could not be written.
+     */
+    boolean storeParameterFile(File file, String text, boolean waitForCompletion) {
+        Future<Boolean> write = writers.submit({
+            FileSystemAccessProvider.instance.writeTextFile(file, text, context)
+        } as Callable<Boolean>)
+        synchronized (pendingParameterFiles) {
+            pendingParameterFiles[file] = write
+            parameterFileCount++
+            parameterFileBytes += text.getBytes("UTF-8").length
+        }
+        if (waitForCompletion)
+            return waitFor(file, write)
+        return true
+    }
+
+    /**
+     * Write the shared parameter file of the context, if it was not written before. The file is written immediately,
+     * because the parameter files of all jobs source it.
+     *
+     * @return the file or null, if it could not be written. The jobs need complete parameter files then.
+     */
+    synchronized File storeContextParameterFile(File file, Closure<String> text) {
+        if (contextParameterFile == null && !contextParameterFileFailed) {
+            if (storeParameterFile(file, text.call(), true))
+                contextParameterFile = file
+            else
+                contextParameterFileFailed = true
+        }
+        return contextParameterFile
+    }
+
+    int getParameterFileCount() {
+        synchronized (pendingParameterFiles) {
+            return parameterFileCount
+        }
+    }
+
+    long getParameterFileBytes() {
+        synchronized (pendingParameterFiles) {
+            return parameterFileBytes
+        }
+    }
+
+    private boolean waitFor(File file, Future<Boolean> write) {
+        try {
+            if (write.get())
+                return true
+            context.addError(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.
+                    expand("Parameter file '${file}' could not be written."))
+        } catch (ExecutionException ex) {
+            context.addError(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.
+                    expand("Parameter file '${file}' could not be written: ${ex.cause?.message}"))
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt()
+            context.addError(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.
+                    expand("Interrupted while writing parameter file '${file}'."))
+        }
+        return false
+    }
+
+    /**
+     * Append a line to the job state log file of the context.
+     *
+     * @param deferrable true, if the job was submitted on hold and the line can be written with the next group.
+     */
+    void appendJobStateLine(File logFile, String line, boolean deferrable) {
+        synchronized (bufferedJobStateLines) {
+            jobStateLogFile = logFile
+            bufferedJobStateLines << line
+            openPipelines.add(this)
+            if (deferrable && bufferedJobStateLines.size() < jobStateGroupSize)
+                return
+        }
+        flushJobStateLines()
+    }
+
+    /**
+     * Append all buffered lines to the job state log file. Lines that could not be written are kept for the next try.
+     *
+     * @return true, if all buffered lines were written.
+     */
+    boolean flushJobStateLines() {
+        synchronized (bufferedJobStateLines) {
+            if (bufferedJobStateLines.isEmpty())
+                return true
+            boolean written = false
+            try {
+                written = FileSystemAccessProvider.instance.appendLinesToFile(true, jobStateLogFile,
+                        new ArrayList<String>(bufferedJobStateLines), true)
+            } catch (Exception ex) {
+                logger.warning("Could not append to job state log file '${jobStateLogFile}': ${ex.message}")
+            }
+            if (written) {
+                bufferedJobStateLines.clear()
+                openPipelines.remove(this)
+            } else {
+                logger.warning("Could not append ${bufferedJobStateLines.size()} lines to job state log file " +
+                        "'${jobStateLogFile}'. Will try again.")
+            }
+            return written
+        }
+    }
+
+    /**
+     * Request an output directory, which is created with the next call of createRequestedDirectories().
+     */
+    void requestDirectory(File directory) {
+        synchronized (requestedDirectories) {
+            if (!knownDirectories.contains(directory))
+                requestedDirectories << directory
+        }
+    }
+
+    /**
+     * Create all requested directories, which were not created before, with a single batched command. Call this
+     * before a job is submitted, which might write to the directories.
+     *
+     * @return true, if all directories exist afterwards.
+     * @throws IOException if a directory could not be created and FailOnAutoFilenames is set.
+     */
+    boolean createRequestedDirectories() {
+        synchronized (requestedDirectories) {
+            if (requestedDirectories.isEmpty())
+                return true
+            List<File> directories = new ArrayList<File>(requestedDirectories)
+            requestedDirectories.clear()
+            Set<File> failed = FileSystemAccessProvider.instance.createDirectories(directories, context)
+            for (File directory : directories) {
+                if (!failed.contains(directory))
+                    knownDirectories << directory
+            }
+            if (failed.isEmpty())
+                return true
+            if (Roddy.getFeatureToggleValue(FeatureToggles.FailOnAutoFilenames))
+                throw new IOException("Output paths could not be created: " + failed.join(", "))
+            logger.warning("Output paths could not be created:\n\t" + failed.join("\n\t"))
+            return false
+        }
+    }
+
+    /**
+     * Create the requested directories now, if the file or one of its parent directories is one of them.
+     */
+    void createRequestedDirectoriesFor(File file) {
+        synchronized (requestedDirectories) {
+            if (!isInRequestedDirectory(file))
+                return
+        }
+        try {
+            createRequestedDirectories()
+        } catch (IOException ex) {
+            context.addError(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.expand(ex.message))
+        }
+    }
+
+    private boolean isInRequestedDirectory(File file) {
+        if (requestedDirectories.isEmpty())
+            return false
+        for (File directory = file; directory != null; directory = directory.parentFile) {
+            if (requestedDirectories.contains(directory))
+                return true
+        }
+        return false
+    }
+
+    /**
+     * Create the remaining requested directories, wait for all parameter files and write all buffered job state
+     * lines. Call this before held jobs are started.
+     *
+     * @return true, if all parameter files were written.
+     */
+    boolean finish() {
+        try {
+            createRequestedDirectories()
+        } catch (IOException ex) {
+            context.addError(ExecutionContextError.EXECUTION_PATH_NOTWRITABLE.expand(ex.message))
+        }
+        Map<File, Future<Boolean>> writes
+        synchronized (pendingParameterFiles) {
+            writes = new LinkedHashMap<>(pendingParameterFiles)
+            pendingParameterFiles.clear()
+        }
+        boolean allWritten = true
+        for (Map.Entry<File, Future<Boolean>> write : writes.entrySet()) {
+            if (!waitFor(write.key, write.value))
+                allWritten = false
+        }
+        flushJobStateLines()
+        return allWritten
+    }
+
+    /**
+     * Finish and stop the writer threads. Lines that still cannot be written are logged, so they are not lost.
+     */
+    void close() {
+        finish()
+        writers.shutdown()
+        if (parameterFileCount > 0)
+            logger.postSometimesInfo("Wrote ${parameterFileCount} parameter files with ${parameterFileBytes} bytes " +
+                    "for execution context ${context.executionDirectory}.")
+        synchronized (bufferedJobStateLines) {
+            if (!bufferedJobStateLines.isEmpty()) {
+                logger.severe("Lines for job state log file '${jobStateLogFile}' could not be written:\n\t" +
+                        bufferedJobStateLines.join("\n\t"))
+                bufferedJobStateLines.clear()
+            }
+            openPipelines.remove(this)
+        }
+    }
+}
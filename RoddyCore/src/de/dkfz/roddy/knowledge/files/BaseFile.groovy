@@ -23,6 +23,7 @@ import de.dkfz.roddy.execution.jobs.BEJobResult
 import de.dkfz.roddy.plugins.LibrariesFactory
 import de.dkfz.roddy.tools.LoggerWrapper
 import de.dkfz.roddy.tools.RoddyConversionHelperMethods
+import de.dkfz.roddy.tools.StackFrames
 import de.dkfz.roddy.tools.Tuple2
 import groovy.transform.CompileStatic
 import org.jetbrains.annotations.NotNull
@@ -379,14 +380,14 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
             }
             Tuple2<File, FilenamePattern> fnresult = getFilename(this, _helper.selectionTag)
             if (fnresult) {
-                this.path = fnresult.x
+                setPath(fnresult.x)
                 this.appliedFilenamePattern = fnresult.y
             }
         } else if (helper instanceof ConstructionHelperForSourceFiles) {
             ConstructionHelperForSourceFiles _helper = helper as ConstructionHelperForSourceFiles
 
             this.fileStageSettings = (FS) _helper.fileStageSettings
-            this.path = _helper.getPath()
+            setPath(_helper.getPath())
             setAsSourceFile()
         } else {
             //Do not allow custom classes.
@@ -550,7 +551,11 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
      * @param path
      */
     void setPath(File path) {
+        File oldPath = this.path
         this.path = path
+        // Keep the context's index of files in the run up to date.
+        if (oldPath != path)
+            executionContext?.filePathChanged(this, oldPath)
     }
 
     String getAbsolutePath() {
@@ -586,12 +591,13 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
         if (resetFilename) {
             File temp = path
             Tuple2<File, FilenamePattern> fnresult = getFilename(this, selectionTag)
-            this.path = fnresult?.x
+            File newPath = fnresult?.x
             this.appliedFilenamePattern = fnresult?.y
-            if (path == null) {
+            if (newPath == null) {
                 //TODO Also this should be handled somehow else. It is occurring much too often.
-                path = temp
+                newPath = temp
             }
+            setPath(newPath)
         }
     }
 
@@ -653,26 +659,22 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
      * @param context
      * @return
      */
-    static synchronized LinkedHashMap<FilenamePatternDependency, LinkedList<FilenamePattern>> loadAvailableFilenamePatternsForBaseFileClass(
+    static LinkedHashMap<FilenamePatternDependency, LinkedList<FilenamePattern>> loadAvailableFilenamePatternsForBaseFileClass(
             BaseFile baseFile,
             ExecutionContext context) {
-        Configuration cfg = context.getConfiguration()
+        FilenamePatternIndex index = context.getConfiguration().filenamePatternIndex
         LinkedHashMap<FilenamePatternDependency, LinkedList<FilenamePattern>> availablePatterns = new LinkedHashMap<>()
+        for (FilenamePatternDependency it : FilenamePatternDependency.values())
+            availablePatterns[it] = new LinkedList<FilenamePattern>(index.getPatterns(baseFile.getClass(), it))
+        logIfNoPatternsAreAvailable(baseFile, index)
+        return availablePatterns
+    }
 
-        FilenamePatternDependency.values().each { FilenamePatternDependency it -> availablePatterns[it] = new LinkedList<FilenamePattern>() }
-        for (FilenamePattern fp : cfg.filenamePatterns.allValuesAsList) {
-            if (fp.getCls() == baseFile.getClass()) {
-                availablePatterns[fp.getFilenamePatternDependency()] << fp
-            }
-        }
-
-        Collection<FilenamePattern> allFoundPatterns = availablePatterns.values().sum() as Collection<FilenamePattern>
-        if (allFoundPatterns.size() == 0) {
+    private static void logIfNoPatternsAreAvailable(BaseFile baseFile, FilenamePatternIndex index) {
+        if (!index.hasPatterns(baseFile.getClass())) {
             logger.severe("Could not find any matching filename patterns for file class ${baseFile.class.name}. Please check your configuration." +
-                    " Tried matching against:\n\t" + cfg.filenamePatterns.allValuesAsList.collect { it.cls }.join("\t\n"))
+                    " Tried matching against:\n\t" + index.allPatterns.collect { it.cls }.join("\t\n"))
         }
-
-        return availablePatterns
     }
 
     /**
@@ -682,7 +684,9 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
      * Look if filename patterns for this class are available
      * If not throw an exception
      * Look if there is only one available: Easy, use this
-     * Else priority is onMethod, sourcefile, filestage
+     * Else priority is onScriptParameter, onMethod, onTool, derivedFrom, filestage. The dependencies are tried in this
+     * order and only until a pattern matched. The candidates are looked up in the FilenamePatternIndex of the
+     * configuration.
      *
      * @param baseFile
      * @return
@@ -692,27 +696,35 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
             selectionTag = FilenamePattern.DEFAULT_SELECTIONTAG
 
         ExecutionContext context = baseFile.getExecutionContext()
-        LinkedHashMap<FilenamePatternDependency, LinkedList<FilenamePattern>> availablePatterns =
-                loadAvailableFilenamePatternsForBaseFileClass(baseFile, context)
-
-        Map<FilenamePatternDependency, Tuple2<File, FilenamePattern>> results = [:]
-        results[onScriptParameter] = findFilenameFromOnScriptParameterPatterns(baseFile, availablePatterns[onScriptParameter], selectionTag)
-        results[onMethod] = findFilenameFromOnMethodPatterns(baseFile, availablePatterns[onMethod], selectionTag)
-        results[onTool] = findFilenameFromOnToolIDPatterns(baseFile, availablePatterns[onTool], selectionTag)
-        results[derivedFrom] = findFilenameFromSourcefilePatterns(baseFile, availablePatterns[derivedFrom], selectionTag)
-        results[FilenamePatternDependency.FileStage] = findFilenameFromGenericPatterns(baseFile, availablePatterns[FilenamePatternDependency.FileStage], selectionTag)
-
-        Tuple2<File, FilenamePattern> patternResult =
-                results[onScriptParameter] ?: results[onMethod] ?: results[onTool] ?: results[derivedFrom] ?: results[FilenamePatternDependency.FileStage]
+        FilenamePatternIndex index = context.getConfiguration().filenamePatternIndex
+        Class cls = baseFile.getClass()
+        logIfNoPatternsAreAvailable(baseFile, index)
+
+        Tuple2<File, FilenamePattern> patternResult = null
+        if (!index.getPatterns(cls, onScriptParameter).isEmpty()) {
+            ConstructionHelperForGenericCreation helper = baseFile.helperObject as ConstructionHelperForGenericCreation
+            patternResult = findFilenameFromOnScriptParameterPatterns(baseFile,
+                    helper != null ? index.getOnScriptParameterPatterns(cls, helper.parameterID) : index.getPatterns(cls, onScriptParameter),
+                    selectionTag)
+        }
+        if (!patternResult)
+            patternResult = findFilenameFromOnMethodPatterns(baseFile, index.getOnMethodPatternsByCalledMethod(cls, selectionTag))
+        if (!patternResult && !index.getPatterns(cls, onTool).isEmpty())
+            patternResult = findFilenameFromOnToolIDPatterns(baseFile,
+                    index.getOnToolPatterns(cls, selectionTag, context.currentExecutedTool.ID), selectionTag)
+        if (!patternResult)
+            patternResult = findFilenameFromSourcefilePatterns(baseFile, index.getPatterns(cls, derivedFrom, selectionTag), selectionTag)
+        if (!patternResult)
+            patternResult = findFilenameFromGenericPatterns(baseFile, index.getPatterns(cls, FilenamePatternDependency.FileStage, selectionTag), selectionTag)
 
         if (!patternResult || patternResult.x == null) {
 
             StringBuilder sb = new StringBuilder("Could not find filename pattern for a file of class: ${baseFile.class} with selection tag '${selectionTag}'\n")
 
             sb << "The following patterns are available for this file class:\n\t"
-            sb << availablePatterns.findAll { it }.collect {
-                FilenamePatternDependency k, List<FilenamePattern> v ->
-                    v.collect {
+            sb << FilenamePatternDependency.values().collect {
+                FilenamePatternDependency k ->
+                    index.getPatterns(cls, k).collect {
                         FilenamePattern value ->
                             "${k.name()} : ${value.toString()}"
                     }
@@ -721,8 +733,12 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
 
             logger.sometimes(sb.toString())
         } else {
-            // Check whether the path exists and create it if necessary.
+            // Check whether the path exists and create it if necessary. Unless disabled, the directory is only created
+            // before the next job is submitted, together with the directories of all other new files.
             if (context.executionContextLevel.allowedToSubmitJobs &&
+                    Roddy.getFeatureToggleValue(FeatureToggles.BatchOutputDirectoryCreation)) {
+                context.jobSubmissionPipeline.requestDirectory(patternResult.x.parentFile)
+            } else if (context.executionContextLevel.allowedToSubmitJobs &&
                     !FileSystemAccessProvider.instance.checkDirectory(patternResult.x.parentFile, context, true)) {
                 if (Roddy.getFeatureToggleValue(FeatureToggles.FailOnAutoFilenames))
                     throw new IOException("Output path could not be created for file: " + baseFile)
@@ -790,35 +806,58 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
      */
     private
     static Tuple2<File, FilenamePattern> findFilenameFromOnMethodPatterns(BaseFile baseFile, LinkedList<FilenamePattern> availablePatterns, String selectionTag) {
-        Tuple2<File, FilenamePattern> result = null
-        File filename = null
-        FilenamePattern appliedPattern = null
+        if (!availablePatterns) return null
+        return findFilenameFromOnMethodPatterns(baseFile,
+                FilenamePatternIndex.byCalledMethod(availablePatterns.findAll { it.selectionTag == selectionTag }))
+    }
 
+    /**
+     * Walks up the stack until the workflows execute method and applies the pattern of the first called method, for
+     * which an onMethod pattern exists. The patterns are looked up by class and method name, so each stack frame is
+     * only compared once. The frames are visited one by one (see StackFrames), so the frames below the execute method
+     * are never read.
+     *
+     * @param baseFile
+     * @param patternsByCalledMethod See FilenamePatternIndex.getOnMethodPatternsByCalledMethod()
+     * @return
+     */
+    private
+    static Tuple2<File, FilenamePattern> findFilenameFromOnMethodPatterns(BaseFile baseFile, Map<String, Map<String, OnMethodFilenamePattern>> patternsByCalledMethod) {
         //Find the called basefile method, if on_method patterns are available.
-        if (!availablePatterns) return result
+        if (!patternsByCalledMethod) return null
 
-        List<StackTraceElement> steByMethod = getAndFilterStackElementsToWorkflowInstance()
-
-        traceLoop:
-        for (StackTraceElement ste : steByMethod) {
-            for (FilenamePattern _fp : availablePatterns) {
-                OnMethodFilenamePattern fp = _fp as OnMethodFilenamePattern
-
-                String cmName = fp.getCalledMethodsName().getName()
-                String cmClass = fp.getCalledMethodsClass().getName()
-                if (cmName.equals(ste.getMethodName())
-                        && cmClass.equals(ste.getClassName())
-                        && fp.getSelectionTag().equals(selectionTag)) {
-                    //OOOOOH LOOK try this!
-                    File tempFN = new File(fp.apply(baseFile))
-                    appliedPattern = fp
-                    filename = tempFN
-                    break traceLoop
-                }
-            }
+        OnMethodFilenamePattern found = null
+        StackFrames.walk({ String className, String methodName ->
+            //Skip several methods
+            if (methodName.equals("<init>") || methodName.endsWith("getFilename"))
+                return true
+            //Abort when the workflows execute method is called.
+            if (isWorkflowExecuteFrame(className, methodName))
+                return false
+
+            Map<String, OnMethodFilenamePattern> byMethod = patternsByCalledMethod.get(className)
+            found = byMethod != null ? byMethod.get(methodName) : null
+            return found == null
+        } as StackFrames.FrameVisitor)
+
+        if (found == null) return null
+        return new Tuple2<File, FilenamePattern>(new File(found.apply(baseFile)), found)
+    }
+
+    /**
+     * The execute method of ExecutionContext or of a workflow class. The (expensive) class lookup is only done for
+     * methods called execute.
+     */
+    private static boolean isWorkflowExecuteFrame(String className, String methodName) {
+        if (!methodName.equals("execute"))
+            return false
+        if (className.equals(ExecutionContext.class.getName()))
+            return true
+        try {
+            return Workflow.class.isAssignableFrom(LibrariesFactory.getGroovyClassLoader().loadClass(className))
+        } catch (Exception ex) {
+            return false
         }
-        if (!filename || !appliedPattern) return null
-        return new Tuple2<>(filename, appliedPattern)
     }
 
     /**
@@ -898,42 +937,6 @@ abstract class BaseFile<FS extends FileStageSettings> extends FileObject {
         return new Tuple2<>(filename, appliedPattern)
     }
 
-    /**
-     * As the method name states, the method fetches a filtered list of all stack trace elements until the workflows execute method.
-     * @return
-     */
-    private static List<StackTraceElement> getAndFilterStackElementsToWorkflowInstance() {
-        String calledBaseFileMethodName = null
-        //Walk through the stack to get the method.
-        List<StackTraceElement> steByMethod = new LinkedList<>()
-        boolean constructorPassed = false
-        for (StackTraceElement ste : Thread.currentThread().getStackTrace()) {
-            try {
-                //Skip several methods
-
-                String methodName = ste.getMethodName()
-                if (methodName.equals("<init>")
-                        || methodName.endsWith("getFilename")
-                        || methodName.endsWith("getStackTrace")
-                ) {
-                    continue
-                }
-                //Abort when the workflows execute method is called.
-                if ((ste.getClassName().equals(ExecutionContext.class.getName())
-                        || Workflow.class.isAssignableFrom(LibrariesFactory.getGroovyClassLoader().loadClass(ste.getClassName())))
-                        && methodName.equals("execute"))
-                    break
-
-                //In all other cases add the method.
-//                    if (constructorPassed)
-                steByMethod.add(ste)
-            } catch (Exception ex) {
-
-            }
-        }
-        return steByMethod
-    }
-
     /**
      * Adds a job to the list of the parent jobs.
      *
@@ -133,7 +133,9 @@ class ClassLoaderHelper {
     public Class loadRealOrSyntheticClass(String classOfFileObject, String baseClassOfFileObject) {
         Class<BaseFile> _cls = searchForClass(classOfFileObject);
         if (_cls == null) {
+            long startNanos = System.nanoTime()
             _cls = generateSyntheticFileClassWithParentClass(classOfFileObject, baseClassOfFileObject, LibrariesFactory.getGroovyClassLoader())
+            Roddy.addStartupPhaseDuration("generate synthetic file classes", System.nanoTime() - startNanos)
             LibrariesFactory.getInstance().getSynthetic().addClass(_cls);
             logger.postSometimesInfo("Class ${classOfFileObject} could not be found, created synthetic class ${_cls.name}.");
         }
@@ -144,6 +146,10 @@ class ClassLoaderHelper {
         return loadRealOrSyntheticClass(classOfFileObject, constructorClass.name);
     }
 
+    /**
+     * Synthetic classes are taken from the SyntheticClassCache, if it is enabled. Only new synthetic classes are
+     * compiled then.
+     */
     @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
     public static Class generateSyntheticFileClassWithParentClass(String syntheticClassName, String constructorClassName, GroovyClassLoader classLoader = null) {
         String syntheticFileClass =
@@ -158,6 +164,9 @@ class ClassLoaderHelper {
                 }
             """
         GroovyClassLoader groovyClassLoader = classLoader ?: new GroovyClassLoader();
+        if (SyntheticClassCache.isEnabled())
+            return SyntheticClassCache.getInstance().loadOrCompile(
+                    "${SyntheticPluginInfo.SYNTHETIC_PACKAGE}.${syntheticClassName}".toString(), syntheticFileClass, groovyClassLoader)
         Class _classID = (Class<BaseFile>) groovyClassLoader.parseClass(syntheticFileClass);
         return _classID
     }
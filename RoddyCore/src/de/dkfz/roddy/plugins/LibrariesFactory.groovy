@@ -14,6 +14,7 @@ import de.dkfz.roddy.knowledge.files.BaseFile
 import de.dkfz.roddy.knowledge.files.FileObject
 import de.dkfz.roddy.knowledge.nativeworkflows.NativeWorkflowConverter
 import de.dkfz.roddy.tools.LoggerWrapper
+import de.dkfz.roddy.tools.ParallelTasks
 import de.dkfz.roddy.tools.RuntimeTools
 import de.dkfz.roddy.tools.Tuple2
 import de.dkfz.roddy.tools.Tuple5
@@ -236,9 +237,16 @@ class LibrariesFactory extends Initializable {
 
     public PluginInfoMap loadMapOfAvailablePluginsForInstance() {
         if (!mapOfPlugins) {
+            long startNanos = System.nanoTime()
             def directories = Roddy.getPluginDirectories()
-            List<PluginDirectoryInfo> mapOfIdentifiedPlugins = loadMapOfAvailablePlugins(directories)
+            PluginCatalog catalog = PluginCatalog.isEnabled() ? PluginCatalog.getDefaultCatalog() : null
+            List<PluginDirectoryInfo> mapOfIdentifiedPlugins = loadMapOfAvailablePlugins(directories, catalog)
+            catalog?.save()
+            Roddy.addStartupPhaseDuration("scan plugin directories", System.nanoTime() - startNanos)
+
+            startNanos = System.nanoTime()
             mapOfPlugins = loadPluginsFromDirectories(mapOfIdentifiedPlugins)
+            Roddy.addStartupPhaseDuration("read plugin information", System.nanoTime() - startNanos)
         }
 
         return mapOfPlugins
@@ -256,9 +264,12 @@ class LibrariesFactory extends Initializable {
      * - In the dist/libraries folder (non developer)
      * - In any other configured folder. You as the developer has to set external projects up in the configuration. (developer)
      *
+     * Entries, which are not found in the catalog, are checked in parallel.
+     *
+     * @param catalog Unchanged plugin directories are taken from the catalog, if it is set. New valid ones are added.
      * @return
      */
-    static List<PluginDirectoryInfo> loadMapOfAvailablePlugins(List<File> pluginDirectories) {
+    static List<PluginDirectoryInfo> loadMapOfAvailablePlugins(List<File> pluginDirectories, PluginCatalog catalog = null) {
 
         //Search all plugin folders and also try to join those if possible.
         List<PluginDirectoryInfo> collectedPluginDirectories = [];
@@ -276,25 +287,78 @@ class LibrariesFactory extends Initializable {
             }
 
             File[] directoryList = pBaseDirectory.listFiles().sort() as File[];
+            List<File> unknownEntries = []
+            Map<File, PluginDirectoryInfo> knownEntries = [:]
             for (File pEntry in directoryList) {
+                PluginDirectoryInfo known = catalog?.get(pEntry)
+                if (known)
+                    knownEntries[pEntry] = known
+                else
+                    unknownEntries << pEntry
+            }
+            Map<File, Tuple2<PluginDirectoryInfo, List<String>>> scannedEntries = scanPluginDirectories(unknownEntries)
 
-                Map<String, List<String>> errors = [
-                        PRIMARY_ERRORS  : [],
-                        SECONDARY_ERRORS: []
-                ] as LinkedHashMap
-                def workflowType = determinePluginType(pEntry, errors)
-                mapOfErrorsForPluginEntries[pEntry.path] = (errors[PRIMARY_ERRORS] + errors[SECONDARY_ERRORS])
-
-                if (workflowType == PluginType.INVALID)
-                    continue
+            for (File pEntry in directoryList) {
+                PluginDirectoryInfo pdi = knownEntries[pEntry]
+                if (pdi) {
+                    mapOfErrorsForPluginEntries[pEntry.path] = []
+                } else {
+                    pdi = scannedEntries[pEntry].x
+                    mapOfErrorsForPluginEntries[pEntry.path] = scannedEntries[pEntry].y
+                    if (pdi)
+                        catalog?.put(pdi)
+                }
 
-                collectedPluginDirectories << new PluginDirectoryInfo(pEntry, workflowType);
+                if (pdi)
+                    collectedPluginDirectories << pdi
             }
         }
 
         return collectedPluginDirectories
     }
 
+    /**
+     * Check the entries of a plugin base directory with a bounded pool of threads.
+     * @return For each entry the plugin directory info (null for invalid entries) and the errors of the entry.
+     */
+    private static Map<File, Tuple2<PluginDirectoryInfo, List<String>>> scanPluginDirectories(List<File> entries) {
+        List<Tuple2<PluginDirectoryInfo, List<String>>> scanned
+        try {
+            scanned = ParallelTasks.collect(entries, "roddy-plugin-scanner-%d", { File entry ->
+                scanPluginDirectory(entry)
+            } as ParallelTasks.Task<File, Tuple2<PluginDirectoryInfo, List<String>>>)
+        } catch (RuntimeException ex) {
+            throw ex
+        } catch (Exception ex) {
+            throw new PluginLoaderException("Could not check plugin directories: ${ex.message}".toString())
+        }
+        Map<File, Tuple2<PluginDirectoryInfo, List<String>>> results = [:]
+        for (int i = 0; i < entries.size(); i++)
+            results[entries[i]] = scanned[i]
+        return results
+    }
+
+    /**
+     * Determine the type of a plugin directory and, for valid plugins, the jar file and buildinfo lines, so the
+     * directory does not need to be listed again later on.
+     */
+    private static Tuple2<PluginDirectoryInfo, List<String>> scanPluginDirectory(File entry) {
+        Map<String, List<String>> errors = [
+                PRIMARY_ERRORS  : [],
+                SECONDARY_ERRORS: []
+        ] as LinkedHashMap
+        PluginType workflowType = determinePluginType(entry, errors)
+        List<String> allErrors = errors[PRIMARY_ERRORS] + errors[SECONDARY_ERRORS]
+        if (workflowType == PluginType.INVALID)
+            return new Tuple2<PluginDirectoryInfo, List<String>>(null, allErrors)
+
+        File jarFile = entry.listFiles().find { File f -> f.name.endsWith(".jar") }
+        File buildinfoFile = new File(entry, BUILDINFO_TEXTFILE)
+        List<String> buildinfoLines = buildinfoFile.isFile() ? buildinfoFile.readLines() : null
+        return new Tuple2<PluginDirectoryInfo, List<String>>(
+                new PluginDirectoryInfo(entry, workflowType, jarFile, buildinfoLines), allErrors)
+    }
+
     /**
      * This and the following method should not be in here! We should use the FileSystemAccessProvider for it. 
      * However, the FSAP always tries to use the ExecService, if possible. All in all, with the current setup for FSAP / ES
@@ -475,7 +539,7 @@ class LibrariesFactory extends Initializable {
             if (_entry.type == PluginType.NATIVE) {
                 newPluginInfo = new NativePluginInfo(pluginName, directory, pluginFullVersion, buildInfo.getDependencies())
             } else if (_entry.type == PluginType.RODDY) {
-                File jarFile = directory.listFiles().find { File f -> f.name.endsWith ".jar"; }
+                File jarFile = _entry.contentKnown ? _entry.jarFile : directory.listFiles().find { File f -> f.name.endsWith ".jar"; }
                 if (jarFile) {
                     newPluginInfo = new JarFullPluginInfo(pluginName, directory, jarFile, pluginFullVersion, buildInfo.getRoddyAPIVersion(), buildInfo.getJDKVersion(), buildInfo.getDependencies())
                 } else {
@@ -503,7 +567,12 @@ class LibrariesFactory extends Initializable {
     static BuildInfoFileHelper loadBuildinfoHelperObject(String name, String fullVersion, File directory, PluginDirectoryInfo pluginDirectoryInfo) {
 
         BuildInfoFileHelper biHelper
-        if (pluginDirectoryInfo.needsBuildInfoFile()) {
+        if (pluginDirectoryInfo.contentKnown) {
+            if (pluginDirectoryInfo.needsBuildInfoFile() || pluginDirectoryInfo.buildinfoLines != null)
+                biHelper = new BuildInfoFileHelper(name, fullVersion, pluginDirectoryInfo.buildinfoLines)
+            else
+                biHelper = new BuildInfoFileHelper(name, fullVersion)
+        } else if (pluginDirectoryInfo.needsBuildInfoFile()) {
             biHelper = new BuildInfoFileHelper(name, fullVersion, directory.listFiles().find { File f -> f.name == BUILDINFO_TEXTFILE })
         } else {
             File f = directory.listFiles().find { File f -> f.name == BUILDINFO_TEXTFILE }
@@ -662,7 +731,7 @@ class LibrariesFactory extends Initializable {
 
             File jarFile
             if (pi instanceof JarFullPluginInfo) {
-                jarFile = pi.directory.listFiles().find { File f -> f.name.endsWith(".jar") };
+                jarFile = ((JarFullPluginInfo) pi).jarFile
                 if (jarFile && !addFile(jarFile)) {
                     synchronized (errors) {
                         errors << "Ignored ${pi.fullID}, Jar file was not available.".toString();
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.plugins
+
+import de.dkfz.roddy.Constants
+import de.dkfz.roddy.FeatureToggles
+import de.dkfz.roddy.Roddy
+import de.dkfz.roddy.tools.AtomicFiles
+import de.dkfz.roddy.tools.LoggerWrapper
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * An on-disk catalog of the valid plugin directories found by LibrariesFactory: the plugin type, the jar file and the
+ * lines of the buildinfo file.
+ *
+ * An entry is only used, if the modification times of the plugin directory, its resources directory and its
+ * buildinfo file are unchanged. Files added to or removed from these directories change their modification time, so
+ * the checks of LibrariesFactory.determinePluginType do not need to be repeated. Rejected directories are not stored
+ * and checked on every call, so their errors are reported as before. Like PreloadedConfigurationIndex, the catalog
+ * is written to a temporary file first and ignored, if it was written by another format or Roddy version.
+ */
+@CompileStatic
+class PluginCatalog {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(PluginCatalog.class.simpleName)
+
+    static final String CATALOG_FILE_NAME = "pluginCatalog.idx"
+
+    static final int FORMAT_VERSION = 1
+
+    static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L
+
+        final String type
+        final String jarFile
+        final ArrayList<String> buildinfoLines
+        final long directoryLastModified
+        final long resourcesLastModified
+        final long buildinfoLastModified
+
+        Entry(File directory, PluginType type, File jarFile, List<String> buildinfoLines) {
+            this.type = type.name()
+            this.jarFile = jarFile?.absolutePath
+            this.buildinfoLines = buildinfoLines != null ? new ArrayList<String>(buildinfoLines) : null
+            this.directoryLastModified = directory.lastModified()
+            this.resourcesLastModified = getResourcesDirectory(directory).lastModified()
+            this.buildinfoLastModified = getBuildinfoFile(directory).lastModified()
+        }
+
+        boolean isValidFor(File directory) {
+            return directoryLastModified == directory.lastModified() &&
+                    resourcesLastModified == getResourcesDirectory(directory).lastModified() &&
+                    buildinfoLastModified == getBuildinfoFile(directory).lastModified()
+        }
+
+        PluginDirectoryInfo toPluginDirectoryInfo(File directory) {
+            return new PluginDirectoryInfo(directory, PluginType.valueOf(type),
+                    jarFile != null ? new File(jarFile) : null, buildinfoLines)
+        }
+    }
+
+    private final File catalogFile
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>()
+
+    private volatile boolean modified = false
+
+    PluginCatalog(File catalogFile) {
+        this.catalogFile = catalogFile
+        load()
+    }
+
+    static boolean isEnabled() {
+        return Roddy.getFeatureToggleValue(FeatureToggles.UsePluginCatalog)
+    }
+
+    static PluginCatalog getDefaultCatalog() {
+        return new PluginCatalog(new File(new File(Roddy.getSettingsDirectory(), "caches"), CATALOG_FILE_NAME))
+    }
+
+    private static File getResourcesDirectory(File directory) {
+        return new File(directory, "resources")
+    }
+
+    private static File getBuildinfoFile(File directory) {
+        return new File(directory, LibrariesFactory.BUILDINFO_TEXTFILE)
+    }
+
+    private static String getHeader() {
+        return "${FORMAT_VERSION}:${Constants.APP_CURRENT_VERSION_STRING}".toString()
+    }
+
+    private void load() {
+        if (catalogFile == null || !catalogFile.isFile())
+            return
+        try {
+            catalogFile.withObjectInputStream(PluginCatalog.classLoader) { ObjectInputStream ois ->
+                if (ois.readObject() != header)
+                    return
+                entries.putAll((Map<String, Entry>) ois.readObject())
+            }
+        } catch (Exception ex) {
+            logger.warning("Could not read the plugin catalog '${catalogFile}', it will be rebuilt: ${ex.message}")
+            entries.clear()
+        }
+    }
+
+    /**
+     * @return The plugin directory info of an unchanged plugin directory or null.
+     */
+    PluginDirectoryInfo get(File directory) {
+        Entry entry = entries.get(directory.absolutePath)
+        if (entry == null || !entry.isValidFor(directory))
+            return null
+        return entry.toPluginDirectoryInfo(directory)
+    }
+
+    void put(PluginDirectoryInfo info) {
+        entries.put(info.directory.absolutePath, new Entry(info.directory, info.type, info.jarFile, info.buildinfoLines))
+        modified = true
+    }
+
+    /**
+     * Write the catalog, if entries were added. Entries of directories that do not exist anymore are removed. Errors
+     * are only logged, because the catalog is just a cache.
+     */
+    synchronized void save() {
+        for (String path : new ArrayList<String>(entries.keySet())) {
+            if (!new File(path).isDirectory()) {
+                entries.remove(path)
+                modified = true
+            }
+        }
+        if (!modified || catalogFile == null)
+            return
+        try {
+            AtomicFiles.write(catalogFile) { File tempFile ->
+                tempFile.withObjectOutputStream { ObjectOutputStream oos ->
+                    oos.writeObject(header)
+                    oos.writeObject(new HashMap<String, Entry>(entries))
+                }
+            }
+            modified = false
+        } catch (Exception ex) {
+            logger.warning("Could not write the plugin catalog '${catalogFile}': ${ex.message}")
+        }
+    }
+}
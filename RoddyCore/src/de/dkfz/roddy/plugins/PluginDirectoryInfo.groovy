@@ -24,12 +24,34 @@ class PluginDirectoryInfo {
 
     final PluginType type
 
+    /**
+     * True, if the jar file and the buildinfo lines were determined, when the directory was scanned. The jar file and
+     * the buildinfo lines may be null then, if the directory does not contain them.
+     */
+    final boolean contentKnown
+
+    final File jarFile
+
+    final List<String> buildinfoLines
+
     PluginDirectoryInfo(File file, PluginType pluginType) {
+        this(file, pluginType, false, null, null)
+    }
+
+    PluginDirectoryInfo(File file, PluginType pluginType, File jarFile, List<String> buildinfoLines) {
+        this(file, pluginType, true, jarFile, buildinfoLines)
+    }
+
+    private PluginDirectoryInfo(File file, PluginType pluginType, boolean contentKnown, File jarFile,
+                                List<String> buildinfoLines) {
         String[] splitName = file.name.split(StringConstants.SPLIT_UNDERSCORE) // Split name and version
         directory = file
         pluginID = splitName[0]
         version = splitName.size() > 1 ? splitName[1] : LibrariesFactory.PLUGIN_VERSION_DEVELOP
         type = pluginType
+        this.contentKnown = contentKnown
+        this.jarFile = jarFile
+        this.buildinfoLines = buildinfoLines
     }
 
     boolean needs
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.plugins
+
+import de.dkfz.roddy.Constants
+import de.dkfz.roddy.FeatureToggles
+import de.dkfz.roddy.Roddy
+import de.dkfz.roddy.tools.AtomicFiles
+import de.dkfz.roddy.tools.LoggerWrapper
+import groovy.transform.CompileStatic
+import org.codehaus.groovy.control.CompilationUnit
+import org.codehaus.groovy.control.CompilerConfiguration
+import org.codehaus.groovy.control.Phases
+import org.codehaus.groovy.tools.GroovyClass
+
+import java.security.MessageDigest
+
+/**
+ * A local cache for the byte code of synthetic file classes. Without it, the Groovy compiler is invoked for every
+ * synthetic class in every Roddy call.
+ *
+ * The byte code only depends on the source of the synthetic class, so the entries are class files named by the MD5
+ * of the source. The cache directory is specific to the Roddy and Groovy versions. Entries are written to temporary
+ * files and moved into place, so concurrent Roddy calls never read incomplete entries.
+ */
+@CompileStatic
+class SyntheticClassCache {
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(SyntheticClassCache.class.simpleName)
+
+    private static SyntheticClassCache instance
+
+    private final File directory
+
+    private int hits = 0
+
+    private int misses = 0
+
+    SyntheticClassCache(File directory) {
+        this.directory = directory
+    }
+
+    static boolean isEnabled() {
+        return Roddy.getFeatureToggleValue(FeatureToggles.UseSyntheticClassCache)
+    }
+
+    static synchronized SyntheticClassCache getInstance() {
+        if (instance == null)
+            instance = new SyntheticClassCache(new File(new File(new File(Roddy.getSettingsDirectory(), "caches"),
+                    "syntheticClasses"), "${Constants.APP_CURRENT_VERSION_STRING}_${GroovySystem.version}"))
+        return instance
+    }
+
+    int getHits() {
+        return hits
+    }
+
+    int getMisses() {
+        return misses
+    }
+
+    /**
+     * Define the class with the given name and source in the class loader. The byte code is taken from the cache or,
+     * if the source was not compiled before, compiled and stored.
+     */
+    synchronized Class loadOrCompile(String className, String source, GroovyClassLoader classLoader) {
+        File entry = new File(directory, MessageDigest.getInstance("MD5").digest(source.getBytes("UTF-8"))
+                .encodeHex().toString() + ".class")
+        if (entry.isFile()) {
+            try {
+                Class cls = define(classLoader, className, entry.bytes)
+                hits++
+                return cls
+            } catch (IOException | ClassFormatError ex) {
+                logger.warning("Could not use cached synthetic class '${entry}', it will be compiled again: ${ex.message}")
+            }
+        }
+        misses++
+        byte[] bytes = compile(className, source, classLoader)
+        write(entry, bytes)
+        return define(classLoader, className, bytes)
+    }
+
+    private static Class define(GroovyClassLoader classLoader, String className, byte[] bytes) {
+        try {
+            return classLoader.defineClass(className, bytes)
+        } catch (LinkageError ex) {
+            if (ex instanceof ClassFormatError)
+                throw ex
+            // The class was already defined in this class loader.
+            return classLoader.loadClass(className)
+        }
+    }
+
+    static byte[] compile(String className, String source, GroovyClassLoader classLoader) {
+        CompilationUnit unit = new CompilationUnit(CompilerConfiguration.DEFAULT, null, classLoader)
+        unit.addSource(className.tokenize(".").last() + ".groovy", source)
+        unit.compile(Phases.CLASS_GENERATION)
+        GroovyClass compiled = unit.classes.find { GroovyClass cls -> cls.name == className } as GroovyClass
+        if (compiled == null)
+            throw new RuntimeException("The source of the synthetic class ${className} does not define it.")
+        return compiled.bytes
+    }
+
+    private void write(File entry, byte[] bytes) {
+        try {
+            AtomicFiles.write(entry, bytes)
+        } catch (IOException ex) {
+            logger.warning("Could not write synthetic class cache entry '${entry}': ${ex.message}")
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import groovy.transform.CompileStatic
+
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+
+/**
+ * Writes the files of the local caches in the Roddy settings directory. A file is written to a temporary file in the
+ * same directory, which is then moved into place. Concurrent Roddy calls therefore never read incomplete files.
+ */
+@CompileStatic
+class AtomicFiles {
+
+    /**
+     * Write the file with the writer, which gets the temporary file. The directory of the file is created, if needed.
+     *
+     * @throws IOException, if the file could not be written. The temporary file is deleted then.
+     */
+    static void write(File file, Closure writer) throws IOException {
+        File tempFile = null
+        try {
+            file.parentFile.mkdirs()
+            tempFile = File.createTempFile(file.name, ".tmp", file.parentFile)
+            writer.call(tempFile)
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        } catch (Exception ex) {
+            tempFile?.delete()
+            throw ex
+        }
+    }
+
+    static void write(File file, byte[] bytes) throws IOException {
+        write(file, { File tempFile -> tempFile.bytes = bytes })
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+/**
+ * Runs a task for each item of a collection with a bounded pool of threads, e.g. to read or check many files.
+ */
+@CompileStatic
+class ParallelTasks {
+
+    /**
+     * The maximum number of threads. The tasks mostly wait for the (possibly remote) file system, so the number does
+     * not depend on the number of processors.
+     */
+    public static final int MAXIMUM_THREADS = 8
+
+    /**
+     * The task for a single item. Unlike java.util.function.Function, it may throw checked exceptions.
+     */
+    interface Task<T, R> {
+        R call(T item) throws Exception
+    }
+
+    /**
+     * Run the task for all items with at most maximumThreads threads. With a single item or thread, the tasks are run
+     * in the calling thread.
+     *
+     * @param threadNameFormat The name format of the threads, e.g. "roddy-plugin-scanner-%d"
+     * @return The results in the order of the items.
+     * @throws Exception The first exception of a task (in the order of the items) is rethrown. The remaining tasks
+     *         are cancelled then.
+     */
+    static <T, R> List<R> collect(Collection<T> items, int maximumThreads, String threadNameFormat,
+                                  Task<T, R> task) {
+        List<R> results = new ArrayList<R>(items.size())
+        int threadCount = Math.min(maximumThreads, items.size())
+        if (threadCount <= 1) {
+            for (T item : items)
+                results << task.call(item)
+            return results
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+                new ThreadFactoryBuilder().setNameFormat(threadNameFormat).setDaemon(true).build())
+        try {
+            List<Future<R>> futures = new ArrayList<Future<R>>(items.size())
+            for (T item : items) {
+                // The loop variable is shared by all closures, so each task gets its own copy.
+                T taskItem = item
+                futures << executor.submit({ task.call(taskItem) } as Callable<R>)
+            }
+            for (Future<R> future : futures)
+                results << future.get()
+        } catch (ExecutionException ex) {
+            throw ex.cause
+        } finally {
+            executor.shutdownNow()
+        }
+        return results
+    }
+
+    static <T, R> List<R> collect(Collection<T> items, String threadNameFormat, Task<T, R> task) {
+        return collect(items, MAXIMUM_THREADS, threadNameFormat, task)
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Walks the stack of the calling thread frame by frame, without materializing the whole stack trace first.
+ * <p>
+ * On Java 9 and later, the StackWalker is used. On Java 8, the frames of a Throwable are read one by one through
+ * sun.misc.SharedSecrets.getJavaLangAccess(). Both are looked up by reflection, because Roddy is compiled for Java 8
+ * with -release, which does not allow internal classes. If none of them is available, the stack trace of a Throwable
+ * is used.
+ */
+public class StackFrames {
+
+    /**
+     * Gets the class and method name of each frame, starting with the caller of walk().
+     */
+    public interface FrameVisitor {
+        /**
+         * @return false, to stop the walk.
+         */
+        boolean visit(String className, String methodName);
+    }
+
+    private static final LoggerWrapper logger = LoggerWrapper.getLogger(StackFrames.class.getSimpleName());
+
+    private static final Object stackWalker;
+    private static final MethodHandle stackWalkerWalk;
+    private static final MethodHandle frameGetClassName;
+    private static final MethodHandle frameGetMethodName;
+
+    private static final Object javaLangAccess;
+    private static final MethodHandle getStackTraceDepth;
+    private static final MethodHandle getStackTraceElement;
+
+    static {
+        Object walker = null;
+        MethodHandle walk = null, className = null, methodName = null;
+        Object access = null;
+        MethodHandle depth = null, element = null;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+            Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+            walker = walkerClass.getMethod("getInstance").invoke(null);
+            walk = lookup.findVirtual(walkerClass, "walk", MethodType.methodType(Object.class, Function.class));
+            className = lookup.findVirtual(frameClass, "getClassName", MethodType.methodType(String.class));
+            methodName = lookup.findVirtual(frameClass, "getMethodName", MethodType.methodType(String.class));
+        } catch (Exception ex) {
+            walker = null;
+            try {
+                Class<?> accessClass = Class.forName("sun.misc.JavaLangAccess");
+                access = Class.forName("sun.misc.SharedSecrets").getMethod("getJavaLangAccess").invoke(null);
+                depth = lookup.findVirtual(accessClass, "getStackTraceDepth",
+                        MethodType.methodType(int.class, Throwable.class));
+                element = lookup.findVirtual(accessClass, "getStackTraceElement",
+                        MethodType.methodType(StackTraceElement.class, Throwable.class, int.class));
+            } catch (Exception ex2) {
+                access = null;
+                logger.rare("Neither StackWalker nor JavaLangAccess is available, full stack traces are used: " + ex2);
+            }
+        }
+        stackWalker = walker;
+        stackWalkerWalk = walk;
+        frameGetClassName = className;
+        frameGetMethodName = methodName;
+        javaLangAccess = access;
+        getStackTraceDepth = depth;
+        getStackTraceElement = element;
+    }
+
+    /**
+     * Call the visitor for the frames of the current thread, from the innermost frame outwards, until it returns
+     * false. The first frames belong to this class.
+     */
+    public static void walk(FrameVisitor visitor) {
+        try {
+            if (stackWalker != null)
+                walkWithStackWalker(visitor);
+            else if (javaLangAccess != null)
+                walkWithJavaLangAccess(visitor);
+            else
+                walkStackTrace(visitor);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    private static void walkWithStackWalker(FrameVisitor visitor) throws Throwable {
+        Function<Stream<?>, Object> walkFunction = (Stream<?> frames) -> {
+            Iterator<?> iterator = frames.iterator();
+            try {
+                while (iterator.hasNext()) {
+                    Object frame = iterator.next();
+                    if (!visitor.visit((String) frameGetClassName.invoke(frame), (String) frameGetMethodName.invoke(frame)))
+                        break;
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+            return null;
+        };
+        Object ignored = stackWalkerWalk.invoke(stackWalker, walkFunction);
+    }
+
+    private static void walkWithJavaLangAccess(FrameVisitor visitor) throws Throwable {
+        Throwable throwable = new Throwable();
+        int depth = (int) getStackTraceDepth.invoke(javaLangAccess, throwable);
+        for (int i = 0; i < depth; i++) {
+            StackTraceElement ste = (StackTraceElement) getStackTraceElement.invoke(javaLangAccess, throwable, i);
+            if (!visitor.visit(ste.getClassName(), ste.getMethodName()))
+                break;
+        }
+    }
+
+    private static void walkStackTrace(FrameVisitor visitor) {
+        for (StackTraceElement ste : new Throwable().getStackTrace()) {
+            if (!visitor.visit(ste.getClassName(), ste.getMethodName()))
+                break;
+        }
+    }
+}
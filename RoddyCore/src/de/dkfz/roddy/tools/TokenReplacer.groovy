@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import groovy.transform.CompileStatic
+
+/**
+ * Replaces many tokens in a text with a single scan over the text. The tokens are stored in a trie. At each position
+ * of the text, the longest token that starts there is replaced. Replaced text is not scanned again.
+ *
+ * The costs of replace() depend on the length of the text and of the longest token, but not on the number of tokens.
+ */
+@CompileStatic
+class TokenReplacer {
+
+    private static class Node {
+        final Map<Character, Node> children = new HashMap<Character, Node>()
+        String replacement
+    }
+
+    private final Node root = new Node()
+
+    private int size = 0
+
+    /**
+     * Add a token or change the replacement of a known token.
+     */
+    void put(String token, String replacement) {
+        if (!token)
+            throw new IllegalArgumentException("Tokens must not be empty")
+        Node node = root
+        for (int i = 0; i < token.length(); i++) {
+            Character c = token.charAt(i)
+            Node child = node.children.get(c)
+            if (child == null) {
+                child = new Node()
+                node.children.put(c, child)
+            }
+            node = child
+        }
+        if (node.replacement == null)
+            size++
+        node.replacement = replacement
+    }
+
+    int size() {
+        return size
+    }
+
+    String replace(String text) {
+        if (size == 0)
+            return text
+        StringBuilder result = new StringBuilder(text.length())
+        int position = 0
+        while (position < text.length()) {
+            Node node = root
+            String replacement = null
+            int end = position
+            for (int i = position; i < text.length(); i++) {
+                node = node.children.get(text.charAt(i))
+                if (node == null)
+                    break
+                if (node.replacement != null) {
+                    replacement = node.replacement
+                    end = i + 1
+                }
+            }
+            if (replacement != null) {
+                result.append(replacement)
+                position = end
+            } else {
+                result.append(text.charAt(position))
+                position++
+            }
+        }
+        return result.toString()
+    }
+}
@@ -10,6 +10,8 @@ package de.dkfz.roddy.config
 import de.dkfz.roddy.RunMode
 import de.dkfz.roddy.config.loader.ConfigurationFactory
 import de.dkfz.roddy.config.loader.ConfigurationLoaderException
+import de.dkfz.roddy.config.loader.ConfigurationNode
+import de.dkfz.roddy.config.loader.ConfigurationNodeReader
 import de.dkfz.roddy.config.loader.ProcessingToolReader
 import de.dkfz.roddy.core.ContextResource
 import de.dkfz.roddy.execution.io.ExecutionService
@@ -21,8 +23,6 @@ import de.dkfz.roddy.plugins.LibrariesFactoryTest
 import de.dkfz.roddy.tools.BufferValue
 import de.dkfz.roddy.tools.TimeUnit
 import de.dkfz.roddy.tools.Tuple3
-import groovy.transform.TypeCheckingMode
-import groovy.util.slurpersupport.NodeChild
 import org.junit.*
 import org.junit.rules.ExpectedException
 
@@ -121,6 +121,24 @@ class ConfigurationFactoryTest {
         }
     }
 
+    @Test
+    void testDuplicateConfigurationIDsAreReportedInFileOrder() {
+        File folder = contextResource.tempFolder.newFolder("duplicateIDs")
+        List<File> files = ["c", "a", "b"].collect { String name ->
+            File file = new File(folder, "${name}.xml")
+            file << "<configuration configurationType='project' name='duplicate'></configuration>"
+            file
+        }
+
+        try {
+            ConfigurationFactory.initialize([folder])
+            assert false
+        } catch (ConfigurationLoaderException e) {
+            assert e.message.contains("\tduplicate found in:\n\t\t" +
+                    files.sort { it.name }*.absolutePath.join("\n\t\t") + "\n")
+        }
+    }
+
     @Test
     void testReadConfigurationWithWarningsAndErrors() {
         String text = """
@@ -133,7 +151,7 @@ class ConfigurationFactoryTest {
                 </configurationvalues>
             </configuration>
         """
-        NodeChild xml = (NodeChild) new XmlSlurper().parseText(text)
+        ConfigurationNode xml = ConfigurationNodeReader.read(text)
         PreloadedConfiguration pc =
                 new PreloadedConfiguration(
                         null, Configuration.ConfigurationType.OTHER, "testForDollars", "", "",
@@ -161,17 +179,17 @@ class ConfigurationFactoryTest {
         assert ConfigurationFactory.getInstance().getAvailableConfigurationsOfType(Configuration.ConfigurationType.OTHER).size() == 2
     }
 
-    private NodeChild asNodeChild(String text) {
-        return (NodeChild) new XmlSlurper().parseText(text)
+    private ConfigurationNode asConfigurationNode(String text) {
+        return ConfigurationNodeReader.read(text)
     }
 
     @Test
-    void testAsNodeChild() {
-        assert asNodeChild("<atag></atag>") instanceof NodeChild
+    void testAsConfigurationNode() {
+        assert asConfigurationNode("<atag></atag>") instanceof ConfigurationNode
     }
 
-    private NodeChild getValidToolResourceSetNodeChild() {
-        NodeChild xml = (NodeChild) new XmlSlurper().parseText(
+    private ConfigurationNode getValidToolResourceSetNode() {
+        ConfigurationNode xml = ConfigurationNodeReader.read(
                 """
                     <resourcesetsample>
                         <rset size="s" memory="3" cores="2" walltime="00:04" queue="ultrafast" nodeflag="testweise"/>
@@ -184,8 +202,8 @@ class ConfigurationFactoryTest {
         return xml
     }
 
-    private NodeChild getToolEntryWithInlineScript() {
-        NodeChild xml = (NodeChild) new XmlSlurper().parseText(
+    private ConfigurationNode getToolEntryWithInlineScript() {
+        ConfigurationNode xml = ConfigurationNodeReader.read(
                 """
                     <tool name='samtoolsIndex' value='samtoolsIndexBamfile.sh' basepath='qcPipeline'>
                         <resourcesets>
@@ -204,10 +222,8 @@ class ConfigurationFactoryTest {
         return xml
     }
 
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    private Collection<NodeChild> getNodeChildsOfValidResourceEntries() {
-        def resourceSetNodeChild = getValidToolResourceSetNodeChild()
-        return resourceSetNodeChild.rset as Collection<NodeChild>
+    private Collection<ConfigurationNode> getNodesOfValidResourceEntries() {
+        return getValidToolResourceSetNode().children("rset")
     }
 
     @Test
@@ -220,12 +236,12 @@ class ConfigurationFactoryTest {
     @Test
     @Ignore("The factory does not have that method anymore. ProcessingToolReader has one, but it returns a NullPointerException in this test.")
     void testParseToolResourceSet() {
-        Method parseToolResourceSet = ConfigurationFactory.getDeclaredMethod("parseToolResourceSet", NodeChild, Configuration)
+        Method parseToolResourceSet = ConfigurationFactory.getDeclaredMethod("parseToolResourceSet", ConfigurationNode, Configuration)
         parseToolResourceSet.setAccessible(true)
 
         Map<ResourceSetSize, ResourceSet> rsets = [:]
 
-        getNodeChildsOfValidResourceEntries().each { rset ->
+        getNodesOfValidResourceEntries().each { rset ->
             ResourceSet result = (ResourceSet) parseToolResourceSet.invoke(null, rset, null)
             assert result
             assert result.size; //Check if the size has a valid value.
@@ -273,11 +289,11 @@ class ConfigurationFactoryTest {
     private static final String STR_VALID_ONSCRIPTPARAMETER_FAILED = "<filename class='TestOnScriptParameter' onScriptParameter='[AffY]:BAM_INDEX_FILE5' pattern='/tmp/onScript' />" // Error!!
     private static final String STR_VALID_ONSCRIPTPARAMETER_WITHOUT_CLASS = "<filename onScriptParameter='testScript:BAM_INDEX_FILE6' pattern='/tmp/onScript' />"
 
-    private static NodeChild parseXML(String xml) {
-        return (NodeChild) new XmlSlurper().parseText(xml)
+    private static ConfigurationNode parseXML(String xml) {
+        return ConfigurationNodeReader.read(xml)
     }
 
-    private NodeChild getValidFilenamePatternsNodeChild() {
+    private ConfigurationNode getValidFilenamePatternsNode() {
         return parseXML(
                 """
                     <xml>
@@ -301,7 +317,7 @@ class ConfigurationFactoryTest {
         )
     }
 
-    private NodeChild getInvalidFilenamePatternsNodeChild() {
+    private ConfigurationNode getInvalidFilenamePatternsNode() {
         return parseXML(
                 """
                     <xml>
@@ -314,7 +330,7 @@ class ConfigurationFactoryTest {
         )
     }
 
-    private NodeChild getParsedFilenamePattern(String filenamePattern) { return parseXML("<filenames filestagesbase='de.dkfz.roddy.knowledge.files.FileStage'>${filenamePattern}</filenames>"); }
+    private ConfigurationNode getParsedFilenamePattern(String filenamePattern) { return parseXML("<filenames filestagesbase='de.dkfz.roddy.knowledge.files.FileStage'>${filenamePattern}</filenames>"); }
 
     @Test
     void testLoadPatternClassWithNullAndSyntheticClass() {
@@ -324,15 +340,15 @@ class ConfigurationFactoryTest {
         assert ((Class) loadPatternClassResult.x).getName().endsWith("ASyntheticTestClass")
     }
 
-    private Map<String, FilenamePattern> readFilenamePatterns(NodeChild nodeChild) {
-        Method m = ConfigurationFactory.class.getDeclaredMethod("readFilenamePatterns", NodeChild)
+    private Map<String, FilenamePattern> readFilenamePatterns(ConfigurationNode node) {
+        Method m = ConfigurationFactory.class.getDeclaredMethod("readFilenamePatterns", ConfigurationNode)
         m.setAccessible(true)
-        return m.invoke(null, nodeChild) as Map<String, FilenamePattern>
+        return m.invoke(null, node) as Map<String, FilenamePattern>
     }
 
     @Test
     void testReadInvalidFilenamePatternDefinition() {
-        Map<String, FilenamePattern> filenamePatterns = readFilenamePatterns(getInvalidFilenamePatternsNodeChild())
+        Map<String, FilenamePattern> filenamePatterns = readFilenamePatterns(getInvalidFilenamePatternsNode())
         assert filenamePatterns.size() == 1
         assert filenamePatterns.values()[0].pattern == "/tmp/onMethodwithClassName"
 
@@ -340,27 +356,26 @@ class ConfigurationFactoryTest {
 
     @Test
     void testReadValidFilenamePatternDefinition() {
-        Map<String, FilenamePattern> filenamePatterns = readFilenamePatterns(getValidFilenamePatternsNodeChild())
+        Map<String, FilenamePattern> filenamePatterns = readFilenamePatterns(getValidFilenamePatternsNode())
         assert filenamePatterns.size() == 9
     }
 
     @Test
     void testReadFilenamePatternsForDerivedFromPatternType() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_DERIVEDFROM_PATTERN)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_DERIVEDFROM_PATTERN)
         testReadFilenamePatternsForDerivedFromPatternType_base(xml, "TestFileWithParent")
     }
 
     @Test
     void testReadFilenamePatternsForDerivedFromPatternType_WithArr() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_DERIVEDFROM_PATTERN_WITH_ARR)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_DERIVEDFROM_PATTERN_WITH_ARR)
         DerivedFromFilenamePattern fpattern = testReadFilenamePatternsForDerivedFromPatternType_base(xml, "TestFileWithParentArr")
         assert fpattern.acceptsFileArrays == true
         assert fpattern.enforcedArraySize == 2
     }
 
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    DerivedFromFilenamePattern testReadFilenamePatternsForDerivedFromPatternType_base(NodeChild xml, String testfileEnding) {
-        DerivedFromFilenamePattern fpattern = ConfigurationFactory.readDerivedFromFilenamePattern("de.dkfz.roddy.knowledge.files.FileStage", xml.filename.getAt(0)) as DerivedFromFilenamePattern
+    DerivedFromFilenamePattern testReadFilenamePatternsForDerivedFromPatternType_base(ConfigurationNode xml, String testfileEnding) {
+        DerivedFromFilenamePattern fpattern = ConfigurationFactory.readDerivedFromFilenamePattern("de.dkfz.roddy.knowledge.files.FileStage", xml.child("filename")) as DerivedFromFilenamePattern
         assert fpattern.filenamePatternDependency == FilenamePatternDependency.derivedFrom
         assert fpattern.derivedFromCls.name.endsWith("TestParentFile")
         assert fpattern.cls.name.endsWith(testfileEnding)
@@ -369,49 +384,46 @@ class ConfigurationFactoryTest {
 
     @Test
     void testReadFilenamePatternsForOnMethodPatternType() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_ONMETHOD_PATTERN_FQN)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_ONMETHOD_PATTERN_FQN)
         testReadFilenamePatternsForOnMethodPatternType_base(xml)
     }
 
     @Test
     void testReadFilenamePatternsForOnMethodPatternType_WithBaseFile() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_ONMETHOD_PATTERN_WITH_CLASSNAME)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_ONMETHOD_PATTERN_WITH_CLASSNAME)
         testReadFilenamePatternsForOnMethodPatternType_base(xml)
     }
 
     @Test
     void testReadFilenamePatternsForOnMethodPatternType_WithFileName() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_ONMETHOD_PATTERN_WITH_METHODNAME)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_ONMETHOD_PATTERN_WITH_METHODNAME)
         testReadFilenamePatternsForOnMethodPatternType_base(xml)
     }
 
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    void testReadFilenamePatternsForOnMethodPatternType_base(NodeChild xml) {
+    void testReadFilenamePatternsForOnMethodPatternType_base(ConfigurationNode xml) {
         OnMethodFilenamePattern fpattern =
                 ConfigurationFactory.readOnMethodFilenamePattern('de.dkfz.roddy.knowledge.files',
-                        xml.filename.getAt(0) as NodeChild) as OnMethodFilenamePattern
+                        xml.child("filename")) as OnMethodFilenamePattern
         assert fpattern.filenamePatternDependency == FilenamePatternDependency.onMethod
         assert fpattern.cls.name.endsWith("TestFileOnMethod")
     }
 
     @Test
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
     void testReadFilenamePatternsForOnToolPatternType() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_ONTOOL_PATTERN)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_ONTOOL_PATTERN)
         OnToolFilenamePattern fpattern =
                 ConfigurationFactory.readOnToolFilenamePattern('de.dkfz.roddy.knowledge.files.FileStage',
-                        xml.filename.getAt(0) as NodeChild) as OnToolFilenamePattern
+                        xml.child("filename")) as OnToolFilenamePattern
         assert fpattern.filenamePatternDependency == FilenamePatternDependency.onTool
         assert fpattern.cls.name.endsWith("TestFileOnTool")
     }
 
     @Test
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
     void testReadFilenamePatternsForFileStageBasedPatternType() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_FILESTAGE_PATTERN)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_FILESTAGE_PATTERN)
         FileStageFilenamePattern fpattern =
                 ConfigurationFactory.readFileStageFilenamePattern(null, 'de.dkfz.roddy.knowledge.files.FileStage',
-                        xml.filename.getAt(0) as NodeChild)
+                        xml.child("filename")) as FileStageFilenamePattern
         assert fpattern.filenamePatternDependency == FilenamePatternDependency.FileStage
         assert fpattern.cls.name.endsWith("FileWithFileStage")
     }
@@ -419,7 +431,7 @@ class ConfigurationFactoryTest {
 
     @Test
     void testReadFilenamePatternForOnScriptParameterPatternType_Failed() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_FAILED)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_FAILED)
         try {
             testReadFilenamePatternForOnScriptParameterPatternType_base(xml)
         } catch (RuntimeException exp) {
@@ -430,7 +442,7 @@ class ConfigurationFactoryTest {
 
     @Test
     void testReadFilenamePatternForOnScriptParameterPatternType_WithoutClass() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_WITHOUT_CLASS)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_WITHOUT_CLASS)
         try {
             testReadFilenamePatternForOnScriptParameterPatternType_base(xml)
         } catch (RuntimeException exp) {
@@ -440,32 +452,31 @@ class ConfigurationFactoryTest {
 
     @Test
     void testReadFilenamePatternForOnScriptParameterPatternType_OnlyColonAndParamName() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_ONLY_COLON_AND_PARAMNAME)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_ONLY_COLON_AND_PARAMNAME)
         testReadFilenamePatternForOnScriptParameterPatternType_base(xml)
     }
 
     @Test
     void testReadFilenamePatternForOnScriptParameterPatternType_OnlyParamName() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_ONLY_PARAMNAME)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_ONLY_PARAMNAME)
         testReadFilenamePatternForOnScriptParameterPatternType_base(xml)
     }
 
 
     @Test
     void testReadFilenamePatternForOnScriptParameterPatternType_WithToolAndParamName() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_WITH_TOOL_AND_PARAMNAME)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_WITH_TOOL_AND_PARAMNAME)
         testReadFilenamePatternForOnScriptParameterPatternType_base(xml)
     }
 
     @Test
     void testReadFilenamePatternForOnScriptParameterPatternType_WithAnyAndParamName() {
-        NodeChild xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_WITH_ANY_AND_PARAMNAME)
+        ConfigurationNode xml = getParsedFilenamePattern(STR_VALID_ONSCRIPTPARAMETER_WITH_ANY_AND_PARAMNAME)
         testReadFilenamePatternForOnScriptParameterPatternType_base(xml)
     }
 
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    private void testReadFilenamePatternForOnScriptParameterPatternType_base(NodeChild xml) {
-        OnScriptParameterFilenamePattern fpattern = ConfigurationFactory.readOnScriptParameterFilenamePattern("de.dkfz.roddy.knowledge.files.FileStage", xml.filename.getAt(0)) as OnScriptParameterFilenamePattern
+    private void testReadFilenamePatternForOnScriptParameterPatternType_base(ConfigurationNode xml) {
+        OnScriptParameterFilenamePattern fpattern = ConfigurationFactory.readOnScriptParameterFilenamePattern("de.dkfz.roddy.knowledge.files.FileStage", xml.child("filename")) as OnScriptParameterFilenamePattern
         assert fpattern.filenamePatternDependency == FilenamePatternDependency.onScriptParameter
         assert fpattern.pattern == "/tmp/onScript"
         assert fpattern.cls.name.endsWith("TestOnScriptParameter")
@@ -475,7 +486,7 @@ class ConfigurationFactoryTest {
     @Deprecated
     @Ignore("Should tparm.scriptParameterName not be != null? There seems to be nothing parsed out in de.dkfz.roddy.config.loader.ProcessingToolReader.parseChildFilesForFileGroup")
     void testParseFileGroupWithSubChildren() {
-        NodeChild nc = asNodeChild("""
+        ConfigurationNode nc = asConfigurationNode("""
                 <output type="filegroup" scriptparameter="APARM">
                     <output type="file" typeof="AFile" scriptparameter="FA"/>
                     <output type="file" typeof="BFile" scriptparameter="FB"/>
@@ -492,7 +503,7 @@ class ConfigurationFactoryTest {
 
     @Test
     void testCloneFileGroupParameter() {
-        NodeChild nc = asNodeChild("""
+        ConfigurationNode nc = asConfigurationNode("""
                 <output type="filegroup" scriptparameter="APARM">
                     <output type="file" typeof="AFile" scriptparameter="FA"/>
                     <output type="file" typeof="BFile" scriptparameter="FB"/>
@@ -508,7 +519,7 @@ class ConfigurationFactoryTest {
 
     @Test
     void testParseFileGroupWithMinimalDefinition() {
-        NodeChild nc = asNodeChild("""<output type="filegroup" fileclass="TestFile" scriptparameter="APARM"/>""")
+        ConfigurationNode nc = asConfigurationNode("""<output type="filegroup" fileclass="TestFile" scriptparameter="APARM"/>""")
         ToolFileGroupParameter tparm = new ProcessingToolReader(null, null).parseFileGroup(nc, "testTool")
         assert tparm.isGeneric()
         assert tparm.getGenericClassString() == "de.dkfz.roddy.knowledge.files.GenericFileGroup<de.dkfz.roddy.synthetic.files.TestFile>"
@@ -521,13 +532,13 @@ class ConfigurationFactoryTest {
     @Ignore("TODO: Should this throw, or return null? Currently, the latter is happening!")
     void testParseFileGroupWithMissingOptions() {
         String xml = """<output type="filegroup" />"""
-        NodeChild nc = (NodeChild) new XmlSlurper().parseText(xml)
+        ConfigurationNode nc = ConfigurationNodeReader.read(xml)
         new ProcessingToolReader(null, null).parseFileGroup(nc, "testTool")
     }
 
     @Test
     void testParseFileGroupForInputFileGroupPassasParameters() {
-        NodeChild nc = asNodeChild("<input type='filegroup' typeof='GenericFileGroup' fileclass='ASyntheticTestClass' passas='parameters' scriptparameter='APARM' />")
+        ConfigurationNode nc = asConfigurationNode("<input type='filegroup' typeof='GenericFileGroup' fileclass='ASyntheticTestClass' passas='parameters' scriptparameter='APARM' />")
         ToolFileGroupParameter res = new ProcessingToolReader(null, null).parseFileGroup(nc, EMPTY)
         assert res
         assert res.groupClass == GenericFileGroup.class
@@ -537,7 +548,7 @@ class ConfigurationFactoryTest {
 
     @Test
     void testParseFileGroupForOutputFileGroupPassasParametersAndDefaultFileIndex() {
-        NodeChild nc = asNodeChild("<output type='filegroup' typeof='de.dkfz.roddy.knowledge.files.GenericFileGroup' fileclass='ASyntheticClass' passas='parameters' scriptparameter='APARM' selectiontag='abs' />")
+        ConfigurationNode nc = asConfigurationNode("<output type='filegroup' typeof='de.dkfz.roddy.knowledge.files.GenericFileGroup' fileclass='ASyntheticClass' passas='parameters' scriptparameter='APARM' selectiontag='abs' />")
         ToolFileGroupParameter res = new ProcessingToolReader(null, null).parseFileGroup(nc, EMPTY)
         assert res
         assert res.groupClass == GenericFileGroup.class
@@ -550,7 +561,7 @@ class ConfigurationFactoryTest {
 
     @Test
     void testParseFileGroupForOutputFileGroupPassasParametersWithStringIndexForFilenames() {
-        NodeChild nc = asNodeChild("<output type='filegroup' typeof='de.dkfz.roddy.knowledge.files.GenericFileGroup' fileclass='ASyntheticClass' passas='parameters' indices='strings' scriptparameter='APARM'/>")
+        ConfigurationNode nc = asConfigurationNode("<output type='filegroup' typeof='de.dkfz.roddy.knowledge.files.GenericFileGroup' fileclass='ASyntheticClass' passas='parameters' indices='strings' scriptparameter='APARM'/>")
         ToolFileGroupParameter res = new ProcessingToolReader(null, null).parseFileGroup(nc, EMPTY)
         assert res
         assert res.groupClass == GenericFileGroup.class
@@ -561,7 +572,7 @@ class ConfigurationFactoryTest {
 
     @Test
     void testParseTupleWithChildFiles() {
-        NodeChild nc = asNodeChild("""
+        ConfigurationNode nc = asConfigurationNode("""
                 <output type="tuple">
                     <output type="file" typeof="AFile" scriptparameter="FA"/>
                     <output type="file" typeof="BFile" scriptparameter="FB"/>
@@ -579,7 +590,7 @@ class ConfigurationFactoryTest {
 
     @Test
     void testParseTupleWithChildFileAndGroup() {
-        NodeChild nc = asNodeChild("""
+        ConfigurationNode nc = asConfigurationNode("""
                 <output type="tuple">
                     <output type="file" typeof="AFile" scriptparameter="FA"/>
                     <output type="filegroup" typeof="GenericFileGroup" fileclass="TextFile" scriptparameter="FC"/>
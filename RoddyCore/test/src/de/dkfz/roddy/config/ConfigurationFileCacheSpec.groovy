@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import de.dkfz.roddy.config.loader.ConfigurationFileCache
+import de.dkfz.roddy.config.loader.ConfigurationNode
+import de.dkfz.roddy.config.loader.ConfigurationNodeReader
+import de.dkfz.roddy.config.loader.PreloadedConfigurationIndex
+import spock.lang.Specification
+
+class ConfigurationFileCacheSpec extends Specification {
+
+    File directory = File.createTempDir()
+
+    ConfigurationFileCache cache = new ConfigurationFileCache(new File(directory, "cache"))
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    def "files are only converted again, if they changed"() {
+        given:
+        File file = new File(directory, "config.sh")
+        file.text = "a=1"
+        int conversions = 0
+        Closure<String> converter = { conversions++; "<configuration>${file.text}</configuration>".toString() }
+
+        when:
+        String first = cache.getConvertedText(file, converter)
+        String second = cache.getConvertedText(file, converter)
+
+        then:
+        first == "<configuration>a=1</configuration>"
+        second == first
+        conversions == 1
+
+        when:
+        file.text = "a=2"
+
+        then:
+        cache.getConvertedText(file, converter) == "<configuration>a=2</configuration>"
+        conversions == 2
+    }
+
+    def "parsed configuration files are only parsed again, if they changed"() {
+        given:
+        File file = new File(directory, "config.xml")
+        file.text = "<configuration name='a'> x <cvalue name='b' value='1'/> y </configuration>"
+        int parses = 0
+        Closure<ConfigurationNode> parser = { parses++; ConfigurationNodeReader.read(file.text) }
+
+        when:
+        ConfigurationNode first = cache.getNode(file, PreloadedConfigurationIndex.getContentMD5(file), parser)
+        ConfigurationNode second = cache.getNode(file, PreloadedConfigurationIndex.getContentMD5(file), parser)
+
+        then:
+        parses == 1
+        second.toXML() == first.toXML()
+        second.attributes == [name: "a"]
+        second.child("cvalue").attributes == [name: "b", value: "1"]
+        second.text() == " x  y "
+
+        when:
+        file.text = "<configuration name='c'/>"
+
+        then:
+        cache.getNode(file, PreloadedConfigurationIndex.getContentMD5(file), parser).attribute("name") == "c"
+        parses == 2
+    }
+
+    def "successful validations are remembered per file, content and schema"() {
+        given:
+        File file = new File(directory, "config.xml")
+        file.text = "<configuration/>"
+
+        when:
+        cache.setValidated(file, "schema")
+
+        then:
+        cache.isValidated(file, "schema")
+        !cache.isValidated(file, "other schema")
+        !cache.isValidated(new File(directory, "missing.xml"), "schema")
+        !cache.isValidated(null, "schema")
+
+        when:
+        file.text = "<configuration name='x'/>"
+
+        then:
+        !cache.isValidated(file, "schema")
+    }
+
+    def "the least recently used entries are evicted"() {
+        given:
+        File cacheDirectory = new File(directory, "small")
+        ConfigurationFileCache smallCache = new ConfigurationFileCache(cacheDirectory, 2)
+        List<File> files = (0..2).collect { int i -> File f = new File(directory, "config${i}.sh"); f.text = "a=${i}"; f }
+        int conversions = 0
+        Closure<String> converter = { conversions++; "<configuration/>" }
+        Closure<File> addEntry = { File file ->
+            Set<File> before = (cacheDirectory.listFiles() ?: []) as Set
+            smallCache.getConvertedText(file, converter)
+            File entry = cacheDirectory.listFiles().find { !before.contains(it) }
+            // The file system timestamps are too coarse for the test, so the entries are made older.
+            entry.setLastModified(System.currentTimeMillis() - 60000)
+            return entry
+        }
+
+        when:
+        File entry0 = addEntry(files[0])
+        File entry1 = addEntry(files[1])
+        smallCache.getConvertedText(files[0], converter) // Use the first entry again.
+        addEntry(files[2])
+
+        then:
+        entry0.exists()
+        !entry1.exists()
+        cacheDirectory.listFiles().size() == 2
+        conversions == 3
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import de.dkfz.roddy.config.loader.ConfigurationNode
+import de.dkfz.roddy.config.loader.ConfigurationNodeReader
+import spock.lang.Specification
+
+import javax.xml.stream.XMLStreamException
+
+class ConfigurationNodeReaderSpec extends Specification {
+
+    static final String CONFIGURATION = """<?xml version="1.0" encoding="UTF-8"?>
+        <!-- A comment -->
+        <configuration name='test' description=''>
+            <configurationvalues>
+                <cvalue name='a' value='1' type='integer'/>
+                <cvalue name='b' value='x &amp; y'/>
+                <configurationValueBundle name='bundle'>
+                    <cvalue name='c' value='2'/>
+                </configurationValueBundle>
+            </configurationvalues>
+            <processingTools>
+                <tool name='inline' value='inline.sh' basepath='tools'>
+                    <script value='inline.sh'>
+                        <![CDATA[
+                          echo 'test' > out
+                        ]]>
+                    </script>
+                </tool>
+            </processingTools>
+        </configuration>
+        """
+
+    def "elements and attributes are read in document order"() {
+        when:
+        ConfigurationNode node = ConfigurationNodeReader.read(CONFIGURATION)
+
+        then:
+        node.name == "configuration"
+        node.attributes.keySet().toList() == ["name", "description"]
+        node.children*.name == ["configurationvalues", "processingTools"]
+        node.children("configurationvalues", "cvalue")*.attribute("name") == ["a", "b"]
+        node.children("configurationvalues", "cvalue")[1].attribute("value") == "x & y"
+        node.child("configurationvalues").child("configurationValueBundle").child("cvalue").attribute("value") == "2"
+        node.child("filenames") == null
+        node.children("filenames", "filename") == []
+    }
+
+    def "missing attributes are empty or the default, set attributes are returned also if they are empty"() {
+        when:
+        ConfigurationNode node = ConfigurationNodeReader.read(CONFIGURATION)
+
+        then:
+        node.attribute("missing") == ""
+        node.attribute("missing", null) == null
+        node.attribute("description", "default") == ""
+        node.hasAttribute("description")
+        !node.hasAttribute("missing")
+    }
+
+    def "the text of an element with CDATA sections is the same as with XmlSlurper"() {
+        when:
+        ConfigurationNode tool = ConfigurationNodeReader.read(CONFIGURATION).children("processingTools", "tool")[0]
+
+        then:
+        tool.child("script").text().trim() == "echo 'test' > out"
+        tool.text() == new XmlSlurper().parseText(CONFIGURATION).processingTools.tool.text()
+    }
+
+    def "elements are printed as XML for error messages"() {
+        expect:
+        ConfigurationNodeReader.read("<tool name='a &lt; b'><input type='file'/><script>echo</script></tool>").toXMLLines() == [
+                '<tool name="a &lt; b">',
+                '    <input type="file"/>',
+                '    <script>echo</script>',
+                '</tool>']
+    }
+
+    def "malformed configurations are rejected"() {
+        when:
+        ConfigurationNodeReader.read("<configuration name='test'><configurationvalues></configuration>")
+
+        then:
+        thrown(XMLStreamException)
+    }
+}
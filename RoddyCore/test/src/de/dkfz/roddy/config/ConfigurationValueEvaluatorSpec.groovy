@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import spock.lang.Specification
+
+class ConfigurationValueEvaluatorSpec extends Specification {
+
+    def "references are evaluated recursively and memoized"() {
+        given:
+        Configuration configuration = new Configuration()
+        configuration.configurationValues.put("a", 'x${b}x')
+        configuration.configurationValues.put("b", '${c}${c}')
+        configuration.configurationValues.put("c", "c")
+
+        expect:
+        configuration.configurationValues["a"].toString() == "xccx"
+        configuration.configurationValues.evaluator.numberOfEvaluatedValues == 2
+        ConfigurationValueHelper.evaluateValue("d", '${a}/${undefined}', configuration) == 'xccx/${undefined}'
+    }
+
+    def "changing a value invalidates the values that reference it"() {
+        given:
+        Configuration configuration = new Configuration()
+        configuration.configurationValues.put("a", '${b}')
+        configuration.configurationValues.put("b", '${c}')
+        configuration.configurationValues.put("d", "d")
+        configuration.configurationValues.put("e", '${d}')
+        configuration.configurationValues["a"].toString()
+        configuration.configurationValues["e"].toString()
+
+        when:
+        configuration.configurationValues.put("c", "new")
+
+        then:
+        configuration.configurationValues.evaluator.numberOfEvaluatedValues == 1
+        configuration.configurationValues["a"].toString() == "new"
+    }
+
+    def "changes in parent configurations are seen by children"() {
+        given:
+        Configuration parent = new Configuration()
+        parent.configurationValues.put("a", '${b}')
+        parent.configurationValues.put("b", "parent")
+        Configuration child = new Configuration(null, parent)
+
+        expect:
+        child.configurationValues["a"].toString() == "parent"
+
+        when:
+        parent.configurationValues.put("b", "changed")
+
+        then:
+        child.configurationValues["a"].toString() == "changed"
+
+        when:
+        child.configurationValues.put("b", "child")
+
+        then:
+        child.configurationValues["a"].toString() == "child"
+        parent.configurationValues["a"].toString() == "changed"
+    }
+
+    def "children reuse values of a single parent, if they do not depend on local values"() {
+        given:
+        Configuration parent = new Configuration()
+        parent.configurationValues.put("a", '${b}')
+        parent.configurationValues.put("b", "parent")
+        parent.configurationValues.put("c", '${d}')
+        Configuration child = new Configuration(null, parent)
+        child.configurationValues.put("d", "child")
+
+        expect:
+        ConfigurationValueHelper.evaluateValue("x", '${a} ${c}', child) == "parent child"
+        parent.configurationValues.evaluator.numberOfEvaluatedValues == 3
+        ConfigurationValueHelper.evaluateValue("c", '${c}', parent) == '${d}'
+    }
+
+    def "cyclic dependencies are reported"() {
+        given:
+        Configuration configuration = new Configuration()
+        configuration.configurationValues.put("a", '${b}')
+        configuration.configurationValues.put("b", 'x${a}')
+
+        when:
+        configuration.configurationValues["a"].toString()
+
+        then:
+        ConfigurationError error = thrown(ConfigurationError)
+        error.message.contains("Cyclic dependency found for cvalue 'a'")
+        configuration.listOfLoadErrors.size() == 1
+    }
+}
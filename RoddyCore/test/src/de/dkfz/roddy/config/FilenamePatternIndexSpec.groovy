@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import de.dkfz.roddy.knowledge.files.BaseFile
+import de.dkfz.roddy.knowledge.files.FileStage
+import de.dkfz.roddy.knowledge.files.GenericFile
+import spock.lang.Specification
+
+class FilenamePatternIndexSpec extends Specification {
+
+    Class<BaseFile> cls = GenericFile as Class<BaseFile>
+
+    def "patterns are grouped by class, dependency, selection tag and tool ID in configuration order"() {
+        given:
+        def toolA = new OnToolFilenamePattern(cls, "toolA", "/a", null)
+        def toolATagged = new OnToolFilenamePattern(cls, "toolA", "/a_tagged", "tagged")
+        def toolB = new OnToolFilenamePattern(cls, "toolB", "/b", null)
+        def generic = new FileStageFilenamePattern(cls, FileStage.GENERIC, "/generic", null)
+        FilenamePatternIndex index = new FilenamePatternIndex([toolA, toolATagged, toolB, generic], 1)
+
+        expect:
+        index.getPatterns(cls, FilenamePatternDependency.onTool) == [toolA, toolATagged, toolB]
+        index.getOnToolPatterns(cls, FilenamePattern.DEFAULT_SELECTIONTAG, "toolA") == [toolA]
+        index.getOnToolPatterns(cls, "tagged", "toolA") == [toolATagged]
+        index.getOnToolPatterns(cls, "tagged", "toolB").isEmpty()
+        index.getPatterns(cls, FilenamePatternDependency.FileStage, FilenamePattern.DEFAULT_SELECTIONTAG) == [generic]
+        index.getPatterns(cls, FilenamePatternDependency.onMethod).isEmpty()
+        index.hasPatterns(cls)
+        !index.hasPatterns(BaseFile)
+    }
+
+    def "onMethod patterns are found by the names of the called class and method"() {
+        given:
+        Class calledClass = String
+        def first = new OnMethodFilenamePattern(cls, calledClass, calledClass.getMethod("trim"), "/first", null)
+        def second = new OnMethodFilenamePattern(cls, calledClass, calledClass.getMethod("trim"), "/second", null)
+        def tagged = new OnMethodFilenamePattern(cls, calledClass, calledClass.getMethod("length"), "/tagged", "tagged")
+        FilenamePatternIndex index = new FilenamePatternIndex([first, second, tagged], 1)
+
+        expect:
+        index.getOnMethodPatternsByCalledMethod(cls, FilenamePattern.DEFAULT_SELECTIONTAG) == [(calledClass.name): [trim: first]]
+        index.getOnMethodPatternsByCalledMethod(cls, "tagged") == [(calledClass.name): [length: tagged]]
+        index.getOnMethodPatternsByCalledMethod(BaseFile, FilenamePattern.DEFAULT_SELECTIONTAG).isEmpty()
+    }
+
+    def "the index of a configuration is rebuilt, if the patterns of a parent change"() {
+        given:
+        Configuration parent = new Configuration()
+        Configuration child = new Configuration()
+        child.addParent(parent)
+        parent.filenamePatterns.add(new OnToolFilenamePattern(cls, "toolA", "/a", null))
+        FilenamePatternIndex first = child.filenamePatternIndex
+
+        expect:
+        child.filenamePatternIndex.is(first)
+
+        when:
+        parent.filenamePatterns.add(new OnToolFilenamePattern(cls, "toolB", "/b", null))
+
+        then:
+        !child.filenamePatternIndex.is(first)
+        child.filenamePatternIndex.getPatterns(cls, FilenamePatternDependency.onTool)*.pattern == ["/a", "/b"]
+    }
+}
@@ -15,6 +15,7 @@ import de.dkfz.roddy.knowledge.files.GenericFile
 import de.dkfz.roddy.knowledge.methods.GenericMethod
 import de.dkfz.roddy.plugins.LibrariesFactory
 import de.dkfz.roddy.plugins.LibrariesFactoryTest
+import groovy.transform.CompileDynamic
 import org.junit.*
 
 import static de.dkfz.roddy.Constants.DEFAULT
@@ -183,8 +184,71 @@ class FilenamePatternTest {
         assert fpattern.fillConfigurationVariables(srcFull, context.configuration) == 'something_abc_${cvalue}_${pid}_${fileStageID[0]}'
     }
 
-    private FilenamePattern createFilenamePattern() {
-        String srcFull
+    @Test
+    void testCompiledTemplateMatchesStepByStepApplication() {
+        ExecutionContext context = createMockupContext()
+        BaseFile[] files = [ContextResource.makeTestBaseFileInstance(context, "test")] as BaseFile[]
+        [
+                '/tmp/RoddyTests/plain.txt',
+                '${outputAnalysisBaseDirectory}/result_${avalue}.txt',
+                'something_${avalue}_${cvalue,name="anothervalue"}_${cvalue,name="unknown",default="bebe"}',
+                '/tmp/${unknownVariable}/${avalue}_${pid}',
+        ].each { String pattern ->
+            FilenamePattern fpattern = createFilenamePattern(pattern)
+            assert fpattern.getTemplate().isCompiled()
+            assert fpattern.apply(files) == fpattern.applyStepByStep(files)
+        }
+
+        assert !createFilenamePattern('/tmp/${unclosed').getTemplate().isCompiled()
+        assert !createFilenamePattern('/tmp/###1000###_${avalue}').getTemplate().isCompiled()
+        assert !createFilenamePattern('/tmp/x_${alignmentOutputDirectory}').getTemplate().isCompiled()
+        assert !createFilenamePattern('/tmp/${cvalue,default="x"}').getTemplate().isCompiled()
+    }
+
+    /**
+     * Compare the template rendering with the step by step application for all filename patterns of the test plugins.
+     */
+    @Test
+    @CompileDynamic
+    void testCompiledTemplatesOfTestPluginPatternsMatchStepByStepApplication() {
+        List<String> patterns = []
+        new File("dist/plugins").eachFileRecurse { File file ->
+            if (file.name.endsWith(".xml") && file.parentFile.name == "configurationFiles")
+                patterns.addAll(new XmlSlurper().parse(file).depthFirst().findAll { it.name() == "filename" }
+                        .collect { it.@pattern.text() } as List<String>)
+        }
+        assert patterns.size() > 0
+
+        ExecutionContext context = createMockupContext()
+        patterns.join().findAll(/\$\{(\w+OutputDirectory)\}/) { String placeholder, String name -> name }.unique().each { String name ->
+            context.configuration.configurationValues << new ConfigurationValue(context.configuration, name,
+                    "/tmp/RoddyTests/" + name, ConfigurationConstants.CVALUE_TYPE_PATH)
+        }
+        BaseFile[] files = [ContextResource.makeTestBaseFileInstance(context, "test")] as BaseFile[]
+        int compiled = 0
+        patterns.unique().each { String pattern ->
+            FilenamePattern fpattern = createFilenamePattern(pattern)
+            String rendered = fpattern.getTemplate().render(fpattern, files)
+            if (rendered != null) {
+                compiled++
+                assert rendered == fpattern.applyStepByStep(files)
+            }
+        }
+        assert compiled > 0
+    }
+
+    @Test
+    void testTemplateIsNotUsedAfterAnError() {
+        ExecutionContext context = createMockupContext()
+        BaseFile[] files = [ContextResource.makeTestBaseFileInstance(context, "test")] as BaseFile[]
+        FilenamePattern fpattern = createFilenamePattern('${undefinedOutputDirectory}/result_${avalue}.txt')
+        assert fpattern.getTemplate().isCompiled()
+
+        fpattern.apply(files)
+        assert !fpattern.getTemplate().isCompiled()
+    }
+
+    private FilenamePattern createFilenamePattern(String srcFull = null) {
         def fpattern = new FilenamePattern(LibrariesFactory.getInstance().loadRealOrSyntheticClass("FPTTestClass", "BaseFile"), srcFull, DEFAULT) {
 
             @Override
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import de.dkfz.roddy.config.loader.ConfigurationNodeReader
+import de.dkfz.roddy.config.loader.PreloadedConfigurationIndex
+import spock.lang.Specification
+
+class PreloadedConfigurationIndexSpec extends Specification {
+
+    File directory = File.createTempDir()
+
+    File indexFile = new File(directory, PreloadedConfigurationIndex.INDEX_FILE_NAME)
+
+    File configurationFile = new File(directory, "projectsTest.xml")
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    PreloadedConfigurationIndex.Record createRecord() {
+        def record = new PreloadedConfigurationIndex.Record("PROJECT", "test", "", "de.dkfz.roddy.core.Project",
+                "imported", "l", ["exome::exomeAnalysis::useplugin=::killswitches="])
+        record.subRecords << new PreloadedConfigurationIndex.Record("PROJECT", "sub", "", "de.dkfz.roddy.core.Project",
+                null, "l", record.analyses)
+        return record
+    }
+
+    def "stored records are found by later instances as long as the file is unchanged"() {
+        given:
+        configurationFile.text = "<configuration name='test'/>"
+        String md5 = PreloadedConfigurationIndex.getContentMD5(configurationFile)
+        PreloadedConfigurationIndex index = new PreloadedConfigurationIndex(indexFile)
+        index.put(configurationFile, md5, createRecord())
+        index.save()
+
+        when:
+        PreloadedConfigurationIndex.Record record = new PreloadedConfigurationIndex(indexFile).get(configurationFile, md5)
+
+        then:
+        record.name == "test"
+        record.analyses == ["exome::exomeAnalysis::useplugin=::killswitches="]
+        record.subRecords*.name == ["sub"]
+
+        when:
+        configurationFile.text = "<configuration name='changed'/>"
+        PreloadedConfigurationIndex reloaded = new PreloadedConfigurationIndex(indexFile)
+
+        then:
+        reloaded.get(configurationFile, PreloadedConfigurationIndex.getContentMD5(configurationFile)) == null
+        reloaded.misses == 1
+    }
+
+    def "nodes of lazily preloaded configurations are loaded on first use, the text is read from the file"() {
+        given:
+        String text = "<configuration name='test'><subconfigurations><configuration name='sub'/></subconfigurations></configuration>"
+        configurationFile.text = text
+        int loaded = 0
+        List<PreloadedConfiguration> subConf = []
+        PreloadedConfiguration icc = new PreloadedConfiguration(null, Configuration.ConfigurationType.OTHER, "test", "",
+                "", "", null, null, subConf, configurationFile, {
+            loaded++
+            ConfigurationNodeReader.read(text)
+        })
+        subConf << new PreloadedConfiguration(icc, Configuration.ConfigurationType.OTHER, "sub", "",
+                "", "", null, null, null, configurationFile, null)
+
+        expect:
+        loaded == 0
+        subConf[0].id == "test.sub"
+        subConf[0].configurationNode.attribute("name") == "sub"
+        icc.configurationNode.attribute("name") == "test"
+        icc.text == text
+        loaded == 1
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import de.dkfz.roddy.config.loader.PreloadedConfigurationIndex
+import de.dkfz.roddy.config.loader.PreloadedConfigurationReader
+import spock.lang.Specification
+
+import javax.xml.stream.XMLStreamException
+
+class PreloadedConfigurationReaderSpec extends Specification {
+
+    static final String CONFIGURATION = """
+        <configuration configurationType='project' name='test' description='A test' imports='base' usedresourcessize='m'>
+            <availableAnalyses>
+                <analysis id='exome' configuration='exomeAnalysis' useplugin='Exome:1.0'/>
+                <analysis id='wgs' configuration='wgsAnalysis' killswitches='a,b'/>
+            </availableAnalyses>
+            <configurationvalues>
+                <cvalue name='a' value='1' type='integer'/>
+                <cvalue name='configuration' value='ignored'/>
+            </configurationvalues>
+            <subconfigurations>
+                <configuration name='sub' inheritAnalyses='true'>
+                    <subconfigurations>
+                        <configuration name='subsub' configurationType='other'/>
+                    </subconfigurations>
+                </configuration>
+                <configuration name='other'>
+                    <availableAnalyses>
+                        <analysis id='rna' configuration='rnaAnalysis'/>
+                    </availableAnalyses>
+                </configuration>
+            </subconfigurations>
+        </configuration>
+        """
+
+    def "records of configurations and subconfigurations are read without the skipped content"() {
+        when:
+        PreloadedConfigurationIndex.Record record = PreloadedConfigurationReader.read(CONFIGURATION)
+
+        then:
+        record.type == "PROJECT"
+        record.name == "test"
+        record.description == "A test"
+        record.className == "de.dkfz.roddy.core.Project"
+        record.imports == "base"
+        record.usedresourcessize == "m"
+        record.analyses == ["exome::exomeAnalysis::useplugin=Exome:1.0::killswitches=",
+                            "wgs::wgsAnalysis::useplugin=::killswitches=a,b"]
+        record.subRecords*.name == ["sub", "other"]
+        record.subRecords[0].type == "PROJECT"
+        record.subRecords[0].analyses == record.analyses
+        record.subRecords[0].subRecords*.name == ["subsub"]
+        record.subRecords[0].subRecords[0].type == "OTHER"
+        record.subRecords[0].subRecords[0].analyses == null
+        record.subRecords[1].analyses == ["rna::rnaAnalysis::useplugin=::killswitches="]
+        record.subRecords[1].usedresourcessize == "l"
+    }
+
+    def "malformed configurations are rejected"() {
+        when:
+        PreloadedConfigurationReader.read("<configuration name='test'><subconfigurations></configuration>")
+
+        then:
+        thrown(XMLStreamException)
+    }
+}
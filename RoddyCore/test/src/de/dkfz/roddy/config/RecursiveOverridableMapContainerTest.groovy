@@ -79,4 +79,41 @@ class RecursiveOverridableMapContainerTest extends Specification {
         values['c'].toString() == 'C.c'
         values['d'].toString() == 'B2.b + C.c'
     }
+
+    def "Lookups see changes in the parent chain"() {
+        given:
+        Configuration cfg = makeConfig()
+        Configuration B1 = cfg.parents[0]
+        Configuration A1 = B1.parents[0]
+        def values = cfg.configurationValues
+
+        expect:
+        values.getValue('d').value == '${a}'
+        !values.hasValue('e')
+
+        when:
+        A1.configurationValues.put('e', 'A1.e')
+        B1.configurationValues.put('d', 'B1.d')
+
+        then:
+        values.hasValue('e')
+        values.getValue('d').value == 'B1.d'
+
+        when:
+        Configuration A3 = new Configuration(null)
+        A3.configurationValues.put('f', 'A3.f')
+        B1.addParent(A3)
+
+        then:
+        values.getValue('f').value == 'A3.f'
+    }
+
+    def "Repeated lookups reuse the elevated value"() {
+        given:
+        def values = makeConfig().configurationValues
+
+        expect:
+        values.getValue('a').is(values.getValue('a'))
+        values.getValue('a').configuration.is(values.containerParent)
+    }
 }
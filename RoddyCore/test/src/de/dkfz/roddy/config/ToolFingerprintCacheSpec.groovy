@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config
+
+import de.dkfz.roddy.tools.RoddyIOHelperMethods
+import spock.lang.Specification
+
+class ToolFingerprintCacheSpec extends Specification {
+
+    File directory = File.createTempDir()
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    def "tools are hashed once until they change"() {
+        given:
+        ToolFingerprintCache cache = new ToolFingerprintCache()
+        List<File> tools = (1..10).collect { int i ->
+            File tool = new File(directory, "tool${i}.sh")
+            tool.text = "#!/bin/bash\necho ${i}\n"
+            tool
+        }
+
+        when:
+        cache.hashAll(tools + [new File(directory, "missing.sh")])
+
+        then:
+        cache.hashedFiles == 10
+        tools.every { File tool -> cache.getMD5(tool) == RoddyIOHelperMethods.getMD5OfFile(tool) }
+        cache.hashedFiles == 10
+
+        when:
+        tools[0].text = "#!/bin/bash\necho changed\n"
+
+        then:
+        cache.getMD5(tools[0]) == RoddyIOHelperMethods.getMD5OfFile(tools[0])
+        cache.hashedFiles == 11
+    }
+}
@@ -23,6 +23,7 @@ import org.junit.Ignore
 import org.junit.Rule
 import org.junit.Test
 
+import static de.dkfz.roddy.config.ConfigurationConstants.CVALUE_PROCESS_OPTIONS_SETUSERMASK
 import static de.dkfz.roddy.config.ConfigurationConstants.CVALUE_TYPE_BASH_ARRAY
 import static de.dkfz.roddy.config.ConfigurationConstants.CVALUE_TYPE_BOOLEAN
 import static de.dkfz.roddy.config.ConfigurationConstants.CVALUE_TYPE_DOUBLE
@@ -225,6 +226,37 @@ class BashConverterTest {
         }
     }
 
+    @Test
+    void convertJobConfigurationSourcesTheContextParameterFile() {
+        Configuration contextConfiguration = new Configuration(null)
+        contextConfiguration.configurationValues.put("unrelated", "a", CVALUE_TYPE_STRING)
+        contextConfiguration.configurationValues.put("overridden", "1", CVALUE_TYPE_INTEGER)
+        contextConfiguration.configurationValues.put("derived", '${jobValue}/x', CVALUE_TYPE_STRING)
+        contextConfiguration.configurationValues.put("derivedTwice", '${derived}/y', CVALUE_TYPE_STRING)
+        ExecutionContext context = contextResource.createSimpleContext(BashConverterTest, contextConfiguration)
+
+        Configuration jobConfiguration = new Configuration(null, contextConfiguration)
+        jobConfiguration.configurationValues.put("jobValue", "job", CVALUE_TYPE_STRING)
+        jobConfiguration.configurationValues.put("overridden", "two", CVALUE_TYPE_STRING)
+        File contextParameterFile = new File("/tmp/exec/executionContext.parameters")
+
+        List<String> lines = new BashConverter().convertJobConfiguration(context, jobConfiguration, contextParameterFile).readLines()
+        List<String> declared = lines.findAll { String line -> line.startsWith("declare") }.collect { String line ->
+            line.split("=")[0].split(" ")[-1]
+        }
+
+        assert lines[1] == "source '/tmp/exec/executionContext.parameters'"
+        assert declared.containsAll(["jobValue", "overridden", "derived", "derivedTwice"])
+        assert !declared.contains("unrelated")
+        assert declared.indexOf("jobValue") < declared.indexOf("derived")
+        assert declared.indexOf("derived") < declared.indexOf("derivedTwice")
+        assert lines.contains("unset -v overridden")
+
+        // Values used for the header of the shared file cannot be overridden by a job.
+        jobConfiguration.configurationValues.put(CVALUE_PROCESS_OPTIONS_SETUSERMASK, "false", CVALUE_TYPE_BOOLEAN)
+        assert new BashConverter().convertJobConfiguration(context, jobConfiguration, contextParameterFile) == null
+    }
+
     @Test
     public void testGetHeaderValue() {
         assert new BashConverter().getHeaderValue(sampleBashCode.readLines(), "description", "") == "aConfig"
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.config.converters
+
+import de.dkfz.roddy.config.Configuration
+import de.dkfz.roddy.config.ConfigurationValue
+import spock.lang.Specification
+
+class ConfigurationValueDependencyOrderSpec extends Specification {
+
+    def "values are ordered by the pass in which they are resolved and by load order"() {
+        given:
+        List<ConfigurationValue> values = [
+                new ConfigurationValue("a", '${c}/a'),
+                new ConfigurationValue("b", "b"),
+                new ConfigurationValue("c", "c"),
+                new ConfigurationValue("d", '${a}/${b}'),
+                new ConfigurationValue("e", '${undeclared}'),
+                new ConfigurationValue("f", '${g}'),
+                new ConfigurationValue("g", '${f}'),
+                new ConfigurationValue("comment", "# a comment"),
+                new ConfigurationValue("h", '${comment}'),
+                new ConfigurationValue("i", '${a}'),
+        ]
+
+        when:
+        Tuple2<Map<String, ConfigurationValue>, Map<String, ConfigurationValue>> result =
+                ConfigurationValueDependencyOrder.sort(values)
+
+        then:
+        result.first.keySet() as List == ["b", "c", "a", "d", "i"]
+        result.second.keySet() as List == ["e", "f", "g", "comment", "h"]
+    }
+
+    def "the order of a configuration is derived from the order of its parent"() {
+        given:
+        Configuration parent = new Configuration(null)
+        parent.configurationValues.put("a", '${c}/a', "string")
+        parent.configurationValues.put("b", '${jobValue}', "string")
+        parent.configurationValues.put("c", "c", "string")
+        parent.configurationValues.put("d", '${b}/d', "string")
+        Configuration child = new Configuration(null, parent)
+        child.configurationValues.put("jobValue", '${c}', "string")
+        child.configurationValues.put("c", '${a}', "string")
+
+        expect:
+        ConfigurationValueDependencyOrder.sort(parent).first.keySet() as List == ["c", "a"]
+        ConfigurationValueDependencyOrder.sort(parent).second.keySet() as List == ["b", "d"]
+        sortedIDs(ConfigurationValueDependencyOrder.sort(child)) ==
+                sortedIDs(ConfigurationValueDependencyOrder.sort(child.configurationValues.allValuesAsList))
+        ConfigurationValueDependencyOrder.sort(child).second.keySet() as List == ["a", "b", "c", "d", "jobValue"]
+
+        when:
+        child.configurationValues.put("c", "c2", "string")
+        parent.configurationValues.put("e", '${d}', "string")
+
+        then:
+        sortedIDs(ConfigurationValueDependencyOrder.sort(child)) == [["c", "jobValue", "a", "b", "d", "e"], []]
+    }
+
+    private static List<List<String>> sortedIDs(Tuple2<Map<String, ConfigurationValue>, Map<String, ConfigurationValue>> result) {
+        return [result.first.keySet() as List<String>, result.second.keySet() as List<String>]
+    }
+}
@@ -5,14 +5,20 @@
  */
 package de.dkfz.roddy.core
 
-
+import de.dkfz.roddy.Roddy
+import de.dkfz.roddy.RoddyTestSpec
+import de.dkfz.roddy.execution.io.ExecutionService
 import spock.lang.Shared
-import spock.lang.Specification
 
+import java.lang.reflect.Field
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+
+import static de.dkfz.roddy.config.ConfigurationConstants.CVALUE_TYPE_PATH
 import static de.dkfz.roddy.config.ConfigurationIssue.ConfigurationIssueTemplate.detachedDollarCharacter
 import static de.dkfz.roddy.config.ConfigurationIssue.ConfigurationIssueTemplate.valueAndTypeMismatch
 
-class AnalysisSpec extends Specification {
+class AnalysisSpec extends RoddyTestSpec {
 
     @Shared
     static def valA = detachedDollarCharacter.expand("a", "/some/path")
@@ -33,4 +39,144 @@ class AnalysisSpec extends Specification {
         [valA, valB]       | [valA.collectiveMessage]
         [valC, valA, valB] | [valA.collectiveMessage, valC.message]  // condense sorts the messages by the enumeration values.
     }
+
+    def cleanup() {
+        setParallelContextCount(1)
+    }
+
+    private static void setParallelContextCount(int count) {
+        Field field = Roddy.getDeclaredField("parallelContextCount")
+        field.setAccessible(true)
+        field.set(null, count)
+    }
+
+    private ExecutionContext createContext(Analysis analysis, String id) {
+        return new ExecutionContext("user", analysis,
+                new DataSet(analysis, id, contextResource.getTestOutputDirectory(id)), ExecutionContextLevel.UNSET,
+                contextResource.getTestOutputDirectory(id), contextResource.getTestInputDirectory(id),
+                contextResource.getTestExecutionDirectory(id))
+    }
+
+    def "contexts processed in parallel keep their own configuration values"() {
+        given:
+        Analysis analysis = contextResource.createSimpleContext(AnalysisSpec).analysis
+        setParallelContextCount(2)
+        CyclicBarrier barrier = new CyclicBarrier(2)
+
+        when:
+        List<ExecutionContext> contexts = analysis.processInWorkerPool(["A", "B"], { String id ->
+            ExecutionContext context = createContext(analysis, id)
+            context.configuration.configurationValues.put(ExecutionService.RODDY_CVALUE_DIRECTORY_EXECUTION,
+                    context.executionDirectory.absolutePath, CVALUE_TYPE_PATH)
+            // Both contexts have set their values, before any of them reads them.
+            barrier.await(10, TimeUnit.SECONDS)
+            assert context.configuration.configurationValues.get(ExecutionService.RODDY_CVALUE_DIRECTORY_EXECUTION)
+                    .toFile(context) == contextResource.getTestExecutionDirectory(id)
+            return context
+        } as Closure<ExecutionContext>)
+
+        then:
+        contexts*.dataSet*.id == ["A", "B"]
+        contexts.every { ExecutionContext context ->
+            context.configuration.configurationValues.get(ExecutionService.RODDY_CVALUE_DIRECTORY_EXECUTION)
+                    .toFile(context) == context.executionDirectory
+        }
+        !analysis.configuration.configurationValues.hasValue(ExecutionService.RODDY_CVALUE_DIRECTORY_EXECUTION)
+    }
+
+    def "paths of a context are resolved with the values set for the context"() {
+        given:
+        Analysis analysis = contextResource.createSimpleContext(AnalysisSpec).analysis
+        setParallelContextCount(parallelContextCount)
+        analysis.configuration.configurationValues.put("resultDirectory", '${contextDirectory}/result', CVALUE_TYPE_PATH)
+        ExecutionContext context = createContext(analysis, "A")
+
+        when:
+        context.configuration.configurationValues.put("contextDirectory", "/context/A", CVALUE_TYPE_PATH)
+
+        then:
+        context.configuration.is(analysis.configuration) == (parallelContextCount == 1)
+        analysis.configuration.configurationValues.get("resultDirectory").toFile(context) == new File("/context/A/result")
+
+        where:
+        parallelContextCount << [1, 2]
+    }
+
+    def "processed contexts are returned in the order of the items"() {
+        given:
+        Analysis analysis = contextResource.createSimpleContext(AnalysisSpec).analysis
+        setParallelContextCount(parallelContextCount)
+
+        when:
+        List<ExecutionContext> contexts = analysis.processInWorkerPool(["A", "B", "C", "D"], { String id ->
+            // The first items finish last.
+            Thread.sleep((3 - ["A", "B", "C", "D"].indexOf(id)) * 20L)
+            return id == "C" ? null : createContext(analysis, id)
+        } as Closure<ExecutionContext>)
+
+        then:
+        contexts*.dataSet*.id == ["A", "B", "D"]
+
+        where:
+        parallelContextCount << [1, 4]
+    }
+
+    def "without parallel contexts, the items are processed in the calling thread"() {
+        given:
+        Analysis analysis = contextResource.createSimpleContext(AnalysisSpec).analysis
+        setParallelContextCount(1)
+        List<Thread> threads = []
+
+        when:
+        analysis.processInWorkerPool(["A", "B"], { String id ->
+            threads << Thread.currentThread()
+            return createContext(analysis, id)
+        } as Closure<ExecutionContext>)
+
+        then:
+        threads == [Thread.currentThread(), Thread.currentThread()]
+    }
+
+    def "a failure is rethrown in sequential and in parallel processing"() {
+        given:
+        Analysis analysis = contextResource.createSimpleContext(AnalysisSpec).analysis
+        setParallelContextCount(parallelContextCount)
+        List<String> processed = ([] as List<String>).asSynchronized()
+
+        when:
+        analysis.processInWorkerPool(["A", "B", "C"], { String id ->
+            if (id == "B")
+                throw new RuntimeException("Processing of B failed")
+            processed << id
+            return createContext(analysis, id)
+        } as Closure<ExecutionContext>)
+
+        then:
+        RuntimeException exception = thrown()
+        exception.message == "Processing of B failed"
+        processed.sort() == expectedProcessed
+
+        where:
+        parallelContextCount | expectedProcessed
+        1                    | ["A"]
+        3                    | ["A", "C"]      // The other items are still processed, before the failure is rethrown.
+    }
+
+    def "the failure of the first failed item is rethrown with the further failures attached"() {
+        given:
+        Analysis analysis = contextResource.createSimpleContext(AnalysisSpec).analysis
+        setParallelContextCount(3)
+
+        when:
+        analysis.processInWorkerPool(["A", "B", "C"], { String id ->
+            if (id != "A")
+                throw new RuntimeException("Processing of ${id} failed")
+            return createContext(analysis, id)
+        } as Closure<ExecutionContext>)
+
+        then:
+        RuntimeException exception = thrown()
+        exception.message == "Processing of B failed"
+        exception.suppressed*.message == ["Processing of C failed"]
+    }
 }
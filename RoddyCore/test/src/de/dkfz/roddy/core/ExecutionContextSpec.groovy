@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.core
+
+import de.dkfz.roddy.RoddyTestSpec
+import de.dkfz.roddy.execution.jobs.BEJobID
+import de.dkfz.roddy.execution.jobs.Command
+import de.dkfz.roddy.execution.jobs.JobCallsFileWriter
+
+class ExecutionContextSpec extends RoddyTestSpec {
+
+    private Command command(String id, String call) {
+        Command command = Stub(Command)
+        command.getJobID() >> new BEJobID(id)
+        command.toBashCommandString() >> call
+        return command
+    }
+
+    def "job calls are written while the commands are submitted"() {
+        given:
+        ExecutionContext context = contextResource.createSimpleContext(ExecutionContextSpec)
+        context.executionContextLevel = ExecutionContextLevel.RUN
+        File realCallsFile = context.runtimeService.getRealCallsFile(context)
+        File repeatableCallsFile = context.runtimeService.getRepeatableJobCallsFile(context)
+        List<Command> commands = (0..<JobCallsFileWriter.DEFAULT_GROUP_SIZE).collect { int i ->
+            command("${1000 + i}", "qsub job${i}")
+        }
+
+        when:
+        for (Command command : commands) {
+            context.addCalledCommand(command)
+            context.calledCommandSubmitted(command)
+        }
+
+        then: "the files are written before the writer is finished"
+        context.commandCalls == commands
+        realCallsFile.readLines() == (0..<commands.size()).collect { int i -> "${1000 + i}, qsub job${i}".toString() }
+        repeatableCallsFile.readLines().size() == commands.size()
+    }
+}
@@ -14,6 +14,7 @@ import de.dkfz.roddy.execution.BindSpec
 import de.dkfz.roddy.execution.io.ExecutionService
 import de.dkfz.roddy.execution.io.LocalExecutionService
 import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
+import de.dkfz.roddy.knowledge.files.BaseFile
 import groovy.transform.CompileStatic
 import org.junit.BeforeClass
 import org.junit.Rule
@@ -167,4 +168,22 @@ class ExecutionContextTest {
         assert context.fileObjectAppearanceRetryWaitMs == 250
     }
 
+    @Test
+    void filesInRunAreIndexedByPath() {
+        ExecutionContext context = createEmptyContext()
+        context.executionContextLevel = ExecutionContextLevel.RUN
+        BaseFile file = ContextResource.makeTestBaseFileInstance(context, "indexedFile")
+
+        assert context.getFileInRun(new File("/tmp/indexedFile")).is(file)
+        assert context.waitForPathsOfFilesInRun(0)
+
+        file.path = new File("/tmp/movedFile")
+        assert context.getFileInRun(new File("/tmp/indexedFile")) == null
+        assert context.getFileInRun(new File("/tmp/movedFile")).is(file)
+
+        file.path = null
+        assert context.unresolvedFilesInRun == [file]
+        assert !context.waitForPathsOfFilesInRun(0)
+    }
+
 }
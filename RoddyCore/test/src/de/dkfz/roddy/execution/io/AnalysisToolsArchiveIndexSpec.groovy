@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import de.dkfz.roddy.execution.io.fs.BashCommandSet
+import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
+import spock.lang.Specification
+
+class AnalysisToolsArchiveIndexSpec extends Specification {
+
+    File toolFolder = File.createTempDir()
+
+    def setup() {
+        new File(toolFolder, "script.sh").text = "echo a"
+        new File(toolFolder, "sub").mkdir()
+        new File(toolFolder, "sub/other.sh").text = "echo b"
+    }
+
+    def cleanup() {
+        toolFolder.deleteDir()
+    }
+
+    def "the fingerprint changes with the files in the folder"() {
+        given:
+        String fingerprint = AnalysisToolsArchiveIndex.getFingerprint(toolFolder)
+
+        expect:
+        AnalysisToolsArchiveIndex.getFingerprint(toolFolder) == fingerprint
+
+        when:
+        new File(toolFolder, "sub/other.sh").text = "echo changed"
+
+        then:
+        AnalysisToolsArchiveIndex.getFingerprint(toolFolder) != fingerprint
+    }
+
+    def "the fingerprint of a folder is calculated once per index"() {
+        given:
+        AnalysisToolsArchiveIndex index = new AnalysisToolsArchiveIndex()
+        String fingerprint = index.getFingerprintOnce(toolFolder)
+
+        when:
+        new File(toolFolder, "sub/other.sh").text = "echo changed"
+
+        then:
+        index.getFingerprintOnce(toolFolder) == fingerprint
+        new AnalysisToolsArchiveIndex().getFingerprintOnce(toolFolder) != fingerprint
+    }
+
+    def "a stored MD5 is reused, if the fingerprint did not change"() {
+        given:
+        File md5File = File.createTempFile("roddy", "_contentmd5")
+        File fingerprintFile = File.createTempFile("roddy", "_fingerprint")
+        md5File.text = "storedMD5"
+        AnalysisToolsArchiveIndex index = new AnalysisToolsArchiveIndex()
+        index.storeFingerprint(toolFolder, fingerprintFile)
+
+        expect:
+        index.getContentMD5(toolFolder, md5File, fingerprintFile) == "storedMD5"
+
+        cleanup:
+        md5File.delete()
+        fingerprintFile.delete()
+    }
+
+    def "the overview file is read once and reread for unknown archives"() {
+        given:
+        FileSystemAccessProvider originalProvider = FileSystemAccessProvider.instance
+        FileSystemAccessProvider provider = Mock(FileSystemAccessProvider)
+        FileSystemAccessProvider.resetFileSystemAccessProvider(provider)
+        File overviewFile = new File("/tmp/zippedAnalysesMD5.txt")
+        AnalysisToolsArchiveIndex index = new AnalysisToolsArchiveIndex()
+
+        when:
+        String first = index.findRemoteArchive(overviewFile, "md5a")
+        String second = index.findRemoteArchive(overviewFile, "md5a")
+        String versioned = index.findRemoteArchive(overviewFile, "md5b")
+        index.addRemoteArchive(overviewFile, "cTools_new.zip", "md5c")
+        String added = index.findRemoteArchive(overviewFile, "md5c")
+
+        then:
+        1 * provider.loadTextFile(overviewFile) >> (["cTools_a.zip:md5a"] as String[])
+        1 * provider.loadTextFile(overviewFile) >> (["cTools_a.zip:md5a", "cTools_P:1.0_b.zip:md5b"] as String[])
+        first == "cTools_a.zip"
+        second == "cTools_a.zip"
+        versioned == "cTools_P:1.0_b.zip"
+        added == "cTools_new.zip"
+
+        cleanup:
+        FileSystemAccessProvider.resetFileSystemAccessProvider(originalProvider)
+    }
+
+    def "all tool folders are linked with a single command"() {
+        expect:
+        new BashCommandSet().getCreateSymbolicLinksCommand(
+                [(new File("/exec/analysisTools/a")): new File("/common/dir_a/a"),
+                 (new File("/exec/analysisTools/b")): new File("/common/dir_b/b")]) ==
+                "ln -s /common/dir_a/a /exec/analysisTools/a; ln -s /common/dir_b/b /exec/analysisTools/b"
+    }
+}
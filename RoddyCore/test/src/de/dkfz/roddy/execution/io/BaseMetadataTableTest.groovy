@@ -121,6 +121,116 @@ public class BaseMetadataTableTest {
         table.subsetBy((BaseMetadataTable.INPUT_TABLE_DATASET): "a", (RUMPLE_COL): "ambiguous")
     }
 
+    @Test
+    void testSubsetsOfLargeTable() {
+        List<Map<String, String>> records = (0..<20000).collect { int i ->
+            ["PID": "p${i % 1000}".toString(), "File": "f${i}".toString(), "Rumple": "r${i % 3}".toString()]
+        } as List<Map<String, String>>
+        BaseMetadataTable table = new BaseMetadataTable(["PID": 0, "File": 1, "Rumple": 2], internal2CustomIDMap,
+                mandatoryColumnsTable, records)
+
+        assert table.listDatasets().size() == 1000
+        for (String dataset : table.listDatasets()) {
+            BaseMetadataTable subset = table.subsetByDataset(dataset)
+            assert subset.size() == 20
+            assert subset.listColumn(BaseMetadataTable.INPUT_TABLE_DATASET).every { it == dataset }
+        }
+
+        BaseMetadataTable subset = table.unsafeSubsetBy((BaseMetadataTable.INPUT_TABLE_DATASET): "p1", (RUMPLE_COL): "r1")
+        assert subset.table == records.findAll { it["PID"] == "p1" && it["Rumple"] == "r1" }.collect {
+            ["datasetCol": it["PID"], "fileCol": it["File"], "rumpleCol": it["Rumple"]]
+        }
+        assert subset.unsafeSubsetByColumn(BaseMetadataTable.INPUT_TABLE_FILE, "f1").listFiles() == [new File("f1")]
+    }
+
+    /**
+     * Workflows extend the table and use the records directly.
+     */
+    static class RecordCountingTable extends BaseMetadataTable {
+        RecordCountingTable(BaseMetadataTable origin) {
+            super(origin)
+        }
+
+        int countRecordsOf(String dataset) {
+            return records.count { Map<String, String> record -> record[INPUT_TABLE_DATASET] == dataset } as int
+        }
+    }
+
+    @Test
+    void testRecordsAreAViewOfTheColumns() {
+        BaseMetadataTable table = readTable(correctTable)
+        BaseMetadataTable subset = table.subsetByDataset("b")
+        assert subset.records == table.records.findAll { Map<String, String> record -> record[BaseMetadataTable.INPUT_TABLE_DATASET] == "b" }
+
+        // Changes to a record are seen by the table and its subsets.
+        table.records[2][RUMPLE_COL] = "changed"
+        assert subset.records[0][RUMPLE_COL] == "changed"
+        assert table.unsafeSubsetByColumn(RUMPLE_COL, "changed").size() == 1
+
+        // Added and removed records only change the table itself.
+        subset.records << ([(BaseMetadataTable.INPUT_TABLE_DATASET): "b", (BaseMetadataTable.INPUT_TABLE_FILE): "b_new.fastq.gz",
+                            (RUMPLE_COL): "ambiguous"] as Map<String, String>)
+        subset.records.remove(0)
+        assert subset.listFiles() == [new File("a_tumor_lib2_run4_R2.fastq.gz"), new File("b_new.fastq.gz")]
+        assert table.size() == 8
+        assert table.subsetByDataset("b").size() == 2
+
+        RecordCountingTable countingTable = new RecordCountingTable(table)
+        assert countingTable.countRecordsOf("a") == 4
+    }
+
+    @Test
+    void testSortingRecordsOnlyReordersTheTable() {
+        BaseMetadataTable table = readTable(correctTable)
+        List<Map<String, String>> originalRecords = table.table
+        BaseMetadataTable subset = table.unsafeSubsetByColumn(BaseMetadataTable.INPUT_TABLE_DATASET, "a")
+        List<File> files = subset.listFiles()
+
+        subset.records.sort { Map<String, String> a, Map<String, String> b ->
+            b[BaseMetadataTable.INPUT_TABLE_FILE] <=> a[BaseMetadataTable.INPUT_TABLE_FILE]
+        }
+        assert subset.listFiles() == files.sort(false) { File file -> file.name }.reverse()
+        assert table.table == originalRecords
+        assert table.unsafeSubsetByColumn(BaseMetadataTable.INPUT_TABLE_DATASET, "a").listFiles() == files
+
+        // Subsets of a reordered table keep its order.
+        Collections.reverse(table.records)
+        assert table.table == originalRecords.reverse()
+        assert table.unsafeSubsetByColumn(BaseMetadataTable.INPUT_TABLE_DATASET, "c").listFiles() ==
+                [new File("a_control_lib2_run8_R2.fastq.gz"), new File("a_control_lib2_run7_R1.fastq.gz")]
+        assert subset.listFiles() == files.sort(false) { File file -> file.name }.reverse()
+    }
+
+    @Test
+    void testReadTableWithDatasetPatterns() {
+        BaseMetadataTable table = readTable(correctTable)
+        BaseMetadataTable filteredTable = MetadataTableFactory.readTable(new File(getResourceFile(correctTable)), "tsv",
+                internal2CustomIDMap, mandatoryColumnsTable, ["b", "c*"], null)
+
+        assert filteredTable.listDatasets() == ["b", "c"]
+        assert filteredTable.table == table.table.findAll { Map<String, String> record -> record[BaseMetadataTable.INPUT_TABLE_DATASET] != "a" }
+        assert filteredTable.headerMap == table.headerMap
+    }
+
+    @Test
+    void testReadTableFromCache() {
+        File cacheDirectory = File.createTempDir()
+        try {
+            MetadataTableCache cache = new MetadataTableCache(cacheDirectory)
+            File file = new File(getResourceFile(correctTable))
+            BaseMetadataTable table = MetadataTableFactory.readTable(file, "tsv", internal2CustomIDMap, mandatoryColumnsTable, null, cache)
+            assert cacheDirectory.listFiles().size() == 1
+
+            BaseMetadataTable cachedTable = MetadataTableFactory.readTable(file, "tsv", internal2CustomIDMap, mandatoryColumnsTable, null, cache)
+            assert !cachedTable.is(table)
+            assert cachedTable.table == table.table
+            assert cachedTable.headerMap == table.headerMap
+            assert cachedTable.subsetByDataset("b").listFiles() == table.subsetByDataset("b").listFiles()
+        } finally {
+            cacheDirectory.deleteDir()
+        }
+    }
+
     @Test
     public void testListDatasets() {
         BaseMetadataTable table = readTable(correctTable);
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import spock.lang.Specification
+
+/**
+ * The remote shell is replaced by a local Bash, which reads the framed commands from stdin just like the remote one.
+ */
+class SSHCommandChannelSpec extends Specification {
+
+    Process shell
+
+    SSHCommandChannel channel
+
+    def setup() {
+        shell = new ProcessBuilder("bash", "-s").start()
+        channel = new SSHCommandChannel(shell.inputStream, shell.outputStream, { shell.destroy() } as Closeable)
+        channel.start()
+    }
+
+    def cleanup() {
+        channel.close()
+    }
+
+    def "stdout, stderr and exit codes of consecutive commands are separated"() {
+        when:
+        def first = channel.execute("echo out; echo err >&2; false")
+        def second = channel.execute("printf 'no newline'; printf 'err' >&2")
+
+        then:
+        first.x == 1
+        first.y == ["out"]
+        first.z == ["err"]
+        second.x == 0
+        second.y == ["no newline"]
+        second.z == ["err"]
+    }
+
+    def "commands cannot break the shell"() {
+        expect:
+        channel.execute(command).x == exitCode
+        channel.execute("echo alive").y == ["alive"]
+
+        where:
+        command       | exitCode
+        "exit 3"      | 3
+        "echo 'open"  | 2
+        "echo \\"     | 0
+        "cat"         | 0
+        "cd /; pwd"   | 0
+    }
+
+    def "each command starts in the working directory of the shell"() {
+        given:
+        String directory = channel.execute("pwd").y[0]
+
+        when:
+        channel.execute("cd /")
+
+        then:
+        channel.execute("pwd").y == [directory]
+    }
+
+    def "stdout is also written to the output stream"() {
+        given:
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+
+        when:
+        channel.execute("echo a; echo b", outputStream)
+
+        then:
+        outputStream.toString() == "a\nb\n"
+    }
+
+    def "a closed shell breaks the channel"() {
+        given:
+        shell.destroy()
+        shell.waitFor()
+
+        when:
+        channel.execute("true")
+
+        then:
+        thrown(IOException)
+        channel.broken
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io
+
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+
+class SSHSessionPoolSpec extends Specification {
+
+    SSHPoolMetrics metrics = new SSHPoolMetrics()
+
+    int openedChannels = 0
+
+    Callable<SSHCommandChannel> localChannels = {
+        Process shell = new ProcessBuilder("bash", "-s").start()
+        SSHCommandChannel channel = new SSHCommandChannel(shell.inputStream, shell.outputStream,
+                { shell.destroy() } as Closeable)
+        channel.start()
+        openedChannels++
+        return channel
+    } as Callable<SSHCommandChannel>
+
+    def "sequential commands reuse a single channel"() {
+        given:
+        SSHSessionPool pool = new SSHSessionPool(localChannels, 8, metrics)
+
+        when:
+        def results = (1..5).collect { pool.execute("echo ${it}") }
+
+        then:
+        results*.y == [["1"], ["2"], ["3"], ["4"], ["5"]]
+        pool.openChannels == 1
+        metrics.sessionsOpened == 1
+        metrics.sessionsReused == 4
+        metrics.commands == 5
+        metrics.inFlight == 0
+
+        cleanup:
+        pool.close()
+    }
+
+    def "the limit grows, if commands wait for channels, but never exceeds the maximum size"() {
+        given:
+        SSHSessionPool pool = new SSHSessionPool(localChannels, 3, metrics)
+
+        when:
+        (1..10).each { pool.adjustLimit(1000000L, 1000000L) }
+
+        then:
+        pool.limit == 3
+    }
+
+    def "the limit shrinks to the peak usage of a window"() {
+        given:
+        SSHSessionPool pool = new SSHSessionPool(localChannels, 8, metrics)
+        (1..6).each { pool.adjustLimit(1000000L, 1000000L) }
+        assert pool.limit == 8
+
+        when:
+        (1..SSHSessionPool.WINDOW_SIZE).each { pool.adjustLimit(0L, 1000000L) }
+
+        then:
+        pool.limit == 1
+    }
+
+    def "concurrent commands are limited by the pool"() {
+        given:
+        SSHSessionPool pool = new SSHSessionPool(localChannels, 2, metrics)
+        ExecutorService executor = Executors.newFixedThreadPool(6)
+
+        when:
+        List<Future> futures = (1..6).collect { int i ->
+            executor.submit({ pool.execute("sleep 0.1; echo ${i}") } as Callable)
+        }
+        def results = futures.collect { it.get() }
+
+        then:
+        results.collect { it.y[0] } == (1..6).collect { "${it}".toString() }
+        openedChannels <= 2
+        metrics.maximumInFlight <= 2
+
+        cleanup:
+        executor.shutdownNow()
+        pool.close()
+    }
+
+    def "a refused session limits the pool to the open channels"() {
+        given:
+        int calls = 0
+        SSHSessionPool pool = new SSHSessionPool({
+            if (calls++ > 0)
+                throw new IOException("open failed")
+            return localChannels.call()
+        } as Callable<SSHCommandChannel>, 8, metrics)
+        ExecutorService executor = Executors.newFixedThreadPool(2)
+
+        when:
+        List<Future> futures = (1..2).collect {
+            executor.submit({ pool.execute("sleep 0.2; echo done") } as Callable)
+        }
+        def results = futures.collect { it.get() }
+
+        then:
+        results.collect { it.y } == [["done"], ["done"]]
+        pool.limit == 1
+        pool.openChannels == 1
+        metrics.sessionOpenFailures == 1
+
+        cleanup:
+        executor.shutdownNow()
+        pool.close()
+    }
+}
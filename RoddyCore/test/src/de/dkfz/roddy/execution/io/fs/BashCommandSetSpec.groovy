@@ -79,4 +79,71 @@ class BashCommandSetSpec extends Specification {
         tmpb       | "*sub*/*.png"  | 'for f in $(ls "/tmp/b/"*sub*/*.png | sort); do echo "${f}"; done'
         tmpc       | "??\\ abc.png" | 'for f in $(ls "/tmp/c/"??\\ abc.png | sort); do echo "${f}"; done'
     }
+
+    def "parse file status probe lines"(String line, String path, boolean exists, boolean directory, boolean readable) {
+        when:
+        FileStatus status = b.parseFileStatusProbeLine(line)
+
+        then:
+        status.path == new File(path)
+        status.exists == exists
+        status.directory == directory
+        status.readable == readable
+
+        where:
+        line                   | path          | exists | directory | readable
+        "efrw\t/tmp/a"         | "/tmp/a"      | true   | false     | true
+        "edrwx\t/tmp/a b"      | "/tmp/a b"    | true   | true      | true
+        "-\t/tmp/c"            | "/tmp/c"      | false  | false     | false
+    }
+
+    def "file status probe lines without flags are ignored"() {
+        expect:
+        b.parseFileStatusProbeLine("") == null
+        b.parseFileStatusProbeLine("/tmp/a") == null
+    }
+
+    def "missing directories are created in one command and reported in order"() {
+        given:
+        File base = File.createTempDir()
+        File existing = new File(base, "existing")
+        existing.mkdir()
+        File occupied = new File(base, "occupied")
+        occupied.text = ""
+        File created = new File(base, "it's/new")
+
+        when:
+        String cmd = b.getCheckAndCreateDirectoriesCommand([existing, occupied, created], null, null)
+        Process process = new ProcessBuilder("bash", "-c", cmd).start()
+        List<String> lines = process.inputStream.readLines()
+        process.waitFor()
+
+        then:
+        lines == [b.readabilityTestPositiveResult, BashCommandSet.FALSE, b.readabilityTestPositiveResult]
+        created.isDirectory()
+
+        cleanup:
+        base.deleteDir()
+    }
+
+    def "paths are passed quoted to the shell of sg"() {
+        given:
+        File base = File.createTempDir()
+        File created = new File(base, 'a "b" $(touch x) `c`')
+
+        when:
+        String cmd = b.getCheckAndCreateDirectoriesCommand([created], "007", "someGroup")
+        // sg runs its command in a new shell.
+        Process process = new ProcessBuilder("bash", "-c", 'sg() { bash -c "$3"; }; ' + cmd).directory(base).start()
+        List<String> lines = process.inputStream.readLines()
+        process.waitFor()
+
+        then:
+        lines == [b.readabilityTestPositiveResult]
+        created.isDirectory()
+        base.list().toList() == [created.name]
+
+        cleanup:
+        base.deleteDir()
+    }
 }
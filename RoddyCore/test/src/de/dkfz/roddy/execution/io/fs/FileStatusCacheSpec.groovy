@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io.fs
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+class FileStatusCacheSpec extends Specification {
+
+    def "unknown paths are misses"() {
+        given:
+        FileStatusCache cache = new FileStatusCache()
+
+        expect:
+        cache.getStatus(new File("/tmp/a")) == null
+        cache.getFileExists(new File("/tmp/a")) == null
+        cache.hits == 0
+        cache.misses == 2
+    }
+
+    def "probed status answers existence and access questions"() {
+        given:
+        FileStatusCache cache = new FileStatusCache()
+        File file = new File("/tmp/a")
+        cache.putStatus(FileStatus.fromFlags(file, "efrw"))
+
+        expect:
+        cache.getFileExists(file)
+        !cache.getDirectoryExists(file)
+        cache.getStatus(file).writable
+        !cache.getStatus(file).executable
+        cache.hits == 3
+    }
+
+    def "listed files answer existence but not access questions"() {
+        given:
+        FileStatusCache cache = new FileStatusCache()
+        File dir = new File("/tmp/dir")
+        cache.putListed(dir, true)
+
+        expect:
+        cache.getDirectoryExists(dir)
+        !cache.getFileExists(dir)
+        cache.getStatus(dir) == null
+    }
+
+    def "information from different sources is merged"() {
+        given:
+        FileStatusCache cache = new FileStatusCache()
+        File file = new File("/tmp/a")
+        cache.putStatus(FileStatus.fromFlags(file, "efr"))
+        cache.putOwner(file, "roddy")
+
+        expect:
+        cache.getStatus(file).readable
+        cache.getOwner(file) == "roddy"
+        cache.size() == 1
+    }
+
+    def "invalidation removes single paths or whole trees"() {
+        given:
+        FileStatusCache cache = new FileStatusCache()
+        ["/tmp/dir", "/tmp/dir/a", "/tmp/dir/sub/b", "/tmp/dir2", "/tmp/c"].each {
+            cache.putListed(new File(it), false)
+        }
+
+        when:
+        cache.invalidate(new File("/tmp/c"))
+        cache.invalidateRecursively(new File("/tmp/dir"))
+
+        then:
+        cache.size() == 1
+        cache.getFileExists(new File("/tmp/dir2"))
+    }
+
+    def "entries expire"() {
+        given:
+        FileStatusCache cache = new FileStatusCache(10, Duration.ofMillis(1))
+        File file = new File("/tmp/a")
+        cache.putListed(file, false)
+
+        when:
+        Thread.sleep(20)
+
+        then:
+        cache.getFileExists(file) == null
+    }
+}
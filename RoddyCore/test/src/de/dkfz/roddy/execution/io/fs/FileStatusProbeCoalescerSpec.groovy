@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.io.fs
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class FileStatusProbeCoalescerSpec extends Specification {
+
+    def "single requests are probed directly"() {
+        given:
+        List<Collection<File>> probes = []
+        FileStatusProbeCoalescer coalescer = new FileStatusProbeCoalescer({ Collection<File> files ->
+            probes << new ArrayList<File>(files)
+            files.collectEntries { [it, FileStatus.fromFlags(it, "efr")] }
+        })
+
+        expect:
+        coalescer.probe(new File("/tmp/a")).readable
+        !coalescer.probe(new File("/tmp/b")).directory
+        probes == [[new File("/tmp/a")], [new File("/tmp/b")]]
+    }
+
+    def "files missing in the probe result are reported as missing"() {
+        given:
+        FileStatusProbeCoalescer coalescer = new FileStatusProbeCoalescer({ Collection<File> files -> [:] })
+
+        expect:
+        !coalescer.probe(new File("/tmp/a")).exists
+    }
+
+    def "concurrent requests are merged into one probe"() {
+        given:
+        CountDownLatch firstProbeStarted = new CountDownLatch(1)
+        CountDownLatch releaseFirstProbe = new CountDownLatch(1)
+        List<Integer> probeSizes = [].asSynchronized()
+        FileStatusProbeCoalescer coalescer = new FileStatusProbeCoalescer({ Collection<File> files ->
+            probeSizes << files.size()
+            if (probeSizes.size() == 1) {
+                firstProbeStarted.countDown()
+                releaseFirstProbe.await(10, TimeUnit.SECONDS)
+            }
+            files.collectEntries { [it, FileStatus.fromFlags(it, "ed")] }
+        })
+        def pool = Executors.newFixedThreadPool(5)
+
+        when:
+        def first = pool.submit({ coalescer.probe(new File("/tmp/first")) } as java.util.concurrent.Callable)
+        firstProbeStarted.await(10, TimeUnit.SECONDS)
+        def others = (1..4).collect { int i -> pool.submit({ coalescer.probe(new File("/tmp/${i}")) } as java.util.concurrent.Callable) }
+        while (coalescer.pendingRequests.size() < 4) Thread.sleep(10)
+        releaseFirstProbe.countDown()
+        def results = ([first] + others).collect { it.get(10, TimeUnit.SECONDS) as FileStatus }
+
+        then:
+        results.every { it.directory }
+        probeSizes == [1, 4]
+
+        cleanup:
+        pool.shutdownNow()
+    }
+}
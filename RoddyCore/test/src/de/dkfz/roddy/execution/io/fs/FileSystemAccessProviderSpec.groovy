@@ -61,4 +61,36 @@ class FileSystemAccessProviderSpec extends Specification {
         baseFolder                      | "${baseFolder}/[a-z]*.txt"      | AbsolutePath           | [files[2]]
         baseFolder                      | "${baseFolder}/[a-z]b[a-z].png" | AbsolutePath           | [files[0], files[1]]
     }
-}
\ No newline at end of file
+
+    def "probe file status with a single command"() {
+        given:
+        File missing = new File(baseFolder, "missing.png")
+        File quoted = new File(baseFolder, "it's here.png") << ""
+        String command = fsap.commandSet.getFileStatusProbeCommand([files[0], baseFolder, missing, quoted])
+
+        when:
+        Map<File, FileStatus> status = ExecutionService.instance.execute(command, true).stdout
+                .collect { fsap.commandSet.parseFileStatusProbeLine(it) }
+                .collectEntries { [it.path, it] }
+
+        then:
+        status[files[0]].regularFile
+        status[files[0]].readable
+        status[baseFolder].directory
+        !status[missing].exists
+        status[quoted].regularFile
+    }
+
+    def "query file status of local files"() {
+        given:
+        File missing = new File(baseFolder, "missing.txt")
+
+        when:
+        Map<File, FileStatus> status = fsap.queryFileStatus([files[2], missing, files[2], null])
+
+        then:
+        status.keySet() as List == [files[2], missing]
+        status[files[2]].readable
+        !status[missing].exists
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.jobs
+
+import de.dkfz.roddy.Constants
+import de.dkfz.roddy.core.ExecutionContext
+import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
+import spock.lang.Specification
+
+class JobCallsFileWriterSpec extends Specification {
+
+    FileSystemAccessProvider originalProvider = FileSystemAccessProvider.instance
+
+    FileSystemAccessProvider provider = Mock(FileSystemAccessProvider)
+
+    ExecutionContext context = Mock(ExecutionContext)
+
+    File realCallsFile = new File("/tmp/realJobCalls.txt")
+
+    File repeatableCallsFile = new File("/tmp/repeatableJobCalls.sh")
+
+    def setup() {
+        FileSystemAccessProvider.resetFileSystemAccessProvider(provider)
+    }
+
+    def cleanup() {
+        FileSystemAccessProvider.resetFileSystemAccessProvider(originalProvider)
+    }
+
+    private Command command(String id, String call) {
+        Command command = Stub(Command)
+        command.getJobID() >> new BEJobID(id)
+        command.toBashCommandString() >> call
+        return command
+    }
+
+    def "commands are written in call order, after they were submitted"() {
+        given:
+        JobCallsFileWriter writer = new JobCallsFileWriter(context, realCallsFile, repeatableCallsFile, 2)
+        Command first = command("1001", "qsub first")
+        Command second = command("1002", "qsub -W depend=afterok:1001 second")
+        writer.addCalledCommand(first)
+        writer.addCalledCommand(second)
+        String sep = Constants.ENV_LINESEPARATOR
+
+        when:
+        writer.commandSubmitted(second)
+
+        then:
+        0 * provider._
+
+        when:
+        writer.commandSubmitted(first)
+
+        then:
+        1 * provider.writeTextFile(realCallsFile,
+                "1001, qsub first${sep}1002, qsub -W depend=afterok:1001 second${sep}", context) >> true
+        1 * provider.writeTextFile(repeatableCallsFile,
+                'j_00000000=`qsub first`' + sep + 'j_00000001=`qsub -W depend=afterok:$j_00000000 second`' + sep,
+                context) >> true
+    }
+
+    def "finish writes all remaining commands"() {
+        given:
+        JobCallsFileWriter writer = new JobCallsFileWriter(context, realCallsFile, repeatableCallsFile, 1)
+        Command first = command("1001", "qsub first")
+        Command second = command("1002", "qsub second")
+        writer.addCalledCommand(first)
+        writer.addCalledCommand(second)
+        provider.writeTextFile(_, _, _) >> true
+        writer.commandSubmitted(first)
+
+        when:
+        writer.finish()
+
+        then:
+        1 * provider.appendLinesToFile(false, realCallsFile, ["1002, qsub second"], true) >> true
+        1 * provider.appendLinesToFile(false, repeatableCallsFile, ['j_00000001=`qsub second`'], true) >> true
+        0 * context.addError(_)
+    }
+
+    def "lines are kept, if they could not be written"() {
+        given:
+        JobCallsFileWriter writer = new JobCallsFileWriter(context, realCallsFile, repeatableCallsFile, 1)
+        Command first = command("1001", "qsub first")
+        Command second = command("1002", "qsub second")
+        writer.addCalledCommand(first)
+        writer.addCalledCommand(second)
+        String sep = Constants.ENV_LINESEPARATOR
+
+        when:
+        writer.commandSubmitted(first)
+
+        then:
+        1 * provider.writeTextFile(realCallsFile, "1001, qsub first${sep}", context) >> false
+        1 * provider.writeTextFile(repeatableCallsFile, 'j_00000000=`qsub first`' + sep, context) >> true
+        1 * context.addWarning(_)
+
+        when:
+        writer.commandSubmitted(second)
+
+        then: "the lines of the failed write are written with the next group"
+        1 * provider.writeTextFile(realCallsFile, "1001, qsub first${sep}1002, qsub second${sep}", context) >> true
+        1 * provider.appendLinesToFile(false, repeatableCallsFile, ['j_00000001=`qsub second`'], true) >> true
+        0 * context.addWarning(_)
+
+        when: "the remaining lines cannot be written at the end"
+        writer.addCalledCommand(command("1003", "qsub third"))
+        writer.finish()
+
+        then:
+        provider.appendLinesToFile(*_) >> { throw new RuntimeException("Not implemented yet!") }
+        1 * context.addError(_)
+    }
+}
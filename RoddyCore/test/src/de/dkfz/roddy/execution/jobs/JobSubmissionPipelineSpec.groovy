@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.execution.jobs
+
+import de.dkfz.roddy.core.ExecutionContext
+import de.dkfz.roddy.execution.io.fs.BashCommandSet
+import de.dkfz.roddy.execution.io.fs.FileSystemAccessProvider
+import spock.lang.Specification
+
+class JobSubmissionPipelineSpec extends Specification {
+
+    FileSystemAccessProvider originalProvider = FileSystemAccessProvider.instance
+
+    FileSystemAccessProvider provider = Mock(FileSystemAccessProvider)
+
+    ExecutionContext context = Mock(ExecutionContext)
+
+    File logFile = new File("/tmp/jobStateLogfile.txt")
+
+    def setup() {
+        FileSystemAccessProvider.resetFileSystemAccessProvider(provider)
+    }
+
+    def cleanup() {
+        FileSystemAccessProvider.resetFileSystemAccessProvider(originalProvider)
+    }
+
+    def "lines of held jobs are appended in groups"() {
+        given:
+        JobSubmissionPipeline pipeline = new JobSubmissionPipeline(context, 1, 2)
+
+        when:
+        pipeline.appendJobStateLine(logFile, "a", true)
+
+        then:
+        0 * provider.appendLinesToFile(*_)
+
+        when:
+        pipeline.appendJobStateLine(logFile, "b", true)
+        pipeline.appendJobStateLine(logFile, "c", true)
+        pipeline.finish()
+
+        then:
+        1 * provider.appendLinesToFile(true, logFile, ["a", "b"], true) >> true
+
+        then:
+        1 * provider.appendLinesToFile(true, logFile, ["c"], true) >> true
+
+        cleanup:
+        pipeline.close()
+    }
+
+    def "lines of jobs that are not held are appended immediately together with buffered lines"() {
+        given:
+        JobSubmissionPipeline pipeline = new JobSubmissionPipeline(context, 1, 10)
+        pipeline.appendJobStateLine(logFile, "a", true)
+
+        when:
+        pipeline.appendJobStateLine(logFile, "b", false)
+
+        then:
+        1 * provider.appendLinesToFile(true, logFile, ["a", "b"], true) >> true
+
+        cleanup:
+        pipeline.close()
+    }
+
+    def "lines that could not be appended are kept for the next try"() {
+        given:
+        JobSubmissionPipeline pipeline = new JobSubmissionPipeline(context, 1, 10)
+
+        when:
+        pipeline.appendJobStateLine(logFile, "a", false)
+        pipeline.appendJobStateLine(logFile, "b", false)
+
+        then:
+        1 * provider.appendLinesToFile(true, logFile, ["a"], true) >> false
+        1 * provider.appendLinesToFile(true, logFile, ["a", "b"], true) >> true
+
+        cleanup:
+        pipeline.close()
+    }
+
+    def "finish waits for all parameter files and reports failed writes"() {
+        given:
+        JobSubmissionPipeline pipeline = new JobSubmissionPipeline(context, 2, 10)
+
+        when:
+        pipeline.storeParameterFile(new File("/tmp/a.parameters"), "a", false)
+        pipeline.storeParameterFile(new File("/tmp/b.parameters"), "b", false)
+        boolean written = pipeline.finish()
+
+        then:
+        1 * provider.writeTextFile(new File("/tmp/a.parameters"), "a", context) >> true
+        1 * provider.writeTextFile(new File("/tmp/b.parameters"), "b", context) >> false
+        1 * context.addError(_)
+        !written
+
+        cleanup:
+        pipeline.close()
+    }
+
+    def "requested directories are created once with a single call"() {
+        given:
+        JobSubmissionPipeline pipeline = new JobSubmissionPipeline(context, 1, 10)
+        File a = new File("/tmp/a")
+        File b = new File("/tmp/b")
+
+        when:
+        pipeline.requestDirectory(a)
+        pipeline.requestDirectory(b)
+        pipeline.requestDirectory(a)
+        boolean created = pipeline.createRequestedDirectories()
+
+        then:
+        1 * provider.createDirectories([a, b], context) >> new LinkedHashSet<File>()
+        created
+
+        when:
+        pipeline.requestDirectory(a)
+        created = pipeline.createRequestedDirectories()
+
+        then:
+        0 * provider.createDirectories(*_)
+        created
+
+        cleanup:
+        pipeline.close()
+    }
+
+    def "directories that could not be created are requested again"() {
+        given:
+        JobSubmissionPipeline pipeline = new JobSubmissionPipeline(context, 1, 10)
+        File a = new File("/tmp/a")
+
+        when:
+        pipeline.requestDirectory(a)
+        boolean created = pipeline.createRequestedDirectories()
+
+        then:
+        1 * provider.createDirectories([a], context) >> ([a] as LinkedHashSet<File>)
+        !created
+
+        when:
+        pipeline.requestDirectory(a)
+        created = pipeline.finish()
+
+        then:
+        1 * provider.createDirectories([a], context) >> new LinkedHashSet<File>()
+        created
+
+        cleanup:
+        pipeline.close()
+    }
+
+    def "requested directories are created before a file is written into them"() {
+        given:
+        JobSubmissionPipeline pipeline = new JobSubmissionPipeline(context, 1, 10)
+        File a = new File("/tmp/a")
+
+        when:
+        pipeline.requestDirectory(a)
+        pipeline.createRequestedDirectoriesFor(new File("/tmp/b/file.txt"))
+
+        then:
+        0 * provider.createDirectories(*_)
+
+        when:
+        pipeline.createRequestedDirectoriesFor(new File("/tmp/a/sub/file.txt"))
+        pipeline.createRequestedDirectoriesFor(new File("/tmp/a/file.txt"))
+
+        then:
+        1 * provider.createDirectories([a], context) >> new LinkedHashSet<File>()
+
+        cleanup:
+        pipeline.close()
+    }
+
+    def "locked append of multiple lines quotes each line"() {
+        expect:
+        new BashCommandSet().getLockedAppendLinesToFileCommand(logFile, ["a b", "it's"]) ==
+                "lockfile /tmp/jobStateLogfile.txt~; printf '%s\\n' 'a b' 'it'\\''s' >> /tmp/jobStateLogfile.txt; " +
+                "rm -rf /tmp/jobStateLogfile.txt~"
+    }
+}
@@ -11,6 +11,8 @@ import static de.dkfz.roddy.Constants.DEFAULT
 import de.dkfz.roddy.RunMode
 import de.dkfz.roddy.config.*
 import de.dkfz.roddy.config.loader.ConfigurationFactory as CF
+import de.dkfz.roddy.config.loader.ConfigurationNode
+import de.dkfz.roddy.config.loader.ConfigurationNodeReader
 import de.dkfz.roddy.core.ContextResource
 import de.dkfz.roddy.core.ExecutionContext
 import de.dkfz.roddy.execution.io.ExecutionService
@@ -21,8 +23,6 @@ import de.dkfz.roddy.plugins.LibrariesFactory
 import de.dkfz.roddy.plugins.LibrariesFactoryTest
 import de.dkfz.roddy.tools.Tuple2
 import groovy.transform.CompileStatic
-import groovy.transform.TypeCheckingMode
-import groovy.util.slurpersupport.NodeChild
 import org.junit.Before
 import org.junit.Ignore
 import org.junit.Rule
@@ -61,12 +61,12 @@ class BaseFileTest {
     private static final String STR_VALID_ONSCRIPTPARAMETER_WITH_TOOL_AND_PARAMNAME =
             "<filename class='${TEST_BASE_FILE_PREFIX}ONSCRIPT' onScriptParameter='testScript:BAM_INDEX_FILE' pattern='/tmp/onScript' />"
 
-    private NodeChild getParsedFilenamePattern(String filenamePattern) {
+    private ConfigurationNode getParsedFilenamePattern(String filenamePattern) {
         parseXML("<filenames filestagesbase='de.dkfz.roddy.knowledge.files.FileStage'>${filenamePattern}</filenames>")
     }
 
-    private static NodeChild parseXML(String xml) {
-        new XmlSlurper().parseText(xml) as NodeChild
+    private static ConfigurationNode parseXML(String xml) {
+        ConfigurationNodeReader.read(xml)
     }
 
     @Before
@@ -177,9 +177,8 @@ class BaseFileTest {
         assert obj instanceof BaseFile
     }
 
-    @groovy.transform.CompileStatic(TypeCheckingMode.SKIP)
-    private NodeChild parseFilenamePattern(String patternXML) {
-        getParsedFilenamePattern(patternXML).filename[0] as NodeChild
+    private ConfigurationNode parseFilenamePattern(String patternXML) {
+        getParsedFilenamePattern(patternXML).child("filename")
     }
 
     Tuple2<File, FilenamePattern> callBaseFileFindFilenameDerivateMethod(String method, BaseFile obj, FilenamePatternDependency dependency, String tag = DEFAULT) {
@@ -206,6 +205,12 @@ class BaseFileTest {
         LinkedHashMap<FilenamePatternDependency, LinkedList<FilenamePattern>> availableFilenamePatterns =
                 BaseFile.loadAvailableFilenamePatternsForBaseFileClass(obj, mockedContext) as LinkedHashMap<FilenamePatternDependency, LinkedList<FilenamePattern>>;
         assert availableFilenamePatterns[FilenamePatternDependency.onMethod].size() == 1
+
+        // This test method is on the stack, so its pattern has to be found.
+        Tuple2<File, FilenamePattern> filenamePatterns = callBaseFileFindFilenameDerivateMethod('findFilenameFromOnMethodPatterns', obj, FilenamePatternDependency.onMethod)
+        assert filenamePatterns != null
+        assert filenamePatterns.x == new File('/tmp/onMethodwithClassName')
+        assert filenamePatterns.y.is(pattern)
     }
 
     @Test
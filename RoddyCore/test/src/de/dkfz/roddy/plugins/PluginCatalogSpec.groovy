@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.plugins
+
+import spock.lang.Specification
+
+class PluginCatalogSpec extends Specification {
+
+    File directory = File.createTempDir()
+
+    File pluginsDirectory = new File(directory, "plugins")
+
+    File catalogFile = new File(directory, PluginCatalog.CATALOG_FILE_NAME)
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    File createPlugin(String name) {
+        File plugin = new File(pluginsDirectory, name)
+        new File(plugin, "resources/analysisTools").mkdirs()
+        new File(plugin, "resources/configurationFiles").mkdirs()
+        new File(plugin, LibrariesFactory.BUILDINFO_TEXTFILE) << "dependson=PluginBase:1.0.0\n"
+        new File(plugin, LibrariesFactory.BUILDVERSION_TEXTFILE) << "1.0\n1\n"
+        new File(plugin, "${name}.jar") << ""
+        return plugin
+    }
+
+    def "scanned plugin directories are taken from the catalog until they are modified"() {
+        given:
+        File plugin = createPlugin("TestPlugin_1.0.0-1")
+        new File(pluginsDirectory, "not a plugin").mkdirs()
+        PluginCatalog catalog = new PluginCatalog(catalogFile)
+
+        when:
+        List<PluginDirectoryInfo> scanned = LibrariesFactory.loadMapOfAvailablePlugins([pluginsDirectory], catalog)
+        catalog.save()
+        PluginDirectoryInfo cached = new PluginCatalog(catalogFile).get(plugin)
+
+        then:
+        scanned*.directory == [plugin]
+        scanned[0].contentKnown
+        scanned[0].jarFile == new File(plugin, "TestPlugin_1.0.0-1.jar")
+        cached.type == PluginType.RODDY
+        cached.pluginID == "TestPlugin"
+        cached.jarFile == scanned[0].jarFile
+        cached.buildinfoLines == ["dependson=PluginBase:1.0.0"]
+
+        when:
+        plugin.setLastModified(plugin.lastModified() - 10000)
+
+        then:
+        new PluginCatalog(catalogFile).get(plugin) == null
+    }
+
+    def "plugin information is read from the scanned content"() {
+        given:
+        File plugin = createPlugin("TestPlugin_1.0.0-1")
+
+        when:
+        PluginInfoMap plugins = LibrariesFactory.loadPluginsFromDirectories(
+                LibrariesFactory.loadMapOfAvailablePlugins([pluginsDirectory], new PluginCatalog(catalogFile)))
+        PluginInfo info = plugins["TestPlugin"]["1.0.0-1"]
+
+        then:
+        info instanceof JarFullPluginInfo
+        (info as JarFullPluginInfo).jarFile == new File(plugin, "TestPlugin_1.0.0-1.jar")
+        info.dependencies == ["PluginBase": "1.0.0"]
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.plugins
+
+import de.dkfz.roddy.knowledge.files.BaseFile
+import spock.lang.Specification
+
+class SyntheticClassCacheSpec extends Specification {
+
+    File directory = File.createTempDir()
+
+    static final String CLASS_NAME = "${SyntheticPluginInfo.SYNTHETIC_PACKAGE}.CachedTestFile"
+
+    static final String SOURCE = """
+        package ${SyntheticPluginInfo.SYNTHETIC_PACKAGE}
+
+        public class CachedTestFile extends de.dkfz.roddy.knowledge.files.BaseFile {
+            public CachedTestFile(de.dkfz.roddy.knowledge.files.BaseFile.ConstructionHelperForBaseFiles helper) {
+                super(helper);
+            }
+        }
+        """
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    def "synthetic classes are compiled once and defined from the cached byte code afterwards"() {
+        given:
+        SyntheticClassCache cache = new SyntheticClassCache(directory)
+        GroovyClassLoader firstLoader = new GroovyClassLoader()
+        GroovyClassLoader secondLoader = new GroovyClassLoader()
+
+        when:
+        Class first = cache.loadOrCompile(CLASS_NAME, SOURCE, firstLoader)
+        Class second = new SyntheticClassCache(directory).loadOrCompile(CLASS_NAME, SOURCE, secondLoader)
+
+        then:
+        cache.misses == 1
+        directory.listFiles()*.name.findAll { it.endsWith(".class") }.size() == 1
+        first.name == CLASS_NAME
+        second.name == CLASS_NAME
+        BaseFile.isAssignableFrom(second)
+        !first.is(second)
+        secondLoader.loadClass(CLASS_NAME).is(second)
+
+        when:
+        Class again = cache.loadOrCompile(CLASS_NAME, SOURCE, firstLoader)
+
+        then:
+        again.is(first)
+        cache.hits == 1
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import spock.lang.Specification
+
+class AtomicFilesSpec extends Specification {
+
+    def "files are replaced completely or not at all"() {
+        given:
+        File directory = File.createTempDir()
+        File file = new File(directory, "sub/entry")
+
+        when:
+        AtomicFiles.write(file, "content".bytes)
+        AtomicFiles.write(file) { File tempFile ->
+            tempFile.text = "incomplete"
+            throw new IOException("Failed")
+        }
+
+        then:
+        thrown(IOException)
+        file.text == "content"
+        file.parentFile.list().toList() == ["entry"]
+
+        cleanup:
+        directory.deleteDir()
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import spock.lang.Specification
+
+class ParallelTasksSpec extends Specification {
+
+    def "each item is processed once and the results are in the order of the items"() {
+        given:
+        List<Integer> items = (1..50).toList()
+
+        when:
+        List<List> results = ParallelTasks.collect(items, "test-%d", { Integer item ->
+            Thread.sleep(1)
+            [item, Thread.currentThread().name]
+        } as ParallelTasks.Task<Integer, List>)
+
+        then:
+        results*.get(0) == items
+        results.every { List result -> (result[1] as String).startsWith("test-") }
+    }
+
+    def "a single item is processed in the calling thread"() {
+        expect:
+        ParallelTasks.collect([1], "test-%d", { Integer item ->
+            Thread.currentThread().name
+        } as ParallelTasks.Task<Integer, String>) == [Thread.currentThread().name]
+    }
+
+    def "the exception of a task is rethrown"() {
+        when:
+        ParallelTasks.collect((1..20).toList(), "test-%d", { Integer item ->
+            if (item == 10)
+                throw new IOException("Item ${item} failed")
+            item
+        } as ParallelTasks.Task<Integer, Integer>)
+
+        then:
+        IOException ex = thrown()
+        ex.message == "Item 10 failed"
+    }
+}
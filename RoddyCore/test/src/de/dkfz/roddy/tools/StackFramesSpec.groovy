@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import spock.lang.Specification
+
+class StackFramesSpec extends Specification {
+
+    private List<String> visitUntil(String stopMethod) {
+        List<String> visited = []
+        StackFrames.walk({ String className, String methodName ->
+            visited << methodName
+            return methodName != stopMethod
+        } as StackFrames.FrameVisitor)
+        return visited
+    }
+
+    private List<String> callVisitUntil(String stopMethod) {
+        return visitUntil(stopMethod)
+    }
+
+    def "frames are visited from the caller outwards until the visitor stops"() {
+        when:
+        List<String> visited = callVisitUntil("callVisitUntil")
+
+        then:
+        visited.last() == "callVisitUntil"
+        visited.indexOf("visitUntil") < visited.indexOf("callVisitUntil")
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2026 German Cancer Research Center (Deutsches Krebsforschungszentrum, DKFZ).
+ *
+ * Distributed under the MIT License (license terms are at https://www.github.com/TheRoddyWMS/Roddy/LICENSE.txt).
+ */
+
+package de.dkfz.roddy.tools
+
+import spock.lang.Specification
+
+class TokenReplacerSpec extends Specification {
+
+    def "tokens are replaced in a single pass"() {
+        given:
+        TokenReplacer replacer = new TokenReplacer()
+        replacer.put("12", "a")
+        replacer.put("123", "b")
+        replacer.put("a", "12")
+
+        expect:
+        replacer.size() == 3
+        replacer.replace(text) == expected
+
+        where:
+        text          | expected
+        ""            | ""
+        "xyz"         | "xyz"
+        "12"          | "a"
+        "1234 12 x12" | "b4 a xa"
+        "a"           | "12"
+    }
+
+    def "replacements of known tokens can be changed"() {
+        given:
+        TokenReplacer replacer = new TokenReplacer()
+        replacer.put("1", "a")
+        replacer.put("1", "b")
+
+        expect:
+        replacer.size() == 1
+        replacer.replace("11") == "bb"
+    }
+}